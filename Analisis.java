@@ -0,0 +1,178 @@
+package app;
+
+import analizadorLexico.AnalizadorLexico;
+import analizadorLexico.Token;
+import analizadorSintactico.AnalizadorLL1;
+import analizadorSintactico.ClasificadorSemantico;
+import analizadorSintactico.TablaLL1;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Resultado de analizar un código fuente en silencio (sin mensajes en consola)
+ * con una tabla LL(1) compartida. Lo usan los modos que analizan muchas
+ * entradas en el mismo proceso: por lotes y servidor.
+ *
+ * @author Sophia
+ */
+public class Analisis {
+
+    private final ColectorDiagnosticos diagnosticos;
+    private final AnalizadorLexico lexico;
+    private AnalizadorLL1 sintactico;
+    private ClasificadorSemantico semantico;
+
+    private Analisis(String codigoFuente, BooleanSupplier cancelado) {
+        this.diagnosticos = new ColectorDiagnosticos();
+        this.lexico = new AnalizadorLexico(codigoFuente, diagnosticos);
+        lexico.setMostrarSalida(false);
+        lexico.setCancelado(cancelado);
+        lexico.analizar();
+    }
+
+    /**
+     * Ejecuta solo el análisis léxico.
+     *
+     * @param codigoFuente Código fuente
+     * @return Análisis con tokens y diagnósticos léxicos
+     */
+    public static Analisis lexico(String codigoFuente) {
+        return new Analisis(codigoFuente, null);
+    }
+
+    /**
+     * Ejecuta el análisis léxico y el sintáctico.
+     *
+     * @param codigoFuente Código fuente
+     * @param tablaLL1 Tabla compartida
+     * @return Análisis con árbol de derivación
+     */
+    public static Analisis sintactico(String codigoFuente, TablaLL1 tablaLL1) {
+        Analisis analisis = new Analisis(codigoFuente, null);
+        analisis.analizarSintaxis(tablaLL1, null);
+        return analisis;
+    }
+
+    private void analizarSintaxis(TablaLL1 tablaLL1, BooleanSupplier cancelado) {
+        sintactico = new AnalizadorLL1(tablaLL1, lexico.getTokensValidos());
+        sintactico.setCancelado(cancelado);
+        sintactico.analizar();
+        ControladorPrincipal.registrarErroresSintacticos(sintactico.getErroresSintacticos(), diagnosticos);
+    }
+
+    /**
+     * Ejecuta las tres etapas.
+     *
+     * @param codigoFuente Código fuente
+     * @param tablaLL1 Tabla compartida
+     * @return Análisis completo
+     */
+    public static Analisis completo(String codigoFuente, TablaLL1 tablaLL1) {
+        return completo(codigoFuente, tablaLL1, null);
+    }
+
+    /**
+     * Ejecuta las tres etapas, abandonando el análisis si se cancela. Cada etapa
+     * consulta la cancelación cada tantos tokens, así que una entrada grande no
+     * se termina de analizar después de cancelada.
+     *
+     * @param codigoFuente Código fuente
+     * @param tablaLL1 Tabla compartida
+     * @param cancelado Se consulta durante cada etapa (null: no se cancela)
+     * @return Análisis completo, o null si se canceló
+     */
+    public static Analisis completo(String codigoFuente, TablaLL1 tablaLL1, BooleanSupplier cancelado) {
+        try {
+            Analisis analisis = new Analisis(codigoFuente, cancelado);
+            analisis.analizarSintaxis(tablaLL1, cancelado);
+            analisis.semantico = new ClasificadorSemantico(analisis.diagnosticos);
+            analisis.semantico.setMostrarSalida(false);
+            analisis.semantico.setCancelado(cancelado);
+            analisis.semantico.analizar(analisis.lexico.getTokensValidos());
+            return analisis;
+        } catch (CancellationException e) {
+            return null;
+        }
+    }
+
+    //region UBICACIÓN
+
+    /**
+     * Token al que se refiere un diagnóstico, según cómo numera la posición cada etapa.
+     *
+     * @param diagnostico Diagnóstico de este análisis
+     * @return El token, o null si no se puede ubicar
+     */
+    public Token getToken(Diagnostico diagnostico) {
+        int posicion = diagnostico.posicion();
+        switch (diagnostico.etapa()) {
+            case LEXICO -> {
+                // Número de token; los inválidos se guardan en orden de número
+                List<Token> tokens = lexico.getTokensInvalidos();
+                int inicio = 0;
+                int fin = tokens.size() - 1;
+                while (inicio <= fin) {
+                    int medio = (inicio + fin) >>> 1;
+                    int numero = tokens.get(medio).getNumeroToken();
+                    if (numero == posicion) {
+                        return tokens.get(medio);
+                    } else if (numero < posicion) {
+                        inicio = medio + 1;
+                    } else {
+                        fin = medio - 1;
+                    }
+                }
+            }
+            case SINTACTICO -> {
+                // Número de error del analizador sintáctico
+                List<Token> tokens = sintactico != null ? sintactico.getTokensErrores() : List.of();
+                if (posicion >= 0 && posicion < tokens.size()) {
+                    return tokens.get(posicion);
+                }
+            }
+            case SEMANTICO -> {
+                // Cantidad de tokens válidos procesados; se confirma con la línea del mensaje
+                List<Token> tokens = lexico.getTokensValidos();
+                if (posicion >= 1 && posicion <= tokens.size()) {
+                    Token token = tokens.get(posicion - 1);
+                    Object[] argumentos = diagnostico.argumentos();
+                    if (argumentos.length > 0 && argumentos[0] instanceof Integer linea && token.getLinea() == linea) {
+                        return token;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    //endregion
+
+    //region GETTERS
+
+    public ColectorDiagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
+    public AnalizadorLexico getLexico() {
+        return lexico;
+    }
+
+    /**
+     * @return Analizador sintáctico (null si solo se hizo el análisis léxico)
+     */
+    public AnalizadorLL1 getSintactico() {
+        return sintactico;
+    }
+
+    /**
+     * @return Clasificador semántico (null si no se hizo el análisis semántico)
+     */
+    public ClasificadorSemantico getSemantico() {
+        return semantico;
+    }
+
+    //endregion
+}
@@ -0,0 +1,393 @@
+package app;
+
+import analizadorLexico.AnalizadorLexico;
+import analizadorLexico.Token;
+import analizadorSintactico.AnalizadorLL1;
+import analizadorSintactico.ClasificadorSemantico;
+import analizadorSintactico.TablaLL1;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import eventos.EventosJFR;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Análisis con las tres etapas encadenadas, cada una en su propio hilo.
+ *
+ * El analizador léxico publica los tokens en lotes en una cola acotada; el
+ * sintáctico los consume a medida que llegan y, a su vez, pasa cada token que
+ * consume al clasificador semántico por otra cola. Las colas limitan los lotes
+ * en vuelo: si una etapa se atrasa, la anterior espera (contrapresión), así que
+ * la memoria intermedia no crece con el tamaño de la entrada.
+ *
+ * Con entradas grandes el tiempo total se acerca al de la etapa más lenta en
+ * lugar de la suma de las tres.
+ *
+ * Con memoria acotada (ejecutarAcotado) el código se lee de disco a medida que
+ * avanza el léxico, ninguna etapa conserva los tokens, el árbol se arma y se
+ * descarta miembro por miembro (y sentencia por sentencia dentro de cada
+ * función) y los errores se registran apenas se detectan:
+ * solo quedan en memoria las tablas de símbolos, el grafo de llamadas y los
+ * diagnósticos, que el colector ya limita por etapa.
+ *
+ * @author Sophia
+ */
+public class AnalisisEncadenado {
+
+    // Tokens por lote
+    public static final int TAMANO_LOTE = 4096;
+
+    // Lotes en vuelo entre dos etapas
+    public static final int CAPACIDAD_COLA = 8;
+
+    // Subárboles que se entregan y descartan con memoria acotada
+    private static final String MIEMBRO = "Miembro";
+    private static final Set<String> SUBARBOLES_DESCARTADOS = Set.of(MIEMBRO, "Sentencia");
+
+    private final ColectorDiagnosticos diagnosticos;
+    private final AnalizadorLexico lexico;
+    private final AnalizadorLL1 sintactico;
+    private final ClasificadorSemantico semantico;
+
+    private final Lotes salidaLexico;
+    private final Lotes salidaSintactico;
+    private final Lectura entradaSemantico;
+
+    // Tiempo de cada etapa, desde que arranca hasta que termina (índice = Diagnostico.Etapa)
+    private final long[] nanosEtapas;
+    private long nanosTotal;
+
+    private Throwable fallo;
+    private final List<Thread> hilos;
+
+    // Mediciones por etapa (null: sin medir)
+    private final MedidorEtapas medidor;
+
+    // Sin tokens ni árbol completo en memoria (ver ejecutarAcotado)
+    private final boolean acotado;
+    private long miembros;
+
+    //region CONSTRUCTOR
+
+    private AnalisisEncadenado(AnalizadorLexico lexico, TablaLL1 tablaLL1, MedidorEtapas medidor, boolean acotado) {
+        this.medidor = medidor;
+        this.acotado = acotado;
+        this.diagnosticos = lexico.getDiagnosticos();
+        this.nanosEtapas = new long[Diagnostico.Etapa.values().length];
+        this.hilos = new ArrayList<>();
+
+        ColaAnillo<List<Token>> tokensLexicos = new ColaAnillo<>(CAPACIDAD_COLA);
+        ColaAnillo<List<Token>> tokensSintacticos = new ColaAnillo<>(CAPACIDAD_COLA);
+        this.salidaLexico = new Lotes(tokensLexicos);
+        this.salidaSintactico = new Lotes(tokensSintacticos);
+        this.entradaSemantico = new Lectura(tokensSintacticos);
+
+        this.lexico = lexico;
+        lexico.setMostrarSalida(false);
+        lexico.setDestino(salidaLexico);
+
+        this.sintactico = new AnalizadorLL1(tablaLL1, new Lectura(tokensLexicos));
+        sintactico.setDestino(salidaSintactico);
+
+        this.semantico = new ClasificadorSemantico(diagnosticos);
+        semantico.setMostrarSalida(false);
+
+        if (acotado) {
+            lexico.setConservarTokens(false);
+            sintactico.setDiagnosticos(diagnosticos);
+            sintactico.setDescartarSubarboles(SUBARBOLES_DESCARTADOS, subarbol -> {
+                if (subarbol.getSimbolo().equals(MIEMBRO)) {
+                    miembros++;
+                }
+            });
+            semantico.setMemoriaAcotada(true);
+        }
+    }
+
+    //endregion
+
+    //region EJECUCIÓN
+
+    /**
+     * Analiza el código con las etapas encadenadas y espera a que terminen las tres.
+     *
+     * @param codigoFuente Código fuente
+     * @param tablaLL1 Tabla compartida
+     * @return Análisis completo
+     * @throws InterruptedException Si se interrumpe la espera (las etapas se detienen)
+     * @throws IllegalStateException Si falla alguna etapa
+     */
+    public static AnalisisEncadenado ejecutar(String codigoFuente, TablaLL1 tablaLL1) throws InterruptedException {
+        return ejecutar(codigoFuente, tablaLL1, null);
+    }
+
+    /**
+     * Analiza el código con las etapas encadenadas, midiendo cada etapa en su hilo.
+     *
+     * @param codigoFuente Código fuente
+     * @param tablaLL1 Tabla compartida
+     * @param medidor Donde se registran las etapas (null: sin medir)
+     * @return Análisis completo
+     * @throws InterruptedException Si se interrumpe la espera (las etapas se detienen)
+     * @throws IllegalStateException Si falla alguna etapa
+     */
+    public static AnalisisEncadenado ejecutar(String codigoFuente, TablaLL1 tablaLL1, MedidorEtapas medidor)
+            throws InterruptedException {
+        AnalizadorLexico lexico = new AnalizadorLexico(codigoFuente, new ColectorDiagnosticos());
+        AnalisisEncadenado analisis = new AnalisisEncadenado(lexico, tablaLL1, medidor, false);
+        analisis.correr();
+        return analisis;
+    }
+
+    /**
+     * Analiza con memoria acotada: la memoria no crece con el tamaño de la entrada.
+     * Los tokens y el árbol no quedan disponibles al terminar; los diagnósticos
+     * se pueden escribir mientras llegan con un observador en el colector.
+     *
+     * @param fuente Código fuente (se lee una sola vez y no se cierra)
+     * @param tablaLL1 Tabla compartida
+     * @param diagnosticos Colector donde las etapas registran los diagnósticos
+     * @param medidor Donde se registran las etapas (null: sin medir)
+     * @return Análisis completo
+     * @throws InterruptedException Si se interrumpe la espera (las etapas se detienen)
+     * @throws IllegalStateException Si falla alguna etapa (también si falla la lectura)
+     */
+    public static AnalisisEncadenado ejecutarAcotado(Reader fuente, TablaLL1 tablaLL1,
+                                                     ColectorDiagnosticos diagnosticos, MedidorEtapas medidor)
+            throws InterruptedException {
+        AnalizadorLexico lexico = new AnalizadorLexico(fuente, diagnosticos);
+        AnalisisEncadenado analisis = new AnalisisEncadenado(lexico, tablaLL1, medidor, true);
+        analisis.correr();
+        return analisis;
+    }
+
+    private void correr() throws InterruptedException {
+        long inicio = System.nanoTime();
+
+        crearEtapa(Diagnostico.Etapa.LEXICO, medicion -> {
+            lexico.analizar();
+            salidaLexico.terminar();
+            if (medicion != null) {
+                medicion.terminar(lexico.getCantidadTokensValidos() + lexico.getCantidadTokensInvalidos(), 0);
+            }
+        });
+        crearEtapa(Diagnostico.Etapa.SINTACTICO, medicion -> {
+            sintactico.analizar();
+            salidaSintactico.terminar();
+            if (medicion != null) {
+                medicion.terminar(lexico.getCantidadTokensValidos(), sintactico.getNodosCreados());
+            }
+        });
+        crearEtapa(Diagnostico.Etapa.SEMANTICO, medicion -> {
+            EventosJFR.Semantico evento = EventosJFR.estanActivos() ? new EventosJFR.Semantico() : null;
+            if (evento != null) {
+                evento.begin();
+            }
+            long tokens = 0;
+            while (entradaSemantico.hasNext()) {
+                semantico.procesar(entradaSemantico.next());
+                tokens++;
+            }
+            semantico.finalizar();
+            if (evento != null) {
+                semantico.registrarEvento(evento, tokens);
+            }
+            if (medicion != null) {
+                medicion.terminar(tokens, 0);
+            }
+        });
+
+        // Se arrancan juntas, con la lista ya completa por si alguna falla enseguida
+        for (Thread hilo : hilos) {
+            hilo.start();
+        }
+        try {
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+        } catch (InterruptedException e) {
+            detener();
+            throw e;
+        }
+        nanosTotal = System.nanoTime() - inicio;
+
+        synchronized (this) {
+            if (fallo != null) {
+                throw new IllegalStateException("Falló una etapa del análisis encadenado: " + fallo, fallo);
+            }
+        }
+
+        // Las etapas ya terminaron: los diagnósticos se registran sin competir por el colector
+        if (!acotado) {
+            ControladorPrincipal.registrarErroresSintacticos(sintactico.getErroresSintacticos(), diagnosticos);
+        }
+    }
+
+    private void crearEtapa(Diagnostico.Etapa etapa, Consumer<MedidorEtapas.Etapa> trabajo) {
+        String nombre = etapa.name().toLowerCase();
+        MedidorEtapas.Etapa medicion = medidor != null ? medidor.registrar(nombre) : null;
+        hilos.add(Thread.ofPlatform().daemon().name("etapa-" + nombre).unstarted(() -> {
+            long inicio = System.nanoTime();
+            try {
+                if (medicion != null) {
+                    medicion.iniciar();
+                }
+                trabajo.accept(medicion);
+            } catch (CancellationException e) {
+                // Otra etapa falló y detuvo a las demás
+            } catch (Throwable e) {
+                fallar(e);
+            } finally {
+                nanosEtapas[etapa.ordinal()] = System.nanoTime() - inicio;
+            }
+        }));
+    }
+
+    /**
+     * Registra el primer fallo y detiene las demás etapas (que si no esperarían
+     * para siempre a una cola que ya nadie llena o vacía).
+     */
+    private synchronized void fallar(Throwable e) {
+        if (fallo == null) {
+            fallo = e;
+        }
+        detener();
+    }
+
+    private void detener() {
+        for (Thread hilo : hilos) {
+            hilo.interrupt();
+        }
+    }
+
+    //endregion
+
+    //region LOTES
+
+    /**
+     * Agrupa los tokens de una etapa en lotes y los publica en la cola.
+     */
+    private static final class Lotes implements Consumer<Token> {
+        private final ColaAnillo<List<Token>> cola;
+        private List<Token> lote;
+
+        Lotes(ColaAnillo<List<Token>> cola) {
+            this.cola = cola;
+            this.lote = new ArrayList<>(TAMANO_LOTE);
+        }
+
+        @Override
+        public void accept(Token token) {
+            lote.add(token);
+            if (lote.size() == TAMANO_LOTE) {
+                enviar();
+            }
+        }
+
+        /**
+         * Publica el lote incompleto y cierra la cola.
+         */
+        void terminar() {
+            if (!lote.isEmpty()) {
+                enviar();
+            }
+            cola.cerrar();
+        }
+
+        private void enviar() {
+            try {
+                cola.poner(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Etapa detenida");
+            }
+            lote = new ArrayList<>(TAMANO_LOTE);
+        }
+    }
+
+    /**
+     * Recorre los tokens de los lotes de una cola a medida que llegan.
+     */
+    private static final class Lectura implements Iterator<Token> {
+        private final ColaAnillo<List<Token>> cola;
+        private List<Token> lote;
+        private int indice;
+
+        Lectura(ColaAnillo<List<Token>> cola) {
+            this.cola = cola;
+            this.lote = List.of();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (lote != null && indice >= lote.size()) {
+                try {
+                    lote = cola.tomar();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Etapa detenida");
+                }
+                indice = 0;
+            }
+            return lote != null;
+        }
+
+        @Override
+        public Token next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return lote.get(indice++);
+        }
+    }
+
+    //endregion
+
+    //region GETTERS
+
+    public ColectorDiagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
+    public AnalizadorLexico getLexico() {
+        return lexico;
+    }
+
+    public AnalizadorLL1 getSintactico() {
+        return sintactico;
+    }
+
+    public ClasificadorSemantico getSemantico() {
+        return semantico;
+    }
+
+    /**
+     * @return Miembros de la clase validados y descartados (0 si no es acotado)
+     */
+    public long getMiembros() {
+        return miembros;
+    }
+
+    /**
+     * @param etapa Etapa del análisis
+     * @return Nanosegundos desde que arrancó la etapa hasta que terminó (incluye esperas)
+     */
+    public long getNanosEtapa(Diagnostico.Etapa etapa) {
+        return nanosEtapas[etapa.ordinal()];
+    }
+
+    /**
+     * @return Nanosegundos desde que arrancó la primera etapa hasta que terminó la última
+     */
+    public long getNanosTotal() {
+        return nanosTotal;
+    }
+
+    //endregion
+}
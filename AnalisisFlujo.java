@@ -0,0 +1,145 @@
+package analizadorSintactico;
+
+import analizadorLexico.Token;
+import diagnosticos.CodigoDiagnostico;
+import diagnosticos.Diagnostico;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Análisis de flujo de datos (definición-uso) de las variables locales de una función.
+ * Cada parámetro y variable local recibe un número de variable (slot) y el estado
+ * se guarda en conjuntos de bits densos indexados por ese número.
+ *
+ * En el lenguaje no hay saltos ni condicionales: el cuerpo de una función es un
+ * único bloque básico, así que basta un recorrido en orden, lineal en el tamaño
+ * de la función. Reporta lecturas antes de la primera asignación y variables
+ * o parámetros que nunca se leen.
+ *
+ * @author Sophia
+ */
+public class AnalisisFlujo {
+
+    private String funcion;
+
+    // Estado por slot
+    private BitSet asignadas;    // Tienen valor en el punto actual
+    private BitSet leidas;       // Se leyeron al menos una vez
+    private BitSet parametros;   // Son parámetros de la función
+    private List<Token> declaraciones;
+    private List<Integer> posiciones;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor del análisis de flujo.
+     */
+    public AnalisisFlujo() {
+        this.asignadas = new BitSet();
+        this.leidas = new BitSet();
+        this.parametros = new BitSet();
+        this.declaraciones = new ArrayList<>();
+        this.posiciones = new ArrayList<>();
+    }
+
+    //endregion
+
+    //region EVENTOS
+
+    /**
+     * Comienza el análisis de una función. Reutiliza los conjuntos de la anterior.
+     *
+     * @param nombre Nombre de la función
+     */
+    public void iniciarFuncion(String nombre) {
+        funcion = nombre;
+        asignadas.clear();
+        leidas.clear();
+        parametros.clear();
+        declaraciones.clear();
+        posiciones.clear();
+    }
+
+    /**
+     * Declara un parámetro (ya tiene valor al entrar) o una variable local.
+     *
+     * @param identificador Token del nombre
+     * @param posicion Posición del token en el flujo
+     * @param esParametro Si es parámetro de la función
+     * @return Número de variable asignado
+     */
+    public int declarar(Token identificador, int posicion, boolean esParametro) {
+        int slot = declaraciones.size();
+        declaraciones.add(identificador);
+        posiciones.add(posicion);
+
+        if (esParametro) {
+            parametros.set(slot);
+            asignadas.set(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Registra una lectura de la variable.
+     *
+     * @param slot Número de variable
+     * @param token Token de la lectura
+     * @param posicion Posición del token en el flujo
+     * @param salida Lista donde se agregan los diagnósticos
+     */
+    public void leer(int slot, Token token, int posicion, List<Diagnostico> salida) {
+        leidas.set(slot);
+
+        if (!asignadas.get(slot)) {
+            salida.add(Diagnostico.crear(CodigoDiagnostico.VARIABLE_SIN_INICIALIZAR,
+                    posicion, token.getLinea(), token.getLexema()));
+        }
+    }
+
+    /**
+     * Registra una asignación a la variable (al terminar la sentencia).
+     *
+     * @param slot Número de variable
+     */
+    public void asignar(int slot) {
+        asignadas.set(slot);
+    }
+
+    /**
+     * Termina la función y reporta las variables y parámetros que nunca se leen.
+     *
+     * @param salida Lista donde se agregan los diagnósticos
+     */
+    public void finalizarFuncion(List<Diagnostico> salida) {
+        for (int slot = leidas.nextClearBit(0); slot < declaraciones.size(); slot = leidas.nextClearBit(slot + 1)) {
+            Token token = declaraciones.get(slot);
+
+            if (parametros.get(slot)) {
+                salida.add(Diagnostico.crear(CodigoDiagnostico.PARAMETRO_NO_USADO,
+                        posiciones.get(slot), token.getLinea(), token.getLexema(), funcion));
+            } else {
+                salida.add(Diagnostico.crear(CodigoDiagnostico.VARIABLE_NO_USADA,
+                        posiciones.get(slot), token.getLinea(), token.getLexema()));
+            }
+        }
+        funcion = null;
+    }
+
+    //endregion
+
+    /**
+     * @return Número que recibirá la siguiente variable declarada
+     */
+    public int siguienteSlot() {
+        return declaraciones.size();
+    }
+
+    /**
+     * @return Si hay una función en análisis
+     */
+    public boolean enFuncion() {
+        return funcion != null;
+    }
+}
@@ -0,0 +1,544 @@
+package analizadorSintactico;
+
+import analizadorLexico.TipoToken;
+import analizadorLexico.Token;
+import diagnosticos.CodigoDiagnostico;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import eventos.EventosJFR;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Analizador sintáctico predictivo dirigido por una tabla LL(1) ya construida.
+ * No construye la gramática ni la tabla: la misma {@link TablaLL1} (de solo
+ * lectura) se comparte entre todos los análisis, incluso en hilos distintos.
+ *
+ * Usa una pila explícita, así que la profundidad del árbol no está limitada por
+ * la pila de Java. Ante un error se recupera en modo pánico: un terminal que no
+ * coincide se da por insertado, y un no terminal sin entrada en la tabla se
+ * descarta si el token está en su SIGUIENTE o, si no, se salta el token.
+ *
+ * Con la tabla de una gramática optimizada (ver {@link OptimizadorGramatica})
+ * cada alternativa se expande según su plantilla: se apilan menos no terminales,
+ * pero el árbol queda en términos de la gramática original.
+ *
+ * Los tokens se leen en orden y una sola vez, así que pueden llegar de una lista
+ * o ir llegando desde otro hilo mientras el analizador léxico avanza. Para
+ * entradas que no caben en memoria, los subárboles de algunos no terminales se
+ * entregan y se descartan apenas se completan (ver setDescartarSubarboles).
+ *
+ * @author Sophia
+ */
+public class AnalizadorLL1 {
+
+    // Tokens entre consultas de cancelación (potencia de dos)
+    private static final int INTERVALO_CANCELACION = 256;
+
+    // Tokens aceptados seguidos para dar por terminada la recuperación de un error
+    private static final int TOKENS_SINCRONIZACION = 3;
+
+    private final TablaLL1 tablaLL1;
+    private final Gramatica gramatica;
+    private final Iterator<Token> tokens;
+
+    // Plantillas de la gramática optimizada (null: se expanden las producciones)
+    private final OptimizadorGramatica optimizador;
+
+    // Recibe cada token ya consumido (null: ninguno)
+    private Consumer<Token> destino;
+
+    // Se consulta durante el análisis para abandonarlo (null: no se cancela)
+    private BooleanSupplier cancelado;
+
+    private Token actual;       // Token en la entrada (null: se acabaron)
+    private Token ultimo;       // Último token leído de la entrada
+    private int leidos;         // Tokens leídos de la entrada
+    private long pasos;         // No terminales expandidos
+    private long nodos;         // Nodos creados (incluye los descartados)
+
+    private NodoArbol raizArbol;
+    private List<Diagnostico> erroresSintacticos;
+    private List<Token> tokensErrores;
+    private int totalErrores;
+
+    // Modo pánico: tras un error no se informan más hasta aceptar
+    // TOKENS_SINCRONIZACION tokens seguidos
+    private boolean recuperando;
+    private int aceptados;
+
+    // Errores reportados apenas se detectan (null: se conservan los mensajes)
+    private ColectorDiagnosticos diagnosticos;
+
+    // No terminales cuyos subárboles se entregan y descartan (vacío: árbol completo)
+    private Set<String> noTerminalesDescartados;
+    private Consumer<NodoArbol> subarboles;
+
+    /**
+     * Subárbol en construcción y altura de la pila debajo de sus símbolos.
+     */
+    private record Abierto(NodoArbol nodo, int base) {
+    }
+
+    // Nodos intermedios descartados de la última plantilla expandida (base: símbolos apilados al cerrarlos)
+    private final List<Abierto> intermedios = new ArrayList<>();
+
+    /**
+     * No terminal original que empieza en un símbolo apilado por una plantilla
+     * y cuántos símbolos de la pila ocupa. Un error en ese símbolo se informa y
+     * se recupera como en la gramática original, sobre el no terminal completo.
+     */
+    private static final class Origen {
+        private final NodoArbol nodo;
+        private int simbolos;
+
+        Origen(NodoArbol nodo) {
+            this.nodo = nodo;
+        }
+    }
+
+    // Origen de cada símbolo de la pila, en las mismas posiciones (null: ninguno)
+    private List<Origen> origenes;
+
+    // Origen que espera la primera hoja de su plantilla
+    private Origen pendiente;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor del analizador.
+     *
+     * @param tablaLL1 Tabla LL(1) compartida
+     * @param tokens Tokens válidos, terminados en FIN_ARCHIVO
+     */
+    public AnalizadorLL1(TablaLL1 tablaLL1, List<Token> tokens) {
+        this(tablaLL1, tokens.iterator());
+    }
+
+    /**
+     * Constructor del analizador que lee los tokens a medida que llegan.
+     *
+     * @param tablaLL1 Tabla LL(1) compartida
+     * @param tokens Tokens válidos, terminados en FIN_ARCHIVO (hasNext puede bloquear)
+     */
+    public AnalizadorLL1(TablaLL1 tablaLL1, Iterator<Token> tokens) {
+        this.tablaLL1 = tablaLL1;
+        this.gramatica = tablaLL1.getGramatica();
+        this.optimizador = tablaLL1.getOptimizador();
+        this.tokens = tokens;
+        this.erroresSintacticos = new ArrayList<>();
+        this.tokensErrores = new ArrayList<>();
+        this.noTerminalesDescartados = Set.of();
+    }
+
+    /**
+     * @param destino Recibe cada token en el orden de la entrada apenas el análisis
+     *                lo consume, y al terminar los que quedaron sin consumir
+     */
+    public void setDestino(Consumer<Token> destino) {
+        this.destino = destino;
+    }
+
+    /**
+     * Reporta cada error en el colector apenas se detecta. Los errores y sus
+     * tokens no se conservan: getErroresSintacticos queda vacía.
+     *
+     * @param diagnosticos Colector donde se registran los errores (null: se conservan)
+     */
+    public void setDiagnosticos(ColectorDiagnosticos diagnosticos) {
+        this.diagnosticos = diagnosticos;
+    }
+
+    /**
+     * @param cancelado Se consulta cada tantos tokens leídos; si devuelve true,
+     *                  analizar lanza CancellationException (null: no se cancela)
+     */
+    public void setCancelado(BooleanSupplier cancelado) {
+        this.cancelado = cancelado;
+    }
+
+    /**
+     * No arma el árbol completo: solo el subárbol de cada aparición de los no
+     * terminales, que se entrega al consumidor apenas se completa y después se
+     * descarta. La raíz queda sin hijos y los nodos fuera de esos subárboles no
+     * se enlazan, así que la memoria del árbol no crece con la entrada.
+     *
+     * Un subárbol que aparece dentro de otro se entrega antes y por separado, y
+     * no queda enlazado al de afuera; tampoco la cola de una lista de ellos
+     * (A → B A, con B entregado aparte). Así un miembro no retiene sus sentencias.
+     *
+     * @param noTerminales No terminales cuyos subárboles se entregan (vacío: árbol completo)
+     * @param subarboles Recibe cada subárbol completo
+     */
+    public void setDescartarSubarboles(Set<String> noTerminales, Consumer<NodoArbol> subarboles) {
+        this.noTerminalesDescartados = noTerminales;
+        this.subarboles = subarboles;
+    }
+
+    //endregion
+
+    //region ANÁLISIS
+
+    /**
+     * Analiza los tokens y construye el árbol de derivación.
+     * Consume la entrada, así que se llama una sola vez.
+     *
+     * @return true si no hubo errores sintácticos
+     */
+    public boolean analizar() {
+        EventosJFR.Sintactico evento = EventosJFR.estanActivos() ? new EventosJFR.Sintactico() : null;
+        if (evento != null) {
+            evento.begin();
+        }
+        erroresSintacticos = new ArrayList<>();
+        tokensErrores = new ArrayList<>();
+        totalErrores = 0;
+        recuperando = false;
+        raizArbol = new NodoArbol(gramatica.getSimboloInicial(), false);
+        nodos = 1;
+
+        // Pila de símbolos pendientes con el nodo que les corresponde
+        List<NodoArbol> pila = new ArrayList<>();
+        pila.add(new NodoArbol(Gramatica.FIN_CADENA, true));
+        pila.add(raizArbol);
+        origenes = new ArrayList<>();
+        origenes.add(null);
+        origenes.add(null);
+
+        // Subárboles en construcción, el más interno primero
+        boolean descartar = !noTerminalesDescartados.isEmpty();
+        Deque<Abierto> abiertos = new ArrayDeque<>();
+
+        avanzar();
+        while (!pila.isEmpty()) {
+            while (!abiertos.isEmpty() && pila.size() <= abiertos.peek().base()) {
+                subarboles.accept(abiertos.pop().nodo());
+            }
+
+            NodoArbol cima = pila.get(pila.size() - 1);
+            String simbolo = cima.getSimbolo();
+            Token token = actual;
+            String terminal = terminal(token);
+
+            Origen origen = origenes.get(origenes.size() - 1);
+            if (!gramatica.esNoTerminal(simbolo)) {
+                if (origen != null && !simbolo.equals(terminal)) {
+                    recuperar(origen, token, terminal, pila);
+                    continue;
+                }
+                quitar(pila);
+                if (simbolo.equals(terminal)) {
+                    if (token != null) {
+                        cima.setSimbolo(token.getLexema());
+                    }
+                    if (recuperando && ++aceptados >= TOKENS_SINCRONIZACION) {
+                        recuperando = false;
+                    }
+                    avanzar();
+                } else if (simbolo.equals(Gramatica.FIN_CADENA)) {
+                    reportar(token, CodigoDiagnostico.SE_ESPERABA_FIN_ARCHIVO, simbolo);
+                } else {
+                    reportar(token, CodigoDiagnostico.SE_ESPERABA_SIMBOLO, simbolo);
+                }
+                continue;
+            }
+
+            List<String> produccion = null;
+            List<OptimizadorGramatica.Plantilla> plantilla = null;
+            if (optimizador != null) {
+                plantilla = optimizador.obtenerPlantilla(simbolo, terminal);
+            } else {
+                produccion = tablaLL1.obtenerProduccion(simbolo, terminal);
+            }
+            if (produccion == null && plantilla == null) {
+                if (origen != null) {
+                    recuperar(origen, token, terminal, pila);
+                } else if (terminal.equals(Gramatica.FIN_CADENA) || gramatica.obtenerSiguiente(simbolo).contains(terminal)) {
+                    reportar(token, CodigoDiagnostico.FALTA_NO_TERMINAL, simbolo);
+                    quitar(pila);
+                } else {
+                    reportar(token, CodigoDiagnostico.TOKEN_INESPERADO, simbolo);
+                    avanzar();
+                }
+                continue;
+            }
+
+            // Expandir: los hijos se apilan en orden inverso
+            pasos++;
+            quitar(pila);
+            int base = pila.size();
+            boolean enlazar = true;
+            boolean listaDescartada = false;
+            if (descartar) {
+                if (noTerminalesDescartados.contains(simbolo)) {
+                    abiertos.push(new Abierto(cima, base));
+                }
+                enlazar = !abiertos.isEmpty();
+            }
+            if (plantilla != null) {
+                expandirPlantilla(cima, simbolo, plantilla, enlazar, descartar, pila, base, abiertos);
+                continue;
+            }
+            if (descartar) {
+                listaDescartada = produccion.size() == 2 && produccion.get(1).equals(simbolo)
+                        && noTerminalesDescartados.contains(produccion.get(0));
+            }
+            for (int i = 0; i < produccion.size(); i++) {
+                String hijo = produccion.get(i);
+                NodoArbol nodo = new NodoArbol(hijo, !gramatica.esNoTerminal(hijo));
+                nodos++;
+                if (enlazar && !noTerminalesDescartados.contains(hijo) && !(listaDescartada && i == 1)) {
+                    cima.agregarHijo(nodo);
+                }
+                if (!hijo.equals(Gramatica.EPSILON)) {
+                    pila.add(base, nodo);
+                    origenes.add(base, null);
+                }
+            }
+        }
+
+        while (!abiertos.isEmpty()) {
+            subarboles.accept(abiertos.pop().nodo());
+        }
+
+        // Lo que sobra tras el fin de la derivación también pasa al destino
+        while (actual != null) {
+            avanzar();
+        }
+
+        if (evento != null && evento.shouldCommit()) {
+            evento.tokens = leidos;
+            evento.pasos = pasos;
+            evento.errores = totalErrores;
+            evento.commit();
+        }
+        return totalErrores == 0;
+    }
+
+    /**
+     * Expande una alternativa de la gramática optimizada: crea los nodos
+     * intermedios de la plantilla y apila sus hojas, como si se hubieran
+     * expandido los no terminales originales uno por uno.
+     */
+    private void expandirPlantilla(NodoArbol cima, String simbolo, List<OptimizadorGramatica.Plantilla> plantilla,
+                                   boolean enlazar, boolean descartar, List<NodoArbol> pila, int base,
+                                   Deque<Abierto> abiertos) {
+        boolean listaDescartada = descartar && plantilla.size() == 2
+                && plantilla.get(1).getSimbolo().equals(simbolo)
+                && noTerminalesDescartados.contains(plantilla.get(0).getSimbolo());
+
+        intermedios.clear();
+        for (int i = 0; i < plantilla.size(); i++) {
+            agregarSegunPlantilla(cima, plantilla.get(i), enlazar && !(listaDescartada && i == 1), pila, base);
+        }
+
+        // Un intermedio descartado se completa cuando solo quedan apilados los
+        // símbolos que siguen a los suyos; los de la derecha se cierran después
+        int apilados = pila.size() - base;
+        for (int i = intermedios.size() - 1; i >= 0; i--) {
+            Abierto intermedio = intermedios.get(i);
+            abiertos.push(new Abierto(intermedio.nodo(), base + apilados - intermedio.base()));
+        }
+    }
+
+    /**
+     * Crea el nodo de una posición de la plantilla y, si es intermedio, sus hijos.
+     * La recursión sigue solo la plantilla, cuya profundidad fija la gramática.
+     */
+    private void agregarSegunPlantilla(NodoArbol padre, OptimizadorGramatica.Plantilla plantilla, boolean enlazar,
+                                       List<NodoArbol> pila, int base) {
+        String hijo = plantilla.getSimbolo();
+        boolean descartado = noTerminalesDescartados.contains(hijo);
+        NodoArbol nodo = new NodoArbol(hijo, plantilla.esHoja() && !gramatica.esNoTerminal(hijo));
+        nodos++;
+        if (enlazar && !descartado) {
+            padre.agregarHijo(nodo);
+        }
+
+        if (plantilla.esHoja()) {
+            if (!hijo.equals(Gramatica.EPSILON)) {
+                pila.add(base, nodo);
+                origenes.add(base, pendiente);
+                pendiente = null;
+            }
+            return;
+        }
+
+        // El intermedio más externo que empieza en una hoja es su origen
+        Origen origen = null;
+        if (pendiente == null) {
+            origen = new Origen(nodo);
+            pendiente = origen;
+        }
+        int antes = pila.size();
+        for (OptimizadorGramatica.Plantilla interno : plantilla.getHijos()) {
+            agregarSegunPlantilla(nodo, interno, enlazar || descartado, pila, base);
+        }
+        if (origen != null) {
+            origen.simbolos = pila.size() - antes;
+            if (pendiente == origen) {
+                pendiente = null;
+            }
+        }
+        if (descartado) {
+            // Posición provisoria: símbolos apilados hasta su última hoja
+            intermedios.add(new Abierto(nodo, pila.size() - base));
+        }
+    }
+
+    /**
+     * Recuperación en modo pánico sobre el no terminal original que empieza en
+     * la cima: si el token está en su SIGUIENTE se descartan todos sus símbolos
+     * (y los hijos ya creados de su nodo); si no, se salta el token.
+     */
+    private void recuperar(Origen origen, Token token, String terminal, List<NodoArbol> pila) {
+        String noTerminal = origen.nodo.getSimbolo();
+        if (terminal.equals(Gramatica.FIN_CADENA)
+                || optimizador.getGramaticaOriginal().obtenerSiguiente(noTerminal).contains(terminal)) {
+            reportar(token, CodigoDiagnostico.FALTA_NO_TERMINAL, noTerminal);
+            for (int i = 0; i < origen.simbolos; i++) {
+                quitar(pila);
+            }
+            origen.nodo.getHijos().clear();
+        } else {
+            reportar(token, CodigoDiagnostico.TOKEN_INESPERADO, noTerminal);
+            avanzar();
+        }
+    }
+
+    /**
+     * Desapila la cima.
+     */
+    private void quitar(List<NodoArbol> pila) {
+        pila.remove(pila.size() - 1);
+        origenes.remove(origenes.size() - 1);
+    }
+
+    /**
+     * Terminal de la gramática que representa al token.
+     */
+    private static String terminal(Token token) {
+        if (token == null || token.getTipo() == TipoToken.FIN_ARCHIVO) {
+            return Gramatica.FIN_CADENA;
+        }
+        return switch (token.getTipo()) {
+            case IDENTIFICADOR -> "identificador";
+            case NUMERO -> "numero";
+            default -> token.getLexema();
+        };
+    }
+
+    /**
+     * Entrega el token actual al destino y lee el siguiente.
+     */
+    private void avanzar() {
+        if (actual != null && destino != null) {
+            destino.accept(actual);
+        }
+        actual = tokens.hasNext() ? tokens.next() : null;
+        if (actual != null) {
+            ultimo = actual;
+            leidos++;
+            if (cancelado != null && (leidos & (INTERVALO_CANCELACION - 1)) == 0 && cancelado.getAsBoolean()) {
+                throw new CancellationException("Análisis sintáctico cancelado");
+            }
+        }
+    }
+
+    /**
+     * Registra un error. Solo se guardan el código y los datos del token: el
+     * mensaje se arma recién cuando se muestra o se escribe en un reporte.
+     * Mientras se recupera de un error anterior no se informa nada: los tokens
+     * saltados y los símbolos desapilados en cascada no son errores nuevos. Un
+     * error que aparece antes de aceptar TOKENS_SINCRONIZACION tokens seguidos
+     * reinicia la cuenta.
+     *
+     * @param token Token donde se detectó (null: fin de la entrada)
+     * @param codigo Código del error
+     * @param simbolo Símbolo esperado o no terminal que se estaba reconociendo
+     */
+    private void reportar(Token token, CodigoDiagnostico codigo, String simbolo) {
+        if (recuperando) {
+            aceptados = 0;
+            return;
+        }
+        recuperando = true;
+        aceptados = 0;
+
+        Diagnostico error;
+        if (token == null) {
+            CodigoDiagnostico alFinal = codigo == CodigoDiagnostico.SE_ESPERABA_SIMBOLO
+                    ? CodigoDiagnostico.SE_ESPERABA_SIMBOLO_FIN
+                    : CodigoDiagnostico.FALTA_NO_TERMINAL_FIN;
+            error = Diagnostico.crear(alFinal, totalErrores, simbolo);
+        } else {
+            error = Diagnostico.crear(codigo, totalErrores,
+                    token.getLinea(), token.getColumna(), token.getLexema(), simbolo);
+        }
+
+        if (diagnosticos != null) {
+            diagnosticos.agregar(error);
+        } else {
+            tokensErrores.add(token != null ? token : ultimo);
+            erroresSintacticos.add(error);
+        }
+        totalErrores++;
+    }
+
+    //endregion
+
+    //region GETTERS
+
+    public TablaLL1 getTablaLL1() {
+        return tablaLL1;
+    }
+
+    public NodoArbol getRaizArbol() {
+        return raizArbol;
+    }
+
+    /**
+     * @return Errores detectados, en orden (vacía si se reportaron al colector)
+     */
+    public List<Diagnostico> getErroresSintacticos() {
+        return erroresSintacticos;
+    }
+
+    /**
+     * @return Token donde se detectó cada error, en el mismo orden que los mensajes
+     *         (el último token si el error está al final del archivo)
+     */
+    public List<Token> getTokensErrores() {
+        return tokensErrores;
+    }
+
+    /**
+     * @return Errores detectados (aunque se hayan reportado directamente al colector)
+     */
+    public int getTotalErrores() {
+        return totalErrores;
+    }
+
+    /**
+     * @return Nodos del árbol de derivación creados, incluidos los descartados
+     */
+    public long getNodosCreados() {
+        return nodos;
+    }
+
+    /**
+     * @return Cantidad de no terminales expandidos (pasos de la derivación)
+     */
+    public long getPasosDerivacion() {
+        return pasos;
+    }
+
+    //endregion
+}
@@ -1,27 +1,68 @@
 package analizadorLexico;
 
+import diagnosticos.CodigoDiagnostico;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import eventos.EventosJFR;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Analizador Léxico para subconjunto de Java.
  * Reconoce palabras clave, identificadores, números, operadores, símbolos y comentarios.
  * Reporta errores léxicos con línea y columna.
  *
+ * El código se recibe completo como texto o se lee de un {@link Reader} por
+ * ventanas, así que un archivo más grande que la memoria se analiza igual si
+ * además no se conservan los tokens (ver setConservarTokens).
+ *
  * @author Sophia
  */
 public class AnalizadorLexico {
 
-    private String codigoFuente;
-    private int posicion;
+    // Caracteres leídos del Reader por vez
+    private static final int TAMANO_VENTANA = 64 * 1024;
+
+    // Tokens entre consultas de cancelación (potencia de dos)
+    private static final int INTERVALO_CANCELACION = 256;
+
+    private String codigoFuente;    // null si se lee de un Reader
+    private long posicion;
     private int linea;
     private int columna;
     private int numeroToken;
+    private long inicioToken;       // Posición donde empieza el token en reconocimiento
+
+    // Lectura por ventanas (null: se analiza codigoFuente)
+    private Reader lector;
+    private char[] ventana;
+    private int indiceVentana;      // Carácter actual dentro de la ventana
+    private int finVentana;         // Caracteres válidos en la ventana
+    private boolean lectorAgotado;
 
     private List<Token> tokensValidos;
     private List<Token> tokensInvalidos;
+    private boolean conservarTokens;
+    private int cantidadValidos;
+    private int cantidadInvalidos;
+    private ColectorDiagnosticos diagnosticos;
+
+    // Mensajes del análisis en consola
+    private boolean mostrarSalida;
+
+    // Recibe cada token válido apenas se reconoce (null: ninguno)
+    private Consumer<Token> destino;
+
+    // Se consulta durante el análisis para abandonarlo (null: no se cancela)
+    private BooleanSupplier cancelado;
 
     // Palabras clave del lenguaje
     private static final Set<String> PALABRAS_CLAVE = new HashSet<>();
@@ -41,13 +82,71 @@ public class AnalizadorLexico {
      * @param codigoFuente Código fuente a analizar
      */
     public AnalizadorLexico(String codigoFuente) {
+        this(codigoFuente, new ColectorDiagnosticos());
+    }
+
+    /**
+     * Constructor del analizador léxico que reporta en un colector compartido.
+     *
+     * @param codigoFuente Código fuente a analizar
+     * @param diagnosticos Colector de diagnósticos
+     */
+    public AnalizadorLexico(String codigoFuente, ColectorDiagnosticos diagnosticos) {
         this.codigoFuente = codigoFuente;
+        this.diagnosticos = diagnosticos;
         this.posicion = 0;
         this.linea = 1;
         this.columna = 1;
         this.numeroToken = 0;
         this.tokensValidos = new ArrayList<>();
         this.tokensInvalidos = new ArrayList<>();
+        this.conservarTokens = true;
+        this.mostrarSalida = true;
+    }
+
+    /**
+     * Constructor del analizador léxico que lee el código de a poco, sin
+     * cargarlo entero en memoria. El Reader se lee una sola vez y no se cierra.
+     *
+     * @param fuente Código fuente a analizar
+     * @param diagnosticos Colector de diagnósticos
+     */
+    public AnalizadorLexico(Reader fuente, ColectorDiagnosticos diagnosticos) {
+        this((String) null, diagnosticos);
+        this.lector = fuente;
+        this.ventana = new char[TAMANO_VENTANA];
+    }
+
+    /**
+     * @param mostrarSalida Si se muestran en consola los tokens y el resumen
+     *                      (el modo por lotes analiza muchos archivos en silencio)
+     */
+    public void setMostrarSalida(boolean mostrarSalida) {
+        this.mostrarSalida = mostrarSalida;
+    }
+
+    /**
+     * @param destino Recibe cada token válido (y el de fin de archivo) apenas se
+     *                reconoce, para que la etapa siguiente no espere la lista completa
+     */
+    public void setDestino(Consumer<Token> destino) {
+        this.destino = destino;
+    }
+
+    /**
+     * @param conservarTokens Si los tokens se guardan en las listas de válidos e
+     *                        inválidos (false: solo pasan al destino y se cuentan)
+     */
+    public void setConservarTokens(boolean conservarTokens) {
+        this.conservarTokens = conservarTokens;
+    }
+
+    /**
+     * @param cancelado Se consulta cada tantos tokens; si devuelve true, analizar
+     *                  lanza CancellationException (null: no se cancela)
+     */
+    public void setCancelado(BooleanSupplier cancelado) {
+        this.cancelado = cancelado;
     }
 
     //endregion
@@ -62,6 +161,31 @@ public class AnalizadorLexico {
         return tokensInvalidos;
     }
 
+    public ColectorDiagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
+    /**
+     * @return Tokens válidos reconocidos, incluido el de fin de archivo (aunque no se conserven)
+     */
+    public int getCantidadTokensValidos() {
+        return cantidadValidos;
+    }
+
+    /**
+     * @return Tokens inválidos reconocidos (aunque no se conserven)
+     */
+    public int getCantidadTokensInvalidos() {
+        return cantidadInvalidos;
+    }
+
+    /**
+     * @return Caracteres analizados hasta el momento
+     */
+    public long getCaracteresLeidos() {
+        return posicion;
+    }
+
     public List<Token> getTodosLosTokens() {
         List<Token> todos = new ArrayList<>();
         todos.addAll(tokensValidos);
@@ -77,16 +201,32 @@ public class AnalizadorLexico {
      * Analiza el código fuente y genera la lista de tokens.
      */
     public void analizar() {
-        System.out.println("--- INICIANDO ANÁLISIS LÉXICO ---");
-        System.out.println("Longitud del código: " + codigoFuente.length() + " caracteres\n");
+        EventosJFR.Lexico evento = EventosJFR.estanActivos() ? new EventosJFR.Lexico() : null;
+        if (evento != null) {
+            evento.begin();
+        }
+        if (mostrarSalida) {
+            System.out.println("--- INICIANDO ANÁLISIS LÉXICO ---");
+            if (codigoFuente != null) {
+                System.out.println("Longitud del código: " + codigoFuente.length() + " caracteres\n");
+            }
+        }
 
         tokensValidos.clear();
         tokensInvalidos.clear();
+        cantidadValidos = 0;
+        cantidadInvalidos = 0;
 
+        int iteraciones = 0;
         while (!finDelArchivo()) {
+            if (cancelado != null && (++iteraciones & (INTERVALO_CANCELACION - 1)) == 0 && cancelado.getAsBoolean()) {
+                throw new CancellationException("Análisis léxico cancelado");
+            }
             Token token = siguienteToken();
 
             if (token != null) {
+                asignarRango(token);
+
                 // Ignorar espacios y comentarios en el conteo
                 if (token.getTipo() != TipoToken.ESPACIO &&
                         token.getTipo() != TipoToken.COMENTARIO_LINEA &&
@@ -96,11 +236,26 @@ public class AnalizadorLexico {
                     token.setNumeroToken(numeroToken);
 
                     if (token.esValido()) {
-                        tokensValidos.add(token);
-                        System.out.println("Válido: " + token);
+                        cantidadValidos++;
+                        if (conservarTokens) {
+                            tokensValidos.add(token);
+                        }
+                        if (destino != null) {
+                            destino.accept(token);
+                        }
+                        if (mostrarSalida) {
+                            System.out.println("Válido: " + token);
+                        }
                     } else {
-                        tokensInvalidos.add(token);
-                        System.out.println("ERROR: " + token);
+                        cantidadInvalidos++;
+                        if (conservarTokens) {
+                            tokensInvalidos.add(token);
+                        }
+                        diagnosticos.agregar(Diagnostico.crear(CodigoDiagnostico.CARACTER_ILEGAL,
+                                numeroToken, token.getLexema(), token.getLinea(), token.getColumna()));
+                        if (mostrarSalida) {
+                            System.out.println("ERROR: " + token);
+                        }
                     }
                 }
             }
@@ -108,9 +263,34 @@ public class AnalizadorLexico {
 
         // Agregar token de fin de archivo
         Token tokenFin = new Token("EOF", TipoToken.FIN_ARCHIVO, linea, columna, ++numeroToken);
-        tokensValidos.add(tokenFin);
+        inicioToken = posicion;
+        asignarRango(tokenFin);
+        cantidadValidos++;
+        if (conservarTokens) {
+            tokensValidos.add(tokenFin);
+        }
+        if (destino != null) {
+            destino.accept(tokenFin);
+        }
 
-        mostrarResumen();
+        if (evento != null && evento.shouldCommit()) {
+            evento.caracteres = posicion;
+            evento.tokens = cantidadValidos + cantidadInvalidos;
+            evento.errores = cantidadInvalidos;
+            evento.commit();
+        }
+
+        if (mostrarSalida) {
+            mostrarResumen();
+        }
+    }
+
+    /**
+     * Registra en el token los caracteres que ocupa. Más allá de los 2 GB de
+     * código el desplazamiento queda en el máximo representable.
+     */
+    private void asignarRango(Token token) {
+        token.setRango((int) Math.min(inicioToken, Integer.MAX_VALUE), (int) (posicion - inicioToken));
     }
 
     /**
@@ -126,6 +306,7 @@ public class AnalizadorLexico {
         }
 
         // Guardar posición actual para el token
+        inicioToken = posicion;
         int lineaInicial = linea;
         int columnaInicial = columna;
 
@@ -340,6 +521,7 @@ public class AnalizadorLexico {
         if (!finDelArchivo()) {
             posicion++;
             columna++;
+            indiceVentana++;
         }
     }
 
@@ -347,15 +529,24 @@ public class AnalizadorLexico {
      * Obtiene el carácter actual.
      */
     private char caracterActual() {
-        return codigoFuente.charAt(posicion);
+        if (lector != null) {
+            return ventana[indiceVentana];
+        }
+        return codigoFuente.charAt((int) posicion);
     }
 
     /**
      * Mira el siguiente carácter sin avanzar.
      */
     private char mirarSiguiente() {
+        if (lector != null) {
+            if (indiceVentana + 1 >= finVentana) {
+                rellenarVentana();
+            }
+            return indiceVentana + 1 < finVentana ? ventana[indiceVentana + 1] : '\0';
+        }
         if (posicion + 1 < codigoFuente.length()) {
-            return codigoFuente.charAt(posicion + 1);
+            return codigoFuente.charAt((int) posicion + 1);
         }
         return '\0';
     }
@@ -364,17 +555,47 @@ public class AnalizadorLexico {
      * Verifica si se llegó al final del archivo.
      */
     private boolean finDelArchivo() {
+        if (lector != null) {
+            return indiceVentana >= finVentana && !rellenarVentana();
+        }
         return posicion >= codigoFuente.length();
     }
 
+    /**
+     * Mueve al principio de la ventana los caracteres que faltan analizar y
+     * completa el resto con la lectura siguiente.
+     *
+     * @return true si se leyeron caracteres nuevos
+     */
+    private boolean rellenarVentana() {
+        if (lectorAgotado) {
+            return false;
+        }
+        int restantes = finVentana - indiceVentana;
+        System.arraycopy(ventana, indiceVentana, ventana, 0, restantes);
+        indiceVentana = 0;
+        finVentana = restantes;
+        try {
+            int leidos = lector.read(ventana, finVentana, ventana.length - finVentana);
+            if (leidos < 0) {
+                lectorAgotado = true;
+                return false;
+            }
+            finVentana += leidos;
+            return leidos > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Muestra resumen del análisis léxico.
      */
     private void mostrarResumen() {
         System.out.println("\n--- RESUMEN DEL ANÁLISIS LÉXICO ---");
-        System.out.println("Tokens válidos: " + tokensValidos.size());
-        System.out.println("Tokens inválidos (errores léxicos): " + tokensInvalidos.size());
-        System.out.println("Total de tokens procesados: " + (tokensValidos.size() + tokensInvalidos.size()));
+        System.out.println("Tokens válidos: " + cantidadValidos);
+        System.out.println("Tokens inválidos (errores léxicos): " + cantidadInvalidos);
+        System.out.println("Total de tokens procesados: " + (cantidadValidos + cantidadInvalidos));
         System.out.println("-----------------------------------------------\n");
     }
 
@@ -0,0 +1,385 @@
+package app;
+
+import archivos.LectorJSON;
+import generadores.GeneradorJSON;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Prueba de rendimiento de punta a punta sobre un corpus de archivos.
+ *
+ * Cada archivo pasa por el ControladorPrincipal completo, igual que en una
+ * ejecución normal: primero unas iteraciones de calentamiento sin medir y luego
+ * las iteraciones medidas. Los archivos generados se escriben en un directorio
+ * temporal que se vacía antes de cada iteración (así todas escriben todo) y la
+ * salida de consola se descarta. Por archivo se informan los percentiles de
+ * latencia, el rendimiento en MB/s y tokens/s (sobre la mediana) y las
+ * recolecciones de basura durante las iteraciones medidas.
+ *
+ * Los resultados se pueden guardar en JSON y comparar con una ejecución anterior.
+ *
+ * @author Sophia
+ */
+public class BancoPruebas {
+
+    public static final int CALENTAMIENTO_POR_DEFECTO = 3;
+    public static final int ITERACIONES_POR_DEFECTO = 10;
+
+    // Aumento de la mediana a partir del cual se marca una regresión
+    public static final double UMBRAL_POR_DEFECTO = 0.10;
+
+    // Cambia cuando cambia el formato del JSON de resultados
+    public static final int VERSION = 1;
+
+    private int calentamiento;
+    private int iteraciones;
+    private boolean encadenado;
+
+    /**
+     * Mediciones de un archivo.
+     *
+     * @param archivo Archivo analizado
+     * @param bytes Tamaño del archivo
+     * @param tokens Tokens reconocidos (válidos e inválidos)
+     * @param nanos Latencia de cada iteración medida, de menor a mayor
+     * @param colecciones Recolecciones de basura durante las iteraciones medidas
+     * @param nanosGC Tiempo acumulado de esas recolecciones
+     */
+    public record ResultadoArchivo(String archivo, long bytes, long tokens, long[] nanos,
+                                   long colecciones, long nanosGC) {
+
+        /**
+         * Percentil por rango más cercano.
+         *
+         * @param percentil Entre 0 y 100
+         * @return Latencia en nanosegundos
+         */
+        public long percentil(double percentil) {
+            int rango = (int) Math.ceil(percentil / 100.0 * nanos.length);
+            return nanos[Math.max(0, rango - 1)];
+        }
+
+        public double megabytesPorSegundo() {
+            return bytes / 1048576.0 / (percentil(50) / 1e9);
+        }
+
+        public double tokensPorSegundo() {
+            return tokens / (percentil(50) / 1e9);
+        }
+    }
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor con las iteraciones por defecto, etapas una tras otra.
+     */
+    public BancoPruebas() {
+        this.calentamiento = CALENTAMIENTO_POR_DEFECTO;
+        this.iteraciones = ITERACIONES_POR_DEFECTO;
+        this.encadenado = false;
+    }
+
+    //endregion
+
+    //region GETTERS Y SETTERS
+
+    public int getCalentamiento() {
+        return calentamiento;
+    }
+
+    /**
+     * @param calentamiento Iteraciones sin medir antes de las medidas, por archivo
+     */
+    public void setCalentamiento(int calentamiento) {
+        if (calentamiento < 0) {
+            throw new IllegalArgumentException("Calentamiento negativo: " + calentamiento);
+        }
+        this.calentamiento = calentamiento;
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    /**
+     * @param iteraciones Iteraciones medidas por archivo
+     */
+    public void setIteraciones(int iteraciones) {
+        if (iteraciones < 1) {
+            throw new IllegalArgumentException("Se necesita al menos una iteración: " + iteraciones);
+        }
+        this.iteraciones = iteraciones;
+    }
+
+    /**
+     * @param encadenado Si el controlador encadena las etapas (ver ControladorPrincipal.setEncadenado)
+     */
+    public void setEncadenado(boolean encadenado) {
+        this.encadenado = encadenado;
+    }
+
+    //endregion
+
+    //region EJECUCIÓN
+
+    /**
+     * Mide todos los archivos, uno tras otro.
+     *
+     * @param archivos Archivos del corpus
+     * @return Resultados en el mismo orden
+     * @throws IOException Si no se puede usar el directorio temporal o un análisis falla
+     */
+    public List<ResultadoArchivo> ejecutar(List<Path> archivos) throws IOException {
+        List<ResultadoArchivo> resultados = new ArrayList<>(archivos.size());
+        Path directorio = Files.createTempDirectory("banco");
+        try {
+            for (Path archivo : archivos) {
+                resultados.add(medir(archivo, directorio));
+            }
+        } finally {
+            vaciar(directorio);
+            Files.deleteIfExists(directorio);
+        }
+        return resultados;
+    }
+
+    private ResultadoArchivo medir(Path archivo, Path directorio) throws IOException {
+        for (int i = 0; i < calentamiento; i++) {
+            vaciar(directorio);
+            analizar(archivo, directorio);
+        }
+
+        long[] nanos = new long[iteraciones];
+        long tokens = 0;
+        long coleccionesAntes = colecciones();
+        long nanosGCAntes = nanosGC();
+        for (int i = 0; i < iteraciones; i++) {
+            vaciar(directorio);
+            long inicio = System.nanoTime();
+            tokens = analizar(archivo, directorio);
+            nanos[i] = System.nanoTime() - inicio;
+        }
+        long colecciones = colecciones() - coleccionesAntes;
+        long nanosGC = nanosGC() - nanosGCAntes;
+
+        Arrays.sort(nanos);
+        return new ResultadoArchivo(archivo.toString(), Files.size(archivo), tokens, nanos, colecciones, nanosGC);
+    }
+
+    /**
+     * Una ejecución completa del controlador con la consola descartada.
+     *
+     * @return Tokens reconocidos
+     */
+    private long analizar(Path archivo, Path directorio) throws IOException {
+        ControladorPrincipal controlador = new ControladorPrincipal(archivo.toString());
+        controlador.setEncadenado(encadenado);
+        controlador.setDirectorioSalida(directorio);
+
+        PrintStream consola = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        boolean completo;
+        try {
+            completo = controlador.ejecutar();
+        } finally {
+            System.setOut(consola);
+        }
+        if (!completo) {
+            throw new IOException("El análisis de " + archivo + " no terminó");
+        }
+        return controlador.getTotalTokens();
+    }
+
+    private static void vaciar(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path archivo : archivos.toList()) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    private static long colecciones() {
+        long total = 0;
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, recolector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long nanosGC() {
+        long total = 0;
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, recolector.getCollectionTime());
+        }
+        return total * 1_000_000;
+    }
+
+    //endregion
+
+    //region SALIDA
+
+    /**
+     * Escribe los resultados como tabla de texto, con una fila de totales.
+     *
+     * @param resultados Resultados de ejecutar
+     * @param salida Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirTabla(List<ResultadoArchivo> resultados, Appendable salida) throws IOException {
+        salida.append(String.format("%-30s %10s %10s %9s %9s %9s %9s %12s %6s %8s%n",
+                "Archivo", "KB", "Tokens", "p50 ms", "p90 ms", "p99 ms", "MB/s", "Tokens/s", "GCs", "GC ms"));
+        long bytes = 0;
+        long tokens = 0;
+        long mediana = 0;
+        long colecciones = 0;
+        long nanosGC = 0;
+        for (ResultadoArchivo resultado : resultados) {
+            salida.append(String.format("%-30s %10.1f %10d %9.2f %9.2f %9.2f %9.2f %12.0f %6d %8.1f%n",
+                    nombreCorto(resultado.archivo()), resultado.bytes() / 1024.0, resultado.tokens(),
+                    resultado.percentil(50) / 1e6, resultado.percentil(90) / 1e6, resultado.percentil(99) / 1e6,
+                    resultado.megabytesPorSegundo(), resultado.tokensPorSegundo(),
+                    resultado.colecciones(), resultado.nanosGC() / 1e6));
+            bytes += resultado.bytes();
+            tokens += resultado.tokens();
+            mediana += resultado.percentil(50);
+            colecciones += resultado.colecciones();
+            nanosGC += resultado.nanosGC();
+        }
+        if (resultados.size() > 1 && mediana > 0) {
+            salida.append(String.format("%-30s %10.1f %10d %9.2f %9s %9s %9.2f %12.0f %6d %8.1f%n",
+                    "TOTAL", bytes / 1024.0, tokens, mediana / 1e6, "", "",
+                    bytes / 1048576.0 / (mediana / 1e9), tokens / (mediana / 1e9), colecciones, nanosGC / 1e6));
+        }
+    }
+
+    /**
+     * Escribe los resultados en JSON, en el formato que lee compararConBase.
+     *
+     * @param resultados Resultados de ejecutar
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirJSON(List<ResultadoArchivo> resultados, Appendable json) throws IOException {
+        List<Object> archivos = new ArrayList<>();
+        for (ResultadoArchivo resultado : resultados) {
+            Map<String, Object> archivo = new LinkedHashMap<>();
+            archivo.put("archivo", resultado.archivo());
+            archivo.put("bytes", resultado.bytes());
+            archivo.put("tokens", resultado.tokens());
+            archivo.put("p50Ns", resultado.percentil(50));
+            archivo.put("p90Ns", resultado.percentil(90));
+            archivo.put("p99Ns", resultado.percentil(99));
+            archivo.put("megabytesPorSegundo", resultado.megabytesPorSegundo());
+            archivo.put("tokensPorSegundo", resultado.tokensPorSegundo());
+            archivo.put("colecciones", resultado.colecciones());
+            archivo.put("gcNs", resultado.nanosGC());
+            archivos.add(archivo);
+        }
+
+        Map<String, Object> raiz = new LinkedHashMap<>();
+        raiz.put("version", VERSION);
+        raiz.put("procesadores", Runtime.getRuntime().availableProcessors());
+        raiz.put("encadenado", encadenado);
+        raiz.put("calentamiento", calentamiento);
+        raiz.put("iteraciones", iteraciones);
+        raiz.put("archivos", archivos);
+        GeneradorJSON.escribirValor(raiz, json);
+    }
+
+    /**
+     * Compara la mediana de cada archivo con la de una ejecución guardada y
+     * escribe una línea por archivo. Los archivos sin base se informan pero no
+     * cuentan como regresión.
+     *
+     * @param resultados Resultados de ejecutar
+     * @param base Texto del JSON guardado con escribirJSON
+     * @param umbral Aumento relativo de la mediana que se considera regresión (0.10 = 10 %)
+     * @param salida Destino del informe
+     * @return Cantidad de archivos con regresión
+     * @throws IOException Si hay error al escribir
+     * @throws IllegalArgumentException Si la base no es un JSON de resultados
+     */
+    public static int compararConBase(List<ResultadoArchivo> resultados, String base, double umbral,
+                                      Appendable salida) throws IOException {
+        Map<String, Long> medianasBase = leerMedianas(base);
+        int regresiones = 0;
+
+        List<ResultadoArchivo> ordenados = new ArrayList<>(resultados);
+        ordenados.sort(Comparator.comparing(ResultadoArchivo::archivo));
+        for (ResultadoArchivo resultado : ordenados) {
+            Long anterior = medianasBase.get(normalizar(resultado.archivo()));
+            String nombre = nombreCorto(resultado.archivo());
+            if (anterior == null || anterior <= 0) {
+                salida.append(String.format("  %-30s sin base%n", nombre));
+                continue;
+            }
+
+            long actual = resultado.percentil(50);
+            double cambio = (double) (actual - anterior) / anterior;
+            String marca = "";
+            if (cambio > umbral) {
+                marca = "  REGRESIÓN";
+                regresiones++;
+            } else if (cambio < -umbral) {
+                marca = "  mejora";
+            }
+            salida.append(String.format("  %-30s p50 %9.2f ms -> %9.2f ms (%+6.1f %%)%s%n",
+                    nombre, anterior / 1e6, actual / 1e6, cambio * 100, marca));
+        }
+        return regresiones;
+    }
+
+    private static Map<String, Long> leerMedianas(String base) {
+        if (!(LectorJSON.leer(base) instanceof Map<?, ?> raiz) || !(raiz.get("archivos") instanceof List<?> archivos)) {
+            throw new IllegalArgumentException("La base no tiene la lista de archivos");
+        }
+        if (!(raiz.get("version") instanceof Long version) || version != VERSION) {
+            throw new IllegalArgumentException("Versión de la base no soportada: " + raiz.get("version"));
+        }
+
+        Map<String, Long> medianas = new HashMap<>();
+        for (Object elemento : archivos) {
+            if (elemento instanceof Map<?, ?> archivo
+                    && archivo.get("archivo") instanceof String nombre
+                    && archivo.get("p50Ns") instanceof Long mediana) {
+                medianas.put(normalizar(nombre), mediana);
+            }
+        }
+        return medianas;
+    }
+
+    /**
+     * Ruta absoluta y sin . ni .., para que ./a.txt y a.txt cuenten como el
+     * mismo archivo al comparar con la base.
+     */
+    private static String normalizar(String ruta) {
+        try {
+            return Path.of(ruta).toAbsolutePath().normalize().toString();
+        } catch (InvalidPathException e) {
+            return ruta;
+        }
+    }
+
+    /**
+     * Los últimos caracteres de la ruta, para que la tabla no se desalinee.
+     */
+    private static String nombreCorto(String archivo) {
+        return archivo.length() <= 30 ? archivo : "…" + archivo.substring(archivo.length() - 29);
+    }
+
+    //endregion
+}
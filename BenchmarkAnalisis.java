@@ -0,0 +1,81 @@
+package benchmarks;
+
+import analizadorLexico.AnalizadorLexico;
+import analizadorLexico.Token;
+import analizadorSintactico.AnalizadorLL1;
+import analizadorSintactico.ClasificadorSemantico;
+import analizadorSintactico.NodoArbol;
+import analizadorSintactico.OptimizadorGramatica;
+import analizadorSintactico.TablaLL1;
+import diagnosticos.ColectorDiagnosticos;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de las tres etapas del análisis con entradas de varios tamaños.
+ * Cada etapa se mide por separado: la entrada de cada una (código, tokens) se
+ * prepara una sola vez en el setup.
+ *
+ * @author Sophia
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkAnalisis {
+
+    // Funciones del programa (unos 30 tokens cada una)
+    @Param({"10", "1000", "30000"})
+    public int funciones;
+
+    private String codigo;
+    private List<Token> tokensValidos;
+    private TablaLL1 tablaLL1;
+
+    @Setup
+    public void preparar() {
+        codigo = ProgramasBenchmark.generar(funciones, false);
+        tablaLL1 = OptimizadorGramatica.construirTablaOptimizada();
+
+        AnalizadorLexico lexico = new AnalizadorLexico(codigo);
+        lexico.setMostrarSalida(false);
+        lexico.analizar();
+        tokensValidos = lexico.getTokensValidos();
+    }
+
+    @Benchmark
+    public List<Token> lexico() {
+        AnalizadorLexico lexico = new AnalizadorLexico(codigo, new ColectorDiagnosticos());
+        lexico.setMostrarSalida(false);
+        lexico.analizar();
+        return lexico.getTokensValidos();
+    }
+
+    @Benchmark
+    public NodoArbol sintactico() {
+        AnalizadorLL1 sintactico = new AnalizadorLL1(tablaLL1, tokensValidos);
+        sintactico.analizar();
+        return sintactico.getRaizArbol();
+    }
+
+    @Benchmark
+    public ColectorDiagnosticos semantico() {
+        ClasificadorSemantico semantico = new ClasificadorSemantico(new ColectorDiagnosticos());
+        semantico.setMostrarSalida(false);
+        semantico.analizar(tokensValidos);
+        return semantico.getDiagnosticos();
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import analizadorLexico.AnalizadorLexico;
+import analizadorSintactico.AnalizadorLL1;
+import analizadorSintactico.ClasificadorSemantico;
+import analizadorSintactico.NodoArbol;
+import analizadorSintactico.OptimizadorGramatica;
+import diagnosticos.ColectorDiagnosticos;
+import generadores.GeneradorGraphviz;
+import generadores.GeneradorReportes;
+import generadores.OpcionesDOT;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de los generadores de salida. Escriben en un destino que descarta
+ * el texto, así que se mide la generación y no el disco ni el crecimiento de
+ * un buffer. La entrada tiene errores semánticos para que el reporte de
+ * errores tenga contenido.
+ *
+ * @author Sophia
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkGeneradores {
+
+    @Param({"10", "1000", "30000"})
+    public int funciones;
+
+    // Acotado: como en los archivos generados; completo: todo el árbol
+    @Param({"true", "false"})
+    public boolean acotado;
+
+    private NodoArbol raiz;
+    private ClasificadorSemantico clasificador;
+    private ColectorDiagnosticos diagnosticos;
+    private OpcionesDOT opciones;
+    private Writer destino;
+
+    @Setup
+    public void preparar() {
+        diagnosticos = new ColectorDiagnosticos();
+        AnalizadorLexico lexico = new AnalizadorLexico(ProgramasBenchmark.generar(funciones, true), diagnosticos);
+        lexico.setMostrarSalida(false);
+        lexico.analizar();
+
+        AnalizadorLL1 sintactico = new AnalizadorLL1(OptimizadorGramatica.construirTablaOptimizada(), lexico.getTokensValidos());
+        sintactico.analizar();
+        raiz = sintactico.getRaizArbol();
+
+        clasificador = new ClasificadorSemantico(diagnosticos);
+        clasificador.setMostrarSalida(false);
+        clasificador.analizar(lexico.getTokensValidos());
+
+        opciones = acotado ? OpcionesDOT.acotadas() : new OpcionesDOT();
+        destino = Writer.nullWriter();
+    }
+
+    @Benchmark
+    public void arbolDerivacion() throws IOException {
+        GeneradorGraphviz.generarArbolDerivacion(raiz, destino, opciones);
+    }
+
+    @Benchmark
+    public void ast() throws IOException {
+        GeneradorGraphviz.generarAST(raiz, destino, opciones);
+    }
+
+    @Benchmark
+    public void reporteErrores() throws IOException {
+        GeneradorReportes.escribirReporteErrores(diagnosticos, destino);
+    }
+
+    @Benchmark
+    public void reporteClasificacion() throws IOException {
+        GeneradorReportes.escribirReporteClasificacion(clasificador, destino);
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import analizadorSintactico.Gramatica;
+import analizadorSintactico.TablaLL1;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks de la gramática y la tabla LL(1): PRIMERO y SIGUIENTE, la
+ * construcción de la tabla y las consultas que hace el analizador sintáctico.
+ *
+ * @author Sophia
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkGramatica {
+
+    // Consultas por invocación de obtenerProduccion
+    private static final int CONSULTAS = 1024;
+
+    private Gramatica gramatica;
+    private TablaLL1 tablaLL1;
+    private String[] noTerminales;
+    private String[] terminales;
+
+    @Setup
+    public void preparar() {
+        gramatica = new Gramatica();
+        tablaLL1 = new TablaLL1(gramatica, false);
+
+        // Pares (no terminal, terminal) en orden fijo, con y sin entrada en la tabla
+        List<String> filas = new ArrayList<>(gramatica.getNoTerminales());
+        List<String> columnas = new ArrayList<>(gramatica.getTerminales());
+        filas.sort(null);
+        columnas.sort(null);
+        noTerminales = new String[CONSULTAS];
+        terminales = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            noTerminales[i] = filas.get(i % filas.size());
+            terminales[i] = columnas.get((i * 7) % columnas.size());
+        }
+    }
+
+    /**
+     * Gramática completa: producciones más PRIMERO y SIGUIENTE.
+     */
+    @Benchmark
+    public Gramatica gramatica() {
+        return new Gramatica();
+    }
+
+    /**
+     * Solo PRIMERO y SIGUIENTE, a partir de producciones ya construidas.
+     */
+    @Benchmark
+    public Gramatica primeroSiguiente() {
+        return new Gramatica(gramatica.getSimboloInicial(), gramatica.getProducciones(), gramatica.getTerminales());
+    }
+
+    @Benchmark
+    public TablaLL1 tabla() {
+        return new TablaLL1(gramatica, false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONSULTAS)
+    public void obtenerProduccion(Blackhole agujero) {
+        for (int i = 0; i < CONSULTAS; i++) {
+            agujero.consume(tablaLL1.obtenerProduccion(noTerminales[i], terminales[i]));
+        }
+    }
+}
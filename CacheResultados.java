@@ -0,0 +1,243 @@
+package archivos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Caché en disco de los archivos generados por el análisis.
+ * Cada entrada es un directorio cuyo nombre es el SHA-256 del código fuente junto
+ * con una huella de la gramática y de la versión de los formatos de salida: si
+ * cambia cualquiera de ellos, la clave cambia y la entrada vieja simplemente
+ * deja de usarse.
+ *
+ * La fecha de modificación del directorio marca el último uso. El tamaño total
+ * se lleva en un archivo de la caché y se actualiza al guardar cada entrada; solo
+ * cuando supera el máximo (o falta) se recorre la caché, se mide de nuevo y se
+ * eliminan las entradas menos usadas recientemente hasta bajar al 90 % del
+ * máximo, así los recorridos completos no se repiten en cada guardado.
+ *
+ * @author Sophia
+ */
+public class CacheResultados {
+
+    public static final String DIRECTORIO_POR_DEFECTO = ".cache_analisis";
+    public static final long TAMANO_MAXIMO_POR_DEFECTO = 256L * 1024 * 1024;
+
+    private static final String SUFIJO_TEMPORAL = ".tmp";
+
+    // Tamaño total de las entradas, en bytes (lo corrige cada desalojo)
+    private static final String ARCHIVO_TAMANO = "tamano";
+
+    // Fracción del máximo hasta la que se desaloja
+    private static final double FRACCION_DESALOJO = 0.9;
+
+    private final Path directorio;
+    private final long tamanoMaximo;
+    private final byte[] huella;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor de la caché.
+     *
+     * @param directorio Directorio de la caché (se crea si no existe)
+     * @param tamanoMaximo Tamaño máximo en bytes
+     * @param huella Identifica la gramática y la versión de las salidas
+     * @throws IOException Si no se puede crear el directorio
+     */
+    public CacheResultados(String directorio, long tamanoMaximo, String huella) throws IOException {
+        this.directorio = Path.of(directorio);
+        this.tamanoMaximo = tamanoMaximo;
+        this.huella = huella.getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(this.directorio);
+    }
+
+    //endregion
+
+    //region CONSULTA Y ALMACENAMIENTO
+
+    /**
+     * Calcula la clave de un código fuente.
+     *
+     * @param fuente Bytes del código fuente
+     * @return Clave hexadecimal
+     */
+    public String calcularClave(byte[] fuente) {
+        MessageDigest sha = nuevoResumen();
+        sha.update(huella);
+        sha.update((byte) 0);
+        sha.update(fuente);
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Copia los archivos de una entrada al directorio de salida. Los archivos
+     * que ya son idénticos a los de la entrada no se tocan.
+     *
+     * @param clave Clave del código fuente
+     * @param destino Directorio donde se restauran los archivos
+     * @return false si la entrada no existe
+     * @throws IOException Si hay error al copiar
+     */
+    public boolean restaurar(String clave, Path destino) throws IOException {
+        Path entrada = directorio.resolve(clave);
+        if (!Files.isDirectory(entrada)) {
+            return false;
+        }
+
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(entrada)) {
+            for (Path archivo : archivos) {
+                EscritorArchivo.copiarSiCambia(archivo, destino.resolve(archivo.getFileName().toString()));
+            }
+        }
+        Files.setLastModifiedTime(entrada, FileTime.fromMillis(System.currentTimeMillis()));
+        return true;
+    }
+
+    /**
+     * Guarda copias de los archivos generados. La entrada se arma en un directorio
+     * temporal y se publica con un renombrado atómico, así que otro proceso nunca
+     * ve una entrada a medias.
+     *
+     * @param clave Clave del código fuente
+     * @param rutas Archivos generados
+     * @throws IOException Si hay error al copiar
+     */
+    public void guardar(String clave, List<String> rutas) throws IOException {
+        Path entrada = directorio.resolve(clave);
+        if (Files.isDirectory(entrada)) {
+            return;
+        }
+
+        Path temporal = Files.createTempDirectory(directorio, clave + SUFIJO_TEMPORAL);
+        long tamanoEntrada = 0;
+        try {
+            for (String ruta : rutas) {
+                Path archivo = Path.of(ruta);
+                Path copia = temporal.resolve(archivo.getFileName().toString());
+                Files.copy(archivo, copia);
+                tamanoEntrada += Files.size(copia);
+            }
+            Files.move(temporal, entrada, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Otro proceso guardó la misma entrada (y la sumó al tamaño)
+            return;
+        } finally {
+            if (Files.exists(temporal)) {
+                eliminar(temporal);
+            }
+        }
+
+        long total = leerTamano();
+        if (total >= 0 && total + tamanoEntrada <= tamanoMaximo) {
+            escribirTamano(total + tamanoEntrada);
+        } else {
+            desalojar(entrada);
+        }
+    }
+
+    //endregion
+
+    //region DESALOJO
+
+    /**
+     * Mide toda la caché y, si supera el tamaño máximo, elimina las entradas usadas
+     * hace más tiempo hasta quedar bajo FRACCION_DESALOJO del máximo. La entrada
+     * recién guardada nunca se elimina. Deja registrado el tamaño resultante.
+     */
+    private void desalojar(Path recienGuardada) throws IOException {
+        List<Path> entradas = new ArrayList<>();
+        List<Long> tamanos = new ArrayList<>();
+        long total = 0;
+
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(directorio, Files::isDirectory)) {
+            for (Path entrada : contenido) {
+                if (entrada.getFileName().toString().contains(SUFIJO_TEMPORAL)) continue;
+                entradas.add(entrada);
+            }
+        }
+        entradas.sort(Comparator.comparing(CacheResultados::ultimoUso));
+        for (Path entrada : entradas) {
+            long tamano = tamano(entrada);
+            tamanos.add(tamano);
+            total += tamano;
+        }
+
+        if (total > tamanoMaximo) {
+            long objetivo = (long) (tamanoMaximo * FRACCION_DESALOJO);
+            for (int i = 0; i < entradas.size() && total > objetivo; i++) {
+                if (entradas.get(i).equals(recienGuardada)) continue;
+                eliminar(entradas.get(i));
+                total -= tamanos.get(i);
+            }
+        }
+        escribirTamano(total);
+    }
+
+    /**
+     * @return Tamaño total registrado, o -1 si no hay registro válido
+     */
+    private long leerTamano() {
+        try {
+            return Long.parseLong(Files.readString(directorio.resolve(ARCHIVO_TAMANO)).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void escribirTamano(long total) throws IOException {
+        Files.writeString(directorio.resolve(ARCHIVO_TAMANO), Long.toString(total));
+    }
+
+    private static FileTime ultimoUso(Path entrada) {
+        try {
+            return Files.getLastModifiedTime(entrada);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long tamano(Path entrada) throws IOException {
+        long total = 0;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(entrada)) {
+            for (Path archivo : archivos) {
+                total += Files.size(archivo);
+            }
+        }
+        return total;
+    }
+
+    private static void eliminar(Path entrada) throws IOException {
+        try (Stream<Path> archivos = Files.walk(entrada)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(archivo);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    //endregion
+
+    private static MessageDigest nuevoResumen() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
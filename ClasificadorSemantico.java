@@ -2,7 +2,15 @@ package analizadorSintactico;
 
 import analizadorLexico.Token;
 import analizadorLexico.TipoToken;
+import diagnosticos.CodigoDiagnostico;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import eventos.EventosJFR;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
 
 /**
  * Clasificador Semántico que identifica y categoriza elementos del código.
@@ -12,8 +20,19 @@ import java.util.*;
  */
 public class ClasificadorSemantico {
 
+    // Tamaño a partir del cual analizar() verifica las funciones en paralelo
+    private static final int UMBRAL_PARALELO = 20000;
+
+    // Funciones por tarea antes de dividir el trabajo
+    private static final int FUNCIONES_POR_TAREA = 16;
+
+    // Tokens entre consultas de cancelación (potencia de dos)
+    private static final int INTERVALO_CANCELACION = 256;
+
     // Tablas de símbolos
-    private Map<String, String> variablesDeclaradas;    // nombre -> tipo
+    private TablaSimbolos tablaSimbolos;                // resolución con ámbitos
+    private Map<String, String> variablesDeclaradas;    // nombre -> tipo (clasificación)
+    private List<DeclaracionVariable> declaraciones;    // cada declaración con su ámbito
     private Map<String, InfoFuncion> funcionesDeclaradas; // nombre -> info
     private Set<String> variablesUsadas;
 
@@ -24,14 +43,69 @@ public class ClasificadorSemantico {
     private Set<String> simbolos;
 
     // Errores semánticos
-    private List<String> erroresSemanticos;
+    private ColectorDiagnosticos diagnosticos;
 
     // Contexto actual
     private String funcionActual;
     private String tipoRetornoActual;
+    private List<String> parametrosActuales;
+    private int profundidadBloques;
+
+    // Análisis definición-uso de la función actual
+    private AnalisisFlujo flujo;
+    private int slotAsignacion;     // Variable asignada por la sentencia en curso (-1: ninguna)
+
+    // Estado de la máquina de análisis (un solo recorrido)
+    private Estado estado;
+    private int posicion;
+    private Token tipoPendiente;
+    private Token identificadorPendiente;
+    private int posicionPendiente;  // Posición de identificadorPendiente (se resuelve con el token siguiente)
+    private Token tokenReturn;
+
+    // Referencias a funciones/variables aún no declaradas y errores por posición
+    private List<ReferenciaDiferida> referenciasDiferidas;
+    private List<Diagnostico> erroresPendientes;
+
+    // Instancia que verifica una sola función (análisis en paralelo)
+    private boolean esTareaFuncion;
+
+    // Mensajes del análisis en consola
+    private boolean mostrarSalida;
+
+    // Se consulta durante el análisis para abandonarlo (null: no se cancela)
+    private BooleanSupplier cancelado;
+
+    // Llamadas resueltas y errores volcados a medida que se cierran (ver setMemoriaAcotada)
+    private boolean memoriaAcotada;
+
+    // Grafo de llamadas: funciones por número, llamadas abiertas, sin resolver y aristas
+    private List<String> nombresFunciones;
+    private Deque<Llamada> llamadasAbiertas;
+    private List<Llamada> llamadas;
+    private int[] origenesAristas;
+    private int[] llamadosAristas;
+    private int totalAristas;
+    private Set<String> puntosEntrada;
+    private GrafoLlamadas grafoLlamadas;
+
+    // Funciones ya enlazadas desde el último llamador (repetir la arista no cambia el grafo)
+    private int ultimoLlamador;
+    private Set<Integer> enlazadosUltimoLlamador;
 
     //region CLASES AUXILIARES
 
+    /**
+     * Declaración de una variable o parámetro.
+     *
+     * @param nombre Nombre de la variable
+     * @param tipo Tipo declarado
+     * @param funcion Función donde se declaró (null: atributo de la clase)
+     * @param linea Línea de la declaración
+     */
+    public record DeclaracionVariable(String nombre, String tipo, String funcion, int linea) {
+    }
+
     /**
      * Información de una función.
      */
@@ -39,6 +113,8 @@ public class ClasificadorSemantico {
         String tipoRetorno;
         List<String> tiposParametros;
         int linea;
+        int id;          // Vértice en el grafo de llamadas
+        int posicion;    // Posición de la declaración en el flujo de tokens
 
         InfoFuncion(String tipoRetorno, List<String> tiposParametros, int linea) {
             this.tipoRetorno = tipoRetorno;
@@ -47,6 +123,102 @@ public class ClasificadorSemantico {
         }
     }
 
+    /**
+     * Llamada a función: quién llama, a quién y cuántos argumentos recibe.
+     */
+    private static class Llamada {
+        int llamador;        // Número de la función que llama (-1 fuera de funciones)
+        Token nombre;
+        int posicion;
+        int comas;           // Comas al nivel de la llamada
+        int parentesis;      // Paréntesis de agrupación abiertos dentro de los argumentos
+        boolean vacia;
+
+        Llamada(int llamador, Token nombre, int posicion) {
+            this.llamador = llamador;
+            this.nombre = nombre;
+            this.posicion = posicion;
+            this.vacia = true;
+        }
+
+        int argumentos() {
+            return vacia ? 0 : comas + 1;
+        }
+    }
+
+    /**
+     * Estados de la máquina de análisis.
+     */
+    private enum Estado {
+        INICIAL,
+        TRAS_CLASS,              // class ·
+        TRAS_TIPO,               // tipo ·
+        TRAS_TIPO_IDENTIFICADOR, // tipo identificador ·
+        TRAS_IDENTIFICADOR,      // identificador · (uso o llamada)
+        TRAS_RETURN,             // return ·
+        PARAMETROS,              // tipo identificador ( ·
+        PARAMETROS_TRAS_TIPO     // ( ... tipo ·
+    }
+
+    /**
+     * Referencia cuya verificación se difiere hasta el final del análisis.
+     */
+    private static class ReferenciaDiferida {
+        Token token;
+        boolean esFuncion;
+        int posicion;
+
+        ReferenciaDiferida(Token token, boolean esFuncion, int posicion) {
+            this.token = token;
+            this.esFuncion = esFuncion;
+            this.posicion = posicion;
+        }
+    }
+
+    /**
+     * Tarea que verifica un rango de funciones, dividiéndolo a la mitad
+     * mientras sea mayor que FUNCIONES_POR_TAREA. ForkJoinTask es Serializable,
+     * pero las tareas nunca se serializan.
+     */
+    @SuppressWarnings("serial")
+    private static class TareaFunciones extends RecursiveAction {
+        private final ClasificadorSemantico global;
+        private final List<Token> tokens;
+        private final List<int[]> rangos;
+        private final ClasificadorSemantico[] resultados;
+        private final int desde;
+        private final int hasta;
+
+        TareaFunciones(ClasificadorSemantico global, List<Token> tokens, List<int[]> rangos,
+                       ClasificadorSemantico[] resultados, int desde, int hasta) {
+            this.global = global;
+            this.tokens = tokens;
+            this.rangos = rangos;
+            this.resultados = resultados;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= FUNCIONES_POR_TAREA) {
+                for (int i = desde; i < hasta; i++) {
+                    int[] rango = rangos.get(i);
+                    ClasificadorSemantico tarea = new ClasificadorSemantico(global, rango[0]);
+                    tarea.verificarFuncion(tokens, rango[0], rango[1]);
+                    resultados[i] = tarea;
+                }
+                return;
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(
+                    new TareaFunciones(global, tokens, rangos, resultados, desde, medio),
+                    new TareaFunciones(global, tokens, rangos, resultados, medio, hasta)
+            );
+        }
+    }
+
     //endregion
 
     //region CONSTRUCTOR
@@ -55,16 +227,58 @@ public class ClasificadorSemantico {
      * Constructor del clasificador semántico.
      */
     public ClasificadorSemantico() {
+        this(new ColectorDiagnosticos());
+    }
+
+    /**
+     * Constructor del clasificador semántico que reporta en un colector compartido.
+     *
+     * @param diagnosticos Colector de diagnósticos
+     */
+    public ClasificadorSemantico(ColectorDiagnosticos diagnosticos) {
+        this.tablaSimbolos = new TablaSimbolos();
         this.variablesDeclaradas = new HashMap<>();
+        this.declaraciones = new ArrayList<>();
         this.funcionesDeclaradas = new HashMap<>();
         this.variablesUsadas = new HashSet<>();
         this.variables = new HashSet<>();
         this.funciones = new HashSet<>();
         this.operadores = new HashSet<>();
         this.simbolos = new HashSet<>();
-        this.erroresSemanticos = new ArrayList<>();
+        this.diagnosticos = diagnosticos;
         this.funcionActual = null;
         this.tipoRetornoActual = null;
+        this.estado = Estado.INICIAL;
+        this.posicion = 0;
+        this.referenciasDiferidas = new ArrayList<>();
+        this.erroresPendientes = new ArrayList<>();
+        this.esTareaFuncion = false;
+        this.flujo = new AnalisisFlujo();
+        this.slotAsignacion = -1;
+        this.nombresFunciones = new ArrayList<>();
+        this.llamadasAbiertas = new ArrayDeque<>();
+        this.llamadas = new ArrayList<>();
+        this.origenesAristas = new int[16];
+        this.llamadosAristas = new int[16];
+        this.ultimoLlamador = -1;
+        this.enlazadosUltimoLlamador = new HashSet<>();
+        this.puntosEntrada = new HashSet<>(Set.of("main"));
+        this.mostrarSalida = true;
+    }
+
+    /**
+     * Constructor de una tarea que verifica una función. Comparte en modo
+     * lectura las funciones y el ámbito global ya recolectados.
+     *
+     * @param global Clasificador con las declaraciones globales
+     * @param posicionInicial Índice del primer token de la función
+     */
+    private ClasificadorSemantico(ClasificadorSemantico global, int posicionInicial) {
+        this();
+        this.tablaSimbolos = new TablaSimbolos(global.tablaSimbolos);
+        this.funcionesDeclaradas = global.funcionesDeclaradas;
+        this.posicion = posicionInicial;
+        this.esTareaFuncion = true;
     }
 
     //endregion
@@ -73,215 +287,696 @@ public class ClasificadorSemantico {
 
     /**
      * Analiza la semántica del programa a partir de los tokens.
+     * Recorre la lista una sola vez (ver procesar).
      *
      * @param tokens Lista de tokens
      */
     public void analizar(List<Token> tokens) {
-        System.out.println("\n--- INICIANDO ANÁLISIS SEMÁNTICO ---");
+        EventosJFR.Semantico evento = EventosJFR.estanActivos() ? new EventosJFR.Semantico() : null;
+        if (evento != null) {
+            evento.begin();
+        }
 
-        // Primera pasada: recolectar declaraciones
-        recolectarDeclaraciones(tokens);
+        if (tokens.size() >= UMBRAL_PARALELO) {
+            analizarParalelo(tokens, ForkJoinPool.commonPool());
+        } else {
+            if (mostrarSalida) {
+                System.out.println("\n--- INICIANDO ANÁLISIS SEMÁNTICO ---");
+            }
 
-        // Segunda pasada: verificar uso de variables
-        verificarUsoVariables(tokens);
+            int procesados = 0;
+            for (Token token : tokens) {
+                if ((++procesados & (INTERVALO_CANCELACION - 1)) == 0) {
+                    verificarCancelacion();
+                }
+                procesar(token);
+            }
 
-        // Tercera pasada: verificar returns en funciones
-        verificarReturns(tokens);
+            finalizar();
+        }
 
-        // Clasificar todos los tokens
-        clasificarTokens(tokens);
+        if (evento != null) {
+            registrarEvento(evento, tokens.size());
+        }
+    }
 
-        mostrarResultados();
+    /**
+     * Completa y emite el evento JFR de un análisis ya finalizado.
+     *
+     * @param evento Evento iniciado antes del análisis
+     * @param tokens Tokens procesados
+     */
+    public void registrarEvento(EventosJFR.Semantico evento, long tokens) {
+        if (evento.shouldCommit()) {
+            evento.tokens = tokens;
+            evento.funciones = getNombresFunciones().size();
+            evento.variables = variablesDeclaradas.size();
+            evento.errores = diagnosticos.getTotal(Diagnostico.Etapa.SEMANTICO);
+            evento.commit();
+        }
     }
 
     /**
-     * Recolecta todas las declaraciones de variables y funciones.
+     * Analiza la semántica verificando cada función en paralelo.
+     * Primero recorre los tokens fuera de las funciones (atributos y firmas),
+     * luego verifica cada cuerpo en el pool y combina los errores en orden de código.
      *
      * @param tokens Lista de tokens
+     * @param pool Pool donde se ejecutan las verificaciones por función
      */
-    private void recolectarDeclaraciones(List<Token> tokens) {
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-
-            // Detectar declaración de variable: tipo identificador ;
-            if (esTipo(token) && i + 2 < tokens.size()) {
-                Token siguiente = tokens.get(i + 1);
-                Token despuesSiguiente = tokens.get(i + 2);
-
-                if (siguiente.getTipo() == TipoToken.IDENTIFICADOR) {
-                    // Es declaración de variable si termina en ;
-                    if (despuesSiguiente.getLexema().equals(";")) {
-                        String nombreVar = siguiente.getLexema();
-                        String tipoVar = token.getLexema();
-
-                        if (variablesDeclaradas.containsKey(nombreVar)) {
-                            erroresSemanticos.add(String.format(
-                                    "ERROR SEMÁNTICO en línea %d: Variable '%s' ya fue declarada",
-                                    siguiente.getLinea(), nombreVar
-                            ));
-                        } else {
-                            variablesDeclaradas.put(nombreVar, tipoVar);
-                            variables.add(nombreVar);
-                        }
-                    }
-                    // Es declaración de función si el siguiente es (
-                    else if (despuesSiguiente.getLexema().equals("(")) {
-                        String nombreFunc = siguiente.getLexema();
-                        String tipoRetorno = token.getLexema();
-
-                        // Recolectar tipos de parámetros
-                        List<String> tiposParametros = new ArrayList<>();
-                        int j = i + 3; // Saltar tipo, nombre, (
-
-                        while (j < tokens.size() && !tokens.get(j).getLexema().equals(")")) {
-                            if (esTipo(tokens.get(j))) {
-                                tiposParametros.add(tokens.get(j).getLexema());
-                            }
-                            j++;
-                        }
+    public void analizarParalelo(List<Token> tokens, ForkJoinPool pool) {
+        if (mostrarSalida) {
+            System.out.println("\n--- INICIANDO ANÁLISIS SEMÁNTICO (PARALELO) ---");
+        }
 
-                        funcionesDeclaradas.put(nombreFunc, new InfoFuncion(
-                                tipoRetorno, tiposParametros, siguiente.getLinea()
-                        ));
-                        funciones.add(nombreFunc);
-
-                        // Registrar parámetros como variables locales
-                        j = i + 3;
-                        while (j < tokens.size() && !tokens.get(j).getLexema().equals(")")) {
-                            if (tokens.get(j).getTipo() == TipoToken.IDENTIFICADOR &&
-                                    j > 0 && esTipo(tokens.get(j - 1))) {
-                                String nombreParam = tokens.get(j).getLexema();
-                                String tipoParam = tokens.get(j - 1).getLexema();
-                                variablesDeclaradas.put(nombreParam, tipoParam);
-                                variables.add(nombreParam);
-                            }
-                            j++;
-                        }
-                    }
+        // Declaraciones globales: se procesan los tokens fuera de las funciones
+        List<int[]> rangos = new ArrayList<>();
+        int i = 0;
+        while (i < tokens.size()) {
+            if (estado == Estado.INICIAL && esInicioFuncion(tokens, i)) {
+                int fin = buscarFinFuncion(tokens, i);
+                registrarFuncion(tokens, i, fin);
+                rangos.add(new int[]{i, fin});
+                posicion = fin + 1;
+                i = fin + 1;
+            } else {
+                procesar(tokens.get(i));
+                i++;
+            }
+            if ((i & (INTERVALO_CANCELACION - 1)) == 0) {
+                verificarCancelacion();
+            }
+        }
+        cerrarEstado();
+        verificarCancelacion();
+
+        // Verificación de cada función
+        ClasificadorSemantico[] resultados = new ClasificadorSemantico[rangos.size()];
+        pool.invoke(new TareaFunciones(this, tokens, rangos, resultados, 0, rangos.size()));
+        verificarCancelacion();
+
+        // Combinar en orden de código
+        for (ClasificadorSemantico tarea : resultados) {
+            erroresPendientes.addAll(tarea.erroresPendientes);
+            tarea.variablesDeclaradas.forEach(variablesDeclaradas::putIfAbsent);
+            declaraciones.addAll(tarea.declaraciones);
+            variables.addAll(tarea.variables);
+            variablesUsadas.addAll(tarea.variablesUsadas);
+            operadores.addAll(tarea.operadores);
+            simbolos.addAll(tarea.simbolos);
+            llamadas.addAll(tarea.llamadas);
+        }
+
+        analizarLlamadas();
+        volcarErrores();
+        mostrarResultados();
+    }
+
+    /**
+     * Procesa un token del flujo. Permite ejecutar el análisis semántico
+     * en línea detrás del analizador léxico, sin esperar la lista completa.
+     *
+     * @param token Siguiente token del programa
+     */
+    public void procesar(Token token) {
+        posicion++;
+        clasificarToken(token);
+        seguirLlamadas(token);
+
+        switch (estado) {
+            case TRAS_CLASS -> {
+                estado = Estado.INICIAL;
+                if (token.getTipo() == TipoToken.IDENTIFICADOR) {
+                    return; // Nombre de la clase
+                }
+            }
+            case TRAS_TIPO -> {
+                estado = Estado.INICIAL;
+                if (token.getTipo() == TipoToken.IDENTIFICADOR) {
+                    identificadorPendiente = token;
+                    posicionPendiente = posicion;
+                    estado = Estado.TRAS_TIPO_IDENTIFICADOR;
+                    return;
+                }
+            }
+            case TRAS_TIPO_IDENTIFICADOR -> {
+                estado = Estado.INICIAL;
+                if (token.getTipo() == TipoToken.PUNTO_COMA) {
+                    declararVariable(tipoPendiente, identificadorPendiente, posicionPendiente);
+                    return;
+                }
+                if (token.getTipo() == TipoToken.PARENTESIS_IZQ) {
+                    iniciarFuncion(tipoPendiente, identificadorPendiente);
+                    estado = Estado.PARAMETROS;
+                    return;
+                }
+            }
+            case TRAS_IDENTIFICADOR -> {
+                estado = Estado.INICIAL;
+                if (token.getTipo() == TipoToken.PARENTESIS_IZQ) {
+                    verificarLlamada(identificadorPendiente, posicionPendiente);
+                } else if (token.getTipo() == TipoToken.ASIGNACION) {
+                    verificarAsignacion(identificadorPendiente, posicionPendiente);
+                } else {
+                    verificarUsoVariable(identificadorPendiente, posicionPendiente);
                 }
             }
+            case TRAS_RETURN -> {
+                estado = Estado.INICIAL;
+                verificarReturn(tokenReturn, token.getTipo() != TipoToken.PUNTO_COMA);
+            }
+            case PARAMETROS -> {
+                procesarParametro(token);
+                return;
+            }
+            case PARAMETROS_TRAS_TIPO -> {
+                estado = Estado.PARAMETROS;
+                if (token.getTipo() == TipoToken.IDENTIFICADOR) {
+                    declararParametro(tipoPendiente, token, posicion);
+                } else {
+                    procesarParametro(token);
+                }
+                return;
+            }
+            default -> {
+            }
         }
+
+        procesarInicial(token);
+    }
+
+    /**
+     * Cierra el análisis: vacía el estado pendiente, resuelve las referencias
+     * diferidas y ordena los errores por posición en el código.
+     */
+    public void finalizar() {
+        cerrarEstado();
+        analizarLlamadas();
+        volcarErrores();
+        mostrarResultados();
     }
 
     /**
-     * Verifica el uso de variables (si están declaradas).
+     * Vacía el estado pendiente, cierra los ámbitos abiertos y resuelve las referencias diferidas.
+     */
+    private void cerrarEstado() {
+        switch (estado) {
+            case TRAS_IDENTIFICADOR -> verificarUsoVariable(identificadorPendiente, posicionPendiente);
+            case TRAS_RETURN -> verificarReturn(tokenReturn, false);
+            default -> {
+            }
+        }
+        estado = Estado.INICIAL;
+
+        if (flujo.enFuncion()) {
+            flujo.finalizarFuncion(erroresPendientes);
+        }
+
+        // Cerrar ámbitos que quedaron abiertos (llaves sin balancear)
+        while (tablaSimbolos.getNivel() > 0) {
+            tablaSimbolos.salirAmbito();
+        }
+        funcionActual = null;
+
+        resolverReferenciasDiferidas();
+    }
+
+    /**
+     * Ordena los errores por posición en el código y los agrega al resultado.
+     */
+    private void volcarErrores() {
+        erroresPendientes.sort(Comparator.comparingInt(Diagnostico::posicion));
+        for (Diagnostico error : erroresPendientes) {
+            diagnosticos.agregar(error);
+        }
+        erroresPendientes.clear();
+    }
+
+    /**
+     * Transiciones desde el estado inicial.
      *
-     * @param tokens Lista de tokens
+     * @param token Token actual
      */
-    private void verificarUsoVariables(List<Token> tokens) {
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-
-            // Si es un identificador usado en una asignación o expresión
-            if (token.getTipo() == TipoToken.IDENTIFICADOR) {
-                String nombre = token.getLexema();
-
-                // Verificar si es uso (no declaración)
-                boolean esDeclaracion = (i > 0 && esTipo(tokens.get(i - 1)));
-
-                if (!esDeclaracion) {
-                    // Verificar si es llamada a función
-                    boolean esLlamadaFuncion = (i + 1 < tokens.size() &&
-                            tokens.get(i + 1).getLexema().equals("("));
-
-                    if (esLlamadaFuncion) {
-                        // Verificar que la función existe
-                        if (!funcionesDeclaradas.containsKey(nombre)) {
-                            erroresSemanticos.add(String.format(
-                                    "ERROR SEMÁNTICO en línea %d: Función '%s' no declarada",
-                                    token.getLinea(), nombre
-                            ));
-                        }
-                    } else {
-                        // Es uso de variable
-                        variablesUsadas.add(nombre);
-
-                        if (!variablesDeclaradas.containsKey(nombre)) {
-                            erroresSemanticos.add(String.format(
-                                    "ERROR SEMÁNTICO en línea %d: Variable '%s' no declarada",
-                                    token.getLinea(), nombre
-                            ));
+    private void procesarInicial(Token token) {
+        switch (token.getTipo()) {
+            case PALABRA_CLAVE -> {
+                if (esTipo(token)) {
+                    tipoPendiente = token;
+                    estado = Estado.TRAS_TIPO;
+                } else if (token.esPalabraClave("class")) {
+                    estado = Estado.TRAS_CLASS;
+                } else if (token.esPalabraClave("return") && funcionActual != null) {
+                    tokenReturn = token;
+                    estado = Estado.TRAS_RETURN;
+                }
+            }
+            case IDENTIFICADOR -> {
+                identificadorPendiente = token;
+                posicionPendiente = posicion;
+                estado = Estado.TRAS_IDENTIFICADOR;
+            }
+            case PUNTO_COMA -> {
+                // Fin de sentencia: la asignación toma efecto después de evaluar la expresión
+                if (slotAsignacion >= 0) {
+                    flujo.asignar(slotAsignacion);
+                    slotAsignacion = -1;
+                }
+            }
+            case LLAVE_IZQ -> {
+                // El cuerpo de la función comparte ámbito con los parámetros
+                if (funcionActual != null && ++profundidadBloques > 1) {
+                    tablaSimbolos.entrarAmbito();
+                }
+            }
+            case LLAVE_DER -> {
+                if (funcionActual != null) {
+                    if (profundidadBloques > 1) {
+                        tablaSimbolos.salirAmbito();
+                    }
+                    if (--profundidadBloques <= 0) {
+                        // Fin de función
+                        flujo.finalizarFuncion(erroresPendientes);
+                        tablaSimbolos.salirAmbito();
+                        funcionActual = null;
+                        tipoRetornoActual = null;
+                        if (memoriaAcotada) {
+                            volcarErrores();
                         }
                     }
                 }
             }
+            default -> {
+            }
         }
     }
 
     /**
-     * Verifica que los returns sean compatibles con el tipo de la función.
+     * Transiciones dentro de la lista de parámetros de una función.
      *
-     * @param tokens Lista de tokens
+     * @param token Token actual
      */
-    private void verificarReturns(List<Token> tokens) {
-        String funcionActual = null;
-        String tipoRetornoActual = null;
-
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-
-            // Detectar inicio de función
-            if (esTipo(token) && i + 1 < tokens.size()) {
-                Token siguiente = tokens.get(i + 1);
-                if (siguiente.getTipo() == TipoToken.IDENTIFICADOR &&
-                        i + 2 < tokens.size() && tokens.get(i + 2).getLexema().equals("(")) {
-                    funcionActual = siguiente.getLexema();
-                    tipoRetornoActual = token.getLexema();
+    private void procesarParametro(Token token) {
+        switch (token.getTipo()) {
+            case PALABRA_CLAVE -> {
+                if (esTipo(token)) {
+                    tipoPendiente = token;
+                    parametrosActuales.add(token.getLexema());
+                    estado = Estado.PARAMETROS_TRAS_TIPO;
                 }
             }
+            case PARENTESIS_DER -> estado = Estado.INICIAL;
+            case IDENTIFICADOR -> verificarUsoVariable(token, posicion);
+            default -> {
+            }
+        }
+    }
+
+    //endregion
+
+    //region GRAFO DE LLAMADAS
+
+    /**
+     * Sigue las llamadas abiertas para contar sus argumentos.
+     * Se ejecuta antes de la transición de estado: un ( tras un identificador abre una llamada.
+     *
+     * @param token Token actual
+     */
+    private void seguirLlamadas(Token token) {
+        if (estado == Estado.TRAS_IDENTIFICADOR && token.getTipo() == TipoToken.PARENTESIS_IZQ) {
+            InfoFuncion llamador = funcionActual != null ? funcionesDeclaradas.get(funcionActual) : null;
+            llamadasAbiertas.push(new Llamada(llamador != null ? llamador.id : -1,
+                    identificadorPendiente, posicionPendiente));
+            return;
+        }
 
-            // Detectar return
-            if (token.esPalabraClave("return") && funcionActual != null) {
-                // Verificar si tiene expresión después
-                boolean tieneExpresion = false;
+        Llamada actual = llamadasAbiertas.peek();
+        if (actual == null) {
+            return;
+        }
 
-                if (i + 1 < tokens.size()) {
-                    Token siguiente = tokens.get(i + 1);
-                    if (!siguiente.getLexema().equals(";")) {
-                        tieneExpresion = true;
+        switch (token.getTipo()) {
+            case PARENTESIS_IZQ -> {
+                actual.parentesis++;
+                actual.vacia = false;
+            }
+            case PARENTESIS_DER -> {
+                if (actual.parentesis > 0) {
+                    actual.parentesis--;
+                } else {
+                    Llamada llamada = llamadasAbiertas.pop();
+                    if (memoriaAcotada && funcionesDeclaradas.containsKey(llamada.nombre.getLexema())) {
+                        resolverLlamada(llamada);
+                    } else {
+                        llamadas.add(llamada);
                     }
                 }
-
-                // Validar compatibilidad
-                if (tipoRetornoActual.equals("void") && tieneExpresion) {
-                    erroresSemanticos.add(String.format(
-                            "ERROR SEMÁNTICO en línea %d: Función 'void' no puede retornar un valor",
-                            token.getLinea()
-                    ));
+            }
+            case COMA -> {
+                if (actual.parentesis == 0) {
+                    actual.comas++;
                 }
+            }
+            case PUNTO_COMA, LLAVE_IZQ, LLAVE_DER -> llamadasAbiertas.clear(); // Llamadas sin cerrar
+            default -> actual.vacia = false;
+        }
+    }
 
-                if (!tipoRetornoActual.equals("void") && !tieneExpresion) {
-                    erroresSemanticos.add(String.format(
-                            "ERROR SEMÁNTICO en línea %d: Función '%s' debe retornar un valor de tipo '%s'",
-                            token.getLinea(), funcionActual, tipoRetornoActual
-                    ));
-                }
+    /**
+     * Verifica la cantidad de argumentos de cada llamada, construye el grafo de
+     * llamadas y reporta funciones recursivas y no alcanzables desde los puntos de entrada.
+     * Todo es lineal en funciones + llamadas.
+     */
+    private void analizarLlamadas() {
+        for (Llamada llamada : llamadas) {
+            resolverLlamada(llamada);
+        }
+
+        grafoLlamadas = new GrafoLlamadas(nombresFunciones.size(), origenesAristas, llamadosAristas, totalAristas);
+
+        // Puntos de entrada declarados
+        int[] entradas = puntosEntrada.stream()
+                .map(funcionesDeclaradas::get)
+                .filter(Objects::nonNull)
+                .mapToInt(info -> info.id)
+                .toArray();
+        BitSet alcanzables = entradas.length > 0 ? grafoLlamadas.alcanzables(entradas) : null;
+
+        for (int v = 0; v < nombresFunciones.size(); v++) {
+            String nombre = nombresFunciones.get(v);
+            InfoFuncion info = funcionesDeclaradas.get(nombre);
+
+            if (grafoLlamadas.esRecursiva(v)) {
+                erroresPendientes.add(Diagnostico.crear(CodigoDiagnostico.FUNCION_RECURSIVA,
+                        info.posicion, info.linea, nombre));
             }
+            if (alcanzables != null && !alcanzables.get(v)) {
+                erroresPendientes.add(Diagnostico.crear(CodigoDiagnostico.FUNCION_NO_ALCANZABLE,
+                        info.posicion, info.linea, nombre));
+            }
+        }
+        llamadas.clear();
+        totalAristas = 0;
+        ultimoLlamador = -1;
+        enlazadosUltimoLlamador.clear();
+    }
 
-            // Detectar fin de función
-            if (token.getLexema().equals("}")) {
-                funcionActual = null;
-                tipoRetornoActual = null;
+    /**
+     * Verifica la cantidad de argumentos de una llamada contra la declaración
+     * de la función y agrega la arista del llamador al grafo.
+     */
+    private void resolverLlamada(Llamada llamada) {
+        InfoFuncion info = funcionesDeclaradas.get(llamada.nombre.getLexema());
+        if (info == null) {
+            return; // Ya reportada como no declarada
+        }
+
+        if (llamada.argumentos() != info.tiposParametros.size()) {
+            erroresPendientes.add(Diagnostico.crear(CodigoDiagnostico.ARIDAD_INCORRECTA, llamada.posicion,
+                    llamada.nombre.getLinea(), llamada.nombre.getLexema(),
+                    info.tiposParametros.size(), llamada.argumentos()));
+        }
+
+        if (llamada.llamador != ultimoLlamador) {
+            ultimoLlamador = llamada.llamador;
+            enlazadosUltimoLlamador.clear();
+        }
+        if (llamada.llamador >= 0 && enlazadosUltimoLlamador.add(info.id)) {
+            if (totalAristas == origenesAristas.length) {
+                origenesAristas = Arrays.copyOf(origenesAristas, totalAristas * 2);
+                llamadosAristas = Arrays.copyOf(llamadosAristas, totalAristas * 2);
             }
+            origenesAristas[totalAristas] = llamada.llamador;
+            llamadosAristas[totalAristas] = info.id;
+            totalAristas++;
         }
     }
 
+    //endregion
+
+    //region DIVISIÓN POR FUNCIONES
+
+    /**
+     * Verifica si en la posición comienza una función (tipo identificador ().
+     */
+    private boolean esInicioFuncion(List<Token> tokens, int i) {
+        return i + 2 < tokens.size() && esTipo(tokens.get(i))
+                && tokens.get(i + 1).getTipo() == TipoToken.IDENTIFICADOR
+                && tokens.get(i + 2).getTipo() == TipoToken.PARENTESIS_IZQ;
+    }
+
     /**
-     * Clasifica todos los tokens en categorías.
+     * Busca el último token de la función que comienza en la posición dada:
+     * la llave que cierra su bloque, o el fin de la firma si no tiene bloque.
+     */
+    private int buscarFinFuncion(List<Token> tokens, int inicio) {
+        int j = inicio + 3;
+        while (j < tokens.size() && !esFinFirma(tokens.get(j).getTipo())) {
+            j++;
+        }
+
+        if (j >= tokens.size() || tokens.get(j).getTipo() != TipoToken.PARENTESIS_DER) {
+            return j - 1;
+        }
+        if (j + 1 >= tokens.size() || tokens.get(j + 1).getTipo() != TipoToken.LLAVE_IZQ) {
+            return j;
+        }
+
+        int profundidad = 0;
+        for (j = j + 1; j < tokens.size(); j++) {
+            TipoToken tipo = tokens.get(j).getTipo();
+            if (tipo == TipoToken.LLAVE_IZQ) {
+                profundidad++;
+            } else if (tipo == TipoToken.LLAVE_DER && --profundidad == 0) {
+                return j;
+            }
+        }
+        return tokens.size() - 1;
+    }
+
+    private boolean esFinFirma(TipoToken tipo) {
+        return tipo == TipoToken.PARENTESIS_DER || tipo == TipoToken.LLAVE_IZQ
+                || tipo == TipoToken.LLAVE_DER || tipo == TipoToken.PUNTO_COMA;
+    }
+
+    /**
+     * Registra la firma de una función antes de verificar su cuerpo.
+     */
+    private void registrarFuncion(List<Token> tokens, int inicio, int fin) {
+        List<String> tiposParametros = new ArrayList<>();
+        for (int j = inicio + 3; j <= fin && tokens.get(j).getTipo() != TipoToken.PARENTESIS_DER; j++) {
+            if (esTipo(tokens.get(j))) {
+                tiposParametros.add(tokens.get(j).getLexema());
+            }
+        }
+
+        // Posición del identificador, contada desde 1 como en procesar
+        registrarFirma(tokens.get(inicio), tokens.get(inicio + 1), tiposParametros, inicio + 2);
+    }
+
+    /**
+     * Registra una función y le asigna su número en el grafo de llamadas.
+     * Una función redeclarada conserva el número de la primera declaración.
+     */
+    private void registrarFirma(Token tipo, Token identificador, List<String> tiposParametros, int posicionDeclaracion) {
+        String nombreFunc = identificador.getLexema();
+        InfoFuncion anterior = funcionesDeclaradas.get(nombreFunc);
+
+        InfoFuncion info = new InfoFuncion(tipo.getLexema(), tiposParametros, identificador.getLinea());
+        info.posicion = posicionDeclaracion;
+        if (anterior != null) {
+            info.id = anterior.id;
+        } else {
+            info.id = nombresFunciones.size();
+            nombresFunciones.add(nombreFunc);
+        }
+
+        funcionesDeclaradas.put(nombreFunc, info);
+        funciones.add(nombreFunc);
+    }
+
+    /**
+     * Verifica una función completa (tarea del análisis en paralelo).
+     */
+    private void verificarFuncion(List<Token> tokens, int inicio, int fin) {
+        for (int j = inicio; j <= fin; j++) {
+            procesar(tokens.get(j));
+        }
+        cerrarEstado();
+    }
+
+    //endregion
+
+    //region ACCIONES SEMÁNTICAS
+
+    /**
+     * Registra una declaración de variable (tipo identificador ;) en el ámbito actual.
+     * Una variable local puede ocultar un atributo de la clase.
+     */
+    private void declararVariable(Token tipo, Token identificador, int posicionIdentificador) {
+        declararVariable(tipo, identificador, posicionIdentificador, false);
+    }
+
+    /**
+     * Registra un parámetro en el ámbito de la función actual.
+     */
+    private void declararParametro(Token tipo, Token identificador, int posicionIdentificador) {
+        declararVariable(tipo, identificador, posicionIdentificador, true);
+    }
+
+    /**
+     * Registra una variable o parámetro; dentro de una función recibe un número
+     * de variable local para el análisis de flujo.
      *
-     * @param tokens Lista de tokens
+     * @param posicionIdentificador Posición del identificador en el flujo (la
+     *                              declaración se confirma con el token siguiente)
      */
-    private void clasificarTokens(List<Token> tokens) {
-        for (Token token : tokens) {
-            switch (token.getTipo()) {
-                case OPERADOR_ARITMETICO, OPERADOR_RELACIONAL, ASIGNACION ->
-                        operadores.add(token.getLexema());
+    private void declararVariable(Token tipo, Token identificador, int posicionIdentificador, boolean esParametro) {
+        String nombreVar = identificador.getLexema();
+        int slot = flujo.enFuncion() ? flujo.siguienteSlot() : -1;
 
-                case PARENTESIS_IZQ, PARENTESIS_DER, LLAVE_IZQ, LLAVE_DER,
-                     PUNTO_COMA, COMA ->
-                        simbolos.add(token.getLexema());
+        if (!tablaSimbolos.declarar(nombreVar, tipo.getLexema(), identificador.getLinea(), slot)) {
+            erroresPendientes.add(Diagnostico.crear(CodigoDiagnostico.VARIABLE_REDECLARADA, posicionIdentificador,
+                    identificador.getLinea(), nombreVar));
+        } else {
+            if (slot >= 0) {
+                flujo.declarar(identificador, posicionIdentificador, esParametro);
+            }
+            variablesDeclaradas.putIfAbsent(nombreVar, tipo.getLexema());
+            if (!memoriaAcotada) {
+                declaraciones.add(new DeclaracionVariable(nombreVar, tipo.getLexema(), funcionActual,
+                        identificador.getLinea()));
             }
+            variables.add(nombreVar);
+        }
+    }
+
+    /**
+     * Registra una declaración de función (tipo identificador ( ...).
+     * Los tipos de parámetros se completan al cerrar la lista.
+     */
+    private void iniciarFuncion(Token tipo, Token identificador) {
+        String nombreFunc = identificador.getLexema();
+
+        parametrosActuales = new ArrayList<>();
+        if (!esTareaFuncion) {
+            // En las tareas la firma ya fue registrada por la pasada global
+            registrarFirma(tipo, identificador, parametrosActuales, posicionPendiente);
+        }
+
+        funcionActual = nombreFunc;
+        tipoRetornoActual = tipo.getLexema();
+
+        // Ámbito de parámetros y cuerpo
+        tablaSimbolos.entrarAmbito();
+        profundidadBloques = 0;
+
+        if (flujo.enFuncion()) {
+            flujo.finalizarFuncion(erroresPendientes); // Función anterior sin cuerpo
         }
+        flujo.iniciarFuncion(nombreFunc);
+        slotAsignacion = -1;
+    }
+
+    /**
+     * Verifica una llamada a función. Si la función aún no fue declarada
+     * se difiere la verificación hasta el final (referencia adelantada).
+     * Las posiciones son las del identificador, no las del token que lo resolvió.
+     */
+    private void verificarLlamada(Token identificador, int posicionIdentificador) {
+        if (!funcionesDeclaradas.containsKey(identificador.getLexema())) {
+            referenciasDiferidas.add(new ReferenciaDiferida(identificador, true, posicionIdentificador));
+        }
+    }
+
+    /**
+     * Verifica el uso de una variable en los ámbitos visibles. Si no se encuentra,
+     * se resuelve al final contra el ámbito global (atributos declarados más adelante).
+     */
+    private void verificarUsoVariable(Token identificador, int posicionIdentificador) {
+        variablesUsadas.add(identificador.getLexema());
+
+        if (!tablaSimbolos.estaDeclarado(identificador.getLexema())) {
+            referenciasDiferidas.add(new ReferenciaDiferida(identificador, false, posicionIdentificador));
+            return;
+        }
+
+        int slot = tablaSimbolos.buscarSlot(identificador.getLexema());
+        if (slot >= 0) {
+            flujo.leer(slot, identificador, posicionIdentificador, erroresPendientes);
+        }
+    }
+
+    /**
+     * Verifica el destino de una asignación (identificador = ...). No cuenta como
+     * lectura para el análisis de flujo; la variable queda asignada al terminar la sentencia.
+     */
+    private void verificarAsignacion(Token identificador, int posicionIdentificador) {
+        variablesUsadas.add(identificador.getLexema());
+
+        if (!tablaSimbolos.estaDeclarado(identificador.getLexema())) {
+            referenciasDiferidas.add(new ReferenciaDiferida(identificador, false, posicionIdentificador));
+            return;
+        }
+
+        slotAsignacion = tablaSimbolos.buscarSlot(identificador.getLexema());
+    }
+
+    /**
+     * Verifica que un return sea compatible con el tipo de la función actual.
+     */
+    private void verificarReturn(Token token, boolean tieneExpresion) {
+        if (tipoRetornoActual.equals("void") && tieneExpresion) {
+            agregarError(CodigoDiagnostico.RETORNO_EN_VOID, token.getLinea());
+        }
+
+        if (!tipoRetornoActual.equals("void") && !tieneExpresion) {
+            agregarError(CodigoDiagnostico.RETORNO_SIN_VALOR, token.getLinea(), funcionActual, tipoRetornoActual);
+        }
+    }
+
+    /**
+     * Resuelve las referencias pendientes contra las tablas completas.
+     * En este punto solo queda abierto el ámbito global.
+     */
+    private void resolverReferenciasDiferidas() {
+        for (ReferenciaDiferida referencia : referenciasDiferidas) {
+            String nombre = referencia.token.getLexema();
+
+            if (referencia.esFuncion && !funcionesDeclaradas.containsKey(nombre)) {
+                erroresPendientes.add(Diagnostico.crear(CodigoDiagnostico.FUNCION_NO_DECLARADA,
+                        referencia.posicion, referencia.token.getLinea(), nombre));
+            } else if (!referencia.esFuncion && !tablaSimbolos.estaDeclarado(nombre)) {
+                erroresPendientes.add(Diagnostico.crear(CodigoDiagnostico.VARIABLE_NO_DECLARADA,
+                        referencia.posicion, referencia.token.getLinea(), nombre));
+            }
+        }
+        referenciasDiferidas.clear();
+    }
+
+    /**
+     * Clasifica un token en su categoría.
+     *
+     * @param token El token a clasificar
+     */
+    private void clasificarToken(Token token) {
+        switch (token.getTipo()) {
+            case OPERADOR_ARITMETICO, OPERADOR_RELACIONAL, ASIGNACION ->
+                    operadores.add(token.getLexema());
+
+            case PARENTESIS_IZQ, PARENTESIS_DER, LLAVE_IZQ, LLAVE_DER,
+                 PUNTO_COMA, COMA ->
+                    simbolos.add(token.getLexema());
+
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Registra un error en la posición del token actual.
+     */
+    private void agregarError(CodigoDiagnostico codigo, Object... argumentos) {
+        erroresPendientes.add(Diagnostico.crear(codigo, posicion, argumentos));
     }
 
     //endregion
@@ -302,6 +997,9 @@ public class ClasificadorSemantico {
      * Muestra los resultados del análisis semántico.
      */
     private void mostrarResultados() {
+        if (!mostrarSalida) {
+            return;
+        }
         System.out.println("\n--- RESULTADOS DEL ANÁLISIS SEMÁNTICO ---");
 
         System.out.println("\nClasificación de elementos:");
@@ -310,14 +1008,16 @@ public class ClasificadorSemantico {
         System.out.println("  Operadores únicos: " + operadores.size());
         System.out.println("  Símbolos únicos: " + simbolos.size());
 
-        if (erroresSemanticos.isEmpty()) {
+        int totalErrores = diagnosticos.getTotal(Diagnostico.Etapa.SEMANTICO);
+        if (totalErrores == 0) {
             System.out.println("\n✓ Análisis semántico EXITOSO");
             System.out.println("  No se encontraron errores semánticos");
         } else {
-            System.out.println("\n✗ Se encontraron " + erroresSemanticos.size() + " errores semánticos");
+            System.out.println("\n✗ Se encontraron " + totalErrores + " errores semánticos");
             System.out.println("\nErrores detectados:");
-            for (int i = 0; i < erroresSemanticos.size(); i++) {
-                System.out.println((i + 1) + ". " + erroresSemanticos.get(i));
+            List<Diagnostico> errores = getErroresSemanticos();
+            for (int i = 0; i < errores.size(); i++) {
+                System.out.println((i + 1) + ". " + errores.get(i).formatear());
             }
         }
 
@@ -328,14 +1028,111 @@ public class ClasificadorSemantico {
 
     //region GETTERS
 
+    /**
+     * Define las funciones desde las que se calcula la alcanzabilidad (por defecto main).
+     * Si ninguna está declarada no se reportan funciones no alcanzables.
+     *
+     * @param puntosEntrada Nombres de las funciones de entrada
+     */
+    public void setPuntosEntrada(Collection<String> puntosEntrada) {
+        this.puntosEntrada = new HashSet<>(puntosEntrada);
+    }
+
+    /**
+     * @param mostrarSalida Si se muestran en consola el inicio y los resultados del análisis
+     */
+    public void setMostrarSalida(boolean mostrarSalida) {
+        this.mostrarSalida = mostrarSalida;
+    }
+
+    /**
+     * @param cancelado Se consulta cada tantos tokens (y entre las fases del análisis
+     *                  en paralelo); si devuelve true, analizar lanza CancellationException
+     *                  (null: no se cancela)
+     */
+    public void setCancelado(BooleanSupplier cancelado) {
+        this.cancelado = cancelado;
+    }
+
+    /**
+     * Lanza CancellationException si el análisis se canceló.
+     */
+    private void verificarCancelacion() {
+        if (cancelado != null && cancelado.getAsBoolean()) {
+            throw new CancellationException("Análisis semántico cancelado");
+        }
+    }
+
+    /**
+     * Para entradas muy grandes analizadas con procesar: cada llamada a una
+     * función ya declarada se verifica al cerrarse (con la declaración vista
+     * hasta ese punto) y queda solo como arista del grafo, y los errores se
+     * registran al terminar cada función en lugar de ordenarse al final. Solo
+     * las referencias adelantadas se conservan hasta finalizar.
+     *
+     * @param memoriaAcotada Si no se conservan las llamadas ni los errores de las funciones ya cerradas
+     */
+    public void setMemoriaAcotada(boolean memoriaAcotada) {
+        this.memoriaAcotada = memoriaAcotada;
+    }
+
+    public GrafoLlamadas getGrafoLlamadas() {
+        return grafoLlamadas;
+    }
+
+    /**
+     * @return Nombres de las funciones por número de vértice del grafo de llamadas
+     */
+    public List<String> getNombresFunciones() {
+        return nombresFunciones;
+    }
+
+    public TablaSimbolos getTablaSimbolos() {
+        return tablaSimbolos;
+    }
+
     public Map<String, String> getVariablesDeclaradas() {
         return variablesDeclaradas;
     }
 
+    /**
+     * A diferencia de getVariablesDeclaradas, distingue variables del mismo nombre
+     * declaradas en funciones o bloques distintos. Con memoria acotada queda vacía.
+     *
+     * @return Declaraciones de variables y parámetros (las de cada función, en orden de código)
+     */
+    public List<DeclaracionVariable> getDeclaraciones() {
+        return declaraciones;
+    }
+
     public Map<String, InfoFuncion> getFuncionesDeclaradas() {
         return funcionesDeclaradas;
     }
 
+    /**
+     * @return Tipo de retorno de la función, o null si no está declarada
+     */
+    public String getTipoRetorno(String funcion) {
+        InfoFuncion info = funcionesDeclaradas.get(funcion);
+        return info != null ? info.tipoRetorno : null;
+    }
+
+    /**
+     * @return Tipos de los parámetros de la función (vacía si no está declarada)
+     */
+    public List<String> getTiposParametros(String funcion) {
+        InfoFuncion info = funcionesDeclaradas.get(funcion);
+        return info != null ? info.tiposParametros : List.of();
+    }
+
+    /**
+     * @return Línea de la declaración de la función, o -1 si no está declarada
+     */
+    public int getLineaFuncion(String funcion) {
+        InfoFuncion info = funcionesDeclaradas.get(funcion);
+        return info != null ? info.linea : -1;
+    }
+
     public Set<String> getVariables() {
         return variables;
     }
@@ -352,8 +1149,15 @@ public class ClasificadorSemantico {
         return simbolos;
     }
 
-    public List<String> getErroresSemanticos() {
-        return erroresSemanticos;
+    /**
+     * @return Errores semánticos conservados (sin repetidos ni suprimidos)
+     */
+    public List<Diagnostico> getErroresSemanticos() {
+        return diagnosticos.getDiagnosticos(Diagnostico.Etapa.SEMANTICO);
+    }
+
+    public ColectorDiagnosticos getDiagnosticos() {
+        return diagnosticos;
     }
 
     //endregion
@@ -0,0 +1,101 @@
+package diagnosticos;
+
+/**
+ * Códigos de diagnóstico con su etapa y la plantilla del mensaje.
+ *
+ * @author Sophia
+ */
+public enum CodigoDiagnostico {
+    // Léxicos: (lexema, línea, columna)
+    CARACTER_ILEGAL(Diagnostico.Etapa.LEXICO,
+            "ERROR LÉXICO: '%s' - Carácter ilegal en Línea %d, Columna %d", 0),
+
+    // Sintácticos: (línea, columna, lexema, símbolo) o, al final de la entrada, (símbolo)
+    SE_ESPERABA_FIN_ARCHIVO(Diagnostico.Etapa.SINTACTICO,
+            "Línea %d, Columna %d ('%s'): se esperaba fin de archivo", -1),
+    SE_ESPERABA_SIMBOLO(Diagnostico.Etapa.SINTACTICO,
+            "Línea %d, Columna %d ('%s'): se esperaba '%s'", -1),
+    SE_ESPERABA_SIMBOLO_FIN(Diagnostico.Etapa.SINTACTICO,
+            "Fin de archivo: se esperaba '%s'", -1),
+    FALTA_NO_TERMINAL(Diagnostico.Etapa.SINTACTICO,
+            "Línea %d, Columna %d ('%s'): falta %s", -1),
+    FALTA_NO_TERMINAL_FIN(Diagnostico.Etapa.SINTACTICO,
+            "Fin de archivo: falta %s", -1),
+    TOKEN_INESPERADO(Diagnostico.Etapa.SINTACTICO,
+            "Línea %d, Columna %d ('%s'): token inesperado al reconocer %s", -1),
+
+    // Semánticos: (línea, nombre, ...)
+    VARIABLE_REDECLARADA(Diagnostico.Etapa.SEMANTICO,
+            "ERROR SEMÁNTICO en línea %d: Variable '%s' ya fue declarada", 1, false, 0),
+    VARIABLE_NO_DECLARADA(Diagnostico.Etapa.SEMANTICO,
+            "ERROR SEMÁNTICO en línea %d: Variable '%s' no declarada", 1),
+    FUNCION_NO_DECLARADA(Diagnostico.Etapa.SEMANTICO,
+            "ERROR SEMÁNTICO en línea %d: Función '%s' no declarada", 1),
+    RETORNO_EN_VOID(Diagnostico.Etapa.SEMANTICO,
+            "ERROR SEMÁNTICO en línea %d: Función 'void' no puede retornar un valor", -1),
+    RETORNO_SIN_VALOR(Diagnostico.Etapa.SEMANTICO,
+            "ERROR SEMÁNTICO en línea %d: Función '%s' debe retornar un valor de tipo '%s'", 1),
+    VARIABLE_SIN_INICIALIZAR(Diagnostico.Etapa.SEMANTICO,
+            "ERROR SEMÁNTICO en línea %d: Variable '%s' se usa sin haber sido inicializada", 1, false, 0),
+    ARIDAD_INCORRECTA(Diagnostico.Etapa.SEMANTICO,
+            "ERROR SEMÁNTICO en línea %d: Función '%s' espera %d argumentos pero recibe %d", 1),
+
+    // Advertencias del análisis de flujo: (línea, nombre, ...)
+    VARIABLE_NO_USADA(Diagnostico.Etapa.SEMANTICO,
+            "ADVERTENCIA en línea %d: Variable local '%s' nunca se lee", 1, true, 0),
+    PARAMETRO_NO_USADO(Diagnostico.Etapa.SEMANTICO,
+            "ADVERTENCIA en línea %d: Parámetro '%s' de la función '%s' nunca se lee", 1, true, 0),
+
+    // Advertencias del grafo de llamadas: (línea, función)
+    FUNCION_RECURSIVA(Diagnostico.Etapa.SEMANTICO,
+            "ADVERTENCIA en línea %d: Función '%s' es recursiva (forma parte de un ciclo de llamadas)", 1, true),
+    FUNCION_NO_ALCANZABLE(Diagnostico.Etapa.SEMANTICO,
+            "ADVERTENCIA en línea %d: Función '%s' no es alcanzable desde los puntos de entrada", 1, true);
+
+    private final Diagnostico.Etapa etapa;
+    private final String plantilla;
+    private final int indiceIdentificador;   // Argumento usado para deduplicar (-1: ninguno)
+    private final boolean esAdvertencia;     // No cuenta como error
+    private final int indiceAmbito;          // Argumento que separa identificadores locales (-1: global)
+
+    CodigoDiagnostico(Diagnostico.Etapa etapa, String plantilla, int indiceIdentificador) {
+        this(etapa, plantilla, indiceIdentificador, false);
+    }
+
+    CodigoDiagnostico(Diagnostico.Etapa etapa, String plantilla, int indiceIdentificador, boolean esAdvertencia) {
+        this(etapa, plantilla, indiceIdentificador, esAdvertencia, -1);
+    }
+
+    CodigoDiagnostico(Diagnostico.Etapa etapa, String plantilla, int indiceIdentificador, boolean esAdvertencia,
+                      int indiceAmbito) {
+        this.etapa = etapa;
+        this.plantilla = plantilla;
+        this.indiceIdentificador = indiceIdentificador;
+        this.esAdvertencia = esAdvertencia;
+        this.indiceAmbito = indiceAmbito;
+    }
+
+    public Diagnostico.Etapa getEtapa() {
+        return etapa;
+    }
+
+    public String getPlantilla() {
+        return plantilla;
+    }
+
+    public int getIndiceIdentificador() {
+        return indiceIdentificador;
+    }
+
+    public boolean esAdvertencia() {
+        return esAdvertencia;
+    }
+
+    /**
+     * @return Argumento (la línea) que distingue dos identificadores locales con el
+     *         mismo nombre en funciones distintas, o -1 si el identificador es global
+     */
+    public int getIndiceAmbito() {
+        return indiceAmbito;
+    }
+}
@@ -0,0 +1,140 @@
+package app;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cola acotada para exactamente un productor y un consumidor, sobre un arreglo
+ * circular. No usa candados: cada lado solo escribe su propio contador, y el
+ * contador se publica después de escribir o vaciar la casilla.
+ *
+ * Si la cola está llena el productor espera (contrapresión); si está vacía, el
+ * consumidor. La espera gira brevemente y luego duerme en intervalos cortos;
+ * el otro lado lo despierta apenas hay lugar o hay un elemento nuevo.
+ *
+ * @author Sophia
+ * @param <T> Tipo de los elementos
+ */
+public class ColaAnillo<T> {
+
+    // Vueltas activas antes de dormir
+    private static final int GIROS = 128;
+
+    // Siesta máxima en espera (ns): cubre un aviso perdido entre ambos lados
+    private static final long SIESTA = 1_000_000;
+
+    private final Object[] casillas;
+    private final int mascara;
+
+    private final AtomicLong escritos;     // Solo lo modifica el productor
+    private final AtomicLong leidos;       // Solo lo modifica el consumidor
+    private volatile boolean cerrada;
+
+    private volatile Thread productor;
+    private volatile Thread consumidor;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor de la cola.
+     *
+     * @param capacidad Elementos como máximo (se redondea a potencia de dos)
+     */
+    public ColaAnillo(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + capacidad);
+        }
+        int tamano = Integer.highestOneBit(capacidad);
+        if (tamano < capacidad) {
+            tamano <<= 1;
+        }
+        this.casillas = new Object[tamano];
+        this.mascara = tamano - 1;
+        this.escritos = new AtomicLong();
+        this.leidos = new AtomicLong();
+    }
+
+    //endregion
+
+    //region PRODUCTOR
+
+    /**
+     * Agrega un elemento, esperando si la cola está llena.
+     *
+     * @param elemento Elemento (no null)
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public void poner(T elemento) throws InterruptedException {
+        productor = Thread.currentThread();
+        long posicion = escritos.get();
+        int giros = 0;
+        while (posicion - leidos.get() >= casillas.length) {
+            giros = esperar(giros);
+        }
+        casillas[(int) posicion & mascara] = elemento;
+        escritos.set(posicion + 1);
+        despertar(consumidor);
+    }
+
+    /**
+     * Indica que no habrá más elementos. El consumidor recibe null después del último.
+     */
+    public void cerrar() {
+        cerrada = true;
+        despertar(consumidor);
+    }
+
+    //endregion
+
+    //region CONSUMIDOR
+
+    /**
+     * Saca el siguiente elemento, esperando si la cola está vacía.
+     *
+     * @return El elemento, o null si la cola está cerrada y vacía
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    @SuppressWarnings("unchecked")
+    public T tomar() throws InterruptedException {
+        consumidor = Thread.currentThread();
+        long posicion = leidos.get();
+        int giros = 0;
+        while (posicion == escritos.get()) {
+            // cerrada se lee antes de volver a mirar escritos: el último elemento no se pierde
+            if (cerrada && posicion == escritos.get()) {
+                return null;
+            }
+            giros = esperar(giros);
+        }
+        int indice = (int) posicion & mascara;
+        T elemento = (T) casillas[indice];
+        casillas[indice] = null;
+        leidos.set(posicion + 1);
+        despertar(productor);
+        return elemento;
+    }
+
+    //endregion
+
+    //region ESPERA
+
+    private static int esperar(int giros) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (giros < GIROS) {
+            Thread.onSpinWait();
+            return giros + 1;
+        }
+        LockSupport.parkNanos(SIESTA);
+        return giros;
+    }
+
+    private static void despertar(Thread hilo) {
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+        }
+    }
+
+    //endregion
+}
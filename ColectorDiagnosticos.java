@@ -0,0 +1,205 @@
+package diagnosticos;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Recolecta los diagnósticos de todas las etapas.
+ * Agrupa los errores repetidos con el mismo código e identificador
+ * (se conserva el primero y se cuentan las repeticiones); los identificadores
+ * locales a una función se agrupan solo en la misma línea. Limita
+ * la cantidad conservada por etapa; el resto solo se cuenta.
+ * Las advertencias se conservan junto a los errores de su etapa pero
+ * no se incluyen en los totales de errores y tienen su propio límite,
+ * para no desplazar a los errores.
+ *
+ * Las etapas que corren en hilos distintos pueden agregar a la vez; un
+ * observador recibe cada diagnóstico conservado apenas llega.
+ *
+ * @author Sophia
+ */
+public class ColectorDiagnosticos {
+
+    public static final int LIMITE_POR_DEFECTO = 1000;
+
+    // Diagnósticos conservados por etapa, en orden de llegada
+    private Map<Diagnostico.Etapa, List<Diagnostico>> diagnosticos;
+
+    // Repeticiones de cada diagnóstico conservado (además del primero)
+    private Map<Diagnostico, Integer> repeticiones;
+
+    // Diagnóstico conservado por clave (código + identificador [+ línea si es local])
+    private Map<String, Diagnostico> porClave;
+
+    // Límites, totales y suprimidos por etapa
+    private Map<Diagnostico.Etapa, Integer> limites;
+    private int[] totales;
+    private int[][] suprimidos;
+    private int advertencias;
+
+    // Conservados y suprimidos por etapa: [0] errores, [1] advertencias
+    private int[][] conservados;
+
+    // Recibe cada diagnóstico conservado (null: ninguno)
+    private Consumer<Diagnostico> observador;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor con el límite por defecto para todas las etapas.
+     */
+    public ColectorDiagnosticos() {
+        this(LIMITE_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor con un límite común para todas las etapas.
+     *
+     * @param limitePorEtapa Máximo de diagnósticos conservados por etapa
+     */
+    public ColectorDiagnosticos(int limitePorEtapa) {
+        this.diagnosticos = new EnumMap<>(Diagnostico.Etapa.class);
+        this.limites = new EnumMap<>(Diagnostico.Etapa.class);
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            diagnosticos.put(etapa, new ArrayList<>());
+            limites.put(etapa, limitePorEtapa);
+        }
+        this.repeticiones = new IdentityHashMap<>();
+        this.porClave = new HashMap<>();
+        this.totales = new int[Diagnostico.Etapa.values().length];
+        this.suprimidos = new int[Diagnostico.Etapa.values().length][2];
+        this.conservados = new int[Diagnostico.Etapa.values().length][2];
+    }
+
+    //endregion
+
+    //region REGISTRO
+
+    /**
+     * Agrega un diagnóstico.
+     *
+     * @param diagnostico El diagnóstico
+     * @return true si se conservó como entrada nueva
+     */
+    public synchronized boolean agregar(Diagnostico diagnostico) {
+        Diagnostico.Etapa etapa = diagnostico.etapa();
+        if (diagnostico.codigo().esAdvertencia()) {
+            advertencias++;
+        } else {
+            totales[etapa.ordinal()]++;
+        }
+
+        // Deduplicar por código e identificador (y ámbito, si es local)
+        String clave = null;
+        if (diagnostico.identificador() != null) {
+            clave = diagnostico.codigo().name() + '\u0000' + diagnostico.identificador();
+            if (diagnostico.ambito() != null) {
+                clave += '\u0000' + String.valueOf(diagnostico.ambito());
+            }
+            Diagnostico existente = porClave.get(clave);
+            if (existente != null) {
+                repeticiones.merge(existente, 1, Integer::sum);
+                return false;
+            }
+        }
+
+        int clase = diagnostico.codigo().esAdvertencia() ? 1 : 0;
+        if (conservados[etapa.ordinal()][clase] >= limites.get(etapa)) {
+            suprimidos[etapa.ordinal()][clase]++;
+            return false;
+        }
+
+        conservados[etapa.ordinal()][clase]++;
+        diagnosticos.get(etapa).add(diagnostico);
+        if (clave != null) {
+            porClave.put(clave, diagnostico);
+        }
+        if (observador != null) {
+            observador.accept(diagnostico);
+        }
+        return true;
+    }
+
+    /**
+     * @param observador Recibe cada diagnóstico nuevo que se conserva, en el hilo
+     *                   que lo agrega y en orden de llegada (por ejemplo, para
+     *                   escribirlo sin esperar el final del análisis)
+     */
+    public synchronized void setObservador(Consumer<Diagnostico> observador) {
+        this.observador = observador;
+    }
+
+    /**
+     * Cambia el límite de diagnósticos conservados de una etapa.
+     *
+     * @param etapa La etapa
+     * @param limite Máximo de diagnósticos conservados
+     */
+    public synchronized void setLimite(Diagnostico.Etapa etapa, int limite) {
+        limites.put(etapa, limite);
+    }
+
+    //endregion
+
+    //region CONSULTA
+
+    /**
+     * @return Diagnósticos conservados de la etapa, en orden de llegada
+     */
+    public List<Diagnostico> getDiagnosticos(Diagnostico.Etapa etapa) {
+        return Collections.unmodifiableList(diagnosticos.get(etapa));
+    }
+
+    /**
+     * @return Total de errores reportados en la etapa (incluye repetidos y suprimidos)
+     */
+    public int getTotal(Diagnostico.Etapa etapa) {
+        return totales[etapa.ordinal()];
+    }
+
+    /**
+     * @return Total de errores reportados en todas las etapas
+     */
+    public int getTotal() {
+        int total = 0;
+        for (int t : totales) {
+            total += t;
+        }
+        return total;
+    }
+
+    /**
+     * @return Total de advertencias reportadas (incluye repetidas y suprimidas)
+     */
+    public int getTotalAdvertencias() {
+        return advertencias;
+    }
+
+    /**
+     * @return Diagnósticos descartados por superar el límite de la etapa
+     */
+    public int getSuprimidos(Diagnostico.Etapa etapa) {
+        return suprimidos[etapa.ordinal()][0] + suprimidos[etapa.ordinal()][1];
+    }
+
+    /**
+     * @param advertencias true para las advertencias, false para los errores
+     * @return Errores o advertencias de la etapa descartados por superar el límite
+     */
+    public int getSuprimidos(Diagnostico.Etapa etapa, boolean advertencias) {
+        return suprimidos[etapa.ordinal()][advertencias ? 1 : 0];
+    }
+
+    /**
+     * @return Veces que se repitió el diagnóstico además de la primera
+     */
+    public int getRepeticiones(Diagnostico diagnostico) {
+        return repeticiones.getOrDefault(diagnostico, 0);
+    }
+
+    public int getLimite(Diagnostico.Etapa etapa) {
+        return limites.get(etapa);
+    }
+
+    //endregion
+}
@@ -3,8 +3,21 @@ package app;
 import analizadorLexico.*;
 import analizadorSintactico.*;
 import archivos.*;
+import diagnosticos.*;
+import eventos.*;
 import generadores.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Controlador principal del analizador sintáctico.
@@ -14,10 +27,43 @@ import java.util.List;
  */
 public class ControladorPrincipal {
 
+    // Cambia cuando cambia el contenido de algún archivo generado (invalida la caché)
+    private static final int VERSION_SALIDAS = 4;
+
+    // arbol.svg colapsa las cadenas de no terminales con un solo hijo
+    private static final boolean COLAPSAR_SVG = true;
+
     private String rutaArchivo;
     private AnalizadorLexico analizadorLexico;
-    private AnalizadorSintactico analizadorSintactico;
+    private AnalizadorLL1 analizadorSintactico;
     private ClasificadorSemantico clasificadorSemantico;
+    private ColectorDiagnosticos diagnosticos;
+
+    // Caché de resultados (null si está desactivada)
+    private CacheResultados cache;
+    private List<String> archivosGenerados;
+
+    // Etapas encadenadas en hilos en lugar de una tras otra
+    private boolean encadenado;
+
+    // Análisis encadenado sin cargar la entrada ni conservar tokens y árbol
+    private boolean memoriaAcotada;
+
+    // Tiempo, CPU y memoria asignada de cada etapa de la última ejecución
+    private MedidorEtapas medidor;
+
+    // Salidas en hilos de plataforma para medir su CPU y memoria (si no, hilos virtuales)
+    private boolean medirSalidas;
+
+    // Directorio de los archivos generados (por defecto el directorio actual)
+    private Path directorioSalida;
+
+    // Límites de arbol.dot, ast.dot y arbol.svg, y si los DOT se comprimen con gzip (.dot.gz)
+    private OpcionesDOT opcionesDOT;
+    private boolean comprimirDOT;
+
+    // Árbol de derivación en consola (análisis secuencial), acotado a los nodos de opcionesDOT
+    private boolean mostrarArbol;
 
     //region CONSTRUCTOR
 
@@ -28,6 +74,108 @@ public class ControladorPrincipal {
      */
     public ControladorPrincipal(String rutaArchivo) {
         this.rutaArchivo = rutaArchivo;
+        this.medidor = new MedidorEtapas();
+        this.directorioSalida = Path.of("");
+        this.opcionesDOT = OpcionesDOT.acotadas();
+    }
+
+    /**
+     * @param directorioSalida Directorio donde se escriben (o restauran) los archivos generados
+     */
+    public void setDirectorioSalida(Path directorioSalida) {
+        this.directorioSalida = directorioSalida;
+    }
+
+    /**
+     * Activa la caché de resultados: si el código fuente ya se analizó con la misma
+     * gramática, se restauran los archivos generados sin ejecutar ninguna etapa.
+     *
+     * @param cache Caché a usar (null la desactiva)
+     */
+    public void setCache(CacheResultados cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Activa el análisis encadenado: léxico, sintáctico y semántico corren a la vez
+     * en hilos distintos, pasándose los tokens en lotes (ver AnalisisEncadenado).
+     * Las etapas no muestran sus mensajes; se informa el tiempo de cada una.
+     *
+     * @param encadenado Si las etapas se encadenan
+     */
+    public void setEncadenado(boolean encadenado) {
+        this.encadenado = encadenado;
+    }
+
+    /**
+     * Activa el análisis con memoria acotada, para entradas que no caben en
+     * memoria: el archivo se lee a medida que avanzan las etapas encadenadas y
+     * los reportes se escriben mientras se producen. Solo se generan errores.txt,
+     * tabla_transicion.txt y clasificacion.txt (las demás salidas necesitan el
+     * árbol o los tokens completos), y no se usa la caché.
+     *
+     * @param memoriaAcotada Si la memoria usada no crece con la entrada
+     */
+    public void setMemoriaAcotada(boolean memoriaAcotada) {
+        this.memoriaAcotada = memoriaAcotada;
+    }
+
+    /**
+     * Genera cada salida en un hilo de plataforma, para que sus métricas incluyan
+     * el CPU y la memoria asignada. Sin métricas se usan hilos virtuales, que son
+     * más baratos pero no permiten medirlos.
+     *
+     * @param medirSalidas Si se pidieron las métricas por etapa
+     */
+    public void setMedirSalidas(boolean medirSalidas) {
+        this.medirSalidas = medirSalidas;
+    }
+
+    /**
+     * @param opcionesDOT Límites de arbol.dot, ast.dot y arbol.svg (por defecto OpcionesDOT.acotadas();
+     *                    new OpcionesDOT() escribe el árbol completo)
+     */
+    public void setOpcionesDOT(OpcionesDOT opcionesDOT) {
+        this.opcionesDOT = opcionesDOT;
+    }
+
+    /**
+     * @param comprimirDOT Si arbol.dot y ast.dot se escriben comprimidos con gzip
+     *                     (arbol.dot.gz y ast.dot.gz)
+     */
+    public void setComprimirDOT(boolean comprimirDOT) {
+        this.comprimirDOT = comprimirDOT;
+    }
+
+    /**
+     * Muestra el árbol de derivación en consola en el análisis secuencial. Se
+     * escribe hasta el límite de nodos de las opciones DOT; para entradas
+     * grandes conviene arbol.dot.
+     *
+     * @param mostrarArbol Si se muestra el árbol
+     */
+    public void setMostrarArbol(boolean mostrarArbol) {
+        this.mostrarArbol = mostrarArbol;
+    }
+
+    /**
+     * Huella de todo lo que, además del código fuente, determina las salidas:
+     * la gramática, las versiones de los formatos y las opciones de los DOT
+     * (que también acotan arbol.svg).
+     * Se calcula con las opciones ya configuradas.
+     *
+     * @return Texto que identifica la configuración del análisis
+     */
+    public String calcularHuella() {
+        Gramatica gramatica = new Gramatica();
+        return "gramatica=" + new TreeMap<>(gramatica.getProducciones())
+                + ";terminales=" + new TreeSet<>(gramatica.getTerminales())
+                + ";binario=" + FormatoBinario.VERSION
+                + ";salidas=" + VERSION_SALIDAS
+                + ";dot=" + opcionesDOT.getProfundidadMaxima() + "," + opcionesDOT.getLimiteNodos()
+                + "," + opcionesDOT.colapsaEspinas() + "," + opcionesDOT.omiteEpsilon()
+                + ";gzip=" + comprimirDOT
+                + ";svg=" + COLAPSAR_SVG;
     }
 
     //endregion
@@ -36,110 +184,384 @@ public class ControladorPrincipal {
 
     /**
      * Ejecuta el análisis completo del programa.
+     *
+     * @return true si el análisis llegó al final (el programa puede tener errores);
+     *         false si se interrumpió por una excepción
      */
-    public void ejecutar() {
+    public boolean ejecutar() {
         System.out.println("\n╔════════════════════════════════════════════════════════════╗");
         System.out.println("║   ANALIZADOR SINTÁCTICO AVANZADO PARA SUBCONJUNTO JAVA     ║");
         System.out.println("╚════════════════════════════════════════════════════════════╝\n");
 
+        EventosJFR.Analisis evento = EventosJFR.estanActivos() ? new EventosJFR.Analisis() : null;
+        if (evento != null) {
+            evento.begin();
+        }
+
         try {
+            if (memoriaAcotada) {
+                return ejecutarAcotado();
+            }
+
             // Paso 1: Leer archivo
             System.out.println("📄 Paso 1: Cargando archivo...");
+            MedidorEtapas.Etapa medicion = medidor.iniciar("lectura");
             String codigoFuente = LectorArchivo.leerArchivo(rutaArchivo);
+            medicion.terminar();
             System.out.println("Archivo cargado exitosamente\n");
 
-            // Paso 2: Análisis léxico
-            System.out.println("🔍 Paso 2: Análisis léxico...");
-            analizadorLexico = new AnalizadorLexico(codigoFuente);
-            analizadorLexico.analizar();
-
-            // Paso 3: Análisis sintáctico
-            System.out.println("🔍 Paso 3: Análisis sintáctico...");
-            List<Token> tokens = analizadorLexico.getTodosLosTokens();
-            analizadorSintactico = new AnalizadorSintactico(tokens);
-            boolean exito = analizadorSintactico.analizar();
-
-            // Mostrar árbol de derivación
-            analizadorSintactico.imprimirArbol();
-
-            // Paso 4: Análisis semántico
-            System.out.println("🔍 Paso 4: Análisis semántico y clasificación...");
-            clasificadorSemantico = new ClasificadorSemantico();
-            clasificadorSemantico.analizar(analizadorLexico.getTokensValidos());
+            String clave = null;
+            if (cache != null) {
+                medicion = medidor.iniciar("cache");
+                clave = cache.calcularClave(codigoFuente.getBytes(StandardCharsets.UTF_8));
+                boolean restaurado = cache.restaurar(clave, directorioSalida);
+                medicion.terminar();
+                if (restaurado) {
+                    System.out.println("✓ Sin cambios desde el último análisis: resultados restaurados de la caché\n");
+                    mostrarResumenDesdeCache();
+                    return true;
+                }
+            }
+
+            NodoArbol raiz;
+            TablaLL1 tablaLL1;
+            boolean exito;
+            if (encadenado) {
+                // Pasos 2 a 4 a la vez
+                System.out.println("🔍 Pasos 2-4: Análisis léxico, sintáctico y semántico encadenados...");
+                medicion = medidor.iniciar("tabla");
+                tablaLL1 = OptimizadorGramatica.construirTablaOptimizada();
+                medicion.terminar();
+                AnalisisEncadenado analisis = AnalisisEncadenado.ejecutar(codigoFuente, tablaLL1, medidor);
+                diagnosticos = analisis.getDiagnosticos();
+                analizadorLexico = analisis.getLexico();
+                clasificadorSemantico = analisis.getSemantico();
+                raiz = analisis.getSintactico().getRaizArbol();
+                exito = analisis.getSintactico().getTotalErrores() == 0;
+                mostrarTiemposEtapas(analisis);
+            } else {
+                // Paso 2: Análisis léxico
+                System.out.println("🔍 Paso 2: Análisis léxico...");
+                medicion = medidor.iniciar("lexico");
+                diagnosticos = new ColectorDiagnosticos();
+                analizadorLexico = new AnalizadorLexico(codigoFuente, diagnosticos);
+                analizadorLexico.analizar();
+                List<Token> tokens = analizadorLexico.getTodosLosTokens();
+                medicion.terminar(tokens.size(), 0);
+
+                // Paso 3: Análisis sintáctico
+                System.out.println("🔍 Paso 3: Análisis sintáctico...");
+                medicion = medidor.iniciar("tabla");
+                tablaLL1 = OptimizadorGramatica.construirTablaOptimizada();
+                medicion.terminar();
+                medicion = medidor.iniciar("sintactico");
+                analizadorSintactico = new AnalizadorLL1(tablaLL1, analizadorLexico.getTokensValidos());
+                exito = analizadorSintactico.analizar();
+                registrarErroresSintacticos(analizadorSintactico.getErroresSintacticos(), diagnosticos);
+                raiz = analizadorSintactico.getRaizArbol();
+                medicion.terminar(tokens.size(), raiz.contarNodos());
+
+                // Mostrar árbol de derivación (solo si se pidió)
+                if (mostrarArbol) {
+                    System.out.println("--- ÁRBOL DE DERIVACIÓN ---\n");
+                    Writer consola = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                    raiz.escribirArbol(consola, "", opcionesDOT.getLimiteNodos());
+                    consola.flush();
+                    System.out.println();
+                }
+
+                // Paso 4: Análisis semántico
+                System.out.println("🔍 Paso 4: Análisis semántico y clasificación...");
+                medicion = medidor.iniciar("semantico");
+                clasificadorSemantico = new ClasificadorSemantico(diagnosticos);
+                clasificadorSemantico.analizar(analizadorLexico.getTokensValidos());
+                medicion.terminar(analizadorLexico.getTokensValidos().size(), 0);
+            }
 
             // Paso 5: Generar reportes
             System.out.println("📊 Paso 5: Generando reportes...");
-            generarReportes();
+            boolean completos = generarReportes(raiz, tablaLL1);
+            if (cache != null && completos) {
+                cache.guardar(clave, archivosGenerados);
+            }
 
             // Paso 6: Mostrar tabla LL(1)
             System.out.println("📋 Paso 6: Tabla LL(1)...");
-            analizadorSintactico.getTablaLL1().imprimirTabla();
+            tablaLL1.getTablaOriginal().imprimirTabla();
 
             // Resumen final
-            mostrarResumenFinal(exito);
+            int[] totales = new int[Diagnostico.Etapa.values().length];
+            for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+                totales[etapa.ordinal()] = diagnosticos.getTotal(etapa);
+            }
+            mostrarResumenFinal(totales, exito);
+            return true;
 
         } catch (Exception e) {
             System.err.println("\nERROR: " + e.getMessage());
             e.printStackTrace();
+            return false;
+        } finally {
+            if (evento != null && evento.shouldCommit()) {
+                evento.archivo = rutaArchivo;
+                evento.errores = diagnosticos != null ? diagnosticos.getTotal() : 0;
+                evento.commit();
+            }
         }
     }
 
+    /**
+     * Análisis con memoria acotada (ver setMemoriaAcotada). La tabla se escribe
+     * antes de empezar, cada diagnóstico apenas se detecta y la clasificación
+     * al final.
+     *
+     * @return true si el análisis llegó al final
+     * @throws IOException Si falla la lectura de la entrada o la escritura de un reporte
+     * @throws InterruptedException Si se interrumpe el análisis
+     */
+    private boolean ejecutarAcotado() throws IOException, InterruptedException {
+        System.out.println("🔍 Pasos 1-4: Lectura y análisis encadenados con memoria acotada...");
+        MedidorEtapas.Etapa medicion = medidor.iniciar("tabla");
+        TablaLL1 tablaLL1 = OptimizadorGramatica.construirTablaOptimizada();
+        medicion.terminar();
+
+        System.out.println("\n--- GENERANDO ARCHIVOS DE SALIDA ---\n");
+        EscritorArchivo.escribirArchivoConMensaje(ruta(directorioSalida, "tabla_transicion.txt"),
+                tablaLL1.getTablaOriginal()::escribirTextoTabla, "Tabla de transición");
+
+        diagnosticos = new ColectorDiagnosticos();
+        String rutaErrores = ruta(directorioSalida, "errores.txt");
+        AnalisisEncadenado analisis;
+        try (Reader fuente = LectorArchivo.abrirArchivo(rutaArchivo);
+             Writer salidaErrores = EscritorArchivo.abrirEscritor(rutaErrores)) {
+            ReporteErroresIncremental reporte = new ReporteErroresIncremental(salidaErrores);
+            diagnosticos.setObservador(reporte);
+            analisis = AnalisisEncadenado.ejecutarAcotado(fuente, tablaLL1, diagnosticos, medidor);
+            diagnosticos.setObservador(null);
+            reporte.terminar(diagnosticos);
+        }
+        System.out.println("Archivo generado: Reporte de errores -> " + rutaErrores);
+
+        analizadorLexico = analisis.getLexico();
+        clasificadorSemantico = analisis.getSemantico();
+        EscritorArchivo.escribirArchivoConMensaje(ruta(directorioSalida, "clasificacion.txt"),
+                salida -> GeneradorReportes.escribirReporteClasificacion(clasificadorSemantico, salida),
+                "Clasificación semántica");
+
+        System.out.printf("%n  Caracteres: %d, tokens: %d, miembros: %d%n", analizadorLexico.getCaracteresLeidos(),
+                getTotalTokens(), analisis.getMiembros());
+        mostrarTiemposEtapas(analisis);
+
+        int[] totales = new int[Diagnostico.Etapa.values().length];
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            totales[etapa.ordinal()] = diagnosticos.getTotal(etapa);
+        }
+        mostrarResumenFinal(totales, analisis.getSintactico().getTotalErrores() == 0);
+        return true;
+    }
+
+    /**
+     * Registra los errores del analizador sintáctico como diagnósticos.
+     *
+     * @param errores Errores del analizador sintáctico
+     * @param diagnosticos Colector donde se registran
+     */
+    static void registrarErroresSintacticos(List<Diagnostico> errores, ColectorDiagnosticos diagnosticos) {
+        for (Diagnostico error : errores) {
+            diagnosticos.agregar(error);
+        }
+    }
+
+    /**
+     * @return Tokens válidos e inválidos de la última ejecución (0 si se restauró de la caché)
+     */
+    public int getTotalTokens() {
+        if (analizadorLexico == null) {
+            return 0;
+        }
+        return analizadorLexico.getCantidadTokensValidos() + analizadorLexico.getCantidadTokensInvalidos();
+    }
+
+    /**
+     * @return Mediciones de las etapas de la última ejecución
+     */
+    public MedidorEtapas getMedidor() {
+        return medidor;
+    }
+
     //endregion
 
     //region GENERACIÓN DE REPORTES
 
     /**
-     * Genera todos los reportes requeridos.
+     * Arma la lista de archivos de salida de un análisis. Cada reporte se escribe
+     * directamente en su archivo, sin armarlo antes en memoria; los generadores
+     * solo leen los resultados, así que pueden correr en paralelo.
+     *
+     * @param directorio Directorio donde se escriben los archivos
+     * @param lexico Analizador léxico ya ejecutado
+     * @param raiz Raíz del árbol de derivación
+     * @param tablaLL1 Tabla LL(1) usada
+     * @param clasificadorSemantico Clasificador semántico ya ejecutado
+     * @param diagnosticos Diagnósticos de todas las etapas
+     * @param opcionesDOT Límites de los DOT y del SVG (acotadas: siguen siendo visualizables con entradas grandes)
+     * @param comprimirDOT Si los DOT se comprimen con gzip (extensión .dot.gz)
+     * @return Salidas en el orden en que se informan
      */
-    private void generarReportes() {
-        System.out.println("\n--- GENERANDO ARCHIVOS DE SALIDA ---\n");
+    static List<EscritorArchivo.Salida> construirSalidas(Path directorio, AnalizadorLexico lexico, NodoArbol raiz,
+                                                         TablaLL1 tablaLL1, ClasificadorSemantico clasificadorSemantico,
+                                                         ColectorDiagnosticos diagnosticos, OpcionesDOT opcionesDOT,
+                                                         boolean comprimirDOT) {
+        // Tokens válidos e inválidos en orden de aparición
+        List<Token> tokens = lexico.getTodosLosTokens();
+        tokens.sort(Comparator.comparingInt(Token::getNumeroToken));
+
+        // EscritorArchivo comprime los archivos terminados en .gz
+        String extensionDOT = comprimirDOT ? ".dot" + EscritorArchivo.EXTENSION_GZIP : ".dot";
+
+        return List.of(
+                // 1. Reporte de errores (errores.txt)
+                new EscritorArchivo.Salida(ruta(directorio, "errores.txt"),
+                        salida -> GeneradorReportes.escribirReporteErrores(diagnosticos, salida),
+                        "Reporte de errores"),
+                // 2. Tabla de transición (tabla_transicion.txt)
+                new EscritorArchivo.Salida(ruta(directorio, "tabla_transicion.txt"),
+                        salida -> tablaLL1.getTablaOriginal().escribirTextoTabla(salida), "Tabla de transición"),
+                // 3. Árbol de derivación (arbol.dot)
+                new EscritorArchivo.Salida(ruta(directorio, "arbol" + extensionDOT),
+                        salida -> GeneradorGraphviz.generarArbolDerivacion(raiz, salida, opcionesDOT),
+                        "Árbol de derivación (DOT)"),
+                // 4. AST (ast.dot)
+                new EscritorArchivo.Salida(ruta(directorio, "ast" + extensionDOT),
+                        salida -> GeneradorGraphviz.generarAST(raiz, salida, opcionesDOT), "AST (DOT)"),
+                // 4b. Árbol dibujado sin Graphviz (arbol.svg)
+                new EscritorArchivo.Salida(ruta(directorio, "arbol.svg"),
+                        salida -> GeneradorSVG.generarSVG(raiz, COLAPSAR_SVG, salida, opcionesDOT),
+                        "Árbol de derivación (SVG)"),
+                // 5. Reporte de clasificación
+                new EscritorArchivo.Salida(ruta(directorio, "clasificacion.txt"),
+                        salida -> GeneradorReportes.escribirReporteClasificacion(clasificadorSemantico, salida),
+                        "Clasificación semántica"),
+                // 6. Exportación binaria para otras herramientas (analisis.bin)
+                EscritorArchivo.Salida.binaria(ruta(directorio, "analisis.bin"),
+                        salida -> GeneradorBinario.escribir(salida, tokens, raiz, clasificadorSemantico, diagnosticos),
+                        "Exportación binaria"));
+    }
 
-        // 1. Reporte de errores (errores.txt)
-        String reporteErrores = GeneradorReportes.generarReporteErrores(
-                analizadorLexico.getTokensInvalidos(),
-                analizadorSintactico.getErroresSintacticos(),
-                clasificadorSemantico.getErroresSemanticos()
-        );
-        EscritorArchivo.escribirArchivoConMensaje("errores.txt", reporteErrores, "Reporte de errores");
+    private static String ruta(Path directorio, String archivo) {
+        return directorio.resolve(archivo).toString();
+    }
 
-        // 2. Tabla de transición (tabla_transicion.txt)
-        String tablaTransicion = analizadorSintactico.getTablaLL1().generarTextoTabla();
-        EscritorArchivo.escribirArchivoConMensaje("tabla_transicion.txt", tablaTransicion, "Tabla de transición");
+    /**
+     * Genera todos los reportes requeridos.
+     *
+     * @param raiz Raíz del árbol de derivación
+     * @param tablaLL1 Tabla LL(1) usada
+     * @return true si se generaron todos los archivos
+     */
+    private boolean generarReportes(NodoArbol raiz, TablaLL1 tablaLL1) {
+        System.out.println("\n--- GENERANDO ARCHIVOS DE SALIDA ---\n");
 
-        // 3. Árbol de derivación (arbol.dot)
-        String arbolDOT = GeneradorGraphviz.generarArbolDerivacion(analizadorSintactico.getRaizArbol());
-        EscritorArchivo.escribirArchivoConMensaje("arbol.dot", arbolDOT, "Árbol de derivación (DOT)");
+        List<EscritorArchivo.Salida> salidas = medirSalidas(construirSalidas(directorioSalida, analizadorLexico,
+                raiz, tablaLL1, clasificadorSemantico, diagnosticos, opcionesDOT, comprimirDOT));
 
-        // 4. AST (ast.dot)
-        String astDOT = GeneradorGraphviz.generarAST(analizadorSintactico.getRaizArbol());
-        EscritorArchivo.escribirArchivoConMensaje("ast.dot", astDOT, "AST (DOT)");
+        // Los archivos idénticos a los de la ejecución anterior no se tocan. Con métricas,
+        // cada salida se genera en un hilo de plataforma para poder medir su CPU y memoria
+        EscritorArchivo.Informe informe = medirSalidas
+                ? EscritorArchivo.escribirArchivosConMensaje(salidas, true, Thread.ofPlatform().factory())
+                : EscritorArchivo.escribirArchivosConMensaje(salidas, true);
+        List<EscritorArchivo.Fallo> fallos = informe.fallos();
 
-        // 5. Reporte de clasificación
-        String reporteClasificacion = GeneradorReportes.generarReporteClasificacion(clasificadorSemantico);
-        EscritorArchivo.escribirArchivoConMensaje("clasificacion.txt", reporteClasificacion, "Clasificación semántica");
+        archivosGenerados = new ArrayList<>();
+        for (EscritorArchivo.Salida salida : salidas) {
+            archivosGenerados.add(salida.ruta());
+        }
+        for (EscritorArchivo.Fallo fallo : fallos) {
+            archivosGenerados.remove(fallo.salida().ruta());
+        }
 
-        System.out.println("\n✓ Todos los archivos generados exitosamente\n");
+        if (fallos.isEmpty()) {
+            System.out.println("\n✓ Todos los archivos generados exitosamente\n");
+        } else {
+            System.out.println("\n" + fallos.size() + " de " + salidas.size() + " archivos no se pudieron generar\n");
+        }
+        System.out.println("Escritos: " + informe.escritos() + ", sin cambios: " + informe.sinCambios() + "\n");
         System.out.println("Archivos generados:");
         System.out.println("  • errores.txt - Reporte de errores léxicos, sintácticos y semánticos");
         System.out.println("  • tabla_transicion.txt - Tabla LL(1) completa");
-        System.out.println("  • arbol.dot - Árbol de derivación (visualizar con Graphviz)");
-        System.out.println("  • ast.dot - Árbol de sintaxis abstracta (visualizar con Graphviz)");
-        System.out.println("  • clasificacion.txt - Clasificación de variables, funciones, etc.\n");
+        String extensionDOT = comprimirDOT ? ".dot" + EscritorArchivo.EXTENSION_GZIP : ".dot";
+        System.out.println("  • arbol" + extensionDOT + " - Árbol de derivación (visualizar con Graphviz)");
+        System.out.println("  • ast" + extensionDOT + " - Árbol de sintaxis abstracta (visualizar con Graphviz)");
+        System.out.println("  • arbol.svg - Árbol de derivación dibujado (abrir en el navegador)");
+        System.out.println("  • clasificacion.txt - Clasificación de variables, funciones, etc.");
+        System.out.println("  • analisis.bin - Tokens, árbol, símbolos y diagnósticos en binario\n");
+        return fallos.isEmpty();
+    }
+
+    /**
+     * Envuelve cada salida para medir su generación como una etapa "reporte:archivo".
+     */
+    private List<EscritorArchivo.Salida> medirSalidas(List<EscritorArchivo.Salida> salidas) {
+        List<EscritorArchivo.Salida> medidas = new ArrayList<>();
+        for (EscritorArchivo.Salida salida : salidas) {
+            MedidorEtapas.Etapa medicion = medidor.registrar("reporte:" + Path.of(salida.ruta()).getFileName());
+            if (salida.binario() != null) {
+                medidas.add(EscritorArchivo.Salida.binaria(salida.ruta(), destino -> {
+                    medicion.iniciar();
+                    salida.binario().escribir(destino);
+                    medicion.terminar();
+                }, salida.nombre()));
+            } else {
+                medidas.add(new EscritorArchivo.Salida(salida.ruta(), escritor -> {
+                    medicion.iniciar();
+                    salida.contenido().escribir(escritor);
+                    medicion.terminar();
+                }, salida.nombre()));
+            }
+        }
+        return medidas;
+    }
+
+    /**
+     * Muestra cuánto tardó cada etapa encadenada frente al total.
+     */
+    private static void mostrarTiemposEtapas(AnalisisEncadenado analisis) {
+        long lexico = analisis.getNanosEtapa(Diagnostico.Etapa.LEXICO);
+        long sintactico = analisis.getNanosEtapa(Diagnostico.Etapa.SINTACTICO);
+        long semantico = analisis.getNanosEtapa(Diagnostico.Etapa.SEMANTICO);
+        System.out.printf("  Léxico: %.1f ms, sintáctico: %.1f ms, semántico: %.1f ms (incluyen esperas)%n",
+                lexico / 1e6, sintactico / 1e6, semantico / 1e6);
+        System.out.printf("  Total encadenado: %.1f ms%n%n", analisis.getNanosTotal() / 1e6);
+    }
+
+    /**
+     * Muestra el resumen final a partir de la exportación binaria restaurada.
+     */
+    private void mostrarResumenDesdeCache() throws IOException {
+        try (LectorBinario lector = LectorBinario.abrir(ruta(directorioSalida, "analisis.bin"))) {
+            int[] totales = new int[Diagnostico.Etapa.values().length];
+            for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+                totales[etapa.ordinal()] = lector.getTotalErroresEtapa(etapa.ordinal());
+            }
+            mostrarResumenFinal(totales, totales[Diagnostico.Etapa.SINTACTICO.ordinal()] == 0);
+        }
     }
 
     /**
      * Muestra el resumen final del análisis.
      *
+     * @param totales Errores por etapa (índice = Diagnostico.Etapa)
      * @param exitoSintactico Si el análisis sintáctico fue exitoso
      */
-    private void mostrarResumenFinal(boolean exitoSintactico) {
+    private void mostrarResumenFinal(int[] totales, boolean exitoSintactico) {
         System.out.println("╔════════════════════════════════════════════════════════════╗");
         System.out.println("║                    RESUMEN FINAL                           ║");
         System.out.println("╚════════════════════════════════════════════════════════════╝\n");
 
-        int totalErrores = analizadorLexico.getTokensInvalidos().size() +
-                analizadorSintactico.getErroresSintacticos().size() +
-                clasificadorSemantico.getErroresSemanticos().size();
+        int totalErrores = 0;
+        for (int total : totales) {
+            totalErrores += total;
+        }
 
         if (totalErrores == 0 && exitoSintactico) {
             System.out.println("ANÁLISIS COMPLETADO SIN ERRORES");
@@ -147,9 +569,9 @@ public class ControladorPrincipal {
         } else {
             System.out.println("  xxx SE ENCONTRARON ERRORES xxx");
             System.out.println("  Total de errores: " + totalErrores);
-            System.out.println("    - Errores léxicos: " + analizadorLexico.getTokensInvalidos().size());
-            System.out.println("    - Errores sintácticos: " + analizadorSintactico.getErroresSintacticos().size());
-            System.out.println("    - Errores semánticos: " + clasificadorSemantico.getErroresSemanticos().size());
+            for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+                System.out.println("    - " + etapa.getDescripcion() + ": " + totales[etapa.ordinal()]);
+            }
             System.out.println("\n  Consulte el archivo errores.txt para más detalles.\n");
         }
         System.out.println("════════════════════════════════════════════════════════════\n");
@@ -0,0 +1,87 @@
+package diagnosticos;
+
+/**
+ * Diagnóstico (error) producido por alguna etapa del análisis.
+ * Guarda solo el código, la posición y los argumentos; el mensaje se
+ * construye únicamente cuando se muestra o se escribe en un reporte.
+ *
+ * @param etapa Etapa que lo produjo
+ * @param codigo Código del diagnóstico (define la plantilla del mensaje)
+ * @param posicion Posición en el flujo de tokens, usada para ordenar
+ * @param argumentos Argumentos de la plantilla del mensaje
+ *
+ * @author Sophia
+ */
+public record Diagnostico(Etapa etapa, CodigoDiagnostico codigo, int posicion, Object... argumentos) {
+
+    /**
+     * Etapas del análisis que reportan diagnósticos.
+     */
+    public enum Etapa {
+        LEXICO("ERRORES LÉXICOS", "Errores léxicos"),
+        SINTACTICO("ERRORES SINTÁCTICOS", "Errores sintácticos"),
+        SEMANTICO("ERRORES SEMÁNTICOS", "Errores semánticos");
+
+        private final String titulo;
+        private final String descripcion;
+
+        Etapa(String titulo, String descripcion) {
+            this.titulo = titulo;
+            this.descripcion = descripcion;
+        }
+
+        public String getTitulo() {
+            return titulo;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+    }
+
+    /**
+     * Crea un diagnóstico; la etapa se toma del código.
+     *
+     * @param codigo Código del diagnóstico
+     * @param posicion Posición en el flujo de tokens
+     * @param argumentos Argumentos de la plantilla
+     * @return Nuevo diagnóstico
+     */
+    public static Diagnostico crear(CodigoDiagnostico codigo, int posicion, Object... argumentos) {
+        return new Diagnostico(codigo.getEtapa(), codigo, posicion, argumentos);
+    }
+
+    /**
+     * Identificador al que se refiere el diagnóstico (para deduplicar).
+     *
+     * @return El identificador, o null si el código no lo define
+     */
+    public Object identificador() {
+        int indice = codigo.getIndiceIdentificador();
+        return indice >= 0 && indice < argumentos.length ? argumentos[indice] : null;
+    }
+
+    /**
+     * Ámbito del identificador, para no agrupar locales homónimos de funciones distintas.
+     *
+     * @return La línea, o null si el identificador es global
+     */
+    public Object ambito() {
+        int indice = codigo.getIndiceAmbito();
+        return indice >= 0 && indice < argumentos.length ? argumentos[indice] : null;
+    }
+
+    /**
+     * Construye el mensaje del diagnóstico.
+     *
+     * @return Mensaje formateado
+     */
+    public String formatear() {
+        return String.format(codigo.getPlantilla(), argumentos);
+    }
+
+    @Override
+    public String toString() {
+        return formatear();
+    }
+}
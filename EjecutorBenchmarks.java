@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.io.IOException;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ejecuta los benchmarks del paquete con el perfilador de GC, que agrega a cada
+ * resultado los bytes asignados por operación y la cantidad de recolecciones.
+ *
+ * Acepta las opciones de línea de comandos de JMH; por ejemplo, solo el léxico
+ * con entradas grandes: {@code BenchmarkAnalisis.lexico -p funciones=30000}.
+ * Los resultados se pueden guardar con {@code -rf json -rff resultados.json}
+ * para comparar ejecuciones. Las opciones que solo consultan ({@code -l},
+ * {@code -h}, {@code -lprof}, ...) se pasan tal cual al lanzador de JMH.
+ *
+ * @author Sophia
+ */
+public class EjecutorBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions lineaComandos = new CommandLineOptions(args);
+        if (lineaComandos.shouldHelp() || lineaComandos.shouldList() || lineaComandos.shouldListWithParams()
+                || lineaComandos.shouldListProfilers() || lineaComandos.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        OptionsBuilder opciones = new OptionsBuilder();
+        opciones.parent(lineaComandos);
+        if (lineaComandos.getIncludes().isEmpty()) {
+            opciones.include("benchmarks\\..*");
+        }
+        opciones.addProfiler(GCProfiler.class);
+
+        Options configuradas = opciones.build();
+        new Runner(configuradas).run();
+    }
+}
@@ -1,9 +1,34 @@
 package archivos;
 
+import eventos.EventosJFR;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Escribe archivos de texto en el sistema.
@@ -13,6 +38,82 @@ import java.nio.charset.StandardCharsets;
  */
 public class EscritorArchivo {
 
+    // Tamaño del buffer de escritura (1 MiB)
+    public static final int TAMANO_BUFFER = 1 << 20;
+
+    // Los archivos con esta extensión se escriben comprimidos
+    public static final String EXTENSION_GZIP = ".gz";
+
+    // Sufijo de los archivos temporales que se escriben junto al destino antes de reemplazarlo
+    private static final String SUFIJO_TEMPORAL = ".tmp";
+
+    // Permisos de los temporales: createTempFile los crea solo para el dueño, pero el
+    // temporal pasa a ser el archivo generado (la umask del proceso sigue aplicando)
+    private static final FileAttribute<?>[] PERMISOS =
+            FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                    ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-rw-rw-"))}
+                    : new FileAttribute<?>[0];
+
+    /**
+     * Resultado de una escritura que solo reemplaza archivos con contenido distinto.
+     */
+    public enum ResultadoEscritura {
+        ESCRITO,
+        SIN_CAMBIOS
+    }
+
+    /**
+     * Contenido que se escribe directamente en el archivo, sin construirlo completo en memoria.
+     */
+    @FunctionalInterface
+    public interface ContenidoArchivo {
+        void escribir(Writer escritor) throws IOException;
+    }
+
+    /**
+     * Contenido binario que se escribe directamente en el archivo.
+     */
+    @FunctionalInterface
+    public interface ContenidoBinario {
+        void escribir(OutputStream salida) throws IOException;
+    }
+
+    /**
+     * Archivo de salida: ruta, generador del contenido (texto o binario) y nombre descriptivo.
+     */
+    public record Salida(String ruta, ContenidoArchivo contenido, ContenidoBinario binario, String nombre) {
+
+        /**
+         * Salida de texto.
+         */
+        public Salida(String ruta, ContenidoArchivo contenido, String nombre) {
+            this(ruta, contenido, null, nombre);
+        }
+
+        /**
+         * Salida binaria.
+         */
+        public static Salida binaria(String ruta, ContenidoBinario binario, String nombre) {
+            return new Salida(ruta, null, binario, nombre);
+        }
+    }
+
+    /**
+     * Fallo al generar una salida.
+     */
+    public record Fallo(Salida salida, Throwable causa) {
+    }
+
+    /**
+     * Resumen de la generación de varias salidas.
+     *
+     * @param fallos Fallos ocurridos, en el orden de la lista
+     * @param escritos Archivos creados o reemplazados
+     * @param sinCambios Archivos que ya tenían el mismo contenido y no se tocaron
+     */
+    public record Informe(List<Fallo> fallos, int escritos, int sinCambios) {
+    }
+
     /**
      * Escribe contenido en un archivo.
      *
@@ -27,6 +128,271 @@ public class EscritorArchivo {
         }
     }
 
+    /**
+     * Escribe en un archivo el contenido generado de forma incremental.
+     *
+     * @param rutaArchivo Ruta del archivo de salida
+     * @param contenido Generador del contenido
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirArchivo(String rutaArchivo, ContenidoArchivo contenido) throws IOException {
+        try (Writer escritor = abrirEscritor(rutaArchivo)) {
+            contenido.escribir(escritor);
+        }
+    }
+
+    /**
+     * Escribe un archivo binario con buffer grande sobre un FileChannel.
+     *
+     * @param rutaArchivo Ruta del archivo de salida
+     * @param contenido Generador del contenido
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirArchivoBinario(String rutaArchivo, ContenidoBinario contenido) throws IOException {
+        FileChannel canal = FileChannel.open(Path.of(rutaArchivo),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (OutputStream salida = new BufferedOutputStream(Channels.newOutputStream(canal), TAMANO_BUFFER)) {
+            contenido.escribir(salida);
+        }
+    }
+
+    //region ESCRITURA SOLO SI CAMBIA
+
+    /**
+     * Escribe un archivo de texto solo si su contenido cambió.
+     * Si termina en .gz se comprime con gzip.
+     *
+     * @param rutaArchivo Ruta del archivo de salida
+     * @param contenido Generador del contenido
+     * @return ESCRITO si se reemplazó el archivo, SIN_CAMBIOS si ya era idéntico
+     * @throws IOException Si hay error al escribir
+     */
+    public static ResultadoEscritura escribirArchivoSiCambia(String rutaArchivo, ContenidoArchivo contenido)
+            throws IOException {
+        boolean comprimir = rutaArchivo.endsWith(EXTENSION_GZIP);
+        return reemplazarSiCambia(Path.of(rutaArchivo), salida -> {
+            OutputStream destino = comprimir ? new GZIPOutputStream(salida, TAMANO_BUFFER) : salida;
+            Writer escritor = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), TAMANO_BUFFER);
+            contenido.escribir(escritor);
+            escritor.flush();
+            if (comprimir) {
+                ((GZIPOutputStream) destino).finish();
+            }
+        });
+    }
+
+    /**
+     * Escribe un archivo binario solo si su contenido cambió.
+     *
+     * @param rutaArchivo Ruta del archivo de salida
+     * @param contenido Generador del contenido
+     * @return ESCRITO si se reemplazó el archivo, SIN_CAMBIOS si ya era idéntico
+     * @throws IOException Si hay error al escribir
+     */
+    public static ResultadoEscritura escribirArchivoBinarioSiCambia(String rutaArchivo, ContenidoBinario contenido)
+            throws IOException {
+        return reemplazarSiCambia(Path.of(rutaArchivo), contenido);
+    }
+
+    /**
+     * Copia un archivo solo si el destino no existe o su contenido es distinto.
+     *
+     * @param origen Archivo a copiar
+     * @param destino Archivo de destino
+     * @return ESCRITO si se reemplazó el destino, SIN_CAMBIOS si ya era idéntico
+     * @throws IOException Si hay error al leer o escribir
+     */
+    public static ResultadoEscritura copiarSiCambia(Path origen, Path destino) throws IOException {
+        return reemplazarSiCambia(destino, salida -> Files.copy(origen, salida));
+    }
+
+    /**
+     * Genera el contenido comparándolo, a medida que se produce, con el destino
+     * existente; mientras coincidan no se escribe nada en disco. Al aparecer la
+     * primera diferencia (o si el destino no existe) se crea un temporal junto al
+     * destino, se copia la parte que coincidía y se sigue escribiendo ahí; al
+     * final el temporal reemplaza al destino con un renombrado atómico, así que
+     * nadie ve nunca un archivo a medias.
+     */
+    private static ResultadoEscritura reemplazarSiCambia(Path destino, ContenidoBinario contenido)
+            throws IOException {
+        try (SalidaComparada comparada = new SalidaComparada(destino)) {
+            OutputStream salida = new BufferedOutputStream(comparada, TAMANO_BUFFER);
+            contenido.escribir(salida);
+            salida.flush();
+
+            Path temporal = comparada.terminar();
+            if (temporal == null) {
+                return ResultadoEscritura.SIN_CAMBIOS;
+            }
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return ResultadoEscritura.ESCRITO;
+        }
+    }
+
+    /**
+     * Salida que compara lo escrito con un archivo existente y solo pasa a
+     * escribir en un temporal cuando el contenido difiere.
+     */
+    private static final class SalidaComparada extends OutputStream {
+        private final Path destino;
+
+        // Destino abierto mientras todo lo escrito coincide (null: no existe o ya difirió)
+        private FileChannel existente;
+        private final ByteBuffer bloque;
+        private long coincidentes;
+
+        // Temporal donde se escribe desde la primera diferencia
+        private Path temporal;
+        private OutputStream escritura;
+
+        SalidaComparada(Path destino) throws IOException {
+            this.destino = destino;
+            this.bloque = ByteBuffer.allocate(TAMANO_BUFFER);
+            bloque.flip();
+            if (Files.isRegularFile(destino)) {
+                existente = FileChannel.open(destino, StandardOpenOption.READ);
+            } else {
+                divergir();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] datos, int desde, int cantidad) throws IOException {
+            while (escritura == null && cantidad > 0) {
+                if (!bloque.hasRemaining() && !leerBloque()) {
+                    divergir();
+                    break;
+                }
+                int n = Math.min(cantidad, bloque.remaining());
+                int inicio = bloque.position();
+                int diferencia = Arrays.mismatch(datos, desde, desde + n, bloque.array(), inicio, inicio + n);
+                int iguales = diferencia < 0 ? n : diferencia;
+                bloque.position(inicio + iguales);
+                coincidentes += iguales;
+                desde += iguales;
+                cantidad -= iguales;
+                if (diferencia >= 0) {
+                    divergir();
+                }
+            }
+            if (cantidad > 0) {
+                escritura.write(datos, desde, cantidad);
+            }
+        }
+
+        /**
+         * Lee el siguiente bloque del destino existente.
+         *
+         * @return false si ya no quedan bytes
+         */
+        private boolean leerBloque() throws IOException {
+            bloque.clear();
+            int leidos = 0;
+            while (bloque.hasRemaining() && leidos >= 0) {
+                leidos = existente.read(bloque);
+            }
+            bloque.flip();
+            return bloque.hasRemaining();
+        }
+
+        /**
+         * Crea el temporal y copia la parte del destino que coincidía.
+         */
+        private void divergir() throws IOException {
+            Path directorio = destino.toAbsolutePath().getParent();
+            temporal = Files.createTempFile(directorio, destino.getFileName() + ".", SUFIJO_TEMPORAL, PERMISOS);
+            FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE);
+            if (existente != null) {
+                long copiados = 0;
+                while (copiados < coincidentes) {
+                    copiados += existente.transferTo(copiados, coincidentes - copiados, canal);
+                }
+                existente.close();
+                existente = null;
+            }
+            escritura = new BufferedOutputStream(Channels.newOutputStream(canal), TAMANO_BUFFER);
+        }
+
+        /**
+         * Termina la comparación.
+         *
+         * @return Temporal completo que debe reemplazar al destino, o null si el
+         *         contenido es idéntico
+         */
+        Path terminar() throws IOException {
+            if (escritura == null && existente.size() > coincidentes) {
+                // El destino tiene bytes de más
+                divergir();
+            }
+            if (escritura == null) {
+                return null;
+            }
+            escritura.close();
+            escritura = null;
+            return temporal;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (existente != null) {
+                    existente.close();
+                }
+                if (escritura != null) {
+                    escritura.close();
+                }
+            } finally {
+                if (temporal != null) {
+                    Files.deleteIfExists(temporal);
+                }
+            }
+        }
+    }
+
+    //endregion
+
+    /**
+     * Abre un escritor UTF-8 con buffer grande sobre un FileChannel.
+     * El archivo se crea o se trunca; si termina en .gz se comprime con gzip.
+     *
+     * @param rutaArchivo Ruta del archivo de salida
+     * @return Escritor (debe cerrarse)
+     * @throws IOException Si no se puede abrir el archivo
+     */
+    public static Writer abrirEscritor(String rutaArchivo) throws IOException {
+        return abrirEscritor(rutaArchivo, rutaArchivo.endsWith(EXTENSION_GZIP));
+    }
+
+    /**
+     * Abre un escritor UTF-8 con buffer grande sobre un FileChannel.
+     *
+     * @param rutaArchivo Ruta del archivo de salida
+     * @param comprimir Si el contenido se comprime con gzip
+     * @return Escritor (debe cerrarse)
+     * @throws IOException Si no se puede abrir el archivo
+     */
+    public static Writer abrirEscritor(String rutaArchivo, boolean comprimir) throws IOException {
+        FileChannel canal = FileChannel.open(Path.of(rutaArchivo),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (comprimir) {
+            GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(canal), TAMANO_BUFFER);
+            return new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        }
+        return new BufferedWriter(
+                Channels.newWriter(canal, StandardCharsets.UTF_8.newEncoder(), TAMANO_BUFFER),
+                TAMANO_BUFFER);
+    }
+
     /**
      * Escribe contenido en un archivo y muestra mensaje de confirmación.
      *
@@ -42,4 +408,123 @@ public class EscritorArchivo {
             System.err.println("Error al generar " + nombreArchivo + ": " + e.getMessage());
         }
     }
+
+    /**
+     * Escribe contenido generado de forma incremental y muestra mensaje de confirmación.
+     *
+     * @param rutaArchivo Ruta del archivo de salida
+     * @param contenido Generador del contenido
+     * @param nombreArchivo Nombre descriptivo del archivo
+     */
+    public static void escribirArchivoConMensaje(String rutaArchivo, ContenidoArchivo contenido, String nombreArchivo) {
+        try {
+            escribirArchivo(rutaArchivo, contenido);
+            System.out.println("Archivo generado: " + nombreArchivo + " -> " + rutaArchivo);
+        } catch (IOException e) {
+            System.err.println("Error al generar " + nombreArchivo + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Genera varias salidas en paralelo, una por hilo virtual.
+     * Espera a que terminen todas aunque alguna falle, y después muestra los
+     * mensajes en el orden de la lista para que la salida sea determinista.
+     *
+     * @param salidas Archivos a generar (sus generadores deben ser independientes)
+     * @return Fallos ocurridos, en el orden de la lista (vacía si todo se generó)
+     */
+    public static List<Fallo> escribirArchivosConMensaje(List<Salida> salidas) {
+        return escribirArchivosConMensaje(salidas, false).fallos();
+    }
+
+    /**
+     * Genera varias salidas en paralelo, una por hilo virtual.
+     * Espera a que terminen todas aunque alguna falle, y después muestra los
+     * mensajes en el orden de la lista para que la salida sea determinista.
+     *
+     * @param salidas Archivos a generar (sus generadores deben ser independientes)
+     * @param soloSiCambia Si los archivos con el mismo contenido se dejan sin tocar
+     *                     y los demás se reemplazan de forma atómica
+     * @return Fallos y cantidad de archivos escritos y sin cambios
+     */
+    public static Informe escribirArchivosConMensaje(List<Salida> salidas, boolean soloSiCambia) {
+        return escribirArchivosConMensaje(salidas, soloSiCambia, Thread.ofVirtual().factory());
+    }
+
+    /**
+     * Genera varias salidas en paralelo, una por hilo creado con la fábrica dada
+     * (por ejemplo, hilos de plataforma para poder medir el CPU de cada una).
+     *
+     * @param salidas Archivos a generar (sus generadores deben ser independientes)
+     * @param soloSiCambia Si los archivos con el mismo contenido se dejan sin tocar
+     * @param hilos Fábrica de los hilos donde se genera cada salida
+     * @return Fallos y cantidad de archivos escritos y sin cambios
+     */
+    public static Informe escribirArchivosConMensaje(List<Salida> salidas, boolean soloSiCambia,
+                                                     ThreadFactory hilos) {
+        List<Future<ResultadoEscritura>> tareas = new ArrayList<>(salidas.size());
+        List<Fallo> fallos = new ArrayList<>();
+        int escritos = 0;
+        int sinCambios = 0;
+
+        try (ExecutorService ejecutor = Executors.newThreadPerTaskExecutor(hilos)) {
+            for (Salida salida : salidas) {
+                tareas.add(ejecutor.submit(() -> escribir(salida, soloSiCambia)));
+            }
+        } // close() espera a todas las tareas
+
+        for (int i = 0; i < salidas.size(); i++) {
+            Salida salida = salidas.get(i);
+            try {
+                if (tareas.get(i).get() == ResultadoEscritura.SIN_CAMBIOS) {
+                    sinCambios++;
+                    System.out.println("Archivo sin cambios: " + salida.nombre() + " -> " + salida.ruta());
+                } else {
+                    escritos++;
+                    System.out.println("Archivo generado: " + salida.nombre() + " -> " + salida.ruta());
+                }
+            } catch (ExecutionException e) {
+                fallos.add(new Fallo(salida, e.getCause()));
+                System.err.println("Error al generar " + salida.nombre() + ": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fallos.add(new Fallo(salida, e));
+            }
+        }
+        return new Informe(fallos, escritos, sinCambios);
+    }
+
+    /**
+     * Genera una salida en el hilo actual, sin mensajes.
+     *
+     * @param salida Archivo a generar
+     * @param soloSiCambia Si un archivo con el mismo contenido se deja sin tocar
+     * @return ESCRITO o SIN_CAMBIOS
+     * @throws IOException Si hay error al escribir
+     */
+    public static ResultadoEscritura escribir(Salida salida, boolean soloSiCambia) throws IOException {
+        EventosJFR.Salida evento = EventosJFR.estanActivos() ? new EventosJFR.Salida() : null;
+        if (evento != null) {
+            evento.begin();
+        }
+
+        ResultadoEscritura resultado = ResultadoEscritura.ESCRITO;
+        if (soloSiCambia) {
+            resultado = salida.binario() != null
+                    ? escribirArchivoBinarioSiCambia(salida.ruta(), salida.binario())
+                    : escribirArchivoSiCambia(salida.ruta(), salida.contenido());
+        } else if (salida.binario() != null) {
+            escribirArchivoBinario(salida.ruta(), salida.binario());
+        } else {
+            escribirArchivo(salida.ruta(), salida.contenido());
+        }
+
+        if (evento != null && evento.shouldCommit()) {
+            evento.archivo = salida.ruta();
+            evento.bytes = Files.size(Path.of(salida.ruta()));
+            evento.sinCambios = resultado == ResultadoEscritura.SIN_CAMBIOS;
+            evento.commit();
+        }
+        return resultado;
+    }
 }
@@ -0,0 +1,204 @@
+package eventos;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de Java Flight Recorder propios del analizador: carga de archivos,
+ * cada etapa del análisis, construcción de la tabla LL(1) y cada archivo generado.
+ *
+ * Están desactivados hasta que se llama a {@link #activar()} (opción --jfr):
+ * mientras tanto cada punto de medición es solo la lectura de un indicador y
+ * no se crea ningún evento. Una vez activos, los registra cualquier grabación
+ * en curso, la de {@link #iniciarGrabacion(Path)} o una externa
+ * (-XX:StartFlightRecording).
+ *
+ * Uso en cada etapa:
+ * <pre>
+ * EventosJFR.Lexico evento = EventosJFR.estanActivos() ? new EventosJFR.Lexico() : null;
+ * if (evento != null) evento.begin();
+ * ... trabajo ...
+ * if (evento != null &amp;&amp; evento.shouldCommit()) { ...campos...; evento.commit(); }
+ * </pre>
+ *
+ * @author Sophia
+ */
+public final class EventosJFR {
+
+    private static final String CATEGORIA = "Analizador";
+
+    private static volatile boolean activos;
+
+    private EventosJFR() {
+    }
+
+    //region EVENTOS
+
+    @Name("analizador.Analisis")
+    @Label("Análisis de archivo")
+    @Description("Análisis completo de un archivo; las etapas ocurren dentro de este intervalo")
+    @Category(CATEGORIA)
+    @StackTrace(false)
+    public static final class Analisis extends Event {
+        @Label("Archivo")
+        public String archivo;
+
+        @Label("Errores")
+        public int errores;
+    }
+
+    @Name("analizador.CargaArchivo")
+    @Label("Carga de archivo")
+    @Category(CATEGORIA)
+    @StackTrace(false)
+    public static final class CargaArchivo extends Event {
+        @Label("Archivo")
+        public String archivo;
+
+        @Label("Tamaño")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("analizador.Lexico")
+    @Label("Análisis léxico")
+    @Category(CATEGORIA)
+    @StackTrace(false)
+    public static final class Lexico extends Event {
+        @Label("Caracteres")
+        public long caracteres;
+
+        @Label("Tokens")
+        public int tokens;
+
+        @Label("Errores léxicos")
+        public int errores;
+    }
+
+    @Name("analizador.Tabla")
+    @Label("Construcción de la tabla LL(1)")
+    @Description("Cálculo de PRIMERO, SIGUIENTE y la tabla a partir de la gramática")
+    @Category(CATEGORIA)
+    @StackTrace(false)
+    public static final class Tabla extends Event {
+        @Label("No terminales")
+        public int noTerminales;
+
+        @Label("Terminales")
+        public int terminales;
+
+        @Label("Conflictos")
+        public int conflictos;
+    }
+
+    @Name("analizador.Sintactico")
+    @Label("Análisis sintáctico")
+    @Category(CATEGORIA)
+    @StackTrace(false)
+    public static final class Sintactico extends Event {
+        @Label("Tokens")
+        public int tokens;
+
+        @Label("Pasos de derivación")
+        @Description("No terminales expandidos (0 si el analizador no lo informa)")
+        public long pasos;
+
+        @Label("Errores sintácticos")
+        public int errores;
+    }
+
+    @Name("analizador.Semantico")
+    @Label("Análisis semántico")
+    @Category(CATEGORIA)
+    @StackTrace(false)
+    public static final class Semantico extends Event {
+        @Label("Tokens")
+        public long tokens;
+
+        @Label("Funciones")
+        public int funciones;
+
+        @Label("Variables")
+        public int variables;
+
+        @Label("Errores semánticos")
+        public int errores;
+    }
+
+    @Name("analizador.Salida")
+    @Label("Archivo generado")
+    @Category(CATEGORIA)
+    @StackTrace(false)
+    public static final class Salida extends Event {
+        @Label("Archivo")
+        public String archivo;
+
+        @Label("Tamaño")
+        @DataAmount
+        public long bytes;
+
+        @Label("Sin cambios")
+        @Description("El archivo ya tenía el mismo contenido y no se reemplazó")
+        public boolean sinCambios;
+    }
+
+    //endregion
+
+    //region ACTIVACIÓN
+
+    /**
+     * Activa la emisión de eventos en todo el proceso.
+     */
+    public static void activar() {
+        activos = true;
+    }
+
+    /**
+     * @return true si los puntos de medición deben crear eventos
+     */
+    public static boolean estanActivos() {
+        return activos;
+    }
+
+    /**
+     * Activa los eventos e inicia una grabación con la configuración "default"
+     * de la JVM más los eventos del analizador. Se escribe en el archivo al
+     * detenerla o, si sigue en curso, al terminar el proceso.
+     *
+     * @param archivo Archivo .jfr de destino
+     * @return Grabación en curso
+     * @throws IOException Si no se puede usar el archivo
+     */
+    public static Recording iniciarGrabacion(Path archivo) throws IOException {
+        activar();
+        Recording grabacion;
+        try {
+            grabacion = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Configuración JFR inválida: " + e.getMessage(), e);
+        }
+        for (Class<? extends Event> evento : List.of(Analisis.class, CargaArchivo.class, Lexico.class,
+                Tabla.class, Sintactico.class, Semantico.class, Salida.class)) {
+            grabacion.enable(evento).withoutThreshold();
+        }
+        grabacion.setName("analizador");
+        grabacion.setToDisk(true);
+        grabacion.setDestination(archivo);
+        grabacion.setDumpOnExit(true);
+        grabacion.start();
+        return grabacion;
+    }
+
+    //endregion
+}
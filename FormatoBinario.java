@@ -0,0 +1,94 @@
+package archivos;
+
+/**
+ * Formato binario de exportación del análisis (versión 2).
+ * Todos los enteros son big-endian. El archivo es:
+ *
+ * <pre>
+ * Cabecera:    int magia, int versión, int totalSecciones
+ * Directorio:  totalSecciones × (int id, long desplazamiento, long longitud)
+ * Secciones:   en cualquier orden; cada una empieza con su cantidad de registros
+ *
+ * CADENAS      int n, int[n + 1] inicios (relativos a los bytes), byte[] UTF-8
+ * TOKENS       int n, int totalTipos, int[totalTipos] nombre del tipo,
+ *              n × (int tipo, int lexema, int desplazamiento, int longitud, int línea, int columna)
+ * ARBOL        int n, n × (int símbolo, int aridad | BIT_TERMINAL), en preorden
+ * VARIABLES    int n, n × (int nombre, int tipo, int función, int línea)
+ * FUNCIONES    int n, n × (int nombre, int tipoRetorno, int línea, int primerParámetro, int totalParámetros),
+ *              int totalParámetros, int[totalParámetros] tipo
+ * OPERADORES   int n, int[n] cadena
+ * SIMBOLOS     int n, int[n] cadena
+ * DIAGNOSTICOS int totalEtapas, totalEtapas × (int total, int suprimidos),
+ *              int n, n × (int etapa | BIT_ADVERTENCIA, int código, int posición, int repeticiones, int mensaje)
+ * </pre>
+ *
+ * Las cadenas se guardan una sola vez en CADENAS y el resto de las secciones las
+ * referencian por número (SIN_CADENA si no hay valor). Los registros son de tamaño
+ * fijo, así que el registro i de cualquier sección se lee sin recorrer los anteriores.
+ * Un lector debe ignorar las secciones con id desconocido.
+ *
+ * Versión 2: VARIABLES tiene una entrada por declaración, con la función donde se
+ * declaró (SIN_CADENA para los atributos de la clase) y su línea. En la versión 1
+ * había una entrada por nombre, de TAMANO_VARIABLE_V1 bytes (int nombre, int tipo).
+ *
+ * @author Sophia
+ */
+public final class FormatoBinario {
+
+    public static final int MAGIA = 0x4C464231;       // "LFB1"
+    public static final int VERSION = 2;
+
+    public static final int TAMANO_CABECERA = 12;
+    public static final int TAMANO_ENTRADA_DIRECTORIO = 20;
+
+    // Tamaño de los registros de cada sección (bytes)
+    public static final int TAMANO_TOKEN = 24;
+    public static final int TAMANO_NODO = 8;
+    public static final int TAMANO_VARIABLE = 16;
+    public static final int TAMANO_VARIABLE_V1 = 8;
+    public static final int TAMANO_FUNCION = 20;
+    public static final int TAMANO_DIAGNOSTICO = 20;
+
+    public static final int SIN_CADENA = -1;
+    public static final int BIT_TERMINAL = 1 << 31;
+    public static final int BIT_ADVERTENCIA = 1 << 8;
+
+    /**
+     * Secciones del archivo. El id es el que se guarda en el directorio.
+     */
+    public enum Seccion {
+        CADENAS(1),
+        TOKENS(2),
+        ARBOL(3),
+        VARIABLES(4),
+        FUNCIONES(5),
+        OPERADORES(6),
+        SIMBOLOS(7),
+        DIAGNOSTICOS(8);
+
+        private final int id;
+
+        Seccion(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return Sección con ese id, o null si es desconocida
+         */
+        public static Seccion porId(int id) {
+            for (Seccion seccion : values()) {
+                if (seccion.id == id) {
+                    return seccion;
+                }
+            }
+            return null;
+        }
+    }
+
+    private FormatoBinario() {
+    }
+}
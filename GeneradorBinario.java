@@ -0,0 +1,368 @@
+package generadores;
+
+import analizadorLexico.Token;
+import analizadorLexico.TipoToken;
+import analizadorSintactico.ClasificadorSemantico;
+import analizadorSintactico.ClasificadorSemantico.DeclaracionVariable;
+import analizadorSintactico.NodoArbol;
+import archivos.FormatoBinario;
+import archivos.FormatoBinario.Seccion;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Exporta tokens, árbol, tablas de símbolos y diagnósticos en el formato binario
+ * descrito en {@link FormatoBinario}, para herramientas que no deben volver a
+ * interpretar los reportes de texto.
+ *
+ * Los registros son de tamaño fijo, así que la longitud de cada sección se conoce
+ * antes de escribirla: una primera pasada numera las cadenas y cuenta los registros,
+ * y la segunda escribe cabecera, directorio y secciones directamente en la salida,
+ * sin copiar ninguna sección en memoria.
+ *
+ * @author Sophia
+ */
+public class GeneradorBinario {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    // Orden de las declaraciones en VARIABLES (determinista con o sin análisis en paralelo)
+    private static final Comparator<DeclaracionVariable> ORDEN_VARIABLES =
+            Comparator.comparing(DeclaracionVariable::nombre)
+                    .thenComparing(DeclaracionVariable::funcion, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparingInt(DeclaracionVariable::linea);
+
+    private final List<Token> tokens;
+    private final NodoArbol raiz;
+    private final ClasificadorSemantico clasificador;
+    private final ColectorDiagnosticos diagnosticos;
+
+    // Datos ordenados y mensajes ya formateados (se arman en la primera pasada)
+    private List<DeclaracionVariable> variables;
+    private TreeSet<String> operadores;
+    private TreeSet<String> simbolos;
+    private List<String> mensajes;
+    private int totalNodos;
+    private int totalParametros;
+
+    // Tabla de cadenas: cada texto se guarda una vez
+    private final Map<String, Integer> numeroCadena = new HashMap<>();
+    private final List<byte[]> cadenas = new ArrayList<>();
+    private long bytesCadenas;
+
+    private GeneradorBinario(List<Token> tokens, NodoArbol raiz, ClasificadorSemantico clasificador,
+                             ColectorDiagnosticos diagnosticos) {
+        this.tokens = tokens;
+        this.raiz = raiz;
+        this.clasificador = clasificador;
+        this.diagnosticos = diagnosticos;
+    }
+
+    /**
+     * Escribe el archivo binario completo.
+     *
+     * @param salida Destino (no se cierra)
+     * @param tokens Tokens en orden de aparición
+     * @param raiz Raíz del árbol de derivación (puede ser null)
+     * @param clasificador Clasificador semántico ya ejecutado
+     * @param diagnosticos Diagnósticos de todas las etapas
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribir(OutputStream salida, List<Token> tokens, NodoArbol raiz,
+                                ClasificadorSemantico clasificador, ColectorDiagnosticos diagnosticos)
+            throws IOException {
+        GeneradorBinario generador = new GeneradorBinario(tokens, raiz, clasificador, diagnosticos);
+        generador.registrarCadenas();
+        generador.volcar(salida);
+    }
+
+    //region PRIMERA PASADA
+
+    /**
+     * Numera todas las cadenas en el orden en que las usan las secciones y
+     * cuenta los registros de tamaño variable (nodos y parámetros).
+     */
+    private void registrarCadenas() {
+        for (TipoToken tipo : TipoToken.values()) {
+            cadena(tipo.name());
+        }
+        for (Token token : tokens) {
+            cadena(token.getLexema());
+        }
+
+        if (raiz != null) {
+            Deque<NodoArbol> pila = new ArrayDeque<>();
+            pila.push(raiz);
+            while (!pila.isEmpty()) {
+                NodoArbol nodo = pila.pop();
+                cadena(nodo.getSimbolo());
+                totalNodos++;
+                List<NodoArbol> hijos = nodo.getHijos();
+                for (int i = hijos.size() - 1; i >= 0; i--) {
+                    pila.push(hijos.get(i));
+                }
+            }
+        }
+
+        variables = new ArrayList<>(clasificador.getDeclaraciones());
+        variables.sort(ORDEN_VARIABLES);
+        for (DeclaracionVariable variable : variables) {
+            cadena(variable.nombre());
+            cadena(variable.tipo());
+            cadena(variable.funcion());
+        }
+
+        for (String nombre : clasificador.getNombresFunciones()) {
+            cadena(nombre);
+            cadena(clasificador.getTipoRetorno(nombre));
+            totalParametros += clasificador.getTiposParametros(nombre).size();
+        }
+        for (String nombre : clasificador.getNombresFunciones()) {
+            for (String tipo : clasificador.getTiposParametros(nombre)) {
+                cadena(tipo);
+            }
+        }
+
+        operadores = new TreeSet<>(clasificador.getOperadores());
+        operadores.forEach(this::cadena);
+        simbolos = new TreeSet<>(clasificador.getSimbolos());
+        simbolos.forEach(this::cadena);
+
+        mensajes = new ArrayList<>();
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            for (Diagnostico diagnostico : diagnosticos.getDiagnosticos(etapa)) {
+                String mensaje = diagnostico.formatear();
+                cadena(diagnostico.codigo().name());
+                cadena(mensaje);
+                mensajes.add(mensaje);
+            }
+        }
+    }
+
+    /**
+     * Longitud en bytes de cada sección, en el orden en que se escriben.
+     */
+    private Map<Seccion, Long> longitudes() {
+        int etapas = Diagnostico.Etapa.values().length;
+        Map<Seccion, Long> longitudes = new EnumMap<>(Seccion.class);
+        longitudes.put(Seccion.CADENAS, 4 + 4L * (cadenas.size() + 1) + bytesCadenas);
+        longitudes.put(Seccion.TOKENS, 8 + 4L * TipoToken.values().length
+                + (long) FormatoBinario.TAMANO_TOKEN * tokens.size());
+        longitudes.put(Seccion.ARBOL, 4 + (long) FormatoBinario.TAMANO_NODO * totalNodos);
+        longitudes.put(Seccion.VARIABLES, 4 + (long) FormatoBinario.TAMANO_VARIABLE * variables.size());
+        longitudes.put(Seccion.FUNCIONES, 4 + (long) FormatoBinario.TAMANO_FUNCION
+                * clasificador.getNombresFunciones().size() + 4 + 4L * totalParametros);
+        longitudes.put(Seccion.OPERADORES, 4 + 4L * operadores.size());
+        longitudes.put(Seccion.SIMBOLOS, 4 + 4L * simbolos.size());
+        longitudes.put(Seccion.DIAGNOSTICOS, 4 + 8L * etapas + 4
+                + (long) FormatoBinario.TAMANO_DIAGNOSTICO * mensajes.size());
+        return longitudes;
+    }
+
+    //endregion
+
+    //region SECCIONES
+
+    private void escribirCadenas(DataOutputStream datos) throws IOException {
+        datos.writeInt(cadenas.size());
+        int inicio = 0;
+        for (byte[] cadena : cadenas) {
+            datos.writeInt(inicio);
+            inicio += cadena.length;
+        }
+        datos.writeInt(inicio);
+        for (byte[] cadena : cadenas) {
+            datos.write(cadena);
+        }
+    }
+
+    private void escribirTokens(DataOutputStream datos) throws IOException {
+        TipoToken[] tipos = TipoToken.values();
+
+        datos.writeInt(tokens.size());
+        datos.writeInt(tipos.length);
+        for (TipoToken tipo : tipos) {
+            datos.writeInt(numero(tipo.name()));
+        }
+        for (Token token : tokens) {
+            datos.writeInt(token.getTipo().ordinal());
+            datos.writeInt(numero(token.getLexema()));
+            datos.writeInt(token.getDesplazamiento());
+            datos.writeInt(token.getLongitud());
+            datos.writeInt(token.getLinea());
+            datos.writeInt(token.getColumna());
+        }
+    }
+
+    /**
+     * Árbol en preorden con la aridad de cada nodo (recorrido con pila explícita).
+     */
+    private void escribirArbol(DataOutputStream datos) throws IOException {
+        datos.writeInt(totalNodos);
+        if (raiz == null) {
+            return;
+        }
+
+        Deque<NodoArbol> pila = new ArrayDeque<>();
+        pila.push(raiz);
+        while (!pila.isEmpty()) {
+            NodoArbol nodo = pila.pop();
+            List<NodoArbol> hijos = nodo.getHijos();
+
+            datos.writeInt(numero(nodo.getSimbolo()));
+            datos.writeInt(hijos.size() | (nodo.esTerminal() ? FormatoBinario.BIT_TERMINAL : 0));
+
+            for (int i = hijos.size() - 1; i >= 0; i--) {
+                pila.push(hijos.get(i));
+            }
+        }
+    }
+
+    /**
+     * Una entrada por declaración: variables del mismo nombre en funciones
+     * distintas no se mezclan.
+     */
+    private void escribirVariables(DataOutputStream datos) throws IOException {
+        datos.writeInt(variables.size());
+        for (DeclaracionVariable variable : variables) {
+            datos.writeInt(numero(variable.nombre()));
+            datos.writeInt(numero(variable.tipo()));
+            datos.writeInt(numero(variable.funcion()));
+            datos.writeInt(variable.linea());
+        }
+    }
+
+    /**
+     * Funciones en orden de declaración (número de vértice del grafo de llamadas).
+     */
+    private void escribirFunciones(DataOutputStream datos) throws IOException {
+        List<String> nombres = clasificador.getNombresFunciones();
+        int primerParametro = 0;
+        datos.writeInt(nombres.size());
+        for (String nombre : nombres) {
+            List<String> parametros = clasificador.getTiposParametros(nombre);
+            datos.writeInt(numero(nombre));
+            datos.writeInt(numero(clasificador.getTipoRetorno(nombre)));
+            datos.writeInt(clasificador.getLineaFuncion(nombre));
+            datos.writeInt(primerParametro);
+            datos.writeInt(parametros.size());
+            primerParametro += parametros.size();
+        }
+        datos.writeInt(totalParametros);
+        for (String nombre : nombres) {
+            for (String tipo : clasificador.getTiposParametros(nombre)) {
+                datos.writeInt(numero(tipo));
+            }
+        }
+    }
+
+    private void escribirLista(DataOutputStream datos, TreeSet<String> valores) throws IOException {
+        datos.writeInt(valores.size());
+        for (String valor : valores) {
+            datos.writeInt(numero(valor));
+        }
+    }
+
+    private void escribirDiagnosticos(DataOutputStream datos) throws IOException {
+        Diagnostico.Etapa[] etapas = Diagnostico.Etapa.values();
+
+        datos.writeInt(etapas.length);
+        for (Diagnostico.Etapa etapa : etapas) {
+            datos.writeInt(diagnosticos.getTotal(etapa));
+            datos.writeInt(diagnosticos.getSuprimidos(etapa));
+        }
+
+        datos.writeInt(mensajes.size());
+        int i = 0;
+        for (Diagnostico.Etapa etapa : etapas) {
+            for (Diagnostico diagnostico : diagnosticos.getDiagnosticos(etapa)) {
+                int advertencia = diagnostico.codigo().esAdvertencia() ? FormatoBinario.BIT_ADVERTENCIA : 0;
+                datos.writeInt(etapa.ordinal() | advertencia);
+                datos.writeInt(numero(diagnostico.codigo().name()));
+                datos.writeInt(diagnostico.posicion());
+                datos.writeInt(diagnosticos.getRepeticiones(diagnostico));
+                datos.writeInt(numero(mensajes.get(i++)));
+            }
+        }
+    }
+
+    //endregion
+
+    //region ESCRITURA
+
+    /**
+     * Escribe cabecera, directorio y secciones, cada una directamente en la salida.
+     */
+    private void volcar(OutputStream salida) throws IOException {
+        DataOutputStream datos = new DataOutputStream(new BufferedOutputStream(salida, TAMANO_BUFFER));
+        Map<Seccion, Long> longitudes = longitudes();
+        datos.writeInt(FormatoBinario.MAGIA);
+        datos.writeInt(FormatoBinario.VERSION);
+        datos.writeInt(longitudes.size());
+
+        long desplazamiento = FormatoBinario.TAMANO_CABECERA
+                + (long) longitudes.size() * FormatoBinario.TAMANO_ENTRADA_DIRECTORIO;
+        for (Map.Entry<Seccion, Long> entrada : longitudes.entrySet()) {
+            datos.writeInt(entrada.getKey().getId());
+            datos.writeLong(desplazamiento);
+            datos.writeLong(entrada.getValue());
+            desplazamiento += entrada.getValue();
+        }
+
+        for (Seccion seccion : longitudes.keySet()) {
+            switch (seccion) {
+                case CADENAS -> escribirCadenas(datos);
+                case TOKENS -> escribirTokens(datos);
+                case ARBOL -> escribirArbol(datos);
+                case VARIABLES -> escribirVariables(datos);
+                case FUNCIONES -> escribirFunciones(datos);
+                case OPERADORES -> escribirLista(datos, operadores);
+                case SIMBOLOS -> escribirLista(datos, simbolos);
+                case DIAGNOSTICOS -> escribirDiagnosticos(datos);
+            }
+        }
+        datos.flush();
+    }
+
+    /**
+     * Registra una cadena en la primera pasada.
+     */
+    private void cadena(String texto) {
+        if (texto != null && !numeroCadena.containsKey(texto)) {
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            numeroCadena.put(texto, cadenas.size());
+            cadenas.add(bytes);
+            bytesCadenas += bytes.length;
+        }
+    }
+
+    /**
+     * @return Número de la cadena en la tabla (SIN_CADENA para null)
+     */
+    private int numero(String texto) {
+        if (texto == null) {
+            return FormatoBinario.SIN_CADENA;
+        }
+        Integer numero = numeroCadena.get(texto);
+        if (numero == null) {
+            throw new IllegalStateException("Cadena no registrada en la primera pasada: " + texto);
+        }
+        return numero;
+    }
+
+    //endregion
+}
@@ -1,7 +1,12 @@
 package generadores;
 
 import analizadorSintactico.NodoArbol;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Genera archivos en formato DOT para visualización con Graphviz.
@@ -11,8 +16,6 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class GeneradorGraphviz {
 
-    private static AtomicInteger contadorNodos = new AtomicInteger(0);
-
     public GeneradorGraphviz() {
     }
 
@@ -23,9 +26,36 @@ public class GeneradorGraphviz {
      * @return Contenido del archivo DOT
      */
     public static String generarArbolDerivacion(NodoArbol raiz) {
-        contadorNodos.set(0);
         StringBuilder dot = new StringBuilder();
+        try {
+            generarArbolDerivacion(raiz, dot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dot.toString();
+    }
+
+    /**
+     * Escribe el archivo DOT del árbol de derivación directamente en el destino.
+     *
+     * @param raiz Raíz del árbol
+     * @param dot Destino del archivo DOT
+     * @throws IOException Si hay error al escribir
+     */
+    public static void generarArbolDerivacion(NodoArbol raiz, Appendable dot) throws IOException {
+        generarArbolDerivacion(raiz, dot, new OpcionesDOT());
+    }
 
+    /**
+     * Escribe el archivo DOT del árbol de derivación aplicando políticas de tamaño.
+     *
+     * @param raiz Raíz del árbol
+     * @param dot Destino del archivo DOT
+     * @param opciones Límites de profundidad y nodos, colapso de espinas, omisión de ε
+     * @throws IOException Si hay error al escribir
+     */
+    public static void generarArbolDerivacion(NodoArbol raiz, Appendable dot, OpcionesDOT opciones)
+            throws IOException {
         dot.append("digraph ArbolDerivacion {\n");
         dot.append("    // Configuración del grafo\n");
         dot.append("    rankdir=TB;\n");
@@ -37,52 +67,48 @@ public class GeneradorGraphviz {
 
         dot.append("    // Nodos del árbol\n");
         if (raiz != null) {
-            generarNodosDOT(raiz, dot);
+            new EmisorDOT(dot, false, opciones).emitir(raiz);
         }
 
         dot.append("}\n");
-
-        return dot.toString();
     }
 
     /**
-     * Genera los nodos recursivamente en formato DOT.
+     * Genera el archivo DOT para el AST (versión simplificada).
      *
-     * @param nodo Nodo actual
-     * @param dot StringBuilder del archivo DOT
-     * @return ID del nodo
+     * @param raiz Raíz del árbol
+     * @return Contenido del archivo DOT
      */
-    private static int generarNodosDOT(NodoArbol nodo, StringBuilder dot) {
-        int idNodoActual = contadorNodos.getAndIncrement();
-
-        // Configurar apariencia según tipo de nodo
-        String color = nodo.esTerminal() ? "#C5E1A5" : "#FFE6CC";
-        String borderColor = nodo.esTerminal() ? "#558B2F" : "#FF8C00";
-        String shape = nodo.esTerminal() ? "ellipse" : "box";
-
-        // Crear nodo
-        dot.append(String.format("    node%d [label=\"%s\", fillcolor=\"%s\", color=\"%s\", shape=%s];\n",
-                idNodoActual, escaparDOT(nodo.getSimbolo()), color, borderColor, shape));
-
-        // Generar hijos
-        for (NodoArbol hijo : nodo.getHijos()) {
-            int idHijo = generarNodosDOT(hijo, dot);
-            dot.append(String.format("    node%d -> node%d;\n", idNodoActual, idHijo));
+    public static String generarAST(NodoArbol raiz) {
+        StringBuilder dot = new StringBuilder();
+        try {
+            generarAST(raiz, dot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        return idNodoActual;
+        return dot.toString();
     }
 
     /**
-     * Genera el archivo DOT para el AST (versión simplificada).
+     * Escribe el archivo DOT del AST directamente en el destino.
      *
      * @param raiz Raíz del árbol
-     * @return Contenido del archivo DOT
+     * @param dot Destino del archivo DOT
+     * @throws IOException Si hay error al escribir
      */
-    public static String generarAST(NodoArbol raiz) {
-        contadorNodos.set(0);
-        StringBuilder dot = new StringBuilder();
+    public static void generarAST(NodoArbol raiz, Appendable dot) throws IOException {
+        generarAST(raiz, dot, new OpcionesDOT());
+    }
 
+    /**
+     * Escribe el archivo DOT del AST aplicando políticas de tamaño.
+     *
+     * @param raiz Raíz del árbol
+     * @param dot Destino del archivo DOT
+     * @param opciones Límites de profundidad y nodos, colapso de espinas, omisión de ε
+     * @throws IOException Si hay error al escribir
+     */
+    public static void generarAST(NodoArbol raiz, Appendable dot, OpcionesDOT opciones) throws IOException {
         dot.append("digraph AST {\n");
         dot.append("    // Configuración del grafo\n");
         dot.append("    rankdir=TB;\n");
@@ -94,57 +120,243 @@ public class GeneradorGraphviz {
 
         dot.append("    // Nodos del AST (solo no terminales importantes)\n");
         if (raiz != null) {
-            generarNodosASTRecursivo(raiz, dot);
+            new EmisorDOT(dot, true, opciones).emitir(raiz);
         }
 
         dot.append("}\n");
+    }
 
-        return dot.toString();
+    /**
+     * Escapa caracteres especiales para formato DOT.
+     *
+     * @param texto Texto a escapar
+     * @return Texto escapado
+     */
+    private static String escaparDOT(String texto) {
+        return texto.replace("\"", "\\\"")
+                .replace("\n", "\\n")
+                .replace("\t", "\\t");
     }
 
     /**
-     * Genera nodos del AST recursivamente (versión simplificada).
+     * Recorre el árbol en preorden con una pila explícita y escribe nodos y aristas.
+     * No usa recursión, así que la profundidad del árbol solo está limitada por la memoria.
+     * Los atributos de cada símbolo (etiqueta escapada, colores, forma) se arman una
+     * sola vez por generación y se reutilizan en cada aparición.
      *
-     * @param nodo Nodo actual
-     * @param dot StringBuilder del archivo DOT
-     * @return ID del nodo
+     * Las opciones acotan la salida: una espina recursiva por la derecha ocupa un solo
+     * marco de la pila (se avanza por la cadena sin cambiar de ID), los subárboles bajo
+     * la profundidad máxima y lo que queda tras agotar el límite de nodos se resumen
+     * en marcadores "…".
      */
-    private static int generarNodosASTRecursivo(NodoArbol nodo, StringBuilder dot) {
-        int idNodoActual = contadorNodos.getAndIncrement();
+    private static final class EmisorDOT {
+
+        private static final String ATRIBUTOS_MARCADOR = "\", shape=plaintext, fillcolor=\"#FFFFFF\", color=\"#FFFFFF\"];\n";
 
-        // Solo mostrar nodos importantes en el AST
-        boolean esNodoImportante = !nodo.getSimbolo().endsWith("Prima") &&
-                !nodo.getSimbolo().equals("ε");
+        private final Appendable dot;
+        private final boolean esAST;
+        private final OpcionesDOT opciones;
 
-        if (esNodoImportante || nodo.esTerminal()) {
-            String color = nodo.esTerminal() ? "#81C784" : "#90CAF9";
-            String borderColor = nodo.esTerminal() ? "#388E3C" : "#1976D2";
+        // Atributos ya escritos por símbolo: " [label=..., ...];\n"
+        private final Map<String, String> atributosTerminal = new HashMap<>();
+        private final Map<String, String> atributosNoTerminal = new HashMap<>();
 
-            dot.append(String.format("    node%d [label=\"%s\", fillcolor=\"%s\", color=\"%s\"];\n",
-                    idNodoActual, escaparDOT(nodo.getSimbolo()), color, borderColor));
+        // Pila de recorrido: nodo, su ID y el siguiente hijo por visitar
+        private NodoArbol[] pilaNodo = new NodoArbol[64];
+        private int[] pilaId = new int[64];
+        private int[] pilaHijo = new int[64];
+        private boolean[] pilaEspina = new boolean[64];
+
+        private final char[] digitos = new char[11];
+        private int contadorNodos;
+        private int nodosEscritos;
+        private boolean agotado;
+
+        EmisorDOT(Appendable dot, boolean esAST, OpcionesDOT opciones) {
+            this.dot = dot;
+            this.esAST = esAST;
+            this.opciones = opciones;
         }
 
-        // Procesar hijos
-        for (NodoArbol hijo : nodo.getHijos()) {
-            int idHijo = generarNodosASTRecursivo(hijo, dot);
+        /**
+         * Escribe el subárbol con la misma numeración y orden que el recorrido recursivo:
+         * el nodo al entrar y la arista hacia cada hijo al terminar ese hijo.
+         */
+        void emitir(NodoArbol raiz) throws IOException {
+            int cima = 0;
+            entrar(raiz, cima);
+
+            while (cima >= 0) {
+                NodoArbol nodo = pilaNodo[cima];
+                List<NodoArbol> hijos = nodo.getHijos();
 
-            if (esNodoImportante || nodo.esTerminal()) {
-                dot.append(String.format("    node%d -> node%d;\n", idNodoActual, idHijo));
+                if (!agotado && pilaHijo[cima] < hijos.size()) {
+                    NodoArbol hijo = hijos.get(pilaHijo[cima]++);
+
+                    if (opciones.omiteEpsilon() && esEpsilon(hijo)) {
+                        continue;
+                    }
+                    if (pilaEspina[cima] && pilaHijo[cima] == hijos.size() && continuaEspina(nodo, hijo)) {
+                        // Siguiente eslabón de la espina: sus hijos cuelgan del mismo nodo
+                        pilaNodo[cima] = hijo;
+                        pilaHijo[cima] = 0;
+                        continue;
+                    }
+                    if (nodosEscritos >= opciones.getLimiteNodos()) {
+                        marcador(pilaId[cima], "… límite de " + opciones.getLimiteNodos() + " nodos");
+                        agotado = true;
+                        continue;
+                    }
+                    cima++;
+                    if (cima == pilaNodo.length) {
+                        crecerPila();
+                    }
+                    entrar(hijo, cima);
+                    continue;
+                }
+
+                // Nodo terminado: arista desde el padre
+                pilaNodo[cima] = null;
+                cima--;
+                if (cima >= 0 && seMuestra(pilaNodo[cima])) {
+                    dot.append("    node");
+                    escribirEntero(pilaId[cima]);
+                    dot.append(" -> node");
+                    escribirEntero(pilaId[cima + 1]);
+                    dot.append(";\n");
+                }
             }
         }
 
-        return idNodoActual;
-    }
+        private void entrar(NodoArbol nodo, int nivel) throws IOException {
+            int id = contadorNodos++;
+            pilaNodo[nivel] = nodo;
+            pilaId[nivel] = id;
+            pilaHijo[nivel] = 0;
+            pilaEspina[nivel] = false;
 
-    /**
-     * Escapa caracteres especiales para formato DOT.
-     *
-     * @param texto Texto a escapar
-     * @return Texto escapado
-     */
-    private static String escaparDOT(String texto) {
-        return texto.replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\t", "\\t");
+            if (!seMuestra(nodo)) {
+                return;
+            }
+            nodosEscritos++;
+            dot.append("    node");
+            escribirEntero(id);
+
+            int eslabones = opciones.colapsaEspinas() ? longitudEspina(nodo) : 1;
+            if (eslabones > 1) {
+                pilaEspina[nivel] = true;
+                dot.append(construirAtributos(nodo.getSimbolo() + " ×" + eslabones, false));
+            } else {
+                dot.append(atributos(nodo));
+            }
+
+            // Bajo la profundidad máxima solo se indica cuántos hijos se omiten
+            if (nivel >= opciones.getProfundidadMaxima() && !nodo.getHijos().isEmpty()) {
+                pilaHijo[nivel] = nodo.getHijos().size();
+                marcador(id, "… " + nodo.getHijos().size() + " hijos");
+            }
+        }
+
+        /**
+         * Escribe un nodo de resumen colgado de otro.
+         */
+        private void marcador(int padre, String etiqueta) throws IOException {
+            int id = contadorNodos++;
+            dot.append("    node");
+            escribirEntero(id);
+            dot.append(" [label=\"").append(escaparDOT(etiqueta)).append(ATRIBUTOS_MARCADOR);
+            dot.append("    node");
+            escribirEntero(padre);
+            dot.append(" -> node");
+            escribirEntero(id);
+            dot.append(";\n");
+        }
+
+        /**
+         * Número de eslabones de la cadena A → ... A que empieza en el nodo (1 si no hay cadena).
+         */
+        private static int longitudEspina(NodoArbol nodo) {
+            int eslabones = 1;
+            NodoArbol actual = nodo;
+            while (!actual.getHijos().isEmpty()) {
+                NodoArbol ultimo = actual.getHijos().get(actual.getHijos().size() - 1);
+                if (!continuaEspina(actual, ultimo)) {
+                    break;
+                }
+                eslabones++;
+                actual = ultimo;
+            }
+            return eslabones;
+        }
+
+        private static boolean continuaEspina(NodoArbol nodo, NodoArbol hijo) {
+            return !hijo.esTerminal() && hijo.getSimbolo().equals(nodo.getSimbolo());
+        }
+
+        private static boolean esEpsilon(NodoArbol nodo) {
+            return nodo.getSimbolo().equals("ε") && nodo.getHijos().isEmpty();
+        }
+
+        /**
+         * En el AST se ocultan los no terminales auxiliares (Prima) y ε.
+         */
+        private boolean seMuestra(NodoArbol nodo) {
+            if (!esAST || nodo.esTerminal()) {
+                return true;
+            }
+            String simbolo = nodo.getSimbolo();
+            return !simbolo.endsWith("Prima") && !simbolo.equals("ε");
+        }
+
+        private String atributos(NodoArbol nodo) {
+            boolean terminal = nodo.esTerminal();
+            Map<String, String> cache = terminal ? atributosTerminal : atributosNoTerminal;
+            String atributos = cache.get(nodo.getSimbolo());
+
+            if (atributos == null) {
+                atributos = construirAtributos(nodo.getSimbolo(), terminal);
+                cache.put(nodo.getSimbolo(), atributos);
+            }
+            return atributos;
+        }
+
+        private String construirAtributos(String etiqueta, boolean terminal) {
+            StringBuilder sb = new StringBuilder(64);
+            sb.append(" [label=\"").append(escaparDOT(etiqueta)).append("\", fillcolor=\"");
+            if (esAST) {
+                sb.append(terminal ? "#81C784" : "#90CAF9")
+                        .append("\", color=\"").append(terminal ? "#388E3C" : "#1976D2")
+                        .append("\"];\n");
+            } else {
+                sb.append(terminal ? "#C5E1A5" : "#FFE6CC")
+                        .append("\", color=\"").append(terminal ? "#558B2F" : "#FF8C00")
+                        .append("\", shape=").append(terminal ? "ellipse" : "box")
+                        .append("];\n");
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Escribe un entero no negativo sin crear un String.
+         */
+        private void escribirEntero(int valor) throws IOException {
+            int i = digitos.length;
+            do {
+                digitos[--i] = (char) ('0' + valor % 10);
+                valor /= 10;
+            } while (valor > 0);
+
+            while (i < digitos.length) {
+                dot.append(digitos[i++]);
+            }
+        }
+
+        private void crecerPila() {
+            int capacidad = pilaNodo.length * 2;
+            pilaNodo = Arrays.copyOf(pilaNodo, capacidad);
+            pilaId = Arrays.copyOf(pilaId, capacidad);
+            pilaHijo = Arrays.copyOf(pilaHijo, capacidad);
+            pilaEspina = Arrays.copyOf(pilaEspina, capacidad);
+        }
     }
 }
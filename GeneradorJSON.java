@@ -0,0 +1,300 @@
+package generadores;
+
+import analizadorLexico.Token;
+import analizadorSintactico.ClasificadorSemantico;
+import analizadorSintactico.TablaLL1;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Escribe los resultados del análisis en JSON, directamente en el destino.
+ * Lo usan el servidor HTTP y el servidor de lenguaje; las claves de los objetos
+ * se escriben ordenadas para que la salida sea determinista.
+ *
+ * @author Sophia
+ */
+public class GeneradorJSON {
+
+    private GeneradorJSON() {
+    }
+
+    //region RESULTADOS
+
+    /**
+     * Tokens como arreglo de objetos.
+     *
+     * @param tokens Tokens en orden de aparición
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirTokens(List<Token> tokens, Appendable json) throws IOException {
+        json.append('[');
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"numero\":").append(String.valueOf(token.getNumeroToken()));
+            json.append(",\"tipo\":");
+            escribirCadena(token.getTipo().name(), json);
+            json.append(",\"lexema\":");
+            escribirCadena(token.getLexema(), json);
+            json.append(",\"linea\":").append(String.valueOf(token.getLinea()));
+            json.append(",\"columna\":").append(String.valueOf(token.getColumna()));
+            json.append(",\"desplazamiento\":").append(String.valueOf(token.getDesplazamiento()));
+            json.append(",\"longitud\":").append(String.valueOf(token.getLongitud()));
+            json.append(",\"valido\":").append(String.valueOf(token.esValido()));
+            json.append('}');
+        }
+        json.append(']');
+    }
+
+    /**
+     * Diagnósticos con los totales por etapa. Cada diagnóstico lleva la línea y
+     * la columna del token que lo causó; si no se puede ubicar, la línea que
+     * cite el mensaje y columna null.
+     *
+     * @param diagnosticos Diagnósticos de todas las etapas
+     * @param ubicar Token al que se refiere cada diagnóstico (null si no se conoce)
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirDiagnosticos(ColectorDiagnosticos diagnosticos,
+                                            Function<Diagnostico, Token> ubicar, Appendable json) throws IOException {
+        json.append("{\"total\":").append(String.valueOf(diagnosticos.getTotal()));
+        json.append(",\"advertencias\":").append(String.valueOf(diagnosticos.getTotalAdvertencias()));
+
+        json.append(",\"etapas\":{");
+        boolean primero = true;
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            if (!primero) {
+                json.append(',');
+            }
+            primero = false;
+            escribirCadena(etapa.name(), json);
+            json.append(":{\"total\":").append(String.valueOf(diagnosticos.getTotal(etapa)));
+            json.append(",\"suprimidos\":").append(String.valueOf(diagnosticos.getSuprimidos(etapa))).append('}');
+        }
+
+        json.append("},\"lista\":[");
+        primero = true;
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            for (Diagnostico diagnostico : diagnosticos.getDiagnosticos(etapa)) {
+                if (!primero) {
+                    json.append(',');
+                }
+                primero = false;
+                json.append("{\"etapa\":");
+                escribirCadena(etapa.name(), json);
+                json.append(",\"codigo\":");
+                escribirCadena(diagnostico.codigo().name(), json);
+                json.append(",\"advertencia\":").append(String.valueOf(diagnostico.codigo().esAdvertencia()));
+                json.append(",\"posicion\":").append(String.valueOf(diagnostico.posicion()));
+                Token token = ubicar.apply(diagnostico);
+                Object[] argumentos = diagnostico.argumentos();
+                if (token != null) {
+                    json.append(",\"linea\":").append(String.valueOf(token.getLinea()));
+                    json.append(",\"columna\":").append(String.valueOf(token.getColumna()));
+                } else if (argumentos.length > 0 && argumentos[0] instanceof Integer linea) {
+                    json.append(",\"linea\":").append(String.valueOf(linea)).append(",\"columna\":null");
+                } else {
+                    json.append(",\"linea\":null,\"columna\":null");
+                }
+                json.append(",\"repeticiones\":").append(String.valueOf(diagnosticos.getRepeticiones(diagnostico)));
+                json.append(",\"mensaje\":");
+                escribirCadena(diagnostico.formatear(), json);
+                json.append('}');
+            }
+        }
+        json.append("]}");
+    }
+
+    /**
+     * Tabla LL(1): conflictos y, por no terminal, la producción de cada terminal.
+     *
+     * @param tablaLL1 Tabla LL(1)
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirTabla(TablaLL1 tablaLL1, Appendable json) throws IOException {
+        json.append("{\"esLL1\":").append(String.valueOf(tablaLL1.esLL1()));
+        json.append(",\"conflictos\":");
+        escribirCadenas(tablaLL1.getConflictos(), json);
+
+        json.append(",\"filas\":{");
+        boolean primeraFila = true;
+        for (Map.Entry<String, Map<String, List<String>>> fila : new TreeMap<>(tablaLL1.getTabla()).entrySet()) {
+            if (!primeraFila) {
+                json.append(',');
+            }
+            primeraFila = false;
+            escribirCadena(fila.getKey(), json);
+            json.append(":{");
+            boolean primeraCelda = true;
+            for (Map.Entry<String, List<String>> celda : new TreeMap<>(fila.getValue()).entrySet()) {
+                if (!primeraCelda) {
+                    json.append(',');
+                }
+                primeraCelda = false;
+                escribirCadena(celda.getKey(), json);
+                json.append(':');
+                escribirCadena(fila.getKey() + " → " + String.join(" ", celda.getValue()), json);
+            }
+            json.append('}');
+        }
+        json.append("}}");
+    }
+
+    /**
+     * Clasificación semántica: variables, funciones, operadores y símbolos.
+     *
+     * @param clasificador Clasificador semántico ya ejecutado
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirClasificacion(ClasificadorSemantico clasificador, Appendable json)
+            throws IOException {
+        json.append("{\"variables\":{");
+        boolean primero = true;
+        for (Map.Entry<String, String> variable : new TreeMap<>(clasificador.getVariablesDeclaradas()).entrySet()) {
+            if (!primero) {
+                json.append(',');
+            }
+            primero = false;
+            escribirCadena(variable.getKey(), json);
+            json.append(':');
+            escribirCadena(variable.getValue(), json);
+        }
+
+        json.append("},\"funciones\":[");
+        primero = true;
+        for (String nombre : clasificador.getNombresFunciones()) {
+            if (!primero) {
+                json.append(',');
+            }
+            primero = false;
+            json.append("{\"nombre\":");
+            escribirCadena(nombre, json);
+            json.append(",\"tipoRetorno\":");
+            escribirCadena(clasificador.getTipoRetorno(nombre), json);
+            json.append(",\"parametros\":");
+            escribirCadenas(clasificador.getTiposParametros(nombre), json);
+            json.append(",\"linea\":").append(String.valueOf(clasificador.getLineaFuncion(nombre)));
+            json.append('}');
+        }
+
+        json.append("],\"operadores\":");
+        escribirCadenas(new TreeSet<>(clasificador.getOperadores()), json);
+        json.append(",\"simbolos\":");
+        escribirCadenas(new TreeSet<>(clasificador.getSimbolos()), json);
+        json.append('}');
+    }
+
+    //endregion
+
+    //region VALORES
+
+    /**
+     * Valor genérico: Map (claves en su orden), Iterable, CharSequence, Number,
+     * Boolean o null. Usado para los mensajes JSON-RPC.
+     *
+     * @param valor Valor a escribir
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     * @throws IllegalArgumentException Si el valor no tiene representación JSON
+     */
+    public static void escribirValor(Object valor, Appendable json) throws IOException {
+        if (valor == null || valor instanceof Boolean || valor instanceof Number) {
+            json.append(String.valueOf(valor));
+        } else if (valor instanceof CharSequence texto) {
+            escribirCadena(texto, json);
+        } else if (valor instanceof Map<?, ?> objeto) {
+            json.append('{');
+            boolean primero = true;
+            for (Map.Entry<?, ?> entrada : objeto.entrySet()) {
+                if (!primero) {
+                    json.append(',');
+                }
+                primero = false;
+                escribirCadena(String.valueOf(entrada.getKey()), json);
+                json.append(':');
+                escribirValor(entrada.getValue(), json);
+            }
+            json.append('}');
+        } else if (valor instanceof Iterable<?> arreglo) {
+            json.append('[');
+            boolean primero = true;
+            for (Object elemento : arreglo) {
+                if (!primero) {
+                    json.append(',');
+                }
+                primero = false;
+                escribirValor(elemento, json);
+            }
+            json.append(']');
+        } else {
+            throw new IllegalArgumentException("Sin representación JSON: " + valor.getClass().getName());
+        }
+    }
+
+    /**
+     * Arreglo de cadenas.
+     *
+     * @param valores Cadenas en el orden en que se escriben
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirCadenas(Iterable<String> valores, Appendable json) throws IOException {
+        json.append('[');
+        boolean primero = true;
+        for (String valor : valores) {
+            if (!primero) {
+                json.append(',');
+            }
+            primero = false;
+            escribirCadena(valor, json);
+        }
+        json.append(']');
+    }
+
+    /**
+     * Cadena JSON entre comillas, con los caracteres especiales escapados
+     * (null se escribe como null).
+     *
+     * @param texto Texto a escribir
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirCadena(CharSequence texto, Appendable json) throws IOException {
+        if (texto == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        int inicio = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            String escape = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (escape != null) {
+                json.append(texto, inicio, i).append(escape);
+                inicio = i + 1;
+            }
+        }
+        json.append(texto, inicio, texto.length()).append('"');
+    }
+
+    //endregion
+}
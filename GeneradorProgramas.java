@@ -0,0 +1,871 @@
+package generadores;
+
+import analizadorSintactico.Gramatica;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Genera programas sintéticos de tamaño controlado recorriendo al azar las
+ * producciones de la gramática, para pruebas de carga del analizador.
+ *
+ * Cada no terminal elige una alternativa dentro de presupuestos de tamaño
+ * (miembros de la clase, sentencias por función, parámetros, operandos) y de
+ * profundidad de expresiones. Cuando un presupuesto se agota se toma la
+ * alternativa de cierre: la que deriva ε según PRIMERO o, si el no terminal no
+ * se anula, la de derivación más corta. Las elecciones respetan además las
+ * reglas del clasificador semántico (declaración antes del uso, inicialización,
+ * aridad y tipo de retorno), así que sin errores inyectados el programa es válido.
+ *
+ * Esas reglas están atadas a los no terminales de la gramática del lenguaje
+ * (Miembro, Sentencia, Factor...). Las alternativas se buscan por su primer
+ * símbolo o, si la gramática cambió de forma, por PRIMERO; el constructor
+ * verifica que todas existan y rechaza una gramática que no las tenga. Los no
+ * terminales nuevos, sin regla propia, eligen al azar.
+ *
+ * El texto se escribe a medida que se genera y el estado es acotado: los usos y
+ * las llamadas se eligen entre los últimos {@link #VENTANA} atributos y funciones,
+ * así que el tamaño del programa no depende de la memoria disponible.
+ *
+ * @author Sophia
+ */
+public class GeneradorProgramas {
+
+    /**
+     * Errores que se pueden inyectar; la tasa es la probabilidad por sentencia.
+     */
+    public enum TipoError {
+        LEXICO,         // Carácter ilegal antes de la sentencia
+        SINTACTICO,     // Sentencia sin ';'
+        SEMANTICO       // Asignación a una variable no declarada
+    }
+
+    public static final long SIN_LIMITE = Long.MAX_VALUE;
+
+    // Atributos y funciones recientes entre los que se eligen usos y llamadas
+    public static final int VENTANA = 64;
+
+    // Repeticiones de un no terminal recursivo sin presupuesto propio
+    private static final int REPETICIONES_MAXIMAS = 8;
+
+    private static final int PARAMETROS_MAXIMOS = 3;
+    private static final int OPERANDOS_MAXIMOS = 4;
+    private static final double PROPORCION_FUNCIONES = 0.75;
+
+    // Símbolos de la gramática con reglas propias
+    private static final String IDENTIFICADOR = "identificador";
+    private static final String NUMERO = "numero";
+    private static final String CLASE = "Clase";
+    private static final String CUERPO_CLASE = "CuerpoClase";
+    private static final String MIEMBRO = "Miembro";
+    private static final String MIEMBRO_PRIMA = "MiembroPrima";
+    private static final String PARAMETROS = "Parametros";
+    private static final String LISTA_PARAMETROS = "ListaParametros";
+    private static final String LISTA_PARAMETROS_PRIMA = "ListaParametrosPrima";
+    private static final String TIPO = "Tipo";
+    private static final String LISTA_SENTENCIAS = "ListaSentencias";
+    private static final String SENTENCIA = "Sentencia";
+    private static final String ASIGNACION = "Asignacion";
+    private static final String RETORNO = "Retorno";
+    private static final String RETORNO_PRIMA = "RetornoPrima";
+    private static final String EXPRESION = "Expresion";
+    private static final String EXPRESION_PRIMA = "ExpresionPrima";
+    private static final String TERMINO_PRIMA = "TerminoPrima";
+    private static final String FACTOR = "Factor";
+    private static final String FACTOR_PRIMA = "FactorPrima";
+    private static final String ARGUMENTOS = "Argumentos";
+    private static final String ARGUMENTOS_PRIMA = "ArgumentosPrima";
+
+    // Alternativas que eligen las reglas propias: no terminal y primer símbolo
+    private static final String[][] ALTERNATIVAS_REQUERIDAS = {
+            {MIEMBRO_PRIMA, ";"}, {MIEMBRO_PRIMA, "("},
+            {PARAMETROS, LISTA_PARAMETROS},
+            {TIPO, "int"}, {TIPO, "void"},
+            {SENTENCIA, TIPO}, {SENTENCIA, ASIGNACION}, {SENTENCIA, RETORNO},
+            {RETORNO_PRIMA, ";"}, {RETORNO_PRIMA, EXPRESION},
+            {FACTOR, "("}, {FACTOR, IDENTIFICADOR}, {FACTOR, NUMERO},
+            {FACTOR_PRIMA, "("},
+            {ARGUMENTOS, EXPRESION}
+    };
+
+    private final Gramatica gramatica;
+    private final Map<String, List<List<String>>> producciones;
+    private final Map<String, Integer> alternativaCierre;
+    private final SplittableRandom azar;
+
+    // Presupuestos
+    private int miembros;
+    private int sentencias;
+    private int profundidad;
+    private long tamanoMaximo;
+    private final Map<TipoError, Double> tasas;
+
+    // Salida
+    private Appendable destino;
+    private long caracteres;
+    private long tokens;
+    private long lineas;
+    private int sangria;
+    private boolean inicioLinea;
+    private boolean trasIdentificador;
+    private boolean trasParentesis;
+    private final long[] erroresInyectados;
+
+    // Clase: ventanas de atributos y de funciones int ya terminadas
+    private final String[] campos;
+    private final String[] funciones;
+    private final int[] aridades;
+    private int totalCampos;
+    private int totalFunciones;
+    private int miembrosGenerados;
+
+    // Miembro en curso
+    private boolean miembroEsFuncion;
+    private String nombreMiembro;
+    private String tipoRetorno;
+    private int aridadObjetivo;
+    private boolean funcionPendiente;
+
+    // Función en curso
+    private final List<String> legibles;
+    private final List<String> asignables;
+    private int parametros;
+    private int locales;
+    private String inicializacionPendiente;
+    private boolean ultimaSentencia;
+
+    // Sentencia en curso
+    private boolean caracterIlegal;
+    private boolean forzarNoDeclarada;
+    private boolean omitirPuntoComa;
+
+    // Expresiones: identificador elegido por Factor y aridades de las llamadas abiertas
+    private String identificadorFactor;
+    private boolean llamada;
+    private final Deque<Integer> argumentos;
+
+    /**
+     * Símbolo pendiente de expandir o escribir.
+     *
+     * @param simbolo Terminal o no terminal
+     * @param padre No terminal que lo produjo (null para el inicial)
+     * @param nivelExpresion Expresiones que lo contienen
+     * @param repeticiones Veces que el no terminal ya se repitió por recursión a la derecha
+     */
+    private record Marco(String simbolo, String padre, int nivelExpresion, int repeticiones) {
+    }
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor con presupuestos por defecto: 100 miembros, 8 sentencias por
+     * función, expresiones de profundidad 3 y sin errores.
+     *
+     * @param gramatica Gramática del lenguaje
+     * @param semilla Semilla del generador aleatorio (misma semilla, mismo programa)
+     * @throws IllegalArgumentException Si a la gramática le falta alguna
+     *                                  alternativa que usan las reglas propias
+     */
+    public GeneradorProgramas(Gramatica gramatica, long semilla) {
+        this.gramatica = gramatica;
+        this.producciones = gramatica.getProducciones();
+        verificarGramatica();
+        this.alternativaCierre = calcularCierres();
+        this.azar = new SplittableRandom(semilla);
+        this.miembros = 100;
+        this.sentencias = 8;
+        this.profundidad = 3;
+        this.tamanoMaximo = SIN_LIMITE;
+        this.tasas = new EnumMap<>(TipoError.class);
+        for (TipoError tipo : TipoError.values()) {
+            tasas.put(tipo, 0.0);
+        }
+        this.erroresInyectados = new long[TipoError.values().length];
+        this.campos = new String[VENTANA];
+        this.funciones = new String[VENTANA];
+        this.aridades = new int[VENTANA];
+        this.legibles = new ArrayList<>();
+        this.asignables = new ArrayList<>();
+        this.argumentos = new ArrayDeque<>();
+    }
+
+    //endregion
+
+    //region GETTERS Y SETTERS
+
+    public int getMiembros() {
+        return miembros;
+    }
+
+    /**
+     * @param miembros Atributos y funciones de la clase
+     */
+    public void setMiembros(int miembros) {
+        if (miembros < 0) {
+            throw new IllegalArgumentException("Cantidad de miembros negativa: " + miembros);
+        }
+        this.miembros = miembros;
+    }
+
+    public int getSentencias() {
+        return sentencias;
+    }
+
+    /**
+     * @param sentencias Sentencias por función, la última es el return
+     */
+    public void setSentencias(int sentencias) {
+        if (sentencias < 0) {
+            throw new IllegalArgumentException("Cantidad de sentencias negativa: " + sentencias);
+        }
+        this.sentencias = sentencias;
+    }
+
+    public int getProfundidad() {
+        return profundidad;
+    }
+
+    /**
+     * @param profundidad Expresiones anidadas como máximo (paréntesis y argumentos);
+     *                    con 1 no hay anidamiento
+     */
+    public void setProfundidad(int profundidad) {
+        if (profundidad < 1) {
+            throw new IllegalArgumentException("La profundidad debe ser al menos 1: " + profundidad);
+        }
+        this.profundidad = profundidad;
+    }
+
+    public long getTamanoMaximo() {
+        return tamanoMaximo;
+    }
+
+    /**
+     * @param tamanoMaximo Caracteres a partir de los cuales no se agregan más
+     *                     miembros (el programa lo supera en menos de un miembro)
+     */
+    public void setTamanoMaximo(long tamanoMaximo) {
+        this.tamanoMaximo = tamanoMaximo;
+    }
+
+    public double getTasaError(TipoError tipo) {
+        return tasas.get(tipo);
+    }
+
+    /**
+     * @param tipo Tipo de error
+     * @param tasa Probabilidad de inyectarlo en cada sentencia (0 a 1)
+     */
+    public void setTasaError(TipoError tipo, double tasa) {
+        if (tasa < 0 || tasa > 1) {
+            throw new IllegalArgumentException("Tasa de error fuera de [0, 1]: " + tasa);
+        }
+        tasas.put(tipo, tasa);
+    }
+
+    /**
+     * @return Caracteres del último programa generado
+     */
+    public long getCaracteres() {
+        return caracteres;
+    }
+
+    /**
+     * @return Tokens del último programa generado
+     */
+    public long getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return Líneas del último programa generado
+     */
+    public long getLineas() {
+        return lineas;
+    }
+
+    /**
+     * @return Errores de ese tipo inyectados en el último programa generado
+     */
+    public long getErroresInyectados(TipoError tipo) {
+        return erroresInyectados[tipo.ordinal()];
+    }
+
+    //endregion
+
+    //region GENERACIÓN
+
+    /**
+     * Genera un programa completo. El texto se escribe a medida que se produce,
+     * así que conviene un destino con buffer (ver EscritorArchivo.abrirEscritor).
+     *
+     * @param destino Destino del código fuente
+     * @throws IOException Si falla la escritura
+     */
+    public void generar(Appendable destino) throws IOException {
+        reiniciar(destino);
+
+        Deque<Marco> pila = new ArrayDeque<>();
+        pila.push(new Marco(gramatica.getSimboloInicial(), null, 0, 0));
+
+        while (!pila.isEmpty()) {
+            Marco marco = pila.pop();
+            String simbolo = marco.simbolo();
+
+            if (simbolo.equals(Gramatica.EPSILON)) {
+                continue;
+            }
+            if (!gramatica.esNoTerminal(simbolo)) {
+                escribir(marco);
+                continue;
+            }
+
+            List<String> alternativa = producciones.get(simbolo).get(elegir(marco));
+            int nivel = simbolo.equals(EXPRESION) ? marco.nivelExpresion() + 1 : marco.nivelExpresion();
+
+            // En orden inverso para que el primer símbolo quede en el tope
+            for (int i = alternativa.size() - 1; i >= 0; i--) {
+                String hijo = alternativa.get(i);
+                int repeticiones = hijo.equals(simbolo) ? marco.repeticiones() + 1 : 0;
+                pila.push(new Marco(hijo, simbolo, nivel, repeticiones));
+            }
+        }
+    }
+
+    /**
+     * Deja el estado listo para un programa nuevo. Los contadores de salida
+     * corresponden siempre al último programa generado.
+     */
+    private void reiniciar(Appendable destino) {
+        this.destino = destino;
+        caracteres = 0;
+        tokens = 0;
+        lineas = 0;
+        sangria = 0;
+        inicioLinea = true;
+        trasIdentificador = false;
+        trasParentesis = false;
+        Arrays.fill(erroresInyectados, 0);
+
+        totalCampos = 0;
+        totalFunciones = 0;
+        miembrosGenerados = 0;
+        funcionPendiente = false;
+        legibles.clear();
+        asignables.clear();
+        inicializacionPendiente = null;
+        caracterIlegal = false;
+        forzarNoDeclarada = false;
+        omitirPuntoComa = false;
+        argumentos.clear();
+    }
+
+    /**
+     * Elige la alternativa de un no terminal según su presupuesto y el contexto
+     * semántico. Los no terminales sin regla propia eligen al azar y cierran al
+     * superar la profundidad o las repeticiones máximas.
+     *
+     * @param marco No terminal a expandir
+     * @return Índice de la alternativa
+     */
+    private int elegir(Marco marco) {
+        String simbolo = marco.simbolo();
+
+        switch (simbolo) {
+            case CUERPO_CLASE -> {
+                terminarFuncion();
+                return repetir(simbolo, marco.repeticiones() < miembros && caracteres < tamanoMaximo);
+            }
+            case MIEMBRO -> {
+                miembroEsFuncion = azar.nextDouble() < PROPORCION_FUNCIONES;
+                nombreMiembro = (miembroEsFuncion ? "f" : "a") + miembrosGenerados++;
+                return 0;
+            }
+            case MIEMBRO_PRIMA -> {
+                if (!miembroEsFuncion) {
+                    agregar(campos, null, totalCampos++, nombreMiembro, 0);
+                    return alternativa(simbolo, ";");
+                }
+                iniciarFuncion();
+                return alternativa(simbolo, "(");
+            }
+            case PARAMETROS -> {
+                return aridadObjetivo > 0 ? alternativa(simbolo, LISTA_PARAMETROS) : cierre(simbolo);
+            }
+            case LISTA_PARAMETROS_PRIMA -> {
+                return repetir(simbolo, marco.repeticiones() + 1 < aridadObjetivo);
+            }
+            case TIPO -> {
+                boolean esVoid = marco.padre().equals(MIEMBRO) && miembroEsFuncion && azar.nextInt(4) == 0;
+                if (marco.padre().equals(MIEMBRO) && miembroEsFuncion) {
+                    tipoRetorno = esVoid ? "void" : "int";
+                }
+                return alternativa(simbolo, esVoid ? "void" : "int");
+            }
+            case LISTA_SENTENCIAS -> {
+                confirmarInicializacion();
+                ultimaSentencia = marco.repeticiones() == sentencias - 1;
+                return repetir(simbolo, marco.repeticiones() < sentencias);
+            }
+            case SENTENCIA -> {
+                return elegirSentencia();
+            }
+            case RETORNO_PRIMA -> {
+                return alternativa(simbolo, tipoRetorno.equals("void") ? ";" : EXPRESION);
+            }
+            case EXPRESION_PRIMA, TERMINO_PRIMA -> {
+                return repetir(simbolo, marco.repeticiones() < OPERANDOS_MAXIMOS - 1 && azar.nextInt(5) < 2);
+            }
+            case FACTOR -> {
+                return elegirFactor(marco.nivelExpresion());
+            }
+            case FACTOR_PRIMA -> {
+                return llamada ? alternativa(simbolo, "(") : cierre(simbolo);
+            }
+            case ARGUMENTOS -> {
+                if (argumentos.peek() > 0) {
+                    return alternativa(simbolo, EXPRESION);
+                }
+                argumentos.pop();
+                return cierre(simbolo);
+            }
+            case ARGUMENTOS_PRIMA -> {
+                if (marco.repeticiones() + 1 < argumentos.peek()) {
+                    return repetir(simbolo, true);
+                }
+                argumentos.pop();
+                return cierre(simbolo);
+            }
+            default -> {
+                int total = producciones.get(simbolo).size();
+                if (marco.nivelExpresion() > profundidad || marco.repeticiones() >= REPETICIONES_MAXIMAS) {
+                    return cierre(simbolo);
+                }
+                return total == 1 ? 0 : azar.nextInt(total);
+            }
+        }
+    }
+
+    /**
+     * Elige la sentencia: la última de la función es el return; antes se
+     * alternan declaraciones y asignaciones. También decide los errores
+     * inyectados en la sentencia.
+     */
+    private int elegirSentencia() {
+        caracterIlegal = inyectar(TipoError.LEXICO);
+        omitirPuntoComa = inyectar(TipoError.SINTACTICO);
+        forzarNoDeclarada = !ultimaSentencia && inyectar(TipoError.SEMANTICO);
+
+        if (ultimaSentencia) {
+            return alternativa(SENTENCIA, RETORNO);
+        }
+        if (forzarNoDeclarada || (!asignables.isEmpty() && azar.nextInt(10) >= 3)) {
+            return alternativa(SENTENCIA, ASIGNACION);
+        }
+        return alternativa(SENTENCIA, TIPO);
+    }
+
+    /**
+     * Elige el factor según la profundidad: los paréntesis y las llamadas con
+     * argumentos abren una expresión más, así que solo se usan por debajo del límite.
+     */
+    private int elegirFactor(int nivel) {
+        boolean anidar = nivel < profundidad;
+        int disponibles = Math.min(totalFunciones, VENTANA);
+        int sorteo = azar.nextInt(100);
+        llamada = false;
+
+        if (anidar && sorteo < 15) {
+            return alternativa(FACTOR, "(");
+        }
+        if (sorteo < 35 && disponibles > 0) {
+            int indice = (totalFunciones - 1 - azar.nextInt(disponibles)) % VENTANA;
+            if (anidar || aridades[indice] == 0) {
+                identificadorFactor = funciones[indice];
+                llamada = true;
+                argumentos.push(aridades[indice]);
+                return alternativa(FACTOR, IDENTIFICADOR);
+            }
+        }
+        if (sorteo < 75) {
+            String variable = elegirVariable(legibles);
+            if (variable != null) {
+                identificadorFactor = variable;
+                return alternativa(FACTOR, IDENTIFICADOR);
+            }
+        }
+        return alternativa(FACTOR, NUMERO);
+    }
+
+    //endregion
+
+    //region CONTEXTO SEMÁNTICO
+
+    /**
+     * Empieza el cuerpo de una función: nuevo ámbito de parámetros y locales.
+     */
+    private void iniciarFuncion() {
+        legibles.clear();
+        asignables.clear();
+        parametros = 0;
+        locales = 0;
+        inicializacionPendiente = null;
+        aridadObjetivo = azar.nextInt(PARAMETROS_MAXIMOS + 1);
+        funcionPendiente = true;
+    }
+
+    /**
+     * Registra la función anterior, ya completa, como destino de llamadas.
+     * Las llamadas van siempre hacia atrás, así que no hay recursión.
+     */
+    private void terminarFuncion() {
+        if (funcionPendiente && tipoRetorno.equals("int")) {
+            agregar(funciones, aridades, totalFunciones++, nombreMiembro, aridadObjetivo);
+        }
+        funcionPendiente = false;
+    }
+
+    /**
+     * La variable asignada por la sentencia anterior pasa a poder leerse.
+     */
+    private void confirmarInicializacion() {
+        if (inicializacionPendiente != null) {
+            legibles.add(inicializacionPendiente);
+            inicializacionPendiente = null;
+        }
+    }
+
+    /**
+     * Nombre de un identificador según la producción que lo contiene.
+     */
+    private String nombrar(String padre) {
+        switch (padre) {
+            case CLASE -> {
+                return "Generado";
+            }
+            case MIEMBRO -> {
+                return nombreMiembro;
+            }
+            case LISTA_PARAMETROS, LISTA_PARAMETROS_PRIMA -> {
+                String nombre = "p" + parametros++;
+                legibles.add(nombre);
+                asignables.add(nombre);
+                return nombre;
+            }
+            case SENTENCIA -> {
+                String nombre = "v" + locales++;
+                asignables.add(nombre);
+                return nombre;
+            }
+            case ASIGNACION -> {
+                if (forzarNoDeclarada) {
+                    forzarNoDeclarada = false;
+                    return "nd" + erroresInyectados[TipoError.SEMANTICO.ordinal()];
+                }
+                String nombre = elegirVariable(asignables);
+                if (!legibles.contains(nombre) && nombre.startsWith("v")) {
+                    inicializacionPendiente = nombre;
+                }
+                return nombre;
+            }
+            case FACTOR -> {
+                return identificadorFactor;
+            }
+            default -> throw new IllegalStateException("Identificador sin regla de nombres en " + padre);
+        }
+    }
+
+    /**
+     * Elige entre las variables de la función y los atributos recientes.
+     *
+     * @return Nombre, o null si no hay ninguna
+     */
+    private String elegirVariable(List<String> variablesFuncion) {
+        int disponibles = Math.min(totalCampos, VENTANA);
+        int total = variablesFuncion.size() + disponibles;
+        if (total == 0) {
+            return null;
+        }
+        int indice = azar.nextInt(total);
+        if (indice < variablesFuncion.size()) {
+            return variablesFuncion.get(indice);
+        }
+        return campos[(totalCampos - 1 - (indice - variablesFuncion.size())) % VENTANA];
+    }
+
+    private void agregar(String[] nombres, int[] valores, int posicion, String nombre, int valor) {
+        nombres[posicion % VENTANA] = nombre;
+        if (valores != null) {
+            valores[posicion % VENTANA] = valor;
+        }
+    }
+
+    private boolean inyectar(TipoError tipo) {
+        double tasa = tasas.get(tipo);
+        if (tasa > 0 && azar.nextDouble() < tasa) {
+            erroresInyectados[tipo.ordinal()]++;
+            return true;
+        }
+        return false;
+    }
+
+    //endregion
+
+    //region ALTERNATIVAS
+
+    /**
+     * Alternativa que repite el no terminal (recursión a la derecha) o, si no se
+     * sigue, la de cierre. Si hay varias recursivas (por ejemplo + y -) se sortea.
+     */
+    private int repetir(String noTerminal, boolean seguir) {
+        if (!seguir) {
+            return cierre(noTerminal);
+        }
+        List<List<String>> alternativas = producciones.get(noTerminal);
+        int elegida = -1;
+        int candidatas = 0;
+        for (int i = 0; i < alternativas.size(); i++) {
+            if (alternativas.get(i).contains(noTerminal) && azar.nextInt(++candidatas) == 0) {
+                elegida = i;
+            }
+        }
+        return elegida >= 0 ? elegida : cierre(noTerminal);
+    }
+
+    /**
+     * Alternativa que empieza por el símbolo indicado (verificada en el constructor).
+     */
+    private int alternativa(String noTerminal, String primerSimbolo) {
+        int indice = buscarAlternativa(noTerminal, primerSimbolo);
+        if (indice < 0) {
+            throw new IllegalStateException("La gramática no tiene " + noTerminal + " → " + primerSimbolo + " ...");
+        }
+        return indice;
+    }
+
+    /**
+     * Busca la alternativa que empieza por el símbolo. Si ninguna empieza
+     * literalmente por él y es un terminal, toma la primera cuyo PRIMERO lo
+     * contiene (por ejemplo, si la gramática lo envolvió en otro no terminal).
+     *
+     * @return Índice de la alternativa, o -1 si no hay ninguna
+     */
+    private int buscarAlternativa(String noTerminal, String primerSimbolo) {
+        List<List<String>> alternativas = producciones.get(noTerminal);
+        if (alternativas == null) {
+            return -1;
+        }
+        for (int i = 0; i < alternativas.size(); i++) {
+            if (!alternativas.get(i).isEmpty() && alternativas.get(i).get(0).equals(primerSimbolo)) {
+                return i;
+            }
+        }
+        if (gramatica.esTerminal(primerSimbolo)) {
+            for (int i = 0; i < alternativas.size(); i++) {
+                if (primero(alternativas.get(i)).contains(primerSimbolo)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * PRIMERO de una alternativa, sin ε.
+     */
+    private Set<String> primero(List<String> alternativa) {
+        Set<String> resultado = new HashSet<>();
+        for (String simbolo : alternativa) {
+            Set<String> primeroSimbolo = gramatica.obtenerPrimero(simbolo);
+            resultado.addAll(primeroSimbolo);
+            if (!primeroSimbolo.contains(Gramatica.EPSILON)) {
+                break;
+            }
+        }
+        resultado.remove(Gramatica.EPSILON);
+        return resultado;
+    }
+
+    /**
+     * Comprueba que la gramática tenga las alternativas que eligen las reglas
+     * propias, para fallar al crear el generador y no a mitad de un programa.
+     */
+    private void verificarGramatica() {
+        List<String> faltantes = new ArrayList<>();
+        for (String[] requerida : ALTERNATIVAS_REQUERIDAS) {
+            if (buscarAlternativa(requerida[0], requerida[1]) < 0) {
+                faltantes.add(requerida[0] + " → " + requerida[1] + " ...");
+            }
+        }
+        if (!producciones.containsKey(gramatica.getSimboloInicial())) {
+            faltantes.add(gramatica.getSimboloInicial());
+        }
+        if (!faltantes.isEmpty()) {
+            throw new IllegalArgumentException("La gramática no tiene la forma que espera el generador de programas; faltan: "
+                    + String.join(", ", faltantes));
+        }
+    }
+
+    private int cierre(String noTerminal) {
+        return alternativaCierre.get(noTerminal);
+    }
+
+    /**
+     * Calcula la alternativa de cierre de cada no terminal: si PRIMERO contiene ε,
+     * la alternativa que deriva ε; si no, la de menor altura de derivación.
+     */
+    private Map<String, Integer> calcularCierres() {
+        Map<String, Integer> alturas = new HashMap<>();
+        boolean cambio;
+        do {
+            cambio = false;
+            for (Map.Entry<String, List<List<String>>> entrada : producciones.entrySet()) {
+                for (List<String> alternativa : entrada.getValue()) {
+                    int altura = altura(alternativa, alturas);
+                    if (altura < alturas.getOrDefault(entrada.getKey(), Integer.MAX_VALUE)) {
+                        alturas.put(entrada.getKey(), altura);
+                        cambio = true;
+                    }
+                }
+            }
+        } while (cambio);
+
+        Map<String, Integer> cierres = new HashMap<>();
+        for (Map.Entry<String, List<List<String>>> entrada : producciones.entrySet()) {
+            String noTerminal = entrada.getKey();
+            boolean anulable = gramatica.obtenerPrimero(noTerminal).contains(Gramatica.EPSILON);
+            List<List<String>> alternativas = entrada.getValue();
+            int mejor = 0;
+            for (int i = 0; i < alternativas.size(); i++) {
+                if (anulable && derivaEpsilon(alternativas.get(i))) {
+                    mejor = i;
+                    break;
+                }
+                if (altura(alternativas.get(i), alturas) < altura(alternativas.get(mejor), alturas)) {
+                    mejor = i;
+                }
+            }
+            cierres.put(noTerminal, mejor);
+        }
+        return cierres;
+    }
+
+    private int altura(List<String> alternativa, Map<String, Integer> alturas) {
+        int maxima = 0;
+        for (String simbolo : alternativa) {
+            if (gramatica.esNoTerminal(simbolo)) {
+                int altura = alturas.getOrDefault(simbolo, Integer.MAX_VALUE);
+                if (altura == Integer.MAX_VALUE) {
+                    return Integer.MAX_VALUE;
+                }
+                maxima = Math.max(maxima, altura);
+            }
+        }
+        return maxima + 1;
+    }
+
+    private boolean derivaEpsilon(List<String> alternativa) {
+        for (String simbolo : alternativa) {
+            if (!gramatica.obtenerPrimero(simbolo).contains(Gramatica.EPSILON)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //endregion
+
+    //region ESCRITURA
+
+    /**
+     * Escribe un terminal: el lexema sale del contexto para identificadores y
+     * números, y es el propio símbolo para palabras clave y signos.
+     */
+    private void escribir(Marco marco) throws IOException {
+        String simbolo = marco.simbolo();
+        if (caracterIlegal) {
+            caracterIlegal = false;
+            escribirLexema("@", false);
+        }
+        switch (simbolo) {
+            case IDENTIFICADOR -> escribirLexema(nombrar(marco.padre()), true);
+            case NUMERO -> escribirLexema(Integer.toString(azar.nextInt(1000)), false);
+            case ";" -> {
+                if (omitirPuntoComa && !marco.padre().equals(MIEMBRO_PRIMA)) {
+                    omitirPuntoComa = false;
+                    saltoLinea();
+                } else {
+                    escribirLexema(simbolo, false);
+                }
+            }
+            default -> escribirLexema(simbolo, false);
+        }
+    }
+
+    /**
+     * Escribe un lexema con un espaciado y una sangría convencionales, para que
+     * las líneas y columnas de los diagnósticos sean realistas.
+     */
+    private void escribirLexema(String lexema, boolean esIdentificador) throws IOException {
+        if (lexema.equals("}")) {
+            sangria--;
+        }
+        if (inicioLinea) {
+            for (int i = 0; i < sangria; i++) {
+                destino.append("    ");
+            }
+            caracteres += 4L * sangria;
+            inicioLinea = false;
+        } else if (!pegado(lexema)) {
+            destino.append(' ');
+            caracteres++;
+        }
+        destino.append(lexema);
+        caracteres += lexema.length();
+        tokens++;
+        trasIdentificador = esIdentificador;
+        trasParentesis = lexema.equals("(");
+
+        switch (lexema) {
+            case "{" -> {
+                sangria++;
+                saltoLinea();
+            }
+            case ";", "}" -> saltoLinea();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Sin espacio antes de ; , ) ni tras (, ni entre un identificador y su (.
+     */
+    private boolean pegado(String lexema) {
+        if (trasParentesis) {
+            return true;
+        }
+        return switch (lexema) {
+            case ";", ",", ")" -> true;
+            case "(" -> trasIdentificador;
+            default -> false;
+        };
+    }
+
+    private void saltoLinea() throws IOException {
+        destino.append('\n');
+        caracteres++;
+        lineas++;
+        inicioLinea = true;
+    }
+
+    //endregion
+}
@@ -1,7 +1,11 @@
 package generadores;
 
-import analizadorLexico.Token;
 import analizadorSintactico.ClasificadorSemantico;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,65 +20,85 @@ public class GeneradorReportes {
     }
 
     /**
-     * Genera el reporte completo de errores.
+     * Genera el reporte completo de errores a partir de los diagnósticos.
+     * Cada mensaje se formatea recién al escribirlo; los repetidos y los
+     * suprimidos por el límite de cada etapa se resumen en una línea.
      *
-     * @param tokensInvalidos Tokens léxicos inválidos
-     * @param erroresSintacticos Lista de errores sintácticos
-     * @param erroresSemanticos Lista de errores semánticos
+     * @param diagnosticos Diagnósticos de todas las etapas
      * @return Contenido del reporte
      */
-    public static String generarReporteErrores(
-            List<Token> tokensInvalidos,
-            List<String> erroresSintacticos,
-            List<String> erroresSemanticos
-    ) {
+    public static String generarReporteErrores(ColectorDiagnosticos diagnosticos) {
         StringBuilder reporte = new StringBuilder();
+        try {
+            escribirReporteErrores(diagnosticos, reporte);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return reporte.toString();
+    }
+
+    /**
+     * Escribe el reporte de errores directamente en el destino (archivo, buffer).
+     *
+     * @param diagnosticos Diagnósticos de todas las etapas
+     * @param reporte Destino del reporte
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirReporteErrores(ColectorDiagnosticos diagnosticos, Appendable reporte) throws IOException {
 
         reporte.append("───────────────────────────────────────────────────────────\n");
         reporte.append("    REPORTE DE ERRORES - ANALIZADOR SINTÁCTICO\n");
         reporte.append("───────────────────────────────────────────────────────────\n\n");
 
         // Resumen
-        int totalErrores = tokensInvalidos.size() + erroresSintacticos.size() + erroresSemanticos.size();
+        int totalErrores = diagnosticos.getTotal();
         reporte.append("RESUMEN:\n");
-        reporte.append("  Total de errores encontrados: ").append(totalErrores).append("\n");
-        reporte.append("  - Errores léxicos: ").append(tokensInvalidos.size()).append("\n");
-        reporte.append("  - Errores sintácticos: ").append(erroresSintacticos.size()).append("\n");
-        reporte.append("  - Errores semánticos: ").append(erroresSemanticos.size()).append("\n\n");
-
-        // Errores léxicos
-        if (!tokensInvalidos.isEmpty()) {
-            reporte.append("───────────────────────────────────────────────────────\n");
-            reporte.append("ERRORES LÉXICOS:\n");
-            reporte.append("───────────────────────────────────────────────────────\n\n");
+        reporte.append("  Total de errores encontrados: ").append(String.valueOf(totalErrores)).append("\n");
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            reporte.append("  - ").append(etapa.getDescripcion()).append(": ")
+                    .append(String.valueOf(diagnosticos.getTotal(etapa))).append("\n");
+        }
+        if (diagnosticos.getTotalAdvertencias() > 0) {
+            reporte.append("  Advertencias: ").append(String.valueOf(diagnosticos.getTotalAdvertencias())).append("\n");
+        }
+        reporte.append("\n");
 
-            for (int i = 0; i < tokensInvalidos.size(); i++) {
-                Token token = tokensInvalidos.get(i);
-                reporte.append(String.format("%d. %s\n", i + 1, token.formatoArchivoInvalidos()));
+        // Errores por etapa
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            List<Diagnostico> errores = filtrar(diagnosticos.getDiagnosticos(etapa), false);
+            int suprimidos = diagnosticos.getSuprimidos(etapa, false);
+            if (errores.isEmpty() && suprimidos == 0) {
+                continue;
             }
-            reporte.append("\n");
-        }
 
-        // Errores sintácticos
-        if (!erroresSintacticos.isEmpty()) {
             reporte.append("───────────────────────────────────────────────────────\n");
-            reporte.append("ERRORES SINTÁCTICOS:\n");
+            reporte.append(etapa.getTitulo()).append(":\n");
             reporte.append("───────────────────────────────────────────────────────\n\n");
 
-            for (int i = 0; i < erroresSintacticos.size(); i++) {
-                reporte.append(String.format("%d. %s\n", i + 1, erroresSintacticos.get(i)));
+            escribirNumerados(errores, diagnosticos, reporte);
+            if (suprimidos > 0) {
+                reporte.append("... ").append(String.valueOf(suprimidos)).append(" errores más suprimidos (límite de ")
+                        .append(String.valueOf(diagnosticos.getLimite(etapa))).append(" por etapa)\n");
             }
             reporte.append("\n");
         }
 
-        // Errores semánticos
-        if (!erroresSemanticos.isEmpty()) {
+        // Advertencias de todas las etapas, numeradas aparte: no son errores
+        List<Diagnostico> advertencias = new ArrayList<>();
+        int advertenciasSuprimidas = 0;
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            advertencias.addAll(filtrar(diagnosticos.getDiagnosticos(etapa), true));
+            advertenciasSuprimidas += diagnosticos.getSuprimidos(etapa, true);
+        }
+        if (!advertencias.isEmpty() || advertenciasSuprimidas > 0) {
             reporte.append("───────────────────────────────────────────────────────\n");
-            reporte.append("ERRORES SEMÁNTICOS:\n");
+            reporte.append("ADVERTENCIAS:\n");
             reporte.append("───────────────────────────────────────────────────────\n\n");
 
-            for (int i = 0; i < erroresSemanticos.size(); i++) {
-                reporte.append(String.format("%d. %s\n", i + 1, erroresSemanticos.get(i)));
+            escribirNumerados(advertencias, diagnosticos, reporte);
+            if (advertenciasSuprimidas > 0) {
+                reporte.append("... ").append(String.valueOf(advertenciasSuprimidas))
+                        .append(" advertencias más suprimidas (límite por etapa)\n");
             }
             reporte.append("\n");
         }
@@ -84,14 +108,45 @@ public class GeneradorReportes {
             reporte.append("───────────────────────────────────────────────────────\n");
             reporte.append("✓ NO SE ENCONTRARON ERRORES\n");
             reporte.append("  El programa es sintácticamente correcto.\n");
+            if (diagnosticos.getTotalAdvertencias() > 0) {
+                reporte.append("  Hay advertencias (ver ADVERTENCIAS).\n");
+            }
             reporte.append("───────────────────────────────────────────────────────\n");
         }
 
         reporte.append("\n───────────────────────────────────────────────────────────\n");
         reporte.append("                    FIN DEL REPORTE\n");
         reporte.append("───────────────────────────────────────────────────────────\n");
+    }
 
-        return reporte.toString();
+    /**
+     * @param advertencias true para quedarse con las advertencias, false con los errores
+     */
+    private static List<Diagnostico> filtrar(List<Diagnostico> diagnosticos, boolean advertencias) {
+        List<Diagnostico> resultado = new ArrayList<>();
+        for (Diagnostico diagnostico : diagnosticos) {
+            if (diagnostico.codigo().esAdvertencia() == advertencias) {
+                resultado.add(diagnostico);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Escribe una lista numerada desde 1, con las repeticiones de cada diagnóstico.
+     */
+    private static void escribirNumerados(List<Diagnostico> lista, ColectorDiagnosticos diagnosticos,
+                                          Appendable reporte) throws IOException {
+        for (int i = 0; i < lista.size(); i++) {
+            Diagnostico diagnostico = lista.get(i);
+            reporte.append(String.valueOf(i + 1)).append(". ").append(diagnostico.formatear());
+
+            int repeticiones = diagnosticos.getRepeticiones(diagnostico);
+            if (repeticiones > 0) {
+                reporte.append(" (repetido ").append(String.valueOf(repeticiones)).append(" veces más)");
+            }
+            reporte.append("\n");
+        }
     }
 
     /**
@@ -102,17 +157,35 @@ public class GeneradorReportes {
      */
     public static String generarReporteClasificacion(ClasificadorSemantico clasificador) {
         StringBuilder reporte = new StringBuilder();
+        try {
+            escribirReporteClasificacion(clasificador, reporte);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return reporte.toString();
+    }
+
+    /**
+     * Escribe el reporte de clasificación directamente en el destino (archivo, buffer).
+     *
+     * @param clasificador El clasificador semántico
+     * @param reporte Destino del reporte
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirReporteClasificacion(ClasificadorSemantico clasificador, Appendable reporte)
+            throws IOException {
 
         reporte.append("───────────────────────────────────────────────────────────\n");
         reporte.append("    REPORTE DE CLASIFICACIÓN SEMÁNTICA\n");
         reporte.append("───────────────────────────────────────────────────────────\n\n");
 
         // Variables
-        reporte.append("VARIABLES DECLARADAS (").append(clasificador.getVariables().size()).append("):\n");
+        reporte.append("VARIABLES DECLARADAS (").append(String.valueOf(clasificador.getVariables().size())).append("):\n");
         if (!clasificador.getVariables().isEmpty()) {
             for (String var : clasificador.getVariables()) {
                 String tipo = clasificador.getVariablesDeclaradas().get(var);
-                reporte.append(String.format("  - %s : %s\n", var, tipo != null ? tipo : "desconocido"));
+                reporte.append("  - ").append(var).append(" : ")
+                        .append(tipo != null ? tipo : "desconocido").append("\n");
             }
         } else {
             reporte.append("  (ninguna)\n");
@@ -120,10 +193,10 @@ public class GeneradorReportes {
         reporte.append("\n");
 
         // Funciones
-        reporte.append("FUNCIONES DECLARADAS (").append(clasificador.getFunciones().size()).append("):\n");
+        reporte.append("FUNCIONES DECLARADAS (").append(String.valueOf(clasificador.getFunciones().size())).append("):\n");
         if (!clasificador.getFunciones().isEmpty()) {
             for (String func : clasificador.getFunciones()) {
-                reporte.append(String.format("  - %s()\n", func));
+                reporte.append("  - ").append(func).append("()\n");
             }
         } else {
             reporte.append("  (ninguna)\n");
@@ -131,7 +204,7 @@ public class GeneradorReportes {
         reporte.append("\n");
 
         // Operadores
-        reporte.append("OPERADORES UTILIZADOS (").append(clasificador.getOperadores().size()).append("):\n");
+        reporte.append("OPERADORES UTILIZADOS (").append(String.valueOf(clasificador.getOperadores().size())).append("):\n");
         if (!clasificador.getOperadores().isEmpty()) {
             reporte.append("  ");
             for (String op : clasificador.getOperadores()) {
@@ -144,7 +217,7 @@ public class GeneradorReportes {
         reporte.append("\n");
 
         // Símbolos
-        reporte.append("SÍMBOLOS UTILIZADOS (").append(clasificador.getSimbolos().size()).append("):\n");
+        reporte.append("SÍMBOLOS UTILIZADOS (").append(String.valueOf(clasificador.getSimbolos().size())).append("):\n");
         if (!clasificador.getSimbolos().isEmpty()) {
             reporte.append("  ");
             for (String sim : clasificador.getSimbolos()) {
@@ -157,7 +230,5 @@ public class GeneradorReportes {
         reporte.append("\n");
 
         reporte.append("───────────────────────────────────────────────────────────\n");
-
-        return reporte.toString();
     }
 }
@@ -0,0 +1,462 @@
+package generadores;
+
+import analizadorSintactico.NodoArbol;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dibuja el árbol de derivación directamente en SVG, sin herramientas externas.
+ * La disposición usa el algoritmo de Walker en su versión lineal (Buchheim, Jünger
+ * y Leipert): cada subárbol se coloca lo más cerca posible de sus hermanos
+ * izquierdos y el padre queda centrado sobre sus hijos.
+ *
+ * Ambos recorridos son iterativos, así que árboles muy profundos no agotan la pila.
+ * Opcionalmente se colapsan los no terminales auxiliares (Prima), cuyos hijos pasan
+ * al padre, y se omiten las hojas ε. Con {@link OpcionesDOT} se aplican los mismos
+ * límites de profundidad y de nodos que en los archivos DOT: lo que queda afuera
+ * se resume en marcadores "…".
+ *
+ * @author Sophia
+ */
+public class GeneradorSVG {
+
+    // Medidas en píxeles
+    private static final int ALTO_NODO = 24;
+    private static final int ANCHO_MINIMO = 28;
+    private static final int ANCHO_CARACTER = 7;
+    private static final int RELLENO = 12;
+    private static final int SEPARACION = 10;
+    private static final int DISTANCIA_NIVELES = 60;
+    private static final int MARGEN = 20;
+
+    private static final int NINGUNO = -1;
+
+    public GeneradorSVG() {
+    }
+
+    /**
+     * Genera el SVG del árbol de derivación.
+     *
+     * @param raiz Raíz del árbol
+     * @param colapsar Si se colapsan los nodos Prima y se omiten las hojas ε
+     * @return Contenido del archivo SVG
+     */
+    public static String generarSVG(NodoArbol raiz, boolean colapsar) {
+        StringBuilder svg = new StringBuilder();
+        try {
+            generarSVG(raiz, colapsar, svg);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return svg.toString();
+    }
+
+    /**
+     * Escribe el SVG del árbol de derivación directamente en el destino.
+     *
+     * @param raiz Raíz del árbol
+     * @param colapsar Si se colapsan los nodos Prima y se omiten las hojas ε
+     * @param svg Destino del archivo SVG
+     * @throws IOException Si hay error al escribir
+     */
+    public static void generarSVG(NodoArbol raiz, boolean colapsar, Appendable svg) throws IOException {
+        generarSVG(raiz, colapsar, svg, new OpcionesDOT());
+    }
+
+    /**
+     * Escribe el SVG del árbol de derivación con límites de tamaño.
+     *
+     * @param raiz Raíz del árbol
+     * @param colapsar Si se colapsan los nodos Prima y se omiten las hojas ε
+     * @param svg Destino del archivo SVG
+     * @param opciones Límites de profundidad y de nodos (el resto de las opciones no se usa)
+     * @throws IOException Si hay error al escribir
+     */
+    public static void generarSVG(NodoArbol raiz, boolean colapsar, Appendable svg, OpcionesDOT opciones)
+            throws IOException {
+        Disposicion disposicion = new Disposicion();
+        if (raiz != null) {
+            disposicion.construir(raiz, colapsar, opciones);
+            disposicion.calcular();
+        }
+        disposicion.escribir(svg);
+    }
+
+    /**
+     * Árbol compacto (arreglos indexados por número de nodo en preorden) y su disposición.
+     */
+    private static final class Disposicion {
+
+        private int total;
+
+        // Estructura
+        private String[] simbolo = new String[256];
+        private boolean[] terminal = new boolean[256];
+        private boolean[] marcador = new boolean[256];
+        private int[] padre = new int[256];
+        private int[] primerHijo = new int[256];
+        private int[] ultimoHijo = new int[256];
+        private int[] hermanoIzquierdo = new int[256];
+        private int[] hermanoDerecho = new int[256];
+        private int[] numero = new int[256];     // Posición entre sus hermanos (desde 1)
+        private int[] profundidad = new int[256];
+        private double[] ancho = new double[256];
+
+        // Algoritmo de Walker
+        private double[] preliminar;
+        private double[] modificador;
+        private double[] desplazamiento;
+        private double[] cambio;
+        private double[] centro;
+        private int[] hilo;
+        private int[] ancestro;
+
+        // Resultado
+        private double[] x;
+        private double anchoTotal;
+        private int profundidadMaxima;
+
+        //region CONSTRUCCIÓN
+
+        /**
+         * Copia el árbol en preorden. Con colapsar, los nodos Prima no reciben número
+         * y sus hijos se cuelgan del ancestro visible más cercano. Los hijos de un nodo
+         * en la profundidad máxima se resumen en un marcador, y al alcanzar el límite
+         * de nodos se agrega un último marcador y se deja de copiar.
+         */
+        void construir(NodoArbol raiz, boolean colapsar, OpcionesDOT opciones) {
+            NodoArbol[] pilaNodo = new NodoArbol[64];
+            int[] pilaPadre = new int[64];
+            int tamano = 0;
+            pilaNodo[tamano] = raiz;
+            pilaPadre[tamano++] = NINGUNO;
+
+            while (tamano > 0) {
+                tamano--;
+                NodoArbol nodo = pilaNodo[tamano];
+                int idPadre = pilaPadre[tamano];
+                pilaNodo[tamano] = null;
+
+                // Un nodo oculto sin hijos (ε) desaparece; uno con hijos los cede a su padre
+                boolean oculto = colapsar && nodo != raiz && seOculta(nodo);
+                if (!oculto && total >= opciones.getLimiteNodos()) {
+                    agregarMarcador("… límite de " + opciones.getLimiteNodos() + " nodos", idPadre);
+                    return;
+                }
+                int id = oculto ? idPadre : agregar(nodo.getSimbolo(), nodo.esTerminal(), idPadre);
+
+                // Bajo la profundidad máxima solo se indica cuántos hijos se omiten
+                List<NodoArbol> hijos = nodo.getHijos();
+                if (!oculto && profundidad[id] >= opciones.getProfundidadMaxima() && !hijos.isEmpty()) {
+                    agregarMarcador("… " + hijos.size() + " hijos", id);
+                    continue;
+                }
+
+                // Hijos en orden inverso para visitarlos de izquierda a derecha
+                if (tamano + hijos.size() > pilaNodo.length) {
+                    int capacidad = Math.max(pilaNodo.length * 2, tamano + hijos.size());
+                    pilaNodo = Arrays.copyOf(pilaNodo, capacidad);
+                    pilaPadre = Arrays.copyOf(pilaPadre, capacidad);
+                }
+                for (int i = hijos.size() - 1; i >= 0; i--) {
+                    pilaNodo[tamano] = hijos.get(i);
+                    pilaPadre[tamano++] = id;
+                }
+            }
+        }
+
+        private static boolean seOculta(NodoArbol nodo) {
+            String s = nodo.getSimbolo();
+            return s.equals("ε") || (!nodo.esTerminal() && s.endsWith("Prima"));
+        }
+
+        private void agregarMarcador(String etiqueta, int idPadre) {
+            marcador[agregar(etiqueta, false, idPadre)] = true;
+        }
+
+        private int agregar(String etiqueta, boolean esTerminal, int idPadre) {
+            if (total == simbolo.length) {
+                crecer();
+            }
+            int id = total++;
+            simbolo[id] = etiqueta;
+            terminal[id] = esTerminal;
+            marcador[id] = false;
+            padre[id] = idPadre;
+            primerHijo[id] = NINGUNO;
+            ultimoHijo[id] = NINGUNO;
+            hermanoDerecho[id] = NINGUNO;
+            ancho[id] = Math.max(ANCHO_MINIMO, simbolo[id].length() * ANCHO_CARACTER + RELLENO);
+
+            if (idPadre == NINGUNO) {
+                hermanoIzquierdo[id] = NINGUNO;
+                numero[id] = 1;
+                profundidad[id] = 0;
+            } else {
+                int anterior = ultimoHijo[idPadre];
+                hermanoIzquierdo[id] = anterior;
+                if (anterior == NINGUNO) {
+                    primerHijo[idPadre] = id;
+                    numero[id] = 1;
+                } else {
+                    hermanoDerecho[anterior] = id;
+                    numero[id] = numero[anterior] + 1;
+                }
+                ultimoHijo[idPadre] = id;
+                profundidad[id] = profundidad[idPadre] + 1;
+            }
+            profundidadMaxima = Math.max(profundidadMaxima, profundidad[id]);
+            return id;
+        }
+
+        private void crecer() {
+            int capacidad = simbolo.length * 2;
+            simbolo = Arrays.copyOf(simbolo, capacidad);
+            terminal = Arrays.copyOf(terminal, capacidad);
+            marcador = Arrays.copyOf(marcador, capacidad);
+            padre = Arrays.copyOf(padre, capacidad);
+            primerHijo = Arrays.copyOf(primerHijo, capacidad);
+            ultimoHijo = Arrays.copyOf(ultimoHijo, capacidad);
+            hermanoIzquierdo = Arrays.copyOf(hermanoIzquierdo, capacidad);
+            hermanoDerecho = Arrays.copyOf(hermanoDerecho, capacidad);
+            numero = Arrays.copyOf(numero, capacidad);
+            profundidad = Arrays.copyOf(profundidad, capacidad);
+            ancho = Arrays.copyOf(ancho, capacidad);
+        }
+
+        //endregion
+
+        //region DISPOSICIÓN (WALKER EN TIEMPO LINEAL)
+
+        /**
+         * Primer recorrido en postorden (preorden inverso) y segundo en preorden.
+         * El trabajo de cada nodo sobre sus hijos (ubicar, repartir, aplicar
+         * desplazamientos y centrar) no depende de sus hermanos, así que se puede
+         * hacer al llegar al nodo en el orden inverso.
+         */
+        void calcular() {
+            preliminar = new double[total];
+            modificador = new double[total];
+            desplazamiento = new double[total];
+            cambio = new double[total];
+            centro = new double[total];
+            hilo = new int[total];
+            ancestro = new int[total];
+            Arrays.fill(hilo, NINGUNO);
+            for (int v = 0; v < total; v++) {
+                ancestro[v] = v;
+            }
+
+            for (int v = total - 1; v >= 0; v--) {
+                if (primerHijo[v] == NINGUNO) continue;
+
+                int ancestroPorDefecto = primerHijo[v];
+                for (int w = primerHijo[v]; w != NINGUNO; w = hermanoDerecho[w]) {
+                    ubicar(w);
+                    ancestroPorDefecto = repartir(w, ancestroPorDefecto);
+                }
+                aplicarDesplazamientos(v);
+                centro[v] = (preliminar[primerHijo[v]] + preliminar[ultimoHijo[v]]) / 2;
+            }
+            ubicar(0);
+
+            // Segundo recorrido: x = preliminar + suma de modificadores de los ancestros
+            double[] suma = new double[total];
+            x = new double[total];
+            double minimo = Double.MAX_VALUE;
+            double maximo = -Double.MAX_VALUE;
+            for (int v = 0; v < total; v++) {
+                suma[v] = padre[v] == NINGUNO ? 0 : suma[padre[v]] + modificador[padre[v]];
+                x[v] = preliminar[v] + suma[v];
+                minimo = Math.min(minimo, x[v] - ancho[v] / 2);
+                maximo = Math.max(maximo, x[v] + ancho[v] / 2);
+            }
+            for (int v = 0; v < total; v++) {
+                x[v] += MARGEN - minimo;
+            }
+            anchoTotal = maximo - minimo + 2 * MARGEN;
+
+            preliminar = modificador = desplazamiento = cambio = centro = null;
+            hilo = ancestro = null;
+        }
+
+        /**
+         * Posición preliminar de un nodo respecto a su hermano izquierdo.
+         */
+        private void ubicar(int v) {
+            int izquierdo = hermanoIzquierdo[v];
+            boolean hoja = primerHijo[v] == NINGUNO;
+
+            if (izquierdo != NINGUNO) {
+                preliminar[v] = preliminar[izquierdo] + distancia(izquierdo, v);
+                if (!hoja) {
+                    modificador[v] = preliminar[v] - centro[v];
+                }
+            } else {
+                preliminar[v] = hoja ? 0 : centro[v];
+            }
+        }
+
+        /**
+         * Separa el subárbol de v de los subárboles de sus hermanos izquierdos,
+         * recorriendo los contornos nivel por nivel.
+         */
+        private int repartir(int v, int ancestroPorDefecto) {
+            int w = hermanoIzquierdo[v];
+            if (w == NINGUNO) {
+                return ancestroPorDefecto;
+            }
+
+            int vip = v;                        // Contorno interior derecho
+            int vop = v;                        // Contorno exterior derecho
+            int vim = w;                        // Contorno interior izquierdo
+            int vom = primerHijo[padre[v]];     // Contorno exterior izquierdo
+            double sip = modificador[vip];
+            double sop = modificador[vop];
+            double sim = modificador[vim];
+            double som = modificador[vom];
+
+            while (siguienteDerecha(vim) != NINGUNO && siguienteIzquierda(vip) != NINGUNO) {
+                vim = siguienteDerecha(vim);
+                vip = siguienteIzquierda(vip);
+                vom = siguienteIzquierda(vom);
+                vop = siguienteDerecha(vop);
+                ancestro[vop] = v;
+
+                double corrimiento = (preliminar[vim] + sim) - (preliminar[vip] + sip) + distancia(vim, vip);
+                if (corrimiento > 0) {
+                    int a = padre[ancestro[vim]] == padre[v] ? ancestro[vim] : ancestroPorDefecto;
+                    moverSubarbol(a, v, corrimiento);
+                    sip += corrimiento;
+                    sop += corrimiento;
+                }
+                sim += modificador[vim];
+                sip += modificador[vip];
+                som += modificador[vom];
+                sop += modificador[vop];
+            }
+
+            if (siguienteDerecha(vim) != NINGUNO && siguienteDerecha(vop) == NINGUNO) {
+                hilo[vop] = siguienteDerecha(vim);
+                modificador[vop] += sim - sop;
+            }
+            if (siguienteIzquierda(vip) != NINGUNO && siguienteIzquierda(vom) == NINGUNO) {
+                hilo[vom] = siguienteIzquierda(vip);
+                modificador[vom] += sip - som;
+                ancestroPorDefecto = v;
+            }
+            return ancestroPorDefecto;
+        }
+
+        private void moverSubarbol(int izquierdo, int derecho, double corrimiento) {
+            int subarboles = numero[derecho] - numero[izquierdo];
+            cambio[derecho] -= corrimiento / subarboles;
+            desplazamiento[derecho] += corrimiento;
+            cambio[izquierdo] += corrimiento / subarboles;
+            preliminar[derecho] += corrimiento;
+            modificador[derecho] += corrimiento;
+        }
+
+        /**
+         * Reparte los corrimientos acumulados entre los hijos intermedios.
+         */
+        private void aplicarDesplazamientos(int v) {
+            double acumulado = 0;
+            double variacion = 0;
+            for (int w = ultimoHijo[v]; w != NINGUNO; w = hermanoIzquierdo[w]) {
+                preliminar[w] += acumulado;
+                modificador[w] += acumulado;
+                variacion += cambio[w];
+                acumulado += desplazamiento[w] + variacion;
+            }
+        }
+
+        private int siguienteIzquierda(int v) {
+            return primerHijo[v] != NINGUNO ? primerHijo[v] : hilo[v];
+        }
+
+        private int siguienteDerecha(int v) {
+            return ultimoHijo[v] != NINGUNO ? ultimoHijo[v] : hilo[v];
+        }
+
+        private double distancia(int izquierdo, int derecho) {
+            return (ancho[izquierdo] + ancho[derecho]) / 2 + SEPARACION;
+        }
+
+        //endregion
+
+        //region SALIDA SVG
+
+        void escribir(Appendable svg) throws IOException {
+            long anchoImagen = total == 0 ? 2 * MARGEN : Math.round(anchoTotal);
+            long altoImagen = total == 0 ? 2 * MARGEN
+                    : (long) profundidadMaxima * DISTANCIA_NIVELES + ALTO_NODO + 2 * MARGEN;
+
+            svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(String.valueOf(anchoImagen))
+                    .append("\" height=\"").append(String.valueOf(altoImagen))
+                    .append("\" viewBox=\"0 0 ").append(String.valueOf(anchoImagen)).append(' ')
+                    .append(String.valueOf(altoImagen)).append("\">\n");
+            svg.append("<style>\n");
+            svg.append("  .arista { stroke: #888888; stroke-width: 1; fill: none; }\n");
+            svg.append("  .nt { fill: #FFE6CC; stroke: #FF8C00; }\n");
+            svg.append("  .t { fill: #C5E1A5; stroke: #558B2F; }\n");
+            svg.append("  .m { fill: #FFFFFF; stroke: none; }\n");
+            svg.append("  text { font-family: Arial, sans-serif; font-size: 12px; text-anchor: middle; }\n");
+            svg.append("</style>\n");
+
+            if (total > 0) {
+                // Todas las aristas en un único path
+                svg.append("<path class=\"arista\" d=\"");
+                for (int v = 1; v < total; v++) {
+                    int p = padre[v];
+                    svg.append('M').append(String.valueOf(Math.round(x[p]))).append(' ')
+                            .append(String.valueOf(y(p) + ALTO_NODO))
+                            .append('L').append(String.valueOf(Math.round(x[v]))).append(' ')
+                            .append(String.valueOf(y(v)));
+                }
+                svg.append("\"/>\n");
+
+                Map<String, String> etiquetas = new HashMap<>();
+                for (int v = 0; v < total; v++) {
+                    long izquierda = Math.round(x[v] - ancho[v] / 2);
+                    svg.append("<rect class=\"").append(marcador[v] ? "m" : terminal[v] ? "t" : "nt")
+                            .append("\" x=\"").append(String.valueOf(izquierda))
+                            .append("\" y=\"").append(String.valueOf(y(v)))
+                            .append("\" width=\"").append(String.valueOf(Math.round(ancho[v])))
+                            .append("\" height=\"").append(String.valueOf(ALTO_NODO))
+                            .append(terminal[v] ? "\" rx=\"12\"/>" : "\" rx=\"3\"/>");
+                    svg.append("<text x=\"").append(String.valueOf(Math.round(x[v])))
+                            .append("\" y=\"").append(String.valueOf(y(v) + 16)).append("\">")
+                            .append(etiquetas.computeIfAbsent(simbolo[v], GeneradorSVG::escaparXML))
+                            .append("</text>\n");
+                }
+            }
+
+            svg.append("</svg>\n");
+        }
+
+        private long y(int v) {
+            return (long) profundidad[v] * DISTANCIA_NIVELES + MARGEN;
+        }
+
+        //endregion
+    }
+
+    /**
+     * Escapa caracteres especiales para XML.
+     *
+     * @param texto Texto a escapar
+     * @return Texto escapado
+     */
+    private static String escaparXML(String texto) {
+        return texto.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,219 @@
+package analizadorSintactico;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Grafo de llamadas entre funciones.
+ * Los vértices son los números de función (0..n-1) y las aristas se guardan
+ * en arreglos compactos de adyacencia (inicio por vértice + destinos).
+ * Todas las consultas son O(V+E) y no usan recursión.
+ *
+ * @author Sophia
+ */
+public class GrafoLlamadas {
+
+    private int totalVertices;
+    private int[] inicio;      // Aristas de v: destinos[inicio[v] .. inicio[v+1])
+    private int[] destinos;
+
+    // Componentes fuertemente conexas (Tarjan)
+    private int[] componente;
+    private int[] tamanoComponente;
+    private BitSet autoLlamada;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Construye el grafo a partir de una lista de aristas.
+     *
+     * @param totalVertices Número de funciones
+     * @param origenes Función que llama (una por arista)
+     * @param llamadas Función llamada (una por arista)
+     * @param totalAristas Número de aristas válidas en los arreglos
+     */
+    public GrafoLlamadas(int totalVertices, int[] origenes, int[] llamadas, int totalAristas) {
+        this.totalVertices = totalVertices;
+        this.inicio = new int[totalVertices + 1];
+        this.destinos = new int[totalAristas];
+        this.autoLlamada = new BitSet(totalVertices);
+
+        // Conteo por origen y suma acumulada
+        for (int e = 0; e < totalAristas; e++) {
+            inicio[origenes[e] + 1]++;
+        }
+        for (int v = 0; v < totalVertices; v++) {
+            inicio[v + 1] += inicio[v];
+        }
+
+        int[] siguiente = Arrays.copyOf(inicio, totalVertices);
+        for (int e = 0; e < totalAristas; e++) {
+            destinos[siguiente[origenes[e]]++] = llamadas[e];
+            if (origenes[e] == llamadas[e]) {
+                autoLlamada.set(origenes[e]);
+            }
+        }
+
+        calcularComponentes();
+    }
+
+    //endregion
+
+    //region COMPONENTES FUERTEMENTE CONEXAS
+
+    /**
+     * Algoritmo de Tarjan iterativo, con pila explícita.
+     */
+    private void calcularComponentes() {
+        componente = new int[totalVertices];
+        Arrays.fill(componente, -1);
+
+        int[] indice = new int[totalVertices];
+        int[] bajo = new int[totalVertices];
+        Arrays.fill(indice, -1);
+
+        int[] pila = new int[totalVertices];
+        boolean[] enPila = new boolean[totalVertices];
+        int cimaPila = 0;
+
+        // Pila de recorrido: vértice y siguiente arista por visitar
+        int[] llamadaVertice = new int[totalVertices];
+        int[] llamadaArista = new int[totalVertices];
+
+        int contador = 0;
+        int totalComponentes = 0;
+        int[] tamanos = new int[totalVertices];
+
+        for (int raiz = 0; raiz < totalVertices; raiz++) {
+            if (indice[raiz] != -1) continue;
+
+            int profundidad = 0;
+            llamadaVertice[0] = raiz;
+            llamadaArista[0] = inicio[raiz];
+            indice[raiz] = bajo[raiz] = contador++;
+            pila[cimaPila++] = raiz;
+            enPila[raiz] = true;
+
+            while (profundidad >= 0) {
+                int v = llamadaVertice[profundidad];
+
+                if (llamadaArista[profundidad] < inicio[v + 1]) {
+                    int w = destinos[llamadaArista[profundidad]++];
+
+                    if (indice[w] == -1) {
+                        indice[w] = bajo[w] = contador++;
+                        pila[cimaPila++] = w;
+                        enPila[w] = true;
+                        profundidad++;
+                        llamadaVertice[profundidad] = w;
+                        llamadaArista[profundidad] = inicio[w];
+                    } else if (enPila[w]) {
+                        bajo[v] = Math.min(bajo[v], indice[w]);
+                    }
+                    continue;
+                }
+
+                // v terminado: si es raíz de componente, desapilarla
+                if (bajo[v] == indice[v]) {
+                    int w;
+                    do {
+                        w = pila[--cimaPila];
+                        enPila[w] = false;
+                        componente[w] = totalComponentes;
+                        tamanos[totalComponentes]++;
+                    } while (w != v);
+                    totalComponentes++;
+                }
+
+                profundidad--;
+                if (profundidad >= 0) {
+                    int padre = llamadaVertice[profundidad];
+                    bajo[padre] = Math.min(bajo[padre], bajo[v]);
+                }
+            }
+        }
+
+        tamanoComponente = Arrays.copyOf(tamanos, totalComponentes);
+    }
+
+    /**
+     * Verifica si la función participa en un ciclo de llamadas (incluye llamarse a sí misma).
+     *
+     * @param v Número de función
+     * @return true si es recursiva
+     */
+    public boolean esRecursiva(int v) {
+        return autoLlamada.get(v) || tamanoComponente[componente[v]] > 1;
+    }
+
+    /**
+     * @return Componente fuertemente conexa de la función
+     */
+    public int getComponente(int v) {
+        return componente[v];
+    }
+
+    //endregion
+
+    //region ALCANZABILIDAD
+
+    /**
+     * Marca las funciones alcanzables desde los puntos de entrada (recorrido en anchura).
+     *
+     * @param entradas Números de función de los puntos de entrada
+     * @return Conjunto de funciones alcanzables
+     */
+    public BitSet alcanzables(int[] entradas) {
+        BitSet visitadas = new BitSet(totalVertices);
+        int[] cola = new int[totalVertices];
+        int frente = 0;
+        int fin = 0;
+
+        for (int entrada : entradas) {
+            if (!visitadas.get(entrada)) {
+                visitadas.set(entrada);
+                cola[fin++] = entrada;
+            }
+        }
+
+        while (frente < fin) {
+            int v = cola[frente++];
+            for (int e = inicio[v]; e < inicio[v + 1]; e++) {
+                int w = destinos[e];
+                if (!visitadas.get(w)) {
+                    visitadas.set(w);
+                    cola[fin++] = w;
+                }
+            }
+        }
+        return visitadas;
+    }
+
+    //endregion
+
+    //region GETTERS
+
+    public int getTotalVertices() {
+        return totalVertices;
+    }
+
+    public int getTotalAristas() {
+        return destinos.length;
+    }
+
+    /**
+     * @return Inicio de las aristas de cada vértice (longitud V+1)
+     */
+    public int[] getInicio() {
+        return inicio;
+    }
+
+    /**
+     * @return Destinos de las aristas, agrupados por origen
+     */
+    public int[] getDestinos() {
+        return destinos;
+    }
+
+    //endregion
+}
@@ -8,7 +8,7 @@ import java.util.*;
  *
  * @author Sophia
  */
-public class Gramatica {
+public final class Gramatica {
 
     // Constantes
     public static final String EPSILON = "ε";
@@ -34,6 +34,22 @@ public class Gramatica {
         calcularConjuntos();
     }
 
+    /**
+     * Constructor a partir de un conjunto de producciones ya construido.
+     * Utilizado por las transformaciones de gramática (ver OptimizadorGramatica).
+     *
+     * @param simboloInicial Símbolo inicial
+     * @param producciones Producciones: NoTerminal -> alternativas
+     * @param terminales Terminales de la gramática
+     */
+    public Gramatica(String simboloInicial, Map<String, List<List<String>>> producciones, Set<String> terminales) {
+        this.simboloInicial = simboloInicial;
+        this.producciones = producciones;
+        this.noTerminales = new HashSet<>(producciones.keySet());
+        this.terminales = new HashSet<>(terminales);
+        calcularConjuntos();
+    }
+
     /**
      * Inicializa la gramática con no terminales, terminales y producciones.
      */
@@ -284,8 +300,8 @@ public class Gramatica {
     private Set<String> calcularPrimeroProduccion(List<String> produccion) {
         Set<String> resultado = new HashSet<>();
 
-        for (String simbolo : produccion) {
-            Set<String> primeroSimbolo = obtenerPrimero(simbolo);
+        for (int i = 0; i < produccion.size(); i++) {
+            Set<String> primeroSimbolo = obtenerPrimero(produccion.get(i));
 
             for (String s : primeroSimbolo) {
                 if (!s.equals(EPSILON)) {
@@ -297,7 +313,8 @@ public class Gramatica {
                 break;
             }
 
-            if (simbolo.equals(produccion.get(produccion.size() - 1))) {
+            // Por posición: un símbolo repetido no debe marcar ε antes de tiempo
+            if (i == produccion.size() - 1) {
                 resultado.add(EPSILON);
             }
         }
@@ -1,6 +1,8 @@
 package archivos;
 
+import eventos.EventosJFR;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -21,6 +23,10 @@ public class LectorArchivo {
      * @throws IOException Si hay error al leer
      */
     public static String leerArchivo(String rutaArchivo) throws IOException {
+        EventosJFR.CargaArchivo evento = EventosJFR.estanActivos() ? new EventosJFR.CargaArchivo() : null;
+        if (evento != null) {
+            evento.begin();
+        }
         StringBuilder contenido = new StringBuilder();
 
         try (BufferedReader lector = new BufferedReader(
@@ -32,9 +38,25 @@ public class LectorArchivo {
             }
         }
 
+        if (evento != null && evento.shouldCommit()) {
+            evento.archivo = rutaArchivo;
+            evento.bytes = new File(rutaArchivo).length();
+            evento.commit();
+        }
         return contenido.toString();
     }
 
+    /**
+     * Abre un archivo para leerlo de a poco, sin cargarlo entero en memoria.
+     *
+     * @param rutaArchivo Ruta del archivo
+     * @return Lector con buffer (lo cierra quien lo abre)
+     * @throws IOException Si no se puede abrir
+     */
+    public static BufferedReader abrirArchivo(String rutaArchivo) throws IOException {
+        return new BufferedReader(new FileReader(rutaArchivo, StandardCharsets.UTF_8));
+    }
+
     /**
      * Verifica si un archivo existe y es legible.
      *
@@ -0,0 +1,385 @@
+package archivos;
+
+import archivos.FormatoBinario.Seccion;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lee un archivo en el formato de {@link FormatoBinario} sin decodificarlo completo.
+ * Al abrirlo solo se leen la cabecera y el directorio; cada sección se mapea en
+ * memoria la primera vez que se consulta y sus registros se leen por posición.
+ * Una instancia no debe usarse desde varios hilos a la vez.
+ *
+ * @author Sophia
+ */
+public class LectorBinario implements AutoCloseable {
+
+    private final FileChannel canal;
+    private final int version;
+    private final Map<Seccion, long[]> directorio;         // sección -> {desplazamiento, longitud}
+    private final Map<Seccion, ByteBuffer> mapeadas;
+
+    // Datos de la tabla de cadenas (se cargan al pedir la primera)
+    private ByteBuffer cadenas;
+    private int totalCadenas;
+    private int inicioBytes;
+    private String[] cadenasLeidas;
+
+    //region APERTURA
+
+    private LectorBinario(FileChannel canal) throws IOException {
+        this.canal = canal;
+        this.directorio = new EnumMap<>(Seccion.class);
+        this.mapeadas = new EnumMap<>(Seccion.class);
+
+        ByteBuffer cabecera = leer(0, FormatoBinario.TAMANO_CABECERA);
+        if (cabecera.getInt(0) != FormatoBinario.MAGIA) {
+            throw new IOException("El archivo no es una exportación binaria del análisis");
+        }
+        this.version = cabecera.getInt(4);
+        if (version > FormatoBinario.VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+
+        int totalSecciones = cabecera.getInt(8);
+        ByteBuffer entradas = leer(FormatoBinario.TAMANO_CABECERA,
+                totalSecciones * FormatoBinario.TAMANO_ENTRADA_DIRECTORIO);
+        for (int i = 0; i < totalSecciones; i++) {
+            int base = i * FormatoBinario.TAMANO_ENTRADA_DIRECTORIO;
+            Seccion seccion = Seccion.porId(entradas.getInt(base));
+            if (seccion != null) {
+                directorio.put(seccion, new long[]{entradas.getLong(base + 4), entradas.getLong(base + 12)});
+            }
+        }
+    }
+
+    /**
+     * Abre un archivo binario.
+     *
+     * @param rutaArchivo Ruta del archivo
+     * @return Lector (debe cerrarse)
+     * @throws IOException Si no se puede leer o no tiene el formato esperado
+     */
+    public static LectorBinario abrir(String rutaArchivo) throws IOException {
+        FileChannel canal = FileChannel.open(Path.of(rutaArchivo), StandardOpenOption.READ);
+        try {
+            return new LectorBinario(canal);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer leer(long desplazamiento, int longitud) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(longitud);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, desplazamiento + buffer.position()) < 0) {
+                throw new IOException("Archivo binario truncado");
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    //endregion
+
+    //region SECCIONES
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean tieneSeccion(Seccion seccion) {
+        return directorio.containsKey(seccion);
+    }
+
+    /**
+     * Mapea la sección en memoria (solo la primera vez).
+     *
+     * @param seccion Sección a consultar
+     * @return Contenido de la sección, de solo lectura
+     * @throws IOException Si la sección no existe o no se puede mapear
+     */
+    public ByteBuffer getSeccion(Seccion seccion) throws IOException {
+        ByteBuffer buffer = mapeadas.get(seccion);
+        if (buffer == null) {
+            long[] entrada = directorio.get(seccion);
+            if (entrada == null) {
+                throw new IOException("El archivo no contiene la sección " + seccion);
+            }
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, entrada[0], entrada[1]);
+            mapeadas.put(seccion, buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * @return Cantidad de registros de la sección (su primer entero)
+     */
+    public int getTotal(Seccion seccion) throws IOException {
+        return getSeccion(seccion).getInt(0);
+    }
+
+    /**
+     * Obtiene una cadena de la tabla. Cada cadena se decodifica una sola vez.
+     *
+     * @param numero Número de la cadena
+     * @return Texto, o null para SIN_CADENA
+     */
+    public String getCadena(int numero) throws IOException {
+        if (numero == FormatoBinario.SIN_CADENA) {
+            return null;
+        }
+        if (cadenas == null) {
+            cadenas = getSeccion(Seccion.CADENAS);
+            totalCadenas = cadenas.getInt(0);
+            inicioBytes = 4 + (totalCadenas + 1) * 4;
+            cadenasLeidas = new String[totalCadenas];
+        }
+
+        String cadena = cadenasLeidas[numero];
+        if (cadena == null) {
+            int inicio = cadenas.getInt(4 + numero * 4);
+            int fin = cadenas.getInt(8 + numero * 4);
+            byte[] bytes = new byte[fin - inicio];
+            cadenas.get(inicioBytes + inicio, bytes);
+            cadena = new String(bytes, StandardCharsets.UTF_8);
+            cadenasLeidas[numero] = cadena;
+        }
+        return cadena;
+    }
+
+    //endregion
+
+    //region TOKENS
+
+    public int getTotalTokens() throws IOException {
+        return getTotal(Seccion.TOKENS);
+    }
+
+    /**
+     * @return Nombre del tipo del token (TipoToken)
+     */
+    public String getTipoToken(int i) throws IOException {
+        ByteBuffer tokens = getSeccion(Seccion.TOKENS);
+        return getCadena(tokens.getInt(8 + tokens.getInt(registroToken(i)) * 4));
+    }
+
+    public String getLexema(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.TOKENS).getInt(registroToken(i) + 4));
+    }
+
+    public int getDesplazamiento(int i) throws IOException {
+        return getSeccion(Seccion.TOKENS).getInt(registroToken(i) + 8);
+    }
+
+    public int getLongitud(int i) throws IOException {
+        return getSeccion(Seccion.TOKENS).getInt(registroToken(i) + 12);
+    }
+
+    public int getLinea(int i) throws IOException {
+        return getSeccion(Seccion.TOKENS).getInt(registroToken(i) + 16);
+    }
+
+    public int getColumna(int i) throws IOException {
+        return getSeccion(Seccion.TOKENS).getInt(registroToken(i) + 20);
+    }
+
+    private int registroToken(int i) throws IOException {
+        int totalTipos = getSeccion(Seccion.TOKENS).getInt(4);
+        return 8 + totalTipos * 4 + i * FormatoBinario.TAMANO_TOKEN;
+    }
+
+    //endregion
+
+    //region ÁRBOL
+
+    public int getTotalNodos() throws IOException {
+        return getTotal(Seccion.ARBOL);
+    }
+
+    /**
+     * @param i Número del nodo en preorden (0 = raíz)
+     */
+    public String getSimboloNodo(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.ARBOL).getInt(4 + i * FormatoBinario.TAMANO_NODO));
+    }
+
+    public int getAridad(int i) throws IOException {
+        return getSeccion(Seccion.ARBOL).getInt(8 + i * FormatoBinario.TAMANO_NODO) & ~FormatoBinario.BIT_TERMINAL;
+    }
+
+    public boolean esTerminal(int i) throws IOException {
+        return (getSeccion(Seccion.ARBOL).getInt(8 + i * FormatoBinario.TAMANO_NODO) & FormatoBinario.BIT_TERMINAL) != 0;
+    }
+
+    /**
+     * Calcula dónde termina el subárbol de un nodo, contando los hijos pendientes.
+     *
+     * @param i Número del nodo en preorden
+     * @return Número del primer nodo que no pertenece al subárbol
+     */
+    public int finSubarbol(int i) throws IOException {
+        long pendientes = 1;
+        int nodo = i;
+        while (pendientes > 0) {
+            pendientes += getAridad(nodo) - 1;
+            nodo++;
+        }
+        return nodo;
+    }
+
+    //endregion
+
+    //region TABLAS DE SÍMBOLOS
+
+    public int getTotalVariables() throws IOException {
+        return getTotal(Seccion.VARIABLES);
+    }
+
+    public String getNombreVariable(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.VARIABLES).getInt(registroVariable(i)));
+    }
+
+    public String getTipoVariable(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.VARIABLES).getInt(registroVariable(i) + 4));
+    }
+
+    /**
+     * @return Función donde se declaró la variable, o null si es un atributo
+     *         de la clase (o si el archivo es de la versión 1)
+     */
+    public String getFuncionVariable(int i) throws IOException {
+        return version < 2 ? null : getCadena(getSeccion(Seccion.VARIABLES).getInt(registroVariable(i) + 8));
+    }
+
+    /**
+     * @return Línea de la declaración (0 si el archivo es de la versión 1)
+     */
+    public int getLineaVariable(int i) throws IOException {
+        return version < 2 ? 0 : getSeccion(Seccion.VARIABLES).getInt(registroVariable(i) + 12);
+    }
+
+    private int registroVariable(int i) {
+        int tamano = version < 2 ? FormatoBinario.TAMANO_VARIABLE_V1 : FormatoBinario.TAMANO_VARIABLE;
+        return 4 + i * tamano;
+    }
+
+    public int getTotalFunciones() throws IOException {
+        return getTotal(Seccion.FUNCIONES);
+    }
+
+    public String getNombreFuncion(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.FUNCIONES).getInt(4 + i * FormatoBinario.TAMANO_FUNCION));
+    }
+
+    public String getTipoRetorno(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.FUNCIONES).getInt(8 + i * FormatoBinario.TAMANO_FUNCION));
+    }
+
+    public int getLineaFuncion(int i) throws IOException {
+        return getSeccion(Seccion.FUNCIONES).getInt(12 + i * FormatoBinario.TAMANO_FUNCION);
+    }
+
+    public List<String> getTiposParametros(int i) throws IOException {
+        ByteBuffer funciones = getSeccion(Seccion.FUNCIONES);
+        int primero = funciones.getInt(16 + i * FormatoBinario.TAMANO_FUNCION);
+        int total = funciones.getInt(20 + i * FormatoBinario.TAMANO_FUNCION);
+
+        // Tabla de tipos de parámetros tras los registros de funciones y su cantidad
+        int base = 4 + funciones.getInt(0) * FormatoBinario.TAMANO_FUNCION + 4;
+        List<String> tipos = new ArrayList<>(total);
+        for (int p = 0; p < total; p++) {
+            tipos.add(getCadena(funciones.getInt(base + (primero + p) * 4)));
+        }
+        return tipos;
+    }
+
+    public List<String> getOperadores() throws IOException {
+        return leerLista(Seccion.OPERADORES);
+    }
+
+    public List<String> getSimbolos() throws IOException {
+        return leerLista(Seccion.SIMBOLOS);
+    }
+
+    private List<String> leerLista(Seccion seccion) throws IOException {
+        ByteBuffer datos = getSeccion(seccion);
+        int total = datos.getInt(0);
+        List<String> valores = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            valores.add(getCadena(datos.getInt(4 + i * 4)));
+        }
+        return Collections.unmodifiableList(valores);
+    }
+
+    //endregion
+
+    //region DIAGNÓSTICOS
+
+    /**
+     * @return Total de errores reportados en la etapa (número de Diagnostico.Etapa)
+     */
+    public int getTotalErroresEtapa(int etapa) throws IOException {
+        return getSeccion(Seccion.DIAGNOSTICOS).getInt(4 + etapa * 8);
+    }
+
+    public int getSuprimidosEtapa(int etapa) throws IOException {
+        return getSeccion(Seccion.DIAGNOSTICOS).getInt(8 + etapa * 8);
+    }
+
+    public int getTotalDiagnosticos() throws IOException {
+        ByteBuffer datos = getSeccion(Seccion.DIAGNOSTICOS);
+        return datos.getInt(4 + datos.getInt(0) * 8);
+    }
+
+    /**
+     * @return Número de la etapa (Diagnostico.Etapa) del diagnóstico
+     */
+    public int getEtapaDiagnostico(int i) throws IOException {
+        return getSeccion(Seccion.DIAGNOSTICOS).getInt(registroDiagnostico(i)) & 0xFF;
+    }
+
+    public boolean esAdvertencia(int i) throws IOException {
+        return (getSeccion(Seccion.DIAGNOSTICOS).getInt(registroDiagnostico(i)) & FormatoBinario.BIT_ADVERTENCIA) != 0;
+    }
+
+    /**
+     * @return Nombre del código (CodigoDiagnostico)
+     */
+    public String getCodigoDiagnostico(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.DIAGNOSTICOS).getInt(registroDiagnostico(i) + 4));
+    }
+
+    public int getPosicionDiagnostico(int i) throws IOException {
+        return getSeccion(Seccion.DIAGNOSTICOS).getInt(registroDiagnostico(i) + 8);
+    }
+
+    public int getRepeticiones(int i) throws IOException {
+        return getSeccion(Seccion.DIAGNOSTICOS).getInt(registroDiagnostico(i) + 12);
+    }
+
+    public String getMensaje(int i) throws IOException {
+        return getCadena(getSeccion(Seccion.DIAGNOSTICOS).getInt(registroDiagnostico(i) + 16));
+    }
+
+    private int registroDiagnostico(int i) throws IOException {
+        int totalEtapas = getSeccion(Seccion.DIAGNOSTICOS).getInt(0);
+        return 4 + totalEtapas * 8 + 4 + i * FormatoBinario.TAMANO_DIAGNOSTICO;
+    }
+
+    //endregion
+}
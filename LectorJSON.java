@@ -0,0 +1,233 @@
+package archivos;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector de JSON mínimo, sin dependencias externas.
+ * Los objetos se leen como Map (en orden), los arreglos como List, los números
+ * enteros como Long y los demás como Double.
+ *
+ * Lo usa el servidor de lenguaje para los mensajes JSON-RPC, que son pequeños y
+ * poco anidados.
+ *
+ * @author Sophia
+ */
+public class LectorJSON {
+
+    // Un mensaje más anidado que esto no es un mensaje válido del protocolo
+    private static final int PROFUNDIDAD_MAXIMA = 512;
+
+    private final String texto;
+    private int posicion;
+    private int profundidad;
+
+    private LectorJSON(String texto) {
+        this.texto = texto;
+        this.posicion = 0;
+        this.profundidad = 0;
+    }
+
+    /**
+     * Lee un valor JSON completo.
+     *
+     * @param texto Texto JSON
+     * @return Map, List, String, Long, Double, Boolean o null
+     * @throws IllegalArgumentException Si el texto no es JSON válido
+     */
+    public static Object leer(String texto) {
+        LectorJSON lector = new LectorJSON(texto);
+        Object valor = lector.valor();
+        lector.saltarEspacios();
+        if (lector.posicion != texto.length()) {
+            throw lector.error("contenido después del valor");
+        }
+        return valor;
+    }
+
+    //region VALORES
+
+    private Object valor() {
+        saltarEspacios();
+        if (posicion >= texto.length()) {
+            throw error("fin inesperado");
+        }
+        char c = texto.charAt(posicion);
+        return switch (c) {
+            case '{' -> objeto();
+            case '[' -> arreglo();
+            case '"' -> cadena();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    yield numero();
+                }
+                throw error("carácter inesperado '" + c + "'");
+            }
+        };
+    }
+
+    private Map<String, Object> objeto() {
+        entrar();
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        posicion++;
+        saltarEspacios();
+        if (consumir('}')) {
+            profundidad--;
+            return objeto;
+        }
+        do {
+            saltarEspacios();
+            if (posicion >= texto.length() || texto.charAt(posicion) != '"') {
+                throw error("se esperaba una clave");
+            }
+            String clave = cadena();
+            saltarEspacios();
+            if (!consumir(':')) {
+                throw error("se esperaba ':'");
+            }
+            objeto.put(clave, valor());
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir('}')) {
+            throw error("se esperaba '}'");
+        }
+        profundidad--;
+        return objeto;
+    }
+
+    private List<Object> arreglo() {
+        entrar();
+        List<Object> arreglo = new ArrayList<>();
+        posicion++;
+        saltarEspacios();
+        if (consumir(']')) {
+            profundidad--;
+            return arreglo;
+        }
+        do {
+            arreglo.add(valor());
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir(']')) {
+            throw error("se esperaba ']'");
+        }
+        profundidad--;
+        return arreglo;
+    }
+
+    private String cadena() {
+        posicion++;
+        StringBuilder cadena = new StringBuilder();
+        int inicio = posicion;
+        while (true) {
+            if (posicion >= texto.length()) {
+                throw error("cadena sin cerrar");
+            }
+            char c = texto.charAt(posicion);
+            if (c == '"') {
+                cadena.append(texto, inicio, posicion);
+                posicion++;
+                return cadena.toString();
+            }
+            if (c != '\\') {
+                posicion++;
+                continue;
+            }
+
+            cadena.append(texto, inicio, posicion);
+            if (posicion + 1 >= texto.length()) {
+                throw error("escape incompleto");
+            }
+            char escape = texto.charAt(posicion + 1);
+            posicion += 2;
+            switch (escape) {
+                case '"', '\\', '/' -> cadena.append(escape);
+                case 'b' -> cadena.append('\b');
+                case 'f' -> cadena.append('\f');
+                case 'n' -> cadena.append('\n');
+                case 'r' -> cadena.append('\r');
+                case 't' -> cadena.append('\t');
+                case 'u' -> {
+                    if (posicion + 4 > texto.length()) {
+                        throw error("escape \\u incompleto");
+                    }
+                    try {
+                        cadena.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("escape \\u inválido");
+                    }
+                    posicion += 4;
+                }
+                default -> throw error("escape inválido '\\" + escape + "'");
+            }
+            inicio = posicion;
+        }
+    }
+
+    private Object numero() {
+        int inicio = posicion;
+        boolean decimal = false;
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion);
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            posicion++;
+        }
+        String numero = texto.substring(inicio, posicion);
+        try {
+            return decimal ? (Object) Double.parseDouble(numero) : (Object) Long.parseLong(numero);
+        } catch (NumberFormatException e) {
+            throw error("número inválido '" + numero + "'");
+        }
+    }
+
+    private Object literal(String palabra, Object valor) {
+        if (!texto.startsWith(palabra, posicion)) {
+            throw error("se esperaba " + palabra);
+        }
+        posicion += palabra.length();
+        return valor;
+    }
+
+    //endregion
+
+    //region AUXILIARES
+
+    private void saltarEspacios() {
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            posicion++;
+        }
+    }
+
+    private boolean consumir(char esperado) {
+        if (posicion < texto.length() && texto.charAt(posicion) == esperado) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+
+    private void entrar() {
+        if (++profundidad > PROFUNDIDAD_MAXIMA) {
+            throw error("demasiado anidado");
+        }
+    }
+
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + mensaje);
+    }
+
+    //endregion
+}
@@ -1,34 +1,447 @@
-package app;
-
-import java.io.PrintStream;
-import java.nio.charset.StandardCharsets;
-
-/**
- * Clase principal del proyecto.
- * Punto de entrada del programa.
- *
- * @author Sophia
- */
-public class Main {
-
-    public static void main(String[] args) {
-        // Configurar codificación UTF-8
-        try {
-            System.setOut(new PrintStream(System.out, true, StandardCharsets.UTF_8));
-        } catch (Exception e) {
-            System.err.println("Error al configurar UTF-8: " + e.getMessage());
-        }
-
-        // Ruta del archivo de entrada
-        String rutaArchivo = "programa.txt";
-
-        // Si se proporciona argumento, usarlo como ruta
-        if (args.length > 0) {
-            rutaArchivo = args[0];
-        }
-
-        // Ejecutar controlador principal
-        ControladorPrincipal controlador = new ControladorPrincipal(rutaArchivo);
-        controlador.ejecutar();
-    }
-}
+package app;
+
+import analizadorSintactico.Gramatica;
+import archivos.CacheResultados;
+import archivos.EscritorArchivo;
+import eventos.EventosJFR;
+import generadores.GeneradorProgramas;
+import generadores.OpcionesDOT;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Clase principal del proyecto.
+ * Punto de entrada del programa.
+ *
+ * @author Sophia
+ */
+public class Main {
+
+    public static void main(String[] args) {
+        // Configurar codificación UTF-8
+        try {
+            System.setOut(new PrintStream(System.out, true, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            System.err.println("Error al configurar UTF-8: " + e.getMessage());
+        }
+
+        // Ruta del archivo de entrada
+        String rutaArchivo = "programa.txt";
+
+        // Caché de resultados: --cache[=directorio] y --cache-max=MB
+        String directorioCache = null;
+        long tamanoCache = CacheResultados.TAMANO_MAXIMO_POR_DEFECTO;
+
+        // Etapas encadenadas en hilos: --encadenado; sin cargar la entrada en memoria: --acotado
+        boolean encadenado = false;
+        boolean acotado = false;
+
+        // Árbol completo en los DOT: --dot-completo; DOT comprimidos con gzip: --dot-gzip
+        boolean dotCompleto = false;
+        boolean dotGzip = false;
+
+        // Árbol de derivación en consola: --arbol
+        boolean mostrarArbol = false;
+
+        // Mediciones por etapa: --metricas[=archivo] y --metricas-tabla
+        String archivoMetricas = null;
+        boolean tablaMetricas = false;
+
+        // Eventos JFR: --jfr (para una grabación externa) o --jfr=archivo.jfr (graba el proceso)
+        boolean jfr = false;
+        String archivoJFR = null;
+
+        // Modo por lotes: --lote entrada... [--salida=directorio]
+        boolean lote = false;
+        String directorioLote = ProcesadorLotes.DIRECTORIO_POR_DEFECTO;
+        List<String> entradas = new ArrayList<>();
+
+        // Modo servidor: --servidor[=puerto] y --origen=URL (una vez por origen permitido)
+        int puerto = -1;
+        List<String> origenes = new ArrayList<>();
+
+        // Servidor de lenguaje sobre stdio: --lsp
+        boolean lsp = false;
+
+        // Programa sintético: --generar=archivo[.gz] y opciones --gen-*
+        String archivoGenerado = null;
+        List<String> opcionesGenerador = new ArrayList<>();
+
+        // Prueba de rendimiento: --bench entrada... y opciones --bench-*
+        boolean banco = false;
+        List<String> opcionesBanco = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.equals("--lsp")) {
+                lsp = true;
+            } else if (arg.startsWith("--generar=")) {
+                archivoGenerado = arg.substring("--generar=".length());
+            } else if (arg.startsWith("--gen-")) {
+                opcionesGenerador.add(arg);
+            } else if (arg.equals("--bench")) {
+                banco = true;
+            } else if (arg.startsWith("--bench-")) {
+                opcionesBanco.add(arg);
+            } else if (arg.equals("--servidor")) {
+                puerto = ServidorAnalisis.PUERTO_POR_DEFECTO;
+            } else if (arg.startsWith("--servidor=")) {
+                puerto = (int) entero("--servidor", arg.substring("--servidor=".length()), 0, 65535);
+            } else if (arg.startsWith("--origen=")) {
+                origenes.add(arg.substring("--origen=".length()));
+            } else if (arg.equals("--encadenado")) {
+                encadenado = true;
+            } else if (arg.equals("--acotado")) {
+                acotado = true;
+            } else if (arg.equals("--dot-completo")) {
+                dotCompleto = true;
+            } else if (arg.equals("--dot-gzip")) {
+                dotGzip = true;
+            } else if (arg.equals("--arbol")) {
+                mostrarArbol = true;
+            } else if (arg.equals("--metricas")) {
+                archivoMetricas = MedidorEtapas.ARCHIVO_POR_DEFECTO;
+            } else if (arg.startsWith("--metricas=")) {
+                archivoMetricas = arg.substring("--metricas=".length());
+            } else if (arg.equals("--metricas-tabla")) {
+                tablaMetricas = true;
+            } else if (arg.equals("--jfr")) {
+                jfr = true;
+            } else if (arg.startsWith("--jfr=")) {
+                jfr = true;
+                archivoJFR = arg.substring("--jfr=".length());
+            } else if (arg.equals("--lote")) {
+                lote = true;
+            } else if (arg.startsWith("--salida=")) {
+                directorioLote = arg.substring("--salida=".length());
+            } else if (arg.equals("--cache")) {
+                directorioCache = CacheResultados.DIRECTORIO_POR_DEFECTO;
+            } else if (arg.startsWith("--cache=")) {
+                directorioCache = arg.substring("--cache=".length());
+            } else if (arg.startsWith("--cache-max=")) {
+                tamanoCache = entero("--cache-max", arg.substring("--cache-max=".length()), 1,
+                        Long.MAX_VALUE >> 20) << 20;
+            } else {
+                // Si se proporciona argumento, usarlo como ruta
+                rutaArchivo = arg;
+                entradas.add(arg);
+            }
+        }
+
+        if (archivoJFR != null) {
+            try {
+                // La grabación se escribe al salir, también con Ctrl+C en los modos servidor
+                EventosJFR.iniciarGrabacion(Path.of(archivoJFR));
+            } catch (IOException | IllegalStateException | SecurityException e) {
+                System.err.println("No se pudo iniciar la grabación JFR: " + e.getMessage());
+            }
+        } else if (jfr) {
+            EventosJFR.activar();
+        }
+
+        if (archivoGenerado != null) {
+            System.exit(generarPrograma(archivoGenerado, opcionesGenerador) ? 0 : 1);
+        }
+
+        if (lsp) {
+            // La salida estándar queda reservada al protocolo: cualquier otro
+            // mensaje se desvía a la salida de error
+            FileOutputStream protocolo = new FileOutputStream(FileDescriptor.out);
+            System.setOut(new PrintStream(System.err, true, StandardCharsets.UTF_8));
+            try {
+                System.exit(new ServidorLenguaje(System.in, protocolo).ejecutar());
+            } catch (IOException e) {
+                System.err.println("Error en el servidor de lenguaje: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        if (puerto >= 0) {
+            try {
+                ServidorAnalisis servidor = new ServidorAnalisis(puerto);
+                servidor.setOrigenesPermitidos(origenes);
+                Runtime.getRuntime().addShutdownHook(new Thread(servidor::detener));
+                servidor.iniciar();
+            } catch (IOException e) {
+                System.err.println("No se pudo iniciar el servidor: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (banco) {
+            // Archivos, directorios o patrones glob, como en el modo por lotes
+            if (entradas.isEmpty()) {
+                entradas.add(".");
+            }
+            System.exit(ejecutarBanco(entradas, opcionesBanco, encadenado) ? 0 : 1);
+        }
+
+        if (lote) {
+            // Archivos, directorios o patrones glob (por defecto el directorio actual)
+            if (entradas.isEmpty()) {
+                entradas.add(".");
+            }
+            // Opciones del análisis de un solo archivo que el lote no implementa
+            List<String> noAdmitidas = new ArrayList<>();
+            if (directorioCache != null) {
+                noAdmitidas.add("--cache");
+            }
+            if (encadenado) {
+                noAdmitidas.add("--encadenado");
+            }
+            if (acotado) {
+                noAdmitidas.add("--acotado");
+            }
+            if (archivoMetricas != null || tablaMetricas) {
+                noAdmitidas.add("--metricas");
+            }
+            if (mostrarArbol) {
+                noAdmitidas.add("--arbol");
+            }
+            if (!noAdmitidas.isEmpty()) {
+                System.err.println("No se admite con --lote: " + String.join(", ", noAdmitidas));
+                System.exit(1);
+            }
+            ProcesadorLotes procesador = new ProcesadorLotes(Path.of(directorioLote));
+            procesador.setOpcionesDOT(dotCompleto ? new OpcionesDOT() : OpcionesDOT.acotadas());
+            procesador.setComprimirDOT(dotGzip);
+            boolean completo = procesador.ejecutar(entradas);
+            System.exit(completo ? 0 : 1);
+        }
+
+        // Ejecutar controlador principal
+        ControladorPrincipal controlador = new ControladorPrincipal(rutaArchivo);
+        controlador.setEncadenado(encadenado);
+        controlador.setMemoriaAcotada(acotado);
+        controlador.setMedirSalidas(archivoMetricas != null || tablaMetricas);
+        controlador.setOpcionesDOT(dotCompleto ? new OpcionesDOT() : OpcionesDOT.acotadas());
+        controlador.setComprimirDOT(dotGzip);
+        controlador.setMostrarArbol(mostrarArbol);
+        if (directorioCache != null) {
+            try {
+                controlador.setCache(new CacheResultados(directorioCache, tamanoCache,
+                        controlador.calcularHuella()));
+            } catch (IOException e) {
+                System.err.println("No se pudo abrir la caché (" + e.getMessage() + "); se analiza sin caché");
+            }
+        }
+        controlador.ejecutar();
+
+        MedidorEtapas medidor = controlador.getMedidor();
+        if (tablaMetricas) {
+            try {
+                System.out.println("--- MÉTRICAS POR ETAPA ---");
+                medidor.escribirTabla(System.out);
+            } catch (IOException e) {
+                System.err.println("Error al mostrar las métricas: " + e.getMessage());
+            }
+        }
+        if (archivoMetricas != null) {
+            String archivo = rutaArchivo;
+            EscritorArchivo.escribirArchivoConMensaje(archivoMetricas,
+                    escritor -> medidor.escribirJSON(archivo, escritor), "Métricas por etapa");
+        }
+    }
+
+    /**
+     * Valor entero de una opción. Si no es válido se informa y el programa termina.
+     *
+     * @param opcion Nombre de la opción (para el mensaje)
+     * @param valor Texto recibido
+     * @param minimo Valor mínimo aceptado
+     * @param maximo Valor máximo aceptado
+     * @return El valor
+     */
+    private static long entero(String opcion, String valor, long minimo, long maximo) {
+        try {
+            long numero = Long.parseLong(valor.trim());
+            if (numero >= minimo && numero <= maximo) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        System.err.println("Valor inválido para " + opcion + ": \"" + valor + "\" (se espera un entero entre "
+                + minimo + " y " + maximo + ")");
+        System.exit(1);
+        return minimo;
+    }
+
+    /**
+     * Como {@link #entero}, para opciones con decimales.
+     */
+    private static double decimal(String opcion, String valor, double minimo, double maximo) {
+        try {
+            double numero = Double.parseDouble(valor.trim());
+            if (numero >= minimo && numero <= maximo) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        System.err.println("Valor inválido para " + opcion + ": \"" + valor + "\" (se espera un número entre "
+                + minimo + " y " + maximo + ")");
+        System.exit(1);
+        return minimo;
+    }
+
+    /**
+     * @return Tipo de error de --gen-errores, o null (informado) si no existe
+     */
+    private static GeneradorProgramas.TipoError tipoError(String nombre) {
+        for (GeneradorProgramas.TipoError tipo : GeneradorProgramas.TipoError.values()) {
+            if (tipo.name().equalsIgnoreCase(nombre.trim())) {
+                return tipo;
+            }
+        }
+        System.err.println("Tipo de error desconocido en --gen-errores: \"" + nombre
+                + "\" (se espera lexico, sintactico o semantico)");
+        return null;
+    }
+
+    /**
+     * Prueba de rendimiento del análisis completo. Opciones:
+     * --bench-calentamiento=N, --bench-iteraciones=N, --bench-guardar=archivo.json,
+     * --bench-base=archivo.json y --bench-umbral=porcentaje.
+     *
+     * @param entradas Archivos, directorios o patrones glob del corpus
+     * @param opciones Argumentos --bench-*
+     * @param encadenado Si se encadenan las etapas
+     * @return false si algo falló o hubo regresiones frente a la base
+     */
+    private static boolean ejecutarBanco(List<String> entradas, List<String> opciones, boolean encadenado) {
+        BancoPruebas banco = new BancoPruebas();
+        banco.setEncadenado(encadenado);
+        String archivoGuardado = null;
+        String archivoBase = null;
+        double umbral = BancoPruebas.UMBRAL_POR_DEFECTO;
+        for (String opcion : opciones) {
+            String valor = opcion.substring(opcion.indexOf('=') + 1);
+            if (opcion.startsWith("--bench-calentamiento=")) {
+                banco.setCalentamiento((int) entero("--bench-calentamiento", valor, 0, Integer.MAX_VALUE));
+            } else if (opcion.startsWith("--bench-iteraciones=")) {
+                banco.setIteraciones((int) entero("--bench-iteraciones", valor, 1, Integer.MAX_VALUE));
+            } else if (opcion.startsWith("--bench-guardar=")) {
+                archivoGuardado = valor;
+            } else if (opcion.startsWith("--bench-base=")) {
+                archivoBase = valor;
+            } else if (opcion.startsWith("--bench-umbral=")) {
+                umbral = decimal("--bench-umbral", valor, 0, Double.MAX_VALUE) / 100;
+            } else {
+                System.err.println("Opción de rendimiento desconocida: " + opcion);
+                return false;
+            }
+        }
+
+        try {
+            List<Path> archivos = new ProcesadorLotes(Path.of(ProcesadorLotes.DIRECTORIO_POR_DEFECTO))
+                    .expandir(entradas);
+            System.out.println("Midiendo " + archivos.size() + " archivos: " + banco.getCalentamiento()
+                    + " iteraciones de calentamiento y " + banco.getIteraciones() + " medidas por archivo...\n");
+            List<BancoPruebas.ResultadoArchivo> resultados = banco.ejecutar(archivos);
+            BancoPruebas.escribirTabla(resultados, System.out);
+
+            if (archivoGuardado != null) {
+                EscritorArchivo.escribirArchivoConMensaje(archivoGuardado,
+                        escritor -> banco.escribirJSON(resultados, escritor), "Resultados de rendimiento");
+            }
+            if (archivoBase != null) {
+                System.out.printf("%nComparación con %s (umbral %.0f %%):%n", archivoBase, umbral * 100);
+                int regresiones = BancoPruebas.compararConBase(resultados,
+                        Files.readString(Path.of(archivoBase)), umbral, System.out);
+                if (regresiones > 0) {
+                    System.out.println("\n" + regresiones + " archivos con regresión");
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error en la prueba de rendimiento: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Genera un programa sintético para pruebas de carga. Opciones:
+     * --gen-miembros=N, --gen-sentencias=N, --gen-profundidad=D, --gen-tamano=MB,
+     * --gen-semilla=S y --gen-errores=tasa o tipo:tasa,... (lexico, sintactico, semantico).
+     *
+     * @param archivo Archivo de salida (comprimido si termina en .gz)
+     * @param opciones Argumentos --gen-*
+     * @return true si el programa se escribió
+     */
+    private static boolean generarPrograma(String archivo, List<String> opciones) {
+        long semilla = System.nanoTime();
+        for (String opcion : opciones) {
+            if (opcion.startsWith("--gen-semilla=")) {
+                semilla = entero("--gen-semilla", opcion.substring("--gen-semilla=".length()),
+                        Long.MIN_VALUE, Long.MAX_VALUE);
+            }
+        }
+
+        GeneradorProgramas generador = new GeneradorProgramas(new Gramatica(), semilla);
+        for (String opcion : opciones) {
+            String valor = opcion.substring(opcion.indexOf('=') + 1);
+            if (opcion.startsWith("--gen-miembros=")) {
+                generador.setMiembros((int) entero("--gen-miembros", valor, 0, Integer.MAX_VALUE));
+            } else if (opcion.startsWith("--gen-sentencias=")) {
+                generador.setSentencias((int) entero("--gen-sentencias", valor, 0, Integer.MAX_VALUE));
+            } else if (opcion.startsWith("--gen-profundidad=")) {
+                generador.setProfundidad((int) entero("--gen-profundidad", valor, 1, Integer.MAX_VALUE));
+            } else if (opcion.startsWith("--gen-tamano=")) {
+                // Sin límite de miembros: el tamaño decide dónde termina
+                generador.setTamanoMaximo(entero("--gen-tamano", valor, 1, Long.MAX_VALUE >> 20) << 20);
+                generador.setMiembros(Integer.MAX_VALUE);
+            } else if (opcion.startsWith("--gen-errores=")) {
+                for (String error : valor.split(",")) {
+                    int separador = error.indexOf(':');
+                    if (separador < 0) {
+                        double tasa = decimal("--gen-errores", error, 0, 1);
+                        for (GeneradorProgramas.TipoError tipo : GeneradorProgramas.TipoError.values()) {
+                            generador.setTasaError(tipo, tasa);
+                        }
+                    } else {
+                        GeneradorProgramas.TipoError tipo = tipoError(error.substring(0, separador));
+                        if (tipo == null) {
+                            return false;
+                        }
+                        generador.setTasaError(tipo, decimal("--gen-errores", error.substring(separador + 1), 0, 1));
+                    }
+                }
+            } else if (!opcion.startsWith("--gen-semilla=")) {
+                System.err.println("Opción de generación desconocida: " + opcion);
+                return false;
+            }
+        }
+
+        long inicio = System.nanoTime();
+        try (Writer escritor = EscritorArchivo.abrirEscritor(archivo)) {
+            generador.generar(escritor);
+        } catch (IOException e) {
+            System.err.println("Error al generar " + archivo + ": " + e.getMessage());
+            return false;
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.printf("✓ Programa generado: %s (semilla %d)%n", archivo, semilla);
+        System.out.printf("  %d líneas, %d tokens, %.1f MB en %.2f s (%.1f MB/s)%n",
+                generador.getLineas(), generador.getTokens(), generador.getCaracteres() / 1048576.0,
+                segundos, generador.getCaracteres() / 1048576.0 / segundos);
+        for (GeneradorProgramas.TipoError tipo : GeneradorProgramas.TipoError.values()) {
+            if (generador.getErroresInyectados(tipo) > 0) {
+                System.out.printf("  Errores %s inyectados: %d%n",
+                        tipo.name().toLowerCase(Locale.ROOT), generador.getErroresInyectados(tipo));
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,315 @@
+package app;
+
+import generadores.GeneradorJSON;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mide cada etapa de una ejecución: tiempo de pared, tiempo de CPU y bytes
+ * asignados por el hilo que la ejecuta, más el rendimiento en tokens y nodos
+ * por segundo cuando la etapa los procesa.
+ *
+ * El CPU y los bytes asignados se leen de com.sun.management.ThreadMXBean para
+ * el hilo actual, así que cada etapa se inicia y termina en el hilo que hace el
+ * trabajo. En hilos virtuales (o en una JVM sin soporte) esos valores no están
+ * disponibles y quedan en null.
+ *
+ * Las etapas se listan en el orden en que se registran, aunque se ejecuten en
+ * paralelo: ver {@link #registrar(String)}.
+ *
+ * @author Sophia
+ */
+public class MedidorEtapas {
+
+    public static final String ARCHIVO_POR_DEFECTO = "metricas.json";
+
+    // Cambia si cambia la estructura de metricas.json
+    public static final int VERSION = 2;
+
+    private static final com.sun.management.ThreadMXBean HILOS = hilos();
+
+    private final List<Etapa> etapas;
+
+    /**
+     * Medición de una etapa. Se inicia y se termina en el mismo hilo.
+     */
+    public static final class Etapa {
+        private final String nombre;
+        private long inicioPared;
+        private long inicioCpu;
+        private long inicioAsignados;
+
+        private volatile boolean terminada;
+        private long nanosPared;
+        private long nanosCpu;
+        private long bytesAsignados;
+        private long tokens;
+        private long nodos;
+
+        private Etapa(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * Empieza a medir en el hilo actual.
+         *
+         * @return Esta etapa
+         */
+        public Etapa iniciar() {
+            inicioCpu = cpuActual();
+            inicioAsignados = asignadosActual();
+            inicioPared = System.nanoTime();
+            return this;
+        }
+
+        /**
+         * Termina la medición en el hilo actual.
+         *
+         * @param tokens Tokens procesados (0 si no aplica)
+         * @param nodos Nodos del árbol procesados (0 si no aplica)
+         */
+        public void terminar(long tokens, long nodos) {
+            nanosPared = System.nanoTime() - inicioPared;
+            long cpu = cpuActual();
+            long asignados = asignadosActual();
+            nanosCpu = cpu < 0 || inicioCpu < 0 ? -1 : cpu - inicioCpu;
+            bytesAsignados = asignados < 0 || inicioAsignados < 0 ? -1 : asignados - inicioAsignados;
+            this.tokens = tokens;
+            this.nodos = nodos;
+            terminada = true;
+        }
+
+        /**
+         * Termina la medición de una etapa sin tokens ni nodos.
+         */
+        public void terminar() {
+            terminar(0, 0);
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public boolean estaTerminada() {
+            return terminada;
+        }
+
+        public long getNanosPared() {
+            return nanosPared;
+        }
+
+        /**
+         * @return Instante de inicio (System.nanoTime)
+         */
+        public long getInicioPared() {
+            return inicioPared;
+        }
+
+        /**
+         * @return Nanosegundos de CPU del hilo, o -1 si no se pudo medir
+         */
+        public long getNanosCpu() {
+            return nanosCpu;
+        }
+
+        /**
+         * @return Bytes asignados por el hilo, o -1 si no se pudo medir
+         */
+        public long getBytesAsignados() {
+            return bytesAsignados;
+        }
+
+        public long getTokens() {
+            return tokens;
+        }
+
+        public long getNodos() {
+            return nodos;
+        }
+
+        private Map<String, Object> aMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("etapa", nombre);
+            mapa.put("paredNs", nanosPared);
+            mapa.put("cpuNs", nanosCpu < 0 ? null : nanosCpu);
+            mapa.put("bytesAsignados", bytesAsignados < 0 ? null : bytesAsignados);
+            mapa.put("tokens", tokens);
+            mapa.put("nodos", nodos);
+            mapa.put("tokensPorSegundo", porSegundo(tokens, nanosPared));
+            mapa.put("nodosPorSegundo", porSegundo(nodos, nanosPared));
+            return mapa;
+        }
+    }
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor del medidor.
+     */
+    public MedidorEtapas() {
+        this.etapas = new ArrayList<>();
+    }
+
+    //endregion
+
+    //region REGISTRO
+
+    /**
+     * Registra una etapa sin iniciarla. Sirve para fijar el orden de etapas que
+     * después corren en paralelo: cada una se inicia en su hilo.
+     *
+     * @param nombre Nombre de la etapa
+     * @return Etapa registrada
+     */
+    public synchronized Etapa registrar(String nombre) {
+        Etapa etapa = new Etapa(nombre);
+        etapas.add(etapa);
+        return etapa;
+    }
+
+    /**
+     * Registra una etapa y empieza a medirla en el hilo actual.
+     *
+     * @param nombre Nombre de la etapa
+     * @return Etapa iniciada
+     */
+    public Etapa iniciar(String nombre) {
+        return registrar(nombre).iniciar();
+    }
+
+    /**
+     * @return Etapas terminadas, en el orden de registro
+     */
+    public synchronized List<Etapa> getEtapas() {
+        List<Etapa> terminadas = new ArrayList<>();
+        for (Etapa etapa : etapas) {
+            if (etapa.estaTerminada()) {
+                terminadas.add(etapa);
+            }
+        }
+        return terminadas;
+    }
+
+    //endregion
+
+    //region SALIDA
+
+    /**
+     * Escribe las mediciones en JSON. El tiempo de pared total es el transcurrido
+     * desde el inicio de la primera etapa hasta el fin de la última, porque las
+     * etapas pueden solaparse; el CPU y los bytes asignados sí se suman.
+     *
+     * @param archivo Archivo analizado
+     * @param json Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirJSON(String archivo, Appendable json) throws IOException {
+        List<Object> lista = new ArrayList<>();
+        long pared = 0;
+        long cpu = 0;
+        long asignados = 0;
+        long inicio = Long.MAX_VALUE;
+        long fin = Long.MIN_VALUE;
+        for (Etapa etapa : getEtapas()) {
+            lista.add(etapa.aMapa());
+            // Diferencias y no comparaciones directas: nanoTime puede desbordar
+            if (inicio == Long.MAX_VALUE || etapa.getInicioPared() - inicio < 0) {
+                inicio = etapa.getInicioPared();
+            }
+            long finEtapa = etapa.getInicioPared() + etapa.getNanosPared();
+            if (fin == Long.MIN_VALUE || finEtapa - fin > 0) {
+                fin = finEtapa;
+            }
+            cpu = cpu < 0 || etapa.getNanosCpu() < 0 ? -1 : cpu + etapa.getNanosCpu();
+            asignados = asignados < 0 || etapa.getBytesAsignados() < 0 ? -1 : asignados + etapa.getBytesAsignados();
+        }
+
+        if (inicio != Long.MAX_VALUE) {
+            pared = fin - inicio;
+        }
+
+        Map<String, Object> suma = new LinkedHashMap<>();
+        suma.put("cpuNs", cpu < 0 ? null : cpu);
+        suma.put("bytesAsignados", asignados < 0 ? null : asignados);
+
+        Map<String, Object> raiz = new LinkedHashMap<>();
+        raiz.put("version", VERSION);
+        raiz.put("archivo", archivo);
+        raiz.put("procesadores", Runtime.getRuntime().availableProcessors());
+        raiz.put("etapas", lista);
+        raiz.put("paredNs", pared);
+        raiz.put("suma", suma);
+        GeneradorJSON.escribirValor(raiz, json);
+    }
+
+    /**
+     * Escribe las mediciones como tabla de texto.
+     *
+     * @param salida Destino
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirTabla(Appendable salida) throws IOException {
+        salida.append(String.format("%-30s %10s %10s %12s %14s %14s%n",
+                "Etapa", "Pared ms", "CPU ms", "Asignado MB", "Tokens/s", "Nodos/s"));
+        for (Etapa etapa : getEtapas()) {
+            salida.append(String.format("%-30s %10.1f %10s %12s %14s %14s%n",
+                    etapa.getNombre(),
+                    etapa.getNanosPared() / 1e6,
+                    etapa.getNanosCpu() < 0 ? "-" : String.format("%.1f", etapa.getNanosCpu() / 1e6),
+                    etapa.getBytesAsignados() < 0 ? "-" : String.format("%.1f", etapa.getBytesAsignados() / 1048576.0),
+                    formatoTasa(porSegundo(etapa.getTokens(), etapa.getNanosPared())),
+                    formatoTasa(porSegundo(etapa.getNodos(), etapa.getNanosPared()))));
+        }
+    }
+
+    //endregion
+
+    //region AUXILIARES
+
+    private static com.sun.management.ThreadMXBean hilos() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            if (bean.isThreadCpuTimeSupported() && !bean.isThreadCpuTimeEnabled()) {
+                bean.setThreadCpuTimeEnabled(true);
+            }
+            if (bean.isThreadAllocatedMemorySupported() && !bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+
+    private static long cpuActual() {
+        if (HILOS == null || !HILOS.isThreadCpuTimeSupported() || Thread.currentThread().isVirtual()) {
+            return -1;
+        }
+        return HILOS.getCurrentThreadCpuTime();
+    }
+
+    private static long asignadosActual() {
+        if (HILOS == null || !HILOS.isThreadAllocatedMemorySupported() || Thread.currentThread().isVirtual()) {
+            return -1;
+        }
+        return HILOS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * @return Elementos por segundo, o null si la etapa no procesa elementos
+     */
+    private static Long porSegundo(long cantidad, long nanos) {
+        if (cantidad <= 0 || nanos <= 0) {
+            return null;
+        }
+        return (long) (cantidad * 1e9 / nanos);
+    }
+
+    private static String formatoTasa(Long tasa) {
+        return tasa == null ? "-" : String.format("%,d", tasa);
+    }
+
+    //endregion
+}
@@ -1,5 +1,7 @@
 package analizadorSintactico;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -56,6 +58,24 @@ public class NodoArbol {
         return hijos.isEmpty();
     }
 
+    /**
+     * Cuenta los nodos del subárbol (incluido este) sin recursión, así que
+     * sirve también para árboles muy profundos.
+     *
+     * @return Cantidad de nodos
+     */
+    public long contarNodos() {
+        long total = 0;
+        List<NodoArbol> pendientes = new ArrayList<>();
+        pendientes.add(this);
+        while (!pendientes.isEmpty()) {
+            NodoArbol nodo = pendientes.remove(pendientes.size() - 1);
+            total++;
+            pendientes.addAll(nodo.hijos);
+        }
+        return total;
+    }
+
     //endregion
 
     //region GETTERS Y SETTERS
@@ -112,21 +132,63 @@ public class NodoArbol {
      */
     public String imprimirArbol(String prefijo) {
         StringBuilder sb = new StringBuilder();
-        sb.append(prefijo).append("└─ ").append(simbolo);
-
-        if (esTerminal) {
-            sb.append(" (Terminal)");
+        try {
+            escribirArbol(sb, prefijo, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return sb.toString();
+    }
 
-        sb.append("\n");
-
-        for (int i = 0; i < hijos.size(); i++) {
-            NodoArbol hijo = hijos.get(i);
-            String nuevoPrefijo = prefijo + (i == hijos.size() - 1 ? "   " : "│  ");
-            sb.append(hijo.imprimirArbol(nuevoPrefijo));
+    /**
+     * Escribe el árbol en texto línea por línea, sin recursión. El prefijo se
+     * reutiliza entre líneas, así que el costo es lineal en el texto escrito.
+     *
+     * @param salida Destino del texto
+     * @param prefijo Prefijo para la indentación
+     * @param limiteNodos Nodos escritos como máximo; el resto se resume en una línea
+     * @return Nodos escritos
+     * @throws IOException Si hay error al escribir
+     */
+    public long escribirArbol(Appendable salida, String prefijo, long limiteNodos) throws IOException {
+        // Nodo, profundidad relativa y si es el último hijo de su padre
+        record Pendiente(NodoArbol nodo, int profundidad, boolean ultimo) {
         }
 
-        return sb.toString();
+        StringBuilder indentacion = new StringBuilder(prefijo);
+        List<Pendiente> pendientes = new ArrayList<>();
+        pendientes.add(new Pendiente(this, 0, true));
+        long escritos = 0;
+
+        while (!pendientes.isEmpty()) {
+            Pendiente pendiente = pendientes.remove(pendientes.size() - 1);
+            if (escritos == limiteNodos) {
+                salida.append(prefijo).append("… árbol truncado en ").append(String.valueOf(limiteNodos))
+                        .append(" nodos\n");
+                break;
+            }
+
+            // Un segmento de tres caracteres por nivel por encima del nodo
+            int profundidad = pendiente.profundidad();
+            if (profundidad > 0) {
+                indentacion.setLength(prefijo.length() + 3 * (profundidad - 1));
+                indentacion.append(pendiente.ultimo() ? "   " : "│  ");
+            }
+
+            NodoArbol nodo = pendiente.nodo();
+            salida.append(indentacion).append("└─ ").append(nodo.simbolo);
+            if (nodo.esTerminal) {
+                salida.append(" (Terminal)");
+            }
+            salida.append("\n");
+            escritos++;
+
+            // En orden inverso para que el primer hijo quede en el tope
+            for (int i = nodo.hijos.size() - 1; i >= 0; i--) {
+                pendientes.add(new Pendiente(nodo.hijos.get(i), profundidad + 1, i == nodo.hijos.size() - 1));
+            }
+        }
+        return escritos;
     }
 
     @Override
@@ -0,0 +1,96 @@
+package generadores;
+
+/**
+ * Políticas de tamaño para los archivos DOT.
+ * Por defecto no se limita nada y la salida es el árbol completo.
+ *
+ * @author Sophia
+ */
+public class OpcionesDOT {
+
+    public static final int SIN_LIMITE = Integer.MAX_VALUE;
+
+    private int profundidadMaxima;
+    private int limiteNodos;
+    private boolean colapsarEspinas;
+    private boolean omitirEpsilon;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor de opciones sin límites (árbol completo).
+     */
+    public OpcionesDOT() {
+        this.profundidadMaxima = SIN_LIMITE;
+        this.limiteNodos = SIN_LIMITE;
+        this.colapsarEspinas = false;
+        this.omitirEpsilon = false;
+    }
+
+    /**
+     * Opciones pensadas para entradas grandes: el archivo queda visualizable
+     * sin importar el tamaño del árbol.
+     *
+     * @return Opciones con límites de profundidad y nodos, espinas colapsadas y sin ε
+     */
+    public static OpcionesDOT acotadas() {
+        OpcionesDOT opciones = new OpcionesDOT();
+        opciones.setProfundidadMaxima(200);
+        opciones.setLimiteNodos(5000);
+        opciones.setColapsarEspinas(true);
+        opciones.setOmitirEpsilon(true);
+        return opciones;
+    }
+
+    //endregion
+
+    //region GETTERS Y SETTERS
+
+    public int getProfundidadMaxima() {
+        return profundidadMaxima;
+    }
+
+    /**
+     * @param profundidadMaxima Niveles bajo la raíz que se escriben; los subárboles
+     *                          más profundos se resumen en un marcador
+     */
+    public void setProfundidadMaxima(int profundidadMaxima) {
+        this.profundidadMaxima = profundidadMaxima;
+    }
+
+    public int getLimiteNodos() {
+        return limiteNodos;
+    }
+
+    /**
+     * @param limiteNodos Máximo de nodos escritos; al alcanzarlo se corta el recorrido
+     */
+    public void setLimiteNodos(int limiteNodos) {
+        this.limiteNodos = limiteNodos;
+    }
+
+    public boolean colapsaEspinas() {
+        return colapsarEspinas;
+    }
+
+    /**
+     * @param colapsarEspinas Si una cadena recursiva por la derecha (A → ... A) se
+     *                        escribe como un único nodo "A ×N" con los hijos de toda la cadena
+     */
+    public void setColapsarEspinas(boolean colapsarEspinas) {
+        this.colapsarEspinas = colapsarEspinas;
+    }
+
+    public boolean omiteEpsilon() {
+        return omitirEpsilon;
+    }
+
+    /**
+     * @param omitirEpsilon Si se omiten las hojas ε
+     */
+    public void setOmitirEpsilon(boolean omitirEpsilon) {
+        this.omitirEpsilon = omitirEpsilon;
+    }
+
+    //endregion
+}
@@ -0,0 +1,623 @@
+package analizadorSintactico;
+
+import java.util.*;
+
+/**
+ * Optimizador de la gramática LL(1).
+ * Elimina producciones unitarias (A → B) y expande en línea los no terminales
+ * con una sola alternativa (por ejemplo Expresion → Termino ExpresionPrima),
+ * reduciendo el número de derivaciones por token en el análisis predictivo.
+ *
+ * Cada transformación se acepta solo si la tabla resultante sigue siendo LL(1).
+ * Se conserva una plantilla por alternativa para poder expresar los árboles
+ * obtenidos con la gramática optimizada en términos de la gramática original.
+ * La tabla optimizada lleva una referencia al optimizador, así que
+ * {@link AnalizadorLL1} expande cada alternativa según su plantilla y arma
+ * directamente el árbol de la gramática original.
+ *
+ * @author Sophia
+ */
+public class OptimizadorGramatica {
+
+    private Gramatica original;
+    private Gramatica optimizada;
+    private TablaLL1 tablaOptimizada;
+    private TablaLL1 tablaOriginal;
+
+    // Plantilla de cada entrada de la tabla optimizada: NoTerminal -> Terminal -> plantilla
+    private Map<String, Map<String, List<Plantilla>>> tablaPlantillas;
+
+    private boolean mostrarSalida;
+
+    // Producciones de trabajo y su plantilla de origen (mismo orden de alternativas)
+    private Map<String, List<List<String>>> producciones;
+    private Map<String, List<List<Plantilla>>> plantillas;
+
+    // No terminales eliminados por la optimización
+    private List<String> noTerminalesEliminados;
+
+    // Transformaciones descartadas por romper la propiedad LL(1)
+    private List<String> transformacionesRechazadas;
+
+    //region CLASES AUXILIARES
+
+    /**
+     * Nodo de la plantilla de una alternativa optimizada.
+     * Las hojas son los símbolos de la alternativa; los nodos internos son
+     * los no terminales originales que fueron expandidos en línea.
+     */
+    public static class Plantilla {
+        private final String simbolo;
+        private final List<Plantilla> hijos;
+
+        Plantilla(String simbolo, List<Plantilla> hijos) {
+            this.simbolo = simbolo;
+            this.hijos = hijos;
+        }
+
+        Plantilla(String simbolo) {
+            this(simbolo, null);
+        }
+
+        public String getSimbolo() {
+            return simbolo;
+        }
+
+        public List<Plantilla> getHijos() {
+            return hijos;
+        }
+
+        public boolean esHoja() {
+            return hijos == null;
+        }
+    }
+
+    //endregion
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor del optimizador.
+     *
+     * @param original La gramática original
+     */
+    public OptimizadorGramatica(Gramatica original) {
+        this.original = original;
+        this.noTerminalesEliminados = new ArrayList<>();
+        this.transformacionesRechazadas = new ArrayList<>();
+        this.mostrarSalida = true;
+    }
+
+    /**
+     * Tabla optimizada de la gramática del lenguaje. La gramática es fija, así
+     * que se construye una sola vez por proceso, la primera vez que se pide.
+     */
+    private static final class TablaDelLenguaje {
+        static final TablaLL1 TABLA = construir();
+
+        private static TablaLL1 construir() {
+            OptimizadorGramatica optimizador = new OptimizadorGramatica(new Gramatica());
+            optimizador.setMostrarSalida(false);
+            optimizador.optimizar();
+            return optimizador.getTablaOptimizada();
+        }
+    }
+
+    /**
+     * Tabla de la gramática del lenguaje optimizada, construida en silencio la
+     * primera vez y compartida después. La tabla es de solo lectura y se
+     * comparte entre análisis, como la de {@link TablaLL1}; los análisis que la
+     * usan arman el árbol original.
+     *
+     * @return Tabla optimizada (ver getOptimizador)
+     */
+    public static TablaLL1 construirTablaOptimizada() {
+        return TablaDelLenguaje.TABLA;
+    }
+
+    public void setMostrarSalida(boolean mostrarSalida) {
+        this.mostrarSalida = mostrarSalida;
+    }
+
+    //endregion
+
+    //region OPTIMIZACIÓN
+
+    /**
+     * Aplica las transformaciones y retorna la gramática optimizada.
+     *
+     * @return Gramática optimizada (LL(1))
+     */
+    public Gramatica optimizar() {
+        if (mostrarSalida) {
+            System.out.println("--- OPTIMIZANDO GRAMÁTICA ---\n");
+        }
+
+        inicializarProducciones();
+
+        eliminarProduccionesUnitarias();
+        expandirAlternativasUnicas();
+        eliminarInalcanzables();
+
+        optimizada = construirGramatica(producciones);
+        tablaOptimizada = new TablaLL1(optimizada, false);
+        tablaOriginal = new TablaLL1(original, false);
+        construirTablaPlantillas();
+        tablaOptimizada.setOptimizador(this);
+
+        if (mostrarSalida) {
+            mostrarResultados();
+        }
+        return optimizada;
+    }
+
+    /**
+     * Asocia cada entrada de la tabla optimizada con la plantilla de su alternativa.
+     */
+    private void construirTablaPlantillas() {
+        Map<String, Map<String, List<Plantilla>>> resultado = new HashMap<>();
+        for (Map.Entry<String, Map<String, List<String>>> fila : tablaOptimizada.getTabla().entrySet()) {
+            List<List<String>> alternativas = producciones.get(fila.getKey());
+            Map<String, List<Plantilla>> filaPlantillas = new HashMap<>();
+            for (Map.Entry<String, List<String>> entrada : fila.getValue().entrySet()) {
+                int indice = alternativas.indexOf(entrada.getValue());
+                filaPlantillas.put(entrada.getKey(), plantillas.get(fila.getKey()).get(indice));
+            }
+            resultado.put(fila.getKey(), Collections.unmodifiableMap(filaPlantillas));
+        }
+        tablaPlantillas = Collections.unmodifiableMap(resultado);
+    }
+
+    /**
+     * Copia las producciones originales; cada símbolo es una hoja de su plantilla.
+     */
+    private void inicializarProducciones() {
+        producciones = new HashMap<>();
+        plantillas = new HashMap<>();
+
+        for (Map.Entry<String, List<List<String>>> entrada : original.getProducciones().entrySet()) {
+            List<List<String>> alternativas = new ArrayList<>();
+            List<List<Plantilla>> plantillasNT = new ArrayList<>();
+
+            for (List<String> alternativa : entrada.getValue()) {
+                alternativas.add(new ArrayList<>(alternativa));
+                List<Plantilla> plantilla = new ArrayList<>();
+                for (String simbolo : alternativa) {
+                    plantilla.add(new Plantilla(simbolo));
+                }
+                plantillasNT.add(plantilla);
+            }
+
+            producciones.put(entrada.getKey(), alternativas);
+            plantillas.put(entrada.getKey(), plantillasNT);
+        }
+    }
+
+    /**
+     * Reemplaza cada alternativa A → B (B no terminal con varias alternativas)
+     * por las alternativas de B.
+     */
+    private void eliminarProduccionesUnitarias() {
+        for (String noTerminal : new TreeSet<>(producciones.keySet())) {
+            List<List<String>> alternativas = producciones.get(noTerminal);
+
+            for (int i = 0; i < alternativas.size(); i++) {
+                List<String> alternativa = alternativas.get(i);
+                if (alternativa.size() != 1) continue;
+
+                String destino = alternativa.get(0);
+                if (!producciones.containsKey(destino) || destino.equals(noTerminal)) continue;
+                if (producciones.get(destino).size() < 2) continue; // Lo resuelve la expansión en línea
+
+                Map<String, List<List<String>>> respaldoProd = copiarProducciones();
+                Map<String, List<List<Plantilla>>> respaldoPlant = copiarPlantillas();
+
+                List<List<String>> nuevas = new ArrayList<>();
+                List<List<Plantilla>> nuevasPlantillas = new ArrayList<>();
+                for (int k = 0; k < producciones.get(destino).size(); k++) {
+                    nuevas.add(new ArrayList<>(producciones.get(destino).get(k)));
+                    nuevasPlantillas.add(List.of(new Plantilla(destino, plantillas.get(destino).get(k))));
+                }
+
+                alternativas.remove(i);
+                alternativas.addAll(i, nuevas);
+                plantillas.get(noTerminal).remove(i);
+                plantillas.get(noTerminal).addAll(i, nuevasPlantillas);
+
+                if (!sigueSiendoLL1()) {
+                    transformacionesRechazadas.add(noTerminal + " → " + destino);
+                    producciones = respaldoProd;
+                    plantillas = respaldoPlant;
+                    alternativas = producciones.get(noTerminal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Expande en línea todo no terminal con una única alternativa que no sea
+     * el símbolo inicial ni se refiera a sí mismo.
+     */
+    private void expandirAlternativasUnicas() {
+        boolean cambio;
+        do {
+            cambio = false;
+            for (String noTerminal : new TreeSet<>(producciones.keySet())) {
+                if (!esCandidatoExpansion(noTerminal)) continue;
+
+                Map<String, List<List<String>>> respaldoProd = copiarProducciones();
+                Map<String, List<List<Plantilla>>> respaldoPlant = copiarPlantillas();
+
+                expandir(noTerminal);
+
+                if (sigueSiendoLL1()) {
+                    producciones.remove(noTerminal);
+                    plantillas.remove(noTerminal);
+                    noTerminalesEliminados.add(noTerminal);
+                    cambio = true;
+                } else {
+                    transformacionesRechazadas.add(noTerminal + " (expansión en línea)");
+                    producciones = respaldoProd;
+                    plantillas = respaldoPlant;
+                }
+            }
+        } while (cambio);
+    }
+
+    /**
+     * Indica si un no terminal puede expandirse en línea.
+     */
+    private boolean esCandidatoExpansion(String noTerminal) {
+        if (noTerminal.equals(original.getSimboloInicial())) return false;
+        if (transformacionesRechazadas.contains(noTerminal + " (expansión en línea)")) return false;
+
+        List<List<String>> alternativas = producciones.get(noTerminal);
+        if (alternativas.size() != 1) return false;
+
+        List<String> cuerpo = alternativas.get(0);
+        return !cuerpo.contains(noTerminal) && !cuerpo.contains(Gramatica.EPSILON);
+    }
+
+    /**
+     * Sustituye cada aparición de un no terminal por su única alternativa.
+     */
+    private void expandir(String noTerminal) {
+        List<String> cuerpo = producciones.get(noTerminal).get(0);
+        List<Plantilla> cuerpoPlantilla = plantillas.get(noTerminal).get(0);
+
+        for (String otro : producciones.keySet()) {
+            if (otro.equals(noTerminal)) continue;
+
+            List<List<String>> alternativas = producciones.get(otro);
+            List<List<Plantilla>> plantillasOtro = plantillas.get(otro);
+
+            for (int i = 0; i < alternativas.size(); i++) {
+                if (!alternativas.get(i).contains(noTerminal)) continue;
+
+                List<String> nueva = new ArrayList<>();
+                for (String simbolo : alternativas.get(i)) {
+                    if (simbolo.equals(noTerminal)) {
+                        nueva.addAll(cuerpo);
+                    } else {
+                        nueva.add(simbolo);
+                    }
+                }
+                alternativas.set(i, nueva);
+                plantillasOtro.set(i, sustituirHoja(plantillasOtro.get(i), noTerminal, cuerpoPlantilla));
+            }
+        }
+    }
+
+    /**
+     * Reemplaza las hojas con el símbolo dado por un nodo interno con la plantilla del cuerpo.
+     */
+    private List<Plantilla> sustituirHoja(List<Plantilla> plantilla, String simbolo, List<Plantilla> cuerpo) {
+        List<Plantilla> resultado = new ArrayList<>();
+        for (Plantilla nodo : plantilla) {
+            if (nodo.esHoja() && nodo.getSimbolo().equals(simbolo)) {
+                resultado.add(new Plantilla(simbolo, cuerpo));
+            } else if (nodo.esHoja()) {
+                resultado.add(nodo);
+            } else {
+                resultado.add(new Plantilla(nodo.getSimbolo(), sustituirHoja(nodo.getHijos(), simbolo, cuerpo)));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Elimina los no terminales que ya no son alcanzables desde el símbolo inicial.
+     */
+    private void eliminarInalcanzables() {
+        Set<String> alcanzables = new HashSet<>();
+        Deque<String> pendientes = new ArrayDeque<>();
+        pendientes.push(original.getSimboloInicial());
+
+        while (!pendientes.isEmpty()) {
+            String actual = pendientes.pop();
+            if (!alcanzables.add(actual)) continue;
+
+            for (List<String> alternativa : producciones.get(actual)) {
+                for (String simbolo : alternativa) {
+                    if (producciones.containsKey(simbolo) && !alcanzables.contains(simbolo)) {
+                        pendientes.push(simbolo);
+                    }
+                }
+            }
+        }
+
+        for (String noTerminal : new TreeSet<>(producciones.keySet())) {
+            if (!alcanzables.contains(noTerminal)) {
+                producciones.remove(noTerminal);
+                plantillas.remove(noTerminal);
+                noTerminalesEliminados.add(noTerminal);
+            }
+        }
+    }
+
+    //endregion
+
+    //region RESTAURACIÓN DE ÁRBOLES
+
+    /**
+     * Plantilla de la alternativa que la tabla optimizada elige para un par
+     * [NoTerminal, Terminal]. Las hojas son los símbolos de la alternativa.
+     *
+     * @param noTerminal No terminal de la gramática optimizada
+     * @param terminal Terminal de la entrada
+     * @return Plantilla, o null si la tabla no tiene entrada
+     */
+    public List<Plantilla> obtenerPlantilla(String noTerminal, String terminal) {
+        Map<String, List<Plantilla>> fila = tablaPlantillas.get(noTerminal);
+        return fila != null ? fila.get(terminal) : null;
+    }
+
+    /**
+     * Expresa un árbol construido con la gramática optimizada en términos
+     * de los no terminales originales. Los árboles que arma {@link AnalizadorLL1}
+     * con la tabla optimizada ya están en la gramática original.
+     *
+     * Recorre el árbol con una pila explícita, así que su profundidad no está
+     * limitada por la pila de Java.
+     *
+     * @param raiz Raíz del árbol optimizado
+     * @return Raíz del árbol equivalente en la gramática original
+     */
+    public NodoArbol restaurarArbol(NodoArbol raiz) {
+        if (raiz == null) {
+            return null;
+        }
+
+        NodoArbol restaurada = new NodoArbol(raiz.getSimbolo(), raiz.esTerminal());
+
+        // Pares [nodo optimizado, copia restaurada] cuyos hijos faltan copiar
+        Deque<NodoArbol[]> pendientes = new ArrayDeque<>();
+        pendientes.push(new NodoArbol[]{raiz, restaurada});
+
+        while (!pendientes.isEmpty()) {
+            NodoArbol[] par = pendientes.pop();
+            NodoArbol origen = par[0];
+            NodoArbol restaurado = par[1];
+            List<Plantilla> plantilla = buscarPlantilla(origen);
+
+            if (plantilla == null) {
+                for (NodoArbol hijo : origen.getHijos()) {
+                    restaurado.agregarHijo(copiarPendiente(hijo, pendientes));
+                }
+            } else {
+                agregarSegunPlantilla(restaurado, plantilla, origen.getHijos().iterator(), pendientes);
+            }
+        }
+
+        return restaurada;
+    }
+
+    /**
+     * Copia un nodo sin sus hijos y lo deja pendiente para copiarlos después.
+     */
+    private static NodoArbol copiarPendiente(NodoArbol nodo, Deque<NodoArbol[]> pendientes) {
+        NodoArbol copia = new NodoArbol(nodo.getSimbolo(), nodo.esTerminal());
+        pendientes.push(new NodoArbol[]{nodo, copia});
+        return copia;
+    }
+
+    /**
+     * Busca la plantilla de la alternativa usada en el nodo comparando todos sus
+     * hijos: los no terminales por nombre y los terminales por su lexema.
+     */
+    private List<Plantilla> buscarPlantilla(NodoArbol nodo) {
+        if (nodo.esTerminal() || plantillas == null || !plantillas.containsKey(nodo.getSimbolo())) {
+            return null;
+        }
+
+        List<List<String>> alternativas = producciones.get(nodo.getSimbolo());
+        List<NodoArbol> hijos = nodo.getHijos();
+
+        for (int i = 0; i < alternativas.size(); i++) {
+            List<String> alternativa = alternativas.get(i);
+            if (alternativa.size() != hijos.size()) continue;
+
+            boolean coincide = true;
+            for (int j = 0; j < alternativa.size() && coincide; j++) {
+                NodoArbol hijo = hijos.get(j);
+                if (hijo.esTerminal()) {
+                    coincide = coincideTerminal(alternativa.get(j), hijo.getSimbolo());
+                } else {
+                    coincide = hijo.getSimbolo().equals(alternativa.get(j));
+                }
+            }
+
+            if (coincide) {
+                return plantillas.get(nodo.getSimbolo()).get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indica si una hoja del árbol corresponde al terminal esperado. El análisis
+     * reemplaza el símbolo de cada terminal reconocido por su lexema, así que
+     * identificadores y números se reconocen por su forma.
+     */
+    private boolean coincideTerminal(String esperado, String simbolo) {
+        if (esperado.equals(simbolo)) {
+            return true;
+        }
+        if (simbolo.isEmpty()) {
+            return false;
+        }
+        char primero = simbolo.charAt(0);
+        return switch (esperado) {
+            case "numero" -> Character.isDigit(primero);
+            case "identificador" -> Character.isJavaIdentifierStart(primero)
+                    && !original.getTerminales().contains(simbolo);
+            default -> false;
+        };
+    }
+
+    /**
+     * Reconstruye los nodos intermedios de la plantilla consumiendo los hijos en
+     * orden; cada hijo copiado queda pendiente para copiar su propio subárbol.
+     * La recursión sigue solo la plantilla, cuya profundidad fija la gramática.
+     */
+    private void agregarSegunPlantilla(NodoArbol padre, List<Plantilla> plantilla, Iterator<NodoArbol> hijos,
+                                       Deque<NodoArbol[]> pendientes) {
+        for (Plantilla nodo : plantilla) {
+            if (nodo.esHoja()) {
+                if (hijos.hasNext()) {
+                    padre.agregarHijo(copiarPendiente(hijos.next(), pendientes));
+                }
+            } else {
+                NodoArbol intermedio = new NodoArbol(nodo.getSimbolo(), false);
+                padre.agregarHijo(intermedio);
+                agregarSegunPlantilla(intermedio, nodo.getHijos(), hijos, pendientes);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el no terminal original del que proviene la posición dada de una alternativa.
+     *
+     * @param noTerminal No terminal de la gramática optimizada
+     * @param alternativa Índice de la alternativa
+     * @param posicion Posición del símbolo dentro de la alternativa
+     * @return No terminal original más interno que contiene el símbolo
+     */
+    public String obtenerOrigen(String noTerminal, int alternativa, int posicion) {
+        List<Plantilla> plantilla = plantillas.get(noTerminal).get(alternativa);
+        String origen = buscarOrigen(plantilla, noTerminal, new int[]{posicion});
+        return origen != null ? origen : noTerminal;
+    }
+
+    private String buscarOrigen(List<Plantilla> plantilla, String contenedor, int[] restante) {
+        for (Plantilla nodo : plantilla) {
+            if (nodo.esHoja()) {
+                if (restante[0] == 0) {
+                    return contenedor;
+                }
+                restante[0]--;
+            } else {
+                String origen = buscarOrigen(nodo.getHijos(), nodo.getSimbolo(), restante);
+                if (origen != null) {
+                    return origen;
+                }
+            }
+        }
+        return null;
+    }
+
+    //endregion
+
+    //region MÉTODOS AUXILIARES
+
+    /**
+     * Construye una gramática con las producciones actuales.
+     */
+    private Gramatica construirGramatica(Map<String, List<List<String>>> prods) {
+        return new Gramatica(original.getSimboloInicial(), prods, original.getTerminales());
+    }
+
+    /**
+     * Verifica con la tabla LL(1) que las producciones actuales no tengan conflictos.
+     */
+    private boolean sigueSiendoLL1() {
+        return new TablaLL1(construirGramatica(copiarProducciones()), false, false).esLL1();
+    }
+
+    private Map<String, List<List<String>>> copiarProducciones() {
+        Map<String, List<List<String>>> copia = new HashMap<>();
+        for (Map.Entry<String, List<List<String>>> entrada : producciones.entrySet()) {
+            List<List<String>> alternativas = new ArrayList<>();
+            for (List<String> alternativa : entrada.getValue()) {
+                alternativas.add(new ArrayList<>(alternativa));
+            }
+            copia.put(entrada.getKey(), alternativas);
+        }
+        return copia;
+    }
+
+    private Map<String, List<List<Plantilla>>> copiarPlantillas() {
+        Map<String, List<List<Plantilla>>> copia = new HashMap<>();
+        for (Map.Entry<String, List<List<Plantilla>>> entrada : plantillas.entrySet()) {
+            copia.put(entrada.getKey(), new ArrayList<>(entrada.getValue()));
+        }
+        return copia;
+    }
+
+    /**
+     * Muestra el resultado de la optimización.
+     */
+    private void mostrarResultados() {
+        System.out.println("No terminales originales: " + original.getNoTerminales().size());
+        System.out.println("No terminales optimizados: " + optimizada.getNoTerminales().size());
+        System.out.println("Eliminados: " + noTerminalesEliminados);
+
+        if (!transformacionesRechazadas.isEmpty()) {
+            System.out.println("Transformaciones descartadas (romperían LL(1)): " + transformacionesRechazadas);
+        }
+
+        if (tablaOptimizada.esLL1()) {
+            System.out.println("✓ La gramática optimizada ES LL(1)");
+        } else {
+            System.out.println("✗ La gramática optimizada NO ES LL(1)");
+        }
+        System.out.println("----------------------------------------------\n");
+    }
+
+    //endregion
+
+    //region GETTERS
+
+    public Gramatica getGramaticaOriginal() {
+        return original;
+    }
+
+    public Gramatica getGramaticaOptimizada() {
+        return optimizada;
+    }
+
+    public TablaLL1 getTablaOptimizada() {
+        return tablaOptimizada;
+    }
+
+    /**
+     * @return Tabla de la gramática original (para los reportes)
+     */
+    public TablaLL1 getTablaOriginal() {
+        return tablaOriginal;
+    }
+
+    public List<String> getNoTerminalesEliminados() {
+        return noTerminalesEliminados;
+    }
+
+    public List<String> getTransformacionesRechazadas() {
+        return transformacionesRechazadas;
+    }
+
+    public Map<String, List<List<Plantilla>>> getPlantillas() {
+        return plantillas;
+    }
+
+    //endregion
+}
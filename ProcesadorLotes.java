@@ -0,0 +1,379 @@
+package app;
+
+import analizadorLexico.AnalizadorLexico;
+import analizadorSintactico.OptimizadorGramatica;
+import analizadorSintactico.TablaLL1;
+import archivos.EscritorArchivo;
+import archivos.LectorArchivo;
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import eventos.EventosJFR;
+import generadores.OpcionesDOT;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Analiza muchos archivos en una sola ejecución.
+ *
+ * La gramática y la tabla LL(1) se construyen una vez y se comparten (son de
+ * solo lectura) entre todos los análisis. Los archivos se reparten en un pool
+ * con robo de trabajo, del más grande al más chico, para que el último en
+ * terminar no sea un archivo grande que empezó tarde. Cada archivo escribe sus
+ * salidas en su propio directorio y al final se escribe un resumen.
+ *
+ * @author Sophia
+ */
+public class ProcesadorLotes {
+
+    public static final String DIRECTORIO_POR_DEFECTO = "salida_lote";
+    public static final String EXTENSION_FUENTE = ".txt";
+    public static final String ARCHIVO_RESUMEN = "resumen.txt";
+
+    private final TablaLL1 tablaLL1;
+    private final Path directorioSalida;
+
+    // Límites de los DOT de cada archivo y si se comprimen con gzip
+    private OpcionesDOT opcionesDOT;
+    private boolean comprimirDOT;
+
+    /**
+     * Resultado del análisis de un archivo.
+     *
+     * @param archivo Archivo analizado
+     * @param directorio Directorio de sus salidas
+     * @param bytes Tamaño del archivo
+     * @param tokens Tokens reconocidos (válidos e inválidos)
+     * @param errores Errores por etapa (índice = Diagnostico.Etapa)
+     * @param nanos Tiempo de análisis y escritura
+     * @param fallo Excepción si el archivo no se pudo procesar (null si no)
+     */
+    public record ResultadoArchivo(Path archivo, Path directorio, long bytes, int tokens,
+                                   int[] errores, long nanos, Throwable fallo) {
+
+        public int totalErrores() {
+            int total = 0;
+            for (int cantidad : errores) {
+                total += cantidad;
+            }
+            return total;
+        }
+    }
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor del procesador. Construye la gramática y la tabla compartidas.
+     *
+     * @param directorioSalida Directorio donde se crean los directorios de cada archivo
+     */
+    public ProcesadorLotes(Path directorioSalida) {
+        this.tablaLL1 = OptimizadorGramatica.construirTablaOptimizada();
+        this.directorioSalida = directorioSalida;
+        this.opcionesDOT = OpcionesDOT.acotadas();
+    }
+
+    /**
+     * @param opcionesDOT Límites de arbol.dot, ast.dot y arbol.svg (por defecto OpcionesDOT.acotadas())
+     */
+    public void setOpcionesDOT(OpcionesDOT opcionesDOT) {
+        this.opcionesDOT = opcionesDOT;
+    }
+
+    /**
+     * @param comprimirDOT Si arbol.dot y ast.dot se escriben comprimidos con gzip
+     */
+    public void setComprimirDOT(boolean comprimirDOT) {
+        this.comprimirDOT = comprimirDOT;
+    }
+
+    //endregion
+
+    //region EJECUCIÓN
+
+    /**
+     * Expande las entradas, analiza todos los archivos y escribe el resumen.
+     *
+     * @param entradas Archivos, directorios o patrones glob
+     * @return false si algún archivo no se pudo procesar
+     */
+    public boolean ejecutar(List<String> entradas) {
+        try {
+            List<Path> archivos = expandir(entradas);
+            System.out.println("Analizando " + archivos.size() + " archivos con "
+                    + Runtime.getRuntime().availableProcessors() + " hilos...\n");
+
+            long inicio = System.nanoTime();
+            List<ResultadoArchivo> resultados = procesar(archivos);
+            long nanos = System.nanoTime() - inicio;
+
+            Files.createDirectories(directorioSalida);
+            EscritorArchivo.escribirArchivo(directorioSalida.resolve(ARCHIVO_RESUMEN).toString(),
+                    salida -> escribirResumen(resultados, nanos, salida));
+            escribirResumen(resultados, nanos, System.out);
+
+            return resultados.stream().allMatch(resultado -> resultado.fallo() == null);
+        } catch (IOException e) {
+            System.err.println("\nERROR: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Analiza los archivos en un pool con robo de trabajo, del más grande al más chico.
+     *
+     * @param archivos Archivos a analizar
+     * @return Resultados en el orden en que se procesaron (por tamaño decreciente);
+     *         los archivos que fallaron llevan la causa en fallo
+     */
+    public List<ResultadoArchivo> procesar(List<Path> archivos) throws IOException {
+        Map<Path, Long> tamanos = new HashMap<>();
+        for (Path archivo : archivos) {
+            tamanos.put(archivo, Files.size(archivo));
+        }
+        List<Path> ordenados = new ArrayList<>(archivos);
+        ordenados.sort(Comparator.comparing(tamanos::get, Comparator.reverseOrder()));
+
+        List<Future<ResultadoArchivo>> tareas = new ArrayList<>(ordenados.size());
+        List<ResultadoArchivo> resultados = new ArrayList<>(ordenados.size());
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            // Las tareas externas se toman en orden de llegada: las grandes primero
+            for (Path archivo : ordenados) {
+                long bytes = tamanos.get(archivo);
+                tareas.add(pool.submit(() -> analizarArchivo(archivo, bytes)));
+            }
+            for (int i = 0; i < tareas.size(); i++) {
+                try {
+                    resultados.add(tareas.get(i).get());
+                } catch (ExecutionException e) {
+                    // Un Error (por ejemplo StackOverflowError) solo invalida ese archivo
+                    Path archivo = ordenados.get(i);
+                    resultados.add(new ResultadoArchivo(archivo, directorioSalida.resolve(nombreSalida(archivo)),
+                            tamanos.get(archivo), 0, new int[Diagnostico.Etapa.values().length], 0, e.getCause()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Análisis interrumpido", e);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return resultados;
+    }
+
+    /**
+     * Analiza un archivo completo y escribe sus salidas, sin mensajes en consola.
+     * Los errores de lectura o escritura quedan en el resultado.
+     */
+    private ResultadoArchivo analizarArchivo(Path archivo, long bytes) {
+        Path directorio = directorioSalida.resolve(nombreSalida(archivo));
+        long inicio = System.nanoTime();
+        int[] errores = new int[Diagnostico.Etapa.values().length];
+        int tokens = 0;
+        EventosJFR.Analisis evento = EventosJFR.estanActivos() ? new EventosJFR.Analisis() : null;
+        if (evento != null) {
+            evento.begin();
+        }
+
+        try {
+            Analisis analisis = Analisis.completo(LectorArchivo.leerArchivo(archivo.toString()), tablaLL1);
+            AnalizadorLexico lexico = analisis.getLexico();
+            ColectorDiagnosticos diagnosticos = analisis.getDiagnosticos();
+            tokens = lexico.getTokensValidos().size() + lexico.getTokensInvalidos().size();
+
+            Files.createDirectories(directorio);
+            for (EscritorArchivo.Salida salida : ControladorPrincipal.construirSalidas(directorio, lexico,
+                    analisis.getSintactico().getRaizArbol(), tablaLL1, analisis.getSemantico(), diagnosticos,
+                    opcionesDOT, comprimirDOT)) {
+                EscritorArchivo.escribir(salida, true);
+            }
+
+            for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+                errores[etapa.ordinal()] = diagnosticos.getTotal(etapa);
+            }
+            return new ResultadoArchivo(archivo, directorio, bytes, tokens, errores, System.nanoTime() - inicio, null);
+        } catch (IOException | RuntimeException e) {
+            return new ResultadoArchivo(archivo, directorio, bytes, tokens, errores, System.nanoTime() - inicio, e);
+        } finally {
+            if (evento != null && evento.shouldCommit()) {
+                evento.archivo = archivo.toString();
+                evento.errores = Arrays.stream(errores).sum();
+                evento.commit();
+            }
+        }
+    }
+
+    //endregion
+
+    //region ENTRADAS
+
+    /**
+     * Expande las entradas a una lista de archivos sin repetir.
+     * Un directorio aporta todos sus archivos .txt (recursivamente); una entrada
+     * con *, ?, [ o { es un patrón glob que se busca desde su prefijo sin comodines.
+     * Nunca se incluyen archivos del directorio de salida.
+     *
+     * @param entradas Archivos, directorios o patrones glob
+     * @return Archivos encontrados
+     * @throws IOException Si una entrada no existe o no se puede recorrer
+     */
+    public List<Path> expandir(List<String> entradas) throws IOException {
+        Set<Path> archivos = new LinkedHashSet<>();
+        Path salida = directorioSalida.toAbsolutePath().normalize();
+
+        for (String entrada : entradas) {
+            if (esPatron(entrada)) {
+                PathMatcher coincide = FileSystems.getDefault().getPathMatcher("glob:" + entrada);
+                agregarArchivos(baseDelPatron(entrada), coincide::matches, salida, archivos);
+            } else {
+                Path ruta = Path.of(entrada);
+                if (Files.isDirectory(ruta)) {
+                    agregarArchivos(ruta, archivo -> archivo.toString().endsWith(EXTENSION_FUENTE), salida, archivos);
+                } else if (Files.isRegularFile(ruta)) {
+                    archivos.add(ruta.normalize());
+                } else {
+                    throw new IOException("No existe: " + entrada);
+                }
+            }
+        }
+        return new ArrayList<>(archivos);
+    }
+
+    private static void agregarArchivos(Path base, Predicate<Path> filtro, Path salida, Set<Path> archivos)
+            throws IOException {
+        try (Stream<Path> recorrido = Files.walk(base)) {
+            recorrido.filter(Files::isRegularFile)
+                    .filter(filtro)
+                    .filter(archivo -> !archivo.toAbsolutePath().normalize().startsWith(salida))
+                    .sorted()
+                    .forEach(archivo -> archivos.add(archivo.normalize()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean esPatron(String entrada) {
+        for (char c : entrada.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Directorio más largo del patrón que no tiene comodines (desde donde se recorre).
+     */
+    private static Path baseDelPatron(String patron) {
+        Path patronRuta = Path.of(patron.replaceAll("[*?\\[{].*$", "x"));
+        Path base = patronRuta.getParent();
+        return base != null ? base : Path.of("");
+    }
+
+    /**
+     * Directorio de salida de un archivo: su ruta sin la raíz ni la extensión,
+     * así dos archivos con el mismo nombre en directorios distintos no chocan.
+     */
+    private static Path nombreSalida(Path archivo) {
+        Path ruta = archivo.normalize();
+        if (ruta.isAbsolute()) {
+            ruta = ruta.getRoot().relativize(ruta);
+        }
+        StringBuilder nombre = new StringBuilder();
+        for (Path parte : ruta) {
+            String texto = parte.toString();
+            if (texto.equals("..")) {
+                texto = "_";
+            }
+            if (nombre.length() > 0) {
+                nombre.append('/');
+            }
+            nombre.append(texto);
+        }
+        int punto = nombre.lastIndexOf(".");
+        if (punto > nombre.lastIndexOf("/") + 1) {
+            nombre.setLength(punto);
+        }
+        return Path.of(nombre.toString());
+    }
+
+    //endregion
+
+    //region RESUMEN
+
+    /**
+     * Escribe el resumen del lote: una línea por archivo y los totales.
+     *
+     * @param resultados Resultados de cada archivo
+     * @param nanos Tiempo total del lote
+     * @param salida Destino del texto
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirResumen(List<ResultadoArchivo> resultados, long nanos, Appendable salida)
+            throws IOException {
+        Diagnostico.Etapa[] etapas = Diagnostico.Etapa.values();
+        int[] totales = new int[etapas.length];
+        long bytes = 0;
+        long tokens = 0;
+        int conErrores = 0;
+        int fallidos = 0;
+
+        salida.append("=== RESUMEN DEL ANÁLISIS POR LOTES ===\n\n");
+        for (ResultadoArchivo resultado : resultados) {
+            bytes += resultado.bytes();
+            tokens += resultado.tokens();
+            salida.append(resultado.archivo().toString()).append(": ");
+            if (resultado.fallo() != null) {
+                fallidos++;
+                Throwable fallo = resultado.fallo();
+                salida.append("FALLÓ (").append(fallo.getMessage() != null ? fallo.getMessage()
+                        : fallo.getClass().getSimpleName()).append(")\n");
+                continue;
+            }
+            if (resultado.totalErrores() > 0) {
+                conErrores++;
+            }
+            salida.append(String.valueOf(resultado.tokens())).append(" tokens");
+            for (Diagnostico.Etapa etapa : etapas) {
+                int errores = resultado.errores()[etapa.ordinal()];
+                totales[etapa.ordinal()] += errores;
+                salida.append(", ").append(etapa.getDescripcion().toLowerCase()).append(": ")
+                        .append(String.valueOf(errores));
+            }
+            salida.append(" (").append(String.valueOf(resultado.nanos() / 1_000_000)).append(" ms)\n");
+        }
+
+        double segundos = nanos / 1e9;
+        salida.append("\nArchivos: ").append(String.valueOf(resultados.size()))
+                .append(" (").append(String.valueOf(conErrores)).append(" con errores, ")
+                .append(String.valueOf(fallidos)).append(" fallidos)\n");
+        for (Diagnostico.Etapa etapa : etapas) {
+            salida.append(etapa.getDescripcion()).append(": ")
+                    .append(String.valueOf(totales[etapa.ordinal()])).append('\n');
+        }
+        salida.append("Tokens: ").append(String.valueOf(tokens))
+                .append(", bytes: ").append(String.valueOf(bytes)).append('\n');
+        salida.append(String.format("Tiempo: %.2f s (%.2f MB/s)\n", segundos,
+                segundos > 0 ? bytes / 1e6 / segundos : 0.0));
+    }
+
+    //endregion
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+/**
+ * Programas de entrada para los benchmarks, de tamaño controlado.
+ * Cada función aporta unos 30 tokens y llama a la anterior, así que el árbol,
+ * la tabla de símbolos y el grafo de llamadas crecen con el tamaño.
+ *
+ * @author Sophia
+ */
+final class ProgramasBenchmark {
+
+    private ProgramasBenchmark() {
+    }
+
+    /**
+     * Genera un programa con la cantidad de funciones indicada.
+     *
+     * @param funciones Cantidad de funciones de la clase
+     * @param conErrores Si una de cada diez funciones usa una variable sin declarar
+     * @return Código fuente
+     */
+    static String generar(int funciones, boolean conErrores) {
+        StringBuilder codigo = new StringBuilder(funciones * 64);
+        codigo.append("class Benchmark {\n");
+        codigo.append("    int total;\n");
+        for (int i = 0; i < funciones; i++) {
+            String llamada = i == 0 ? "a" : "f" + (i - 1) + "(a)";
+            String variable = conErrores && i % 10 == 9 ? "z" : "b";
+            codigo.append("    int f").append(i).append("(int a) { int b; b = a * ").append(i % 97)
+                    .append(" + ").append(llamada).append("; return ").append(variable).append("; }\n");
+        }
+        codigo.append("}\n");
+        return codigo.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package generadores;
+
+import diagnosticos.ColectorDiagnosticos;
+import diagnosticos.Diagnostico;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Reporte de errores que se escribe mientras el análisis avanza: cada
+ * diagnóstico conservado se agrega al archivo apenas se detecta (como
+ * observador del colector), y el resumen con los totales, los repetidos y los
+ * suprimidos va al final, cuando ya se conocen.
+ *
+ * A diferencia de {@link GeneradorReportes#escribirReporteErrores}, los
+ * diagnósticos quedan en orden de detección y no agrupados por etapa. Las
+ * advertencias se numeran aparte (A1, A2...), porque no son errores.
+ *
+ * @author Sophia
+ */
+public class ReporteErroresIncremental implements Consumer<Diagnostico> {
+
+    private final Writer salida;
+    private int escritos;
+    private int advertenciasEscritas;
+
+    // Primer error de escritura (se informa al terminar)
+    private IOException fallo;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Crea el reporte y escribe el encabezado.
+     *
+     * @param salida Destino del reporte (no se cierra)
+     * @throws IOException Si hay error al escribir
+     */
+    public ReporteErroresIncremental(Writer salida) throws IOException {
+        this.salida = salida;
+        salida.append("───────────────────────────────────────────────────────────\n");
+        salida.append("    REPORTE DE ERRORES - ANALIZADOR SINTÁCTICO\n");
+        salida.append("───────────────────────────────────────────────────────────\n\n");
+        salida.append("DIAGNÓSTICOS (en orden de detección):\n\n");
+    }
+
+    //endregion
+
+    //region ESCRITURA
+
+    /**
+     * Escribe un diagnóstico. Los errores de escritura no detienen el análisis:
+     * se guardan y se lanzan en terminar.
+     *
+     * @param diagnostico Diagnóstico recién conservado
+     */
+    @Override
+    public void accept(Diagnostico diagnostico) {
+        if (fallo != null) {
+            return;
+        }
+        try {
+            if (diagnostico.codigo().esAdvertencia()) {
+                advertenciasEscritas++;
+                salida.append('A').append(String.valueOf(advertenciasEscritas));
+            } else {
+                escritos++;
+                salida.append(String.valueOf(escritos));
+            }
+            salida.append(". [")
+                    .append(diagnostico.etapa().getDescripcion()).append("] ")
+                    .append(diagnostico.formatear()).append("\n");
+        } catch (IOException e) {
+            fallo = e;
+        }
+    }
+
+    /**
+     * Escribe el resumen y el cierre del reporte.
+     *
+     * @param diagnosticos Colector cuyos diagnósticos se fueron escribiendo
+     * @throws IOException Si falló alguna escritura
+     */
+    public void terminar(ColectorDiagnosticos diagnosticos) throws IOException {
+        if (fallo != null) {
+            throw fallo;
+        }
+        if (escritos == 0 && advertenciasEscritas == 0) {
+            salida.append("  (ninguno)\n");
+        }
+
+        salida.append("\n───────────────────────────────────────────────────────\n");
+        int totalErrores = diagnosticos.getTotal();
+        salida.append("RESUMEN:\n");
+        salida.append("  Total de errores encontrados: ").append(String.valueOf(totalErrores)).append("\n");
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            salida.append("  - ").append(etapa.getDescripcion()).append(": ")
+                    .append(String.valueOf(diagnosticos.getTotal(etapa))).append("\n");
+        }
+        if (diagnosticos.getTotalAdvertencias() > 0) {
+            salida.append("  Advertencias: ").append(String.valueOf(diagnosticos.getTotalAdvertencias())).append("\n");
+        }
+        salida.append("\n");
+
+        // Repetidos: se conocen recién al final
+        boolean titulo = false;
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            for (Diagnostico diagnostico : diagnosticos.getDiagnosticos(etapa)) {
+                int repeticiones = diagnosticos.getRepeticiones(diagnostico);
+                if (repeticiones > 0) {
+                    if (!titulo) {
+                        salida.append("REPETIDOS:\n");
+                        titulo = true;
+                    }
+                    salida.append("  ").append(diagnostico.formatear()).append(" (repetido ")
+                            .append(String.valueOf(repeticiones)).append(" veces más)\n");
+                }
+            }
+            int suprimidos = diagnosticos.getSuprimidos(etapa, false);
+            if (suprimidos > 0) {
+                salida.append("  ").append(etapa.getDescripcion()).append(": ... ")
+                        .append(String.valueOf(suprimidos)).append(" más suprimidos (límite de ")
+                        .append(String.valueOf(diagnosticos.getLimite(etapa))).append(" por etapa)\n");
+            }
+            int advertenciasSuprimidas = diagnosticos.getSuprimidos(etapa, true);
+            if (advertenciasSuprimidas > 0) {
+                salida.append("  ").append(etapa.getDescripcion()).append(": ... ")
+                        .append(String.valueOf(advertenciasSuprimidas)).append(" advertencias más suprimidas (límite de ")
+                        .append(String.valueOf(diagnosticos.getLimite(etapa))).append(" por etapa)\n");
+            }
+        }
+
+        if (totalErrores == 0) {
+            salida.append("───────────────────────────────────────────────────────\n");
+            salida.append("✓ NO SE ENCONTRARON ERRORES\n");
+            salida.append("  El programa es sintácticamente correcto.\n");
+            if (diagnosticos.getTotalAdvertencias() > 0) {
+                salida.append("  Las líneas A1, A2... son advertencias.\n");
+            }
+            salida.append("───────────────────────────────────────────────────────\n");
+        }
+
+        salida.append("\n───────────────────────────────────────────────────────────\n");
+        salida.append("                    FIN DEL REPORTE\n");
+        salida.append("───────────────────────────────────────────────────────────\n");
+        salida.flush();
+    }
+
+    //endregion
+}
@@ -0,0 +1,327 @@
+package app;
+
+import analizadorLexico.Token;
+import analizadorSintactico.NodoArbol;
+import analizadorSintactico.OptimizadorGramatica;
+import analizadorSintactico.TablaLL1;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import generadores.GeneradorGraphviz;
+import generadores.GeneradorJSON;
+import generadores.GeneradorSVG;
+import generadores.OpcionesDOT;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servidor HTTP local que analiza código con la JVM ya caliente.
+ * La gramática y la tabla LL(1) se construyen una sola vez al iniciar y se
+ * comparten entre todas las peticiones; cada petición se atiende en su propio
+ * hilo virtual, pero solo unas pocas leen y analizan su código a la vez (cada
+ * cuerpo puede ocupar 16 MiB): las demás esperan un turno o reciben 503.
+ *
+ * Solo las páginas de los orígenes permitidos pueden consultarlo desde el
+ * navegador (por defecto, las servidas desde esta máquina); una petición con
+ * otro Origin se rechaza con 403.
+ *
+ * Endpoints (POST, el cuerpo es el código fuente en UTF-8, la respuesta es JSON):
+ * <pre>
+ * /lex      tokens y diagnósticos léxicos
+ * /parse    lo anterior más el resultado sintáctico y el árbol en DOT
+ * /analyze  análisis completo: tokens, diagnósticos, clasificación, tabla LL(1), DOT y SVG
+ * </pre>
+ *
+ * @author Sophia
+ */
+public class ServidorAnalisis {
+
+    public static final int PUERTO_POR_DEFECTO = 8080;
+
+    // Tamaño máximo del código recibido (16 MiB)
+    private static final int TAMANO_MAXIMO_CUERPO = 16 << 20;
+
+    // Peticiones que se analizan a la vez y espera máxima por un turno (s)
+    private static final int PETICIONES_SIMULTANEAS = Runtime.getRuntime().availableProcessors();
+    private static final long ESPERA_TURNO = 10;
+
+    private final TablaLL1 tablaLL1;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final Semaphore turnos;
+
+    // Orígenes que pueden consultar el servidor desde el navegador (vacío: los locales)
+    private Set<String> origenesPermitidos;
+
+    /**
+     * Operación de un endpoint: escribe la respuesta a partir del código.
+     */
+    @FunctionalInterface
+    private interface Operacion {
+        void responder(String codigoFuente, Appendable json) throws IOException;
+    }
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor del servidor. Construye la gramática y la tabla compartidas.
+     *
+     * @param puerto Puerto local donde se escucha
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public ServidorAnalisis(int puerto) throws IOException {
+        this.tablaLL1 = OptimizadorGramatica.construirTablaOptimizada();
+        this.servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", puerto), 0);
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.turnos = new Semaphore(PETICIONES_SIMULTANEAS, true);
+        this.origenesPermitidos = Set.of();
+
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/lex", intercambio -> atender(intercambio, this::lex));
+        servidor.createContext("/parse", intercambio -> atender(intercambio, this::parse));
+        servidor.createContext("/analyze", intercambio -> atender(intercambio, this::analyze));
+    }
+
+    //endregion
+
+    //region CICLO DE VIDA
+
+    /**
+     * Empieza a atender peticiones (no bloquea).
+     */
+    public void iniciar() {
+        servidor.start();
+        System.out.println("Servidor de análisis en http://127.0.0.1:" + getPuerto()
+                + " (POST /lex, /parse, /analyze)");
+    }
+
+    /**
+     * Deja de aceptar peticiones y espera hasta un segundo a las que están en curso.
+     */
+    public void detener() {
+        servidor.stop(1);
+        ejecutor.close();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * @param origenesPermitidos Orígenes (esquema://host[:puerto]) de las páginas que pueden
+     *                           consultar el servidor; "null" permite una página abierta como
+     *                           archivo local. Vacío: cualquier página servida desde localhost
+     */
+    public void setOrigenesPermitidos(Collection<String> origenesPermitidos) {
+        this.origenesPermitidos = Set.copyOf(origenesPermitidos);
+    }
+
+    //endregion
+
+    //region ENDPOINTS
+
+    private void lex(String codigoFuente, Appendable json) throws IOException {
+        Analisis analisis = Analisis.lexico(codigoFuente);
+        json.append("{\"tokens\":");
+        GeneradorJSON.escribirTokens(tokensOrdenados(analisis), json);
+        json.append(",\"diagnosticos\":");
+        GeneradorJSON.escribirDiagnosticos(analisis.getDiagnosticos(), analisis::getToken, json);
+        json.append('}');
+    }
+
+    private void parse(String codigoFuente, Appendable json) throws IOException {
+        Analisis analisis = Analisis.sintactico(codigoFuente, tablaLL1);
+        NodoArbol raiz = analisis.getSintactico().getRaizArbol();
+
+        json.append("{\"valido\":").append(String.valueOf(analisis.getSintactico().getErroresSintacticos().isEmpty()));
+        json.append(",\"tokens\":");
+        GeneradorJSON.escribirTokens(tokensOrdenados(analisis), json);
+        json.append(",\"diagnosticos\":");
+        GeneradorJSON.escribirDiagnosticos(analisis.getDiagnosticos(), analisis::getToken, json);
+        json.append(",\"arbolDot\":");
+        GeneradorJSON.escribirCadena(dot(raiz, false), json);
+        json.append('}');
+    }
+
+    private void analyze(String codigoFuente, Appendable json) throws IOException {
+        Analisis analisis = Analisis.completo(codigoFuente, tablaLL1);
+        NodoArbol raiz = analisis.getSintactico().getRaizArbol();
+
+        json.append("{\"valido\":").append(String.valueOf(analisis.getDiagnosticos().getTotal() == 0));
+        json.append(",\"tokens\":");
+        GeneradorJSON.escribirTokens(tokensOrdenados(analisis), json);
+        json.append(",\"diagnosticos\":");
+        GeneradorJSON.escribirDiagnosticos(analisis.getDiagnosticos(), analisis::getToken, json);
+        json.append(",\"clasificacion\":");
+        GeneradorJSON.escribirClasificacion(analisis.getSemantico(), json);
+        json.append(",\"tabla\":");
+        GeneradorJSON.escribirTabla(tablaLL1.getTablaOriginal(), json);
+        json.append(",\"arbolDot\":");
+        GeneradorJSON.escribirCadena(dot(raiz, false), json);
+        json.append(",\"astDot\":");
+        GeneradorJSON.escribirCadena(dot(raiz, true), json);
+        json.append(",\"arbolSvg\":");
+        StringBuilder svg = new StringBuilder();
+        GeneradorSVG.generarSVG(raiz, true, svg, OpcionesDOT.acotadas());
+        GeneradorJSON.escribirCadena(svg, json);
+        json.append('}');
+    }
+
+    /**
+     * DOT acotado (la respuesta sigue siendo manejable con entradas grandes).
+     */
+    private static String dot(NodoArbol raiz, boolean ast) throws IOException {
+        StringBuilder dot = new StringBuilder();
+        if (ast) {
+            GeneradorGraphviz.generarAST(raiz, dot, OpcionesDOT.acotadas());
+        } else {
+            GeneradorGraphviz.generarArbolDerivacion(raiz, dot, OpcionesDOT.acotadas());
+        }
+        return dot.toString();
+    }
+
+    private static List<Token> tokensOrdenados(Analisis analisis) {
+        List<Token> tokens = analisis.getLexico().getTodosLosTokens();
+        tokens.sort(Comparator.comparingInt(Token::getNumeroToken));
+        return tokens;
+    }
+
+    //endregion
+
+    //region HTTP
+
+    /**
+     * Valida la petición, ejecuta la operación y escribe la respuesta JSON.
+     * Una petición de navegador solo se atiende si su origen está permitido.
+     */
+    private void atender(HttpExchange intercambio, Operacion operacion) throws IOException {
+        try (intercambio) {
+            String origen = intercambio.getRequestHeaders().getFirst("Origin");
+            if (origen != null) {
+                intercambio.getResponseHeaders().set("Vary", "Origin");
+                if (!origenPermitido(origen)) {
+                    responderError(intercambio, 403, "Origen no permitido: " + origen);
+                    return;
+                }
+                intercambio.getResponseHeaders().set("Access-Control-Allow-Origin", origen);
+            }
+
+            String metodo = intercambio.getRequestMethod();
+            if (metodo.equals("OPTIONS")) {
+                intercambio.getResponseHeaders().set("Access-Control-Allow-Methods", "POST, OPTIONS");
+                intercambio.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
+                intercambio.sendResponseHeaders(204, -1);
+                return;
+            }
+            if (!intercambio.getRequestURI().getPath().equals(intercambio.getHttpContext().getPath())) {
+                responderError(intercambio, 404, "Ruta desconocida");
+                return;
+            }
+            if (!metodo.equals("POST")) {
+                intercambio.getResponseHeaders().set("Allow", "POST, OPTIONS");
+                responderError(intercambio, 405, "Use POST con el código fuente en el cuerpo");
+                return;
+            }
+
+            // El cuerpo se lee recién con turno: así no hay más de PETICIONES_SIMULTANEAS en memoria
+            if (!esperarTurno()) {
+                intercambio.getResponseHeaders().set("Retry-After", "1");
+                responderError(intercambio, 503, "Servidor ocupado, reintente en un momento");
+                return;
+            }
+            try {
+                String codigoFuente = leerCuerpo(intercambio);
+                if (codigoFuente == null) {
+                    responderError(intercambio, 413, "El código supera " + (TAMANO_MAXIMO_CUERPO >> 20) + " MiB");
+                    return;
+                }
+
+                // El análisis se hace completo antes de enviar las cabeceras: si falla, se responde 500
+                StringBuilder json = new StringBuilder();
+                try {
+                    operacion.responder(codigoFuente, json);
+                } catch (RuntimeException e) {
+                    responderError(intercambio, 500, "Error en el análisis: " + e);
+                    return;
+                }
+                responder(intercambio, 200, json);
+            } finally {
+                turnos.release();
+            }
+        }
+    }
+
+    /**
+     * @return true si se obtuvo un turno antes de ESPERA_TURNO segundos
+     */
+    private boolean esperarTurno() {
+        try {
+            return turnos.tryAcquire(ESPERA_TURNO, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Un origen está permitido si está en la lista o, sin lista, si la página
+     * se sirvió desde esta máquina (localhost, 127.0.0.1 o ::1, por http o https).
+     */
+    private boolean origenPermitido(String origen) {
+        if (!origenesPermitidos.isEmpty()) {
+            return origenesPermitidos.contains(origen);
+        }
+        try {
+            URI uri = new URI(origen);
+            String esquema = uri.getScheme();
+            String host = uri.getHost();
+            return ("http".equals(esquema) || "https".equals(esquema)) && host != null
+                    && (host.equals("localhost") || host.equals("127.0.0.1") || host.equals("[::1]"));
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Cuerpo de la petición, o null si supera el tamaño máximo
+     */
+    private static String leerCuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStream cuerpo = intercambio.getRequestBody()) {
+            byte[] bytes = cuerpo.readNBytes(TAMANO_MAXIMO_CUERPO + 1);
+            if (bytes.length > TAMANO_MAXIMO_CUERPO) {
+                return null;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void responderError(HttpExchange intercambio, int estado, String mensaje) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        GeneradorJSON.escribirCadena(mensaje, json);
+        json.append('}');
+        responder(intercambio, estado, json);
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, CharSequence json) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    //endregion
+}
@@ -0,0 +1,598 @@
+package app;
+
+import analizadorLexico.TipoToken;
+import analizadorLexico.Token;
+import analizadorSintactico.ClasificadorSemantico;
+import analizadorSintactico.OptimizadorGramatica;
+import analizadorSintactico.TablaLL1;
+import archivos.LectorJSON;
+import diagnosticos.Diagnostico;
+import generadores.GeneradorJSON;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Servidor de lenguaje (Language Server Protocol) sobre la entrada y salida estándar.
+ *
+ * Los mensajes JSON-RPC se enmarcan con la cabecera Content-Length. Los documentos
+ * se sincronizan de forma incremental (solo llegan los rangos editados) y cada
+ * edición reprograma el análisis del documento: se espera un momento sin cambios
+ * antes de analizar, y cualquier análisis programado o en curso de una versión
+ * anterior se cancela. Así, escribiendo rápido, solo se analiza la última versión.
+ *
+ * Soporta: initialize, shutdown, exit, textDocument/didOpen, didChange, didClose,
+ * documentSymbol, y publica textDocument/publishDiagnostics con los errores
+ * léxicos, sintácticos y semánticos.
+ *
+ * @author Sophia
+ */
+public class ServidorLenguaje {
+
+    // Tiempo sin ediciones antes de analizar (ms)
+    private static final long ESPERA_ANALISIS = 200;
+
+    private static final String FUENTE = "analizador";
+
+    // Códigos de error JSON-RPC
+    private static final int ERROR_JSON = -32700;
+    private static final int PETICION_INVALIDA = -32600;
+    private static final int METODO_DESCONOCIDO = -32601;
+    private static final int ERROR_INTERNO = -32603;
+
+    // Severidad y tipo de símbolo del protocolo
+    private static final int SEVERIDAD_ERROR = 1;
+    private static final int SEVERIDAD_ADVERTENCIA = 2;
+    private static final int SIMBOLO_CLASE = 5;
+    private static final int SIMBOLO_FUNCION = 12;
+    private static final int SIMBOLO_VARIABLE = 13;
+
+    private final InputStream entrada;
+    private final OutputStream salida;
+    private final TablaLL1 tablaLL1;
+    private final Map<String, Documento> documentos;
+    private final ScheduledExecutorService planificador;
+    private final ExecutorService ejecutor;
+    private boolean apagado;
+
+    /**
+     * Documento abierto en el editor.
+     * El texto y la programación del análisis se modifican con el documento bloqueado.
+     */
+    private static final class Documento {
+        final String uri;
+        final StringBuilder texto;
+        int version;
+        volatile long generacion;       // Aumenta con cada edición
+        boolean cerrado;
+        ScheduledFuture<?> programado;
+        Future<?> enCurso;
+        Analisis ultimo;                // Último análisis publicado
+        long generacionUltimo;
+
+        Documento(String uri, String texto, int version) {
+            this.uri = uri;
+            this.texto = new StringBuilder(texto);
+            this.version = version;
+        }
+    }
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor del servidor. Construye la gramática y la tabla compartidas.
+     *
+     * @param entrada Mensajes del cliente
+     * @param salida Mensajes al cliente (no debe usarse para nada más)
+     */
+    public ServidorLenguaje(InputStream entrada, OutputStream salida) {
+        this.entrada = new BufferedInputStream(entrada);
+        this.salida = salida;
+        this.tablaLL1 = OptimizadorGramatica.construirTablaOptimizada();
+        this.documentos = new ConcurrentHashMap<>();
+        this.planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "lsp-planificador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    //endregion
+
+    //region CICLO DE MENSAJES
+
+    /**
+     * Atiende mensajes hasta recibir exit o hasta que se cierre la entrada.
+     *
+     * @return Código de salida: 0 si antes se recibió shutdown, 1 si no
+     * @throws IOException Si hay error al leer la entrada
+     */
+    public int ejecutar() throws IOException {
+        try {
+            String mensaje;
+            while ((mensaje = leerMensaje()) != null) {
+                if (!atender(mensaje)) {
+                    break;
+                }
+            }
+            return apagado ? 0 : 1;
+        } finally {
+            planificador.shutdownNow();
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Atiende un mensaje.
+     *
+     * @return false si el cliente pidió terminar
+     */
+    @SuppressWarnings("unchecked")
+    private boolean atender(String texto) {
+        Object valor;
+        try {
+            valor = LectorJSON.leer(texto);
+        } catch (IllegalArgumentException e) {
+            responderError(null, ERROR_JSON, e.getMessage());
+            return true;
+        }
+        if (!(valor instanceof Map)) {
+            responderError(null, PETICION_INVALIDA, "Se esperaba un objeto");
+            return true;
+        }
+
+        Map<String, Object> mensaje = (Map<String, Object>) valor;
+        Object id = mensaje.get("id");
+        boolean esPeticion = mensaje.containsKey("id");
+        Map<String, Object> parametros = (Map<String, Object>) mensaje.get("params");
+        if (!(mensaje.get("method") instanceof String metodo)) {
+            return true; // Respuesta del cliente: no se hacen peticiones al cliente
+        }
+
+        try {
+            switch (metodo) {
+                case "initialize" -> responder(id, capacidades());
+                case "shutdown" -> {
+                    apagado = true;
+                    responder(id, null);
+                }
+                case "exit" -> {
+                    return false;
+                }
+                case "textDocument/didOpen" -> abrir(parametros);
+                case "textDocument/didChange" -> cambiar(parametros);
+                case "textDocument/didClose" -> cerrar(parametros);
+                case "textDocument/documentSymbol" -> responderSimbolos(id, parametros);
+                default -> {
+                    // Las notificaciones desconocidas ($/cancelRequest, initialized...) se ignoran
+                    if (esPeticion) {
+                        responderError(id, METODO_DESCONOCIDO, "Método no soportado: " + metodo);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            if (esPeticion) {
+                responderError(id, ERROR_INTERNO, e.toString());
+            } else {
+                System.err.println("Error al atender " + metodo + ": " + e);
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Object> capacidades() {
+        return objeto(
+                "capabilities", objeto(
+                        "textDocumentSync", objeto("openClose", true, "change", 2),
+                        "documentSymbolProvider", true),
+                "serverInfo", objeto("name", "analizador-sintactico", "version", "1.0"));
+    }
+
+    //endregion
+
+    //region DOCUMENTOS
+
+    @SuppressWarnings("unchecked")
+    private void abrir(Map<String, Object> parametros) {
+        Map<String, Object> documento = (Map<String, Object>) parametros.get("textDocument");
+        String uri = (String) documento.get("uri");
+        Documento nuevo = new Documento(uri, (String) documento.get("text"), entero(documento.get("version")));
+
+        Documento anterior = documentos.put(uri, nuevo);
+        if (anterior != null) {
+            synchronized (anterior) {
+                cancelar(anterior);
+            }
+        }
+        synchronized (nuevo) {
+            programar(nuevo);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void cambiar(Map<String, Object> parametros) {
+        Map<String, Object> identificador = (Map<String, Object>) parametros.get("textDocument");
+        Documento documento = documentos.get((String) identificador.get("uri"));
+        if (documento == null) {
+            return;
+        }
+
+        synchronized (documento) {
+            for (Object cambio : (List<Object>) parametros.get("contentChanges")) {
+                aplicarCambio(documento.texto, (Map<String, Object>) cambio);
+            }
+            documento.version = entero(identificador.get("version"));
+            programar(documento);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void cerrar(Map<String, Object> parametros) {
+        String uri = (String) ((Map<String, Object>) parametros.get("textDocument")).get("uri");
+        Documento documento = documentos.remove(uri);
+        if (documento == null) {
+            return;
+        }
+        synchronized (documento) {
+            cancelar(documento);
+            documento.cerrado = true;
+        }
+        publicarDiagnosticos(uri, null, List.of());
+    }
+
+    /**
+     * Aplica un cambio: con rango reemplaza ese tramo, sin rango reemplaza todo el texto.
+     */
+    @SuppressWarnings("unchecked")
+    private static void aplicarCambio(StringBuilder texto, Map<String, Object> cambio) {
+        String nuevo = (String) cambio.get("text");
+        Map<String, Object> rango = (Map<String, Object>) cambio.get("range");
+        if (rango == null) {
+            texto.setLength(0);
+            texto.append(nuevo);
+            return;
+        }
+        int inicio = desplazamiento(texto, (Map<String, Object>) rango.get("start"));
+        int fin = desplazamiento(texto, (Map<String, Object>) rango.get("end"));
+        texto.replace(inicio, Math.max(inicio, fin), nuevo);
+    }
+
+    /**
+     * Desplazamiento de una posición (línea, carácter en unidades UTF-16) del protocolo.
+     * Una posición más allá del final de la línea se ajusta al final de la línea.
+     */
+    private static int desplazamiento(CharSequence texto, Map<String, Object> posicion) {
+        int linea = entero(posicion.get("line"));
+        int i = 0;
+        for (int actual = 0; actual < linea && i < texto.length(); i++) {
+            if (texto.charAt(i) == '\n') {
+                actual++;
+            }
+        }
+        int finLinea = i;
+        while (finLinea < texto.length() && texto.charAt(finLinea) != '\n') {
+            finLinea++;
+        }
+        return Math.min(i + entero(posicion.get("character")), finLinea);
+    }
+
+    //endregion
+
+    //region ANÁLISIS
+
+    /**
+     * Reprograma el análisis tras una edición (con el documento bloqueado).
+     * El análisis programado o en curso de la versión anterior se cancela.
+     */
+    private void programar(Documento documento) {
+        cancelar(documento);
+        long generacion = ++documento.generacion;
+        documento.programado = planificador.schedule(() -> lanzar(documento, generacion),
+                ESPERA_ANALISIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void cancelar(Documento documento) {
+        if (documento.programado != null) {
+            documento.programado.cancel(false);
+        }
+        if (documento.enCurso != null) {
+            documento.enCurso.cancel(true);
+        }
+    }
+
+    /**
+     * Pasó la espera sin ediciones: se analiza una copia del texto en un hilo virtual.
+     */
+    private void lanzar(Documento documento, long generacion) {
+        synchronized (documento) {
+            if (documento.generacion != generacion || documento.cerrado) {
+                return;
+            }
+            String texto = documento.texto.toString();
+            int version = documento.version;
+            documento.enCurso = ejecutor.submit(() -> analizar(documento, generacion, version, texto));
+        }
+    }
+
+    private void analizar(Documento documento, long generacion, int version, String texto) {
+        BooleanSupplier cancelado = () -> Thread.currentThread().isInterrupted() || documento.generacion != generacion;
+        try {
+            Analisis analisis = Analisis.completo(texto, tablaLL1, cancelado);
+            if (analisis == null) {
+                return;
+            }
+            synchronized (documento) {
+                // Solo se publica si nadie editó el documento mientras tanto
+                if (documento.generacion != generacion || documento.cerrado) {
+                    return;
+                }
+                documento.ultimo = analisis;
+                documento.generacionUltimo = generacion;
+                publicarDiagnosticos(documento.uri, version, diagnosticos(analisis));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error al analizar " + documento.uri + ": " + e);
+        }
+    }
+
+    /**
+     * Diagnósticos del protocolo a partir de los de todas las etapas.
+     */
+    private static List<Object> diagnosticos(Analisis analisis) {
+        List<Object> lista = new ArrayList<>();
+        for (Diagnostico.Etapa etapa : Diagnostico.Etapa.values()) {
+            for (Diagnostico diagnostico : analisis.getDiagnosticos().getDiagnosticos(etapa)) {
+                Token token = analisis.getToken(diagnostico);
+                Map<String, Object> rango;
+                if (token != null) {
+                    rango = rango(token);
+                } else if (diagnostico.argumentos().length > 0 && diagnostico.argumentos()[0] instanceof Integer linea) {
+                    rango = objeto("start", posicion(linea - 1, 0), "end", posicion(linea, 0));
+                } else {
+                    rango = objeto("start", posicion(0, 0), "end", posicion(0, 0));
+                }
+                lista.add(objeto(
+                        "range", rango,
+                        "severity", diagnostico.codigo().esAdvertencia() ? SEVERIDAD_ADVERTENCIA : SEVERIDAD_ERROR,
+                        "code", diagnostico.codigo().name(),
+                        "source", FUENTE,
+                        "message", diagnostico.formatear()));
+            }
+        }
+        return lista;
+    }
+
+    private void publicarDiagnosticos(String uri, Integer version, List<Object> diagnosticos) {
+        Map<String, Object> parametros = objeto("uri", uri, "diagnostics", diagnosticos);
+        if (version != null) {
+            parametros.put("version", version);
+        }
+        enviar(objeto("jsonrpc", "2.0", "method", "textDocument/publishDiagnostics", "params", parametros));
+    }
+
+    //endregion
+
+    //region SÍMBOLOS
+
+    /**
+     * Responde documentSymbol en un hilo del ejecutor: si no hay un análisis al
+     * día hay que analizar el documento, y eso no debe frenar la lectura de mensajes.
+     */
+    private void responderSimbolos(Object id, Map<String, Object> parametros) {
+        ejecutor.submit(() -> {
+            try {
+                responder(id, simbolos(parametros));
+            } catch (RuntimeException e) {
+                responderError(id, ERROR_INTERNO, e.toString());
+            }
+        });
+    }
+
+    /**
+     * Símbolos del documento: la clase, sus funciones y las variables que el
+     * clasificador semántico reconoce como declaradas, ubicados en sus tokens.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> simbolos(Map<String, Object> parametros) {
+        String uri = (String) ((Map<String, Object>) parametros.get("textDocument")).get("uri");
+        Documento documento = documentos.get(uri);
+        if (documento == null) {
+            return List.of();
+        }
+
+        // Se usa el último análisis si está al día; si no, se analiza ahora
+        Analisis analisis;
+        String texto = null;
+        synchronized (documento) {
+            analisis = documento.generacionUltimo == documento.generacion ? documento.ultimo : null;
+            if (analisis == null) {
+                texto = documento.texto.toString();
+            }
+        }
+        if (analisis == null) {
+            analisis = Analisis.completo(texto, tablaLL1);
+        }
+
+        ClasificadorSemantico clasificador = analisis.getSemantico();
+        List<Token> tokens = analisis.getLexico().getTokensValidos();
+        List<Object> simbolos = new ArrayList<>();
+        String funcionActual = null;
+        int profundidad = 0;
+
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            Token nombre = tokens.get(i + 1);
+
+            if (token.getTipo() == TipoToken.LLAVE_IZQ) {
+                profundidad++;
+            } else if (token.getTipo() == TipoToken.LLAVE_DER && --profundidad <= 1) {
+                funcionActual = null;
+            }
+            if (nombre.getTipo() != TipoToken.IDENTIFICADOR) {
+                continue;
+            }
+
+            if (token.esPalabraClave("class")) {
+                simbolos.add(simbolo(nombre.getLexema(), SIMBOLO_CLASE, uri, nombre, null));
+            } else if (token.esPalabraClave("int") || token.esPalabraClave("void")) {
+                boolean esFuncion = i + 2 < tokens.size() && tokens.get(i + 2).getTipo() == TipoToken.PARENTESIS_IZQ;
+                if (esFuncion && clasificador.getFuncionesDeclaradas().containsKey(nombre.getLexema())) {
+                    simbolos.add(simbolo(nombre.getLexema(), SIMBOLO_FUNCION, uri, nombre, null));
+                    funcionActual = nombre.getLexema();
+                } else if (!esFuncion && clasificador.getVariablesDeclaradas().containsKey(nombre.getLexema())) {
+                    simbolos.add(simbolo(nombre.getLexema(), SIMBOLO_VARIABLE, uri, nombre, funcionActual));
+                }
+            }
+        }
+        return simbolos;
+    }
+
+    private static Map<String, Object> simbolo(String nombre, int tipo, String uri, Token token, String contenedor) {
+        Map<String, Object> simbolo = objeto("name", nombre, "kind", tipo,
+                "location", objeto("uri", uri, "range", rango(token)));
+        if (contenedor != null) {
+            simbolo.put("containerName", contenedor);
+        }
+        return simbolo;
+    }
+
+    //endregion
+
+    //region PROTOCOLO
+
+    /**
+     * Lee el siguiente mensaje (cabeceras y cuerpo).
+     *
+     * Un Content-Length que no es un entero no negativo se contesta con un error
+     * de JSON-RPC y se sigue leyendo: como no se sabe dónde termina ese cuerpo,
+     * se descartan líneas hasta la próxima cabecera Content-Length válida.
+     *
+     * @return Cuerpo del mensaje, o null si se cerró la entrada
+     */
+    private String leerMensaje() throws IOException {
+        int longitud = -1;
+        String linea;
+        while ((linea = leerLinea()) != null) {
+            if (linea.isEmpty()) {
+                if (longitud >= 0) {
+                    break;
+                }
+                continue;
+            }
+            // Se busca la cabecera en toda la línea: tras un cuerpo descartado puede venir pegada a él
+            int cabecera = linea.toLowerCase(Locale.ROOT).lastIndexOf("content-length:");
+            if (cabecera >= 0) {
+                String valor = linea.substring(cabecera + "content-length:".length()).trim();
+                try {
+                    longitud = Integer.parseInt(valor);
+                } catch (NumberFormatException e) {
+                    longitud = -1;
+                }
+                if (longitud < 0) {
+                    responderError(null, ERROR_JSON, "Content-Length inválido: " + valor);
+                }
+            }
+        }
+        if (linea == null) {
+            return null;
+        }
+        byte[] cuerpo = entrada.readNBytes(longitud);
+        return cuerpo.length < longitud ? null : new String(cuerpo, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee una línea de cabecera (ASCII, terminada en \r\n).
+     */
+    private String leerLinea() throws IOException {
+        ByteArrayOutputStream linea = new ByteArrayOutputStream();
+        int b;
+        while ((b = entrada.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                linea.write(b);
+            }
+        }
+        if (b == -1 && linea.size() == 0) {
+            return null;
+        }
+        return linea.toString(StandardCharsets.US_ASCII);
+    }
+
+    private void responder(Object id, Object resultado) {
+        Map<String, Object> respuesta = objeto("jsonrpc", "2.0", "id", id);
+        respuesta.put("result", resultado);
+        enviar(respuesta);
+    }
+
+    private void responderError(Object id, int codigo, String mensaje) {
+        enviar(objeto("jsonrpc", "2.0", "id", id, "error", objeto("code", codigo, "message", mensaje)));
+    }
+
+    /**
+     * Envía un mensaje. Lo usan el hilo principal y los análisis, así que se
+     * escribe cada mensaje completo con la salida bloqueada.
+     */
+    private void enviar(Map<String, Object> mensaje) {
+        try {
+            StringBuilder json = new StringBuilder();
+            GeneradorJSON.escribirValor(mensaje, json);
+            byte[] cuerpo = json.toString().getBytes(StandardCharsets.UTF_8);
+            byte[] cabecera = ("Content-Length: " + cuerpo.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            synchronized (salida) {
+                salida.write(cabecera);
+                salida.write(cuerpo);
+                salida.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Error al enviar mensaje: " + e.getMessage());
+        }
+    }
+
+    //endregion
+
+    //region AUXILIARES
+
+    /**
+     * Objeto JSON a partir de pares clave, valor (en orden).
+     */
+    private static Map<String, Object> objeto(Object... clavesValores) {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        for (int i = 0; i < clavesValores.length; i += 2) {
+            objeto.put((String) clavesValores[i], clavesValores[i + 1]);
+        }
+        return objeto;
+    }
+
+    private static Map<String, Object> rango(Token token) {
+        int linea = token.getLinea() - 1;
+        int columna = token.getColumna() - 1;
+        return objeto("start", posicion(linea, columna),
+                "end", posicion(linea, columna + Math.max(token.getLongitud(), 1)));
+    }
+
+    private static Map<String, Object> posicion(int linea, int caracter) {
+        return objeto("line", Math.max(linea, 0), "character", Math.max(caracter, 0));
+    }
+
+    private static int entero(Object valor) {
+        return valor instanceof Number numero ? numero.intValue() : 0;
+    }
+
+    //endregion
+}
@@ -1,5 +1,8 @@
 package analizadorSintactico;
 
+import eventos.EventosJFR;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 /**
@@ -8,7 +11,7 @@ import java.util.*;
  *
  * @author Sophia
  */
-public class TablaLL1 {
+public final class TablaLL1 {
 
     private Gramatica gramatica;
 
@@ -18,6 +21,12 @@ public class TablaLL1 {
     // Lista de conflictos detectados
     private List<String> conflictos;
 
+    // Mensajes de construcción en consola
+    private boolean mostrarSalida;
+
+    // Optimizador que produjo la tabla (null: gramática sin optimizar)
+    private OptimizadorGramatica optimizador;
+
     //region CONSTRUCTOR
 
     /**
@@ -26,11 +35,46 @@ public class TablaLL1 {
      * @param gramatica La gramática del lenguaje
      */
     public TablaLL1(Gramatica gramatica) {
+        this(gramatica, true);
+    }
+
+    /**
+     * Constructor de la tabla LL(1) con control de la salida por consola.
+     * Las transformaciones de gramática construyen tablas de prueba en silencio.
+     *
+     * @param gramatica La gramática del lenguaje
+     * @param mostrarSalida Si se muestran los mensajes de construcción
+     */
+    public TablaLL1(Gramatica gramatica, boolean mostrarSalida) {
+        this(gramatica, mostrarSalida, true);
+    }
+
+    /**
+     * Constructor para las tablas de prueba del optimizador, que no se
+     * registran como evento JFR (solo cuentan las tablas que se usan).
+     *
+     * @param gramatica La gramática del lenguaje
+     * @param mostrarSalida Si se muestran los mensajes de construcción
+     * @param registrarEvento Si la construcción se registra como evento JFR
+     */
+    TablaLL1(Gramatica gramatica, boolean mostrarSalida, boolean registrarEvento) {
         this.gramatica = gramatica;
         this.tabla = new HashMap<>();
         this.conflictos = new ArrayList<>();
+        this.mostrarSalida = mostrarSalida;
 
+        EventosJFR.Tabla evento = registrarEvento && EventosJFR.estanActivos() ? new EventosJFR.Tabla() : null;
+        if (evento != null) {
+            evento.begin();
+        }
         construirTabla();
+        congelar();
+        if (evento != null && evento.shouldCommit()) {
+            evento.noTerminales = gramatica.getNoTerminales().size();
+            evento.terminales = gramatica.getTerminales().size();
+            evento.conflictos = conflictos.size();
+            evento.commit();
+        }
     }
 
     //endregion
@@ -41,7 +85,9 @@ public class TablaLL1 {
      * Construye la tabla LL(1) a partir de la gramática.
      */
     private void construirTabla() {
-        System.out.println("--- CONSTRUYENDO TABLA LL(1) ---\n");
+        if (mostrarSalida) {
+            System.out.println("--- CONSTRUYENDO TABLA LL(1) ---\n");
+        }
 
         // Inicializar tabla vacía
         for (String noTerminal : gramatica.getNoTerminales()) {
@@ -76,7 +122,22 @@ public class TablaLL1 {
             }
         }
 
-        mostrarResultados();
+        if (mostrarSalida) {
+            mostrarResultados();
+        }
+    }
+
+    /**
+     * Deja la tabla de solo lectura una vez construida, para que una sola
+     * instancia se pueda compartir entre análisis que corren en paralelo.
+     */
+    private void congelar() {
+        for (Map.Entry<String, Map<String, List<String>>> fila : tabla.entrySet()) {
+            fila.getValue().replaceAll((terminal, produccion) -> Collections.unmodifiableList(produccion));
+            fila.setValue(Collections.unmodifiableMap(fila.getValue()));
+        }
+        tabla = Collections.unmodifiableMap(tabla);
+        conflictos = Collections.unmodifiableList(conflictos);
     }
 
     /**
@@ -96,7 +157,9 @@ public class TablaLL1 {
                     noTerminal, terminal, filaNT.get(terminal), produccion
             );
             conflictos.add(conflicto);
-            System.out.println("ADVERTENCIA:  " + conflicto);
+            if (mostrarSalida) {
+                System.out.println("ADVERTENCIA:  " + conflicto);
+            }
         } else {
             filaNT.put(terminal, new ArrayList<>(produccion));
         }
@@ -111,8 +174,8 @@ public class TablaLL1 {
     private Set<String> calcularPrimeroDeProduccion(List<String> produccion) {
         Set<String> resultado = new HashSet<>();
 
-        for (String simbolo : produccion) {
-            Set<String> primeroSimbolo = gramatica.obtenerPrimero(simbolo);
+        for (int i = 0; i < produccion.size(); i++) {
+            Set<String> primeroSimbolo = gramatica.obtenerPrimero(produccion.get(i));
 
             // Agregar todos excepto epsilon
             for (String s : primeroSimbolo) {
@@ -127,7 +190,7 @@ public class TablaLL1 {
             }
 
             // Si es el último símbolo y contiene epsilon
-            if (simbolo.equals(produccion.get(produccion.size() - 1))) {
+            if (i == produccion.size() - 1) {
                 resultado.add(Gramatica.EPSILON);
             }
         }
@@ -171,6 +234,29 @@ public class TablaLL1 {
         return tabla;
     }
 
+    public Gramatica getGramatica() {
+        return gramatica;
+    }
+
+    /**
+     * @return Optimizador que produjo la tabla, con las plantillas para armar el
+     *         árbol original (null si la gramática no fue optimizada)
+     */
+    public OptimizadorGramatica getOptimizador() {
+        return optimizador;
+    }
+
+    void setOptimizador(OptimizadorGramatica optimizador) {
+        this.optimizador = optimizador;
+    }
+
+    /**
+     * @return Tabla de la gramática sin optimizar (esta misma si no fue optimizada)
+     */
+    public TablaLL1 getTablaOriginal() {
+        return optimizador != null ? optimizador.getTablaOriginal() : this;
+    }
+
     public List<String> getConflictos() {
         return conflictos;
     }
@@ -242,13 +328,28 @@ public class TablaLL1 {
      */
     public String generarTextoTabla() {
         StringBuilder sb = new StringBuilder();
+        try {
+            escribirTextoTabla(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escribe la tabla LL(1) en formato texto directamente en el destino.
+     *
+     * @param sb Destino del texto
+     * @throws IOException Si hay error al escribir
+     */
+    public void escribirTextoTabla(Appendable sb) throws IOException {
         sb.append("═══════════════════════════════════════════════════════════════════════════════\n");
         sb.append("                        TABLA DE TRANSICIÓN LL(1)\n");
         sb.append("═══════════════════════════════════════════════════════════════════════════════\n\n");
 
         if (!esLL1()) {
             sb.append("ADVERTENCIA: La gramática NO es LL(1)\n");
-            sb.append("Conflictos encontrados: ").append(conflictos.size()).append("\n\n");
+            sb.append("Conflictos encontrados: ").append(String.valueOf(conflictos.size())).append("\n\n");
             for (String conflicto : conflictos) {
                 sb.append("  - ").append(conflicto).append("\n");
             }
@@ -266,8 +367,8 @@ public class TablaLL1 {
         // Validación: Si no hay terminales, retornar tabla vacía
         if (terminalesUsados.isEmpty()) {
             sb.append("(Tabla vacía - No se encontraron entradas)\n");
-            sb.append("\n═══════════════════════════════════════════════════════════════════════════════\\n");
-            return sb.toString();
+            sb.append("\n═══════════════════════════════════════════════════════════════════════════════\n");
+            return;
         }
 
         sb.append("NOTA: Esta tabla muestra las producciones para cada par [No Terminal, Terminal]\n\n");
@@ -277,10 +378,10 @@ public class TablaLL1 {
         int anchoProduccion = 45;
 
         // Encabezado - Mostrar TODOS los terminales
-        sb.append(String.format("%-" + anchoNoTerminal + "s | ", "No Terminal"));
+        rellenar(sb, "No Terminal", anchoNoTerminal);
         for (String terminal : terminalesUsados) {
             String terminalCorto = terminal.length() > 20 ? terminal.substring(0, 17) + "..." : terminal;
-            sb.append(String.format("%-" + anchoProduccion + "s | ", terminalCorto));
+            rellenar(sb, terminalCorto, anchoProduccion);
         }
         sb.append("\n");
 
@@ -294,7 +395,7 @@ public class TablaLL1 {
         // IMPORTANTE: Recorrer TODOS los no terminales de la gramática
         int filasGeneradas = 0;
         for (String noTerminal : new TreeSet<>(gramatica.getNoTerminales())) {
-            sb.append(String.format("%-" + anchoNoTerminal + "s | ", noTerminal));
+            rellenar(sb, noTerminal, anchoNoTerminal);
 
             Map<String, List<String>> filaNT = tabla.get(noTerminal);
 
@@ -309,10 +410,10 @@ public class TablaLL1 {
                     if (prod.length() > anchoProduccion) {
                         prod = prod.substring(0, anchoProduccion - 3) + "...";
                     }
-                    sb.append(String.format("%-" + anchoProduccion + "s | ", prod));
+                    rellenar(sb, prod, anchoProduccion);
                 } else {
                     // Celda vacía
-                    sb.append(String.format("%-" + anchoProduccion + "s | ", "—"));
+                    rellenar(sb, "—", anchoProduccion);
                 }
             }
             sb.append("\n");
@@ -339,6 +440,20 @@ public class TablaLL1 {
         sb.append("  ε : Epsilon (cadena vacía)\n");
         sb.append("  $ : Fin de cadena\n");
         sb.append("  — : Sin producción para ese par [No Terminal, Terminal]\n\n");
-        return sb.toString();
+    }
+
+    /**
+     * Escribe una celda alineada a la izquierda con su separador de columna.
+     *
+     * @param sb Destino del texto
+     * @param texto Contenido de la celda
+     * @param ancho Ancho mínimo de la celda
+     */
+    private static void rellenar(Appendable sb, String texto, int ancho) throws IOException {
+        sb.append(texto);
+        for (int i = texto.length(); i < ancho; i++) {
+            sb.append(' ');
+        }
+        sb.append(" | ");
     }
 }
@@ -0,0 +1,320 @@
+package analizadorSintactico;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de símbolos con ámbitos anidados.
+ * Una única tabla de direccionamiento abierto (sondeo lineal) indexada por nombre
+ * guarda la declaración visible de cada identificador. Las declaraciones se apilan
+ * en un registro de deshacer: al salir de un ámbito se restauran las declaraciones
+ * ocultadas, sin crear un mapa por bloque.
+ *
+ * Entrar y salir de un ámbito cuesta O(1) amortizado por declaración.
+ * Opcionalmente consulta una tabla externa de solo lectura (el ámbito global
+ * compartido por las tareas que verifican funciones en paralelo).
+ *
+ * @author Sophia
+ */
+public class TablaSimbolos {
+
+    private static final int SIN_ENTRADA = -1;
+    private static final int CAPACIDAD_INICIAL = 64;
+
+    // Tabla hash: nombre -> índice de la declaración visible (SIN_ENTRADA si no hay)
+    private String[] claves;
+    private int[] visibles;
+    private int ocupadas;
+
+    // Registro de declaraciones (pila de deshacer)
+    private int[] entradaRanura;     // Ranura de la tabla hash del nombre
+    private String[] entradaTipo;
+    private int[] entradaLinea;
+    private int[] entradaNivel;
+    private int[] entradaSlot;       // Ranura local en la función (-1 si no aplica)
+    private int[] entradaAnterior;   // Declaración ocultada por esta (sombra)
+    private int totalEntradas;
+
+    // Pila de marcas: número de entradas al entrar a cada ámbito
+    private int[] marcas;
+    private int nivel;
+
+    // Tabla de solo lectura consultada cuando un nombre no es visible aquí
+    private TablaSimbolos externa;
+
+    //region CONSTRUCTOR
+
+    /**
+     * Constructor de la tabla de símbolos con el ámbito global abierto.
+     */
+    public TablaSimbolos() {
+        this.claves = new String[CAPACIDAD_INICIAL];
+        this.visibles = new int[CAPACIDAD_INICIAL];
+        this.entradaRanura = new int[CAPACIDAD_INICIAL];
+        this.entradaTipo = new String[CAPACIDAD_INICIAL];
+        this.entradaLinea = new int[CAPACIDAD_INICIAL];
+        this.entradaNivel = new int[CAPACIDAD_INICIAL];
+        this.entradaSlot = new int[CAPACIDAD_INICIAL];
+        this.entradaAnterior = new int[CAPACIDAD_INICIAL];
+        this.marcas = new int[16];
+        this.nivel = 0;
+        this.ocupadas = 0;
+        this.totalEntradas = 0;
+    }
+
+    /**
+     * Constructor de una tabla que, ante un nombre no declarado, consulta otra tabla.
+     * La tabla externa no debe modificarse mientras esta se utiliza.
+     *
+     * @param externa Tabla de solo lectura (ámbito global)
+     */
+    public TablaSimbolos(TablaSimbolos externa) {
+        this();
+        this.externa = externa;
+    }
+
+    //endregion
+
+    //region ÁMBITOS
+
+    /**
+     * Abre un nuevo ámbito (función o bloque).
+     */
+    public void entrarAmbito() {
+        if (nivel == marcas.length) {
+            marcas = Arrays.copyOf(marcas, marcas.length * 2);
+        }
+        marcas[nivel++] = totalEntradas;
+    }
+
+    /**
+     * Cierra el ámbito actual y restaura las declaraciones que ocultaba.
+     */
+    public void salirAmbito() {
+        if (nivel == 0) {
+            return; // El ámbito global no se cierra
+        }
+
+        int marca = marcas[--nivel];
+        while (totalEntradas > marca) {
+            totalEntradas--;
+            visibles[entradaRanura[totalEntradas]] = entradaAnterior[totalEntradas];
+            entradaTipo[totalEntradas] = null;
+        }
+    }
+
+    /**
+     * @return Nivel de anidamiento actual (0 = global)
+     */
+    public int getNivel() {
+        return nivel;
+    }
+
+    //endregion
+
+    //region DECLARACIÓN Y BÚSQUEDA
+
+    /**
+     * Declara un nombre en el ámbito actual.
+     *
+     * @param nombre Nombre del identificador
+     * @param tipo Tipo declarado
+     * @param linea Línea de la declaración
+     * @return false si el nombre ya estaba declarado en el mismo ámbito
+     */
+    public boolean declarar(String nombre, String tipo, int linea) {
+        return declarar(nombre, tipo, linea, -1);
+    }
+
+    /**
+     * Declara un nombre en el ámbito actual con su número de variable local.
+     *
+     * @param nombre Nombre del identificador
+     * @param tipo Tipo declarado
+     * @param linea Línea de la declaración
+     * @param slot Número de variable local dentro de la función (-1 si es global)
+     * @return false si el nombre ya estaba declarado en el mismo ámbito
+     */
+    public boolean declarar(String nombre, String tipo, int linea, int slot) {
+        int ranura = ranura(nombre, true);
+        int anterior = visibles[ranura];
+
+        if (anterior != SIN_ENTRADA && entradaNivel[anterior] == nivel) {
+            return false;
+        }
+
+        if (totalEntradas == entradaRanura.length) {
+            crecerEntradas();
+        }
+
+        int entrada = totalEntradas++;
+        entradaRanura[entrada] = ranura;
+        entradaTipo[entrada] = tipo;
+        entradaLinea[entrada] = linea;
+        entradaNivel[entrada] = nivel;
+        entradaSlot[entrada] = slot;
+        entradaAnterior[entrada] = anterior;
+        visibles[ranura] = entrada;
+        return true;
+    }
+
+    /**
+     * Busca el tipo de la declaración visible de un nombre.
+     *
+     * @param nombre Nombre del identificador
+     * @return Tipo declarado, o null si no es visible
+     */
+    public String buscarTipo(String nombre) {
+        int entrada = buscarEntrada(nombre);
+        if (entrada == SIN_ENTRADA) {
+            return externa != null ? externa.buscarTipo(nombre) : null;
+        }
+        return entradaTipo[entrada];
+    }
+
+    /**
+     * Verifica si un nombre es visible en el ámbito actual o en los que lo contienen.
+     */
+    public boolean estaDeclarado(String nombre) {
+        return buscarEntrada(nombre) != SIN_ENTRADA || (externa != null && externa.estaDeclarado(nombre));
+    }
+
+    /**
+     * Obtiene el nivel de la declaración visible de un nombre.
+     *
+     * @return Nivel de la declaración, o -1 si no es visible
+     */
+    public int buscarNivel(String nombre) {
+        int entrada = buscarEntrada(nombre);
+        if (entrada == SIN_ENTRADA) {
+            return externa != null ? externa.buscarNivel(nombre) : -1;
+        }
+        return entradaNivel[entrada];
+    }
+
+    /**
+     * Obtiene la línea de la declaración visible de un nombre.
+     *
+     * @return Línea de la declaración, o -1 si no es visible
+     */
+    public int buscarLinea(String nombre) {
+        int entrada = buscarEntrada(nombre);
+        if (entrada == SIN_ENTRADA) {
+            return externa != null ? externa.buscarLinea(nombre) : -1;
+        }
+        return entradaLinea[entrada];
+    }
+
+    /**
+     * Obtiene el número de variable local de la declaración visible de un nombre.
+     *
+     * @return Número de variable local, o -1 si es global o no es visible
+     */
+    public int buscarSlot(String nombre) {
+        int entrada = buscarEntrada(nombre);
+        if (entrada == SIN_ENTRADA) {
+            return externa != null ? externa.buscarSlot(nombre) : -1;
+        }
+        return entradaSlot[entrada];
+    }
+
+    /**
+     * @return Número de declaraciones visibles en todos los ámbitos abiertos
+     */
+    public int getTotalDeclaraciones() {
+        return totalEntradas;
+    }
+
+    //endregion
+
+    //region TABLA HASH
+
+    /**
+     * Índice de la declaración visible de un nombre.
+     */
+    private int buscarEntrada(String nombre) {
+        int ranura = ranura(nombre, false);
+        return ranura != SIN_ENTRADA ? visibles[ranura] : SIN_ENTRADA;
+    }
+
+    /**
+     * Busca la ranura del nombre por sondeo lineal.
+     * Los nombres nunca se eliminan; una ranura sin declaración visible queda en SIN_ENTRADA.
+     *
+     * @param nombre Nombre a buscar
+     * @param crear Si se reserva una ranura cuando el nombre no existe
+     * @return Ranura, o SIN_ENTRADA si no existe y no se crea
+     */
+    private int ranura(String nombre, boolean crear) {
+        if (crear && (ocupadas + 1) * 2 > claves.length) {
+            redimensionar();
+        }
+
+        int mascara = claves.length - 1;
+        int i = mezclar(nombre.hashCode()) & mascara;
+
+        while (claves[i] != null) {
+            if (claves[i].equals(nombre)) {
+                return i;
+            }
+            i = (i + 1) & mascara;
+        }
+
+        if (!crear) {
+            return SIN_ENTRADA;
+        }
+
+        claves[i] = nombre;
+        visibles[i] = SIN_ENTRADA;
+        ocupadas++;
+        return i;
+    }
+
+    /**
+     * Duplica la tabla hash y reubica las ranuras referenciadas por el registro.
+     */
+    private void redimensionar() {
+        String[] clavesAnteriores = claves;
+        int[] visiblesAnteriores = visibles;
+
+        claves = new String[clavesAnteriores.length * 2];
+        visibles = new int[clavesAnteriores.length * 2];
+        int mascara = claves.length - 1;
+        int[] nuevaRanura = new int[clavesAnteriores.length];
+
+        for (int j = 0; j < clavesAnteriores.length; j++) {
+            if (clavesAnteriores[j] == null) continue;
+
+            int i = mezclar(clavesAnteriores[j].hashCode()) & mascara;
+            while (claves[i] != null) {
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clavesAnteriores[j];
+            visibles[i] = visiblesAnteriores[j];
+            nuevaRanura[j] = i;
+        }
+
+        for (int e = 0; e < totalEntradas; e++) {
+            entradaRanura[e] = nuevaRanura[entradaRanura[e]];
+        }
+    }
+
+    private void crecerEntradas() {
+        int capacidad = entradaRanura.length * 2;
+        entradaRanura = Arrays.copyOf(entradaRanura, capacidad);
+        entradaTipo = Arrays.copyOf(entradaTipo, capacidad);
+        entradaLinea = Arrays.copyOf(entradaLinea, capacidad);
+        entradaNivel = Arrays.copyOf(entradaNivel, capacidad);
+        entradaSlot = Arrays.copyOf(entradaSlot, capacidad);
+        entradaAnterior = Arrays.copyOf(entradaAnterior, capacidad);
+    }
+
+    /**
+     * Dispersa los bits altos del hash para el sondeo lineal.
+     */
+    private static int mezclar(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    //endregion
+}
@@ -12,6 +12,8 @@ public class Token {
     private int linea;               // Línea donde aparece
     private int columna;             // Columna donde aparece
     private int numeroToken;         // Número secuencial del token
+    private int desplazamiento;      // Índice del primer carácter en el código fuente
+    private int longitud;            // Caracteres que ocupa en el código fuente
 
     //region CONSTRUCTOR
 
@@ -83,6 +85,25 @@ public class Token {
         this.numeroToken = numeroToken;
     }
 
+    public int getDesplazamiento() {
+        return desplazamiento;
+    }
+
+    public int getLongitud() {
+        return longitud;
+    }
+
+    /**
+     * Establece el rango que ocupa el token en el código fuente.
+     *
+     * @param desplazamiento Índice del primer carácter
+     * @param longitud Cantidad de caracteres
+     */
+    public void setRango(int desplazamiento, int longitud) {
+        this.desplazamiento = desplazamiento;
+        this.longitud = longitud;
+    }
+
     //endregion
 
     //region MÉTODOS DE VALIDACIÓN
@@ -2,6 +2,11 @@ console.log('✅ Script iniciado');
 
 let codigoFuente = '';
 let resultadosAnalisis = null;
+// Tabla LL(1) que devolvió el servidor en el último análisis (null: se usa GRAMATICA)
+let tablaServidor = null;
+
+// Servidor de análisis local (java app.Main --servidor); si no responde se analiza en la página
+const SERVIDOR_ANALISIS = 'http://127.0.0.1:8080';
 
 const GRAMATICA = {
     noTerminales: [
@@ -173,6 +178,71 @@ function analizar() {
     statusText.textContent = 'Analizando...';
     batteryLevel.textContent = '90%';
 
+    fetch(SERVIDOR_ANALISIS + '/analyze', { method: 'POST', body: codigoFuente })
+        .then(function(respuesta) {
+            if (!respuesta.ok) throw new Error('HTTP ' + respuesta.status);
+            return respuesta.json();
+        })
+        .then(mostrarAnalisisServidor)
+        .catch(function(error) {
+            console.log('Servidor no disponible (' + error.message + '), análisis local');
+            analizarLocal();
+        });
+}
+
+function mostrarAnalisisServidor(datos) {
+    const statusText = document.getElementById('status-text');
+    const batteryLevel = document.getElementById('battery-level');
+    const clasificacion = datos.clasificacion;
+
+    const errores = datos.diagnosticos.lista
+        .filter(function(d) { return !d.advertencia; })
+        .map(function(d) {
+            return { linea: d.linea !== null ? d.linea : '-', columna: d.columna, mensaje: d.mensaje };
+        });
+
+    resultadosAnalisis = {
+        tokens: datos.tokens.map(function(t) { return t.lexema; }),
+        errores: errores,
+        variables: Object.keys(clasificacion.variables).length,
+        funciones: clasificacion.funciones.length,
+        operadores: clasificacion.operadores.length,
+        simbolos: clasificacion.simbolos.length
+    };
+
+    document.getElementById('stat-tokens').textContent = resultadosAnalisis.tokens.length;
+    document.getElementById('stat-errores').textContent = datos.diagnosticos.total;
+    document.getElementById('class-variables').textContent = resultadosAnalisis.variables;
+    document.getElementById('class-funciones').textContent = resultadosAnalisis.funciones;
+    document.getElementById('class-operadores').textContent = resultadosAnalisis.operadores;
+    document.getElementById('class-simbolos').textContent = resultadosAnalisis.simbolos;
+
+    if (datos.diagnosticos.total === 0) {
+        statusText.textContent = 'Análisis completado sin errores';
+        batteryLevel.textContent = '100%';
+        mostrarNotificacion('¡Análisis completado exitosamente!');
+    } else {
+        statusText.textContent = '⚠️ ' + datos.diagnosticos.total + ' errores encontrados';
+        batteryLevel.textContent = '85%';
+        mostrarNotificacion('⚠️ Se encontraron ' + datos.diagnosticos.total + ' errores');
+    }
+
+    // Árbol real dibujado por el analizador
+    const treeContainer = document.getElementById('tree-container');
+    if (treeContainer) {
+        treeContainer.innerHTML = '<div style="width: 100%; height: 550px; overflow: auto; background: #fff; border-radius: 10px;">'
+            + datos.arbolSvg + '</div>';
+    }
+    tablaServidor = datos.tabla;
+    actualizarTablaPreview();
+
+    console.log('✅ Análisis completado (servidor)');
+}
+
+function analizarLocal() {
+    const statusText = document.getElementById('status-text');
+    const batteryLevel = document.getElementById('battery-level');
+
     setTimeout(function() {
         const tokens = codigoFuente.match(/\w+|[^\s\w]/g) || [];
         const errores = detectarErrores(codigoFuente);
@@ -208,6 +278,7 @@ function analizar() {
         }
 
         actualizarAreaArbol();
+        tablaServidor = null;
         actualizarTablaPreview();
 
         console.log('✅ Análisis completado');
@@ -303,9 +374,55 @@ function dibujarLinea(x1, y1, x2, y2) {
 
 function actualizarTablaPreview() {
     const tablaPreview = document.getElementById('tabla-preview-contenido');
-    if (tablaPreview) {
-        tablaPreview.innerHTML = '<p class="preview-text" style="color: #00d4ff; cursor: pointer;" onclick="document.getElementById(\'footer-tabla\').click()">✓ Ver Tabla LL(1) Completa</p>';
+    if (!tablaPreview) return;
+
+    let resumen = '';
+    if (tablaServidor) {
+        const tabla = tablaActual();
+        let celdas = 0;
+        tabla.noTerminales.forEach(function(noTerminal) {
+            celdas += Object.keys(tablaServidor.filas[noTerminal]).length;
+        });
+        resumen = '<p class="preview-text">' + tabla.noTerminales.length + ' no terminales × '
+            + tabla.terminales.length + ' terminales, ' + celdas + ' celdas</p>';
+        if (!tablaServidor.esLL1) {
+            resumen += '<p class="preview-text" style="color: #f87171;">⚠️ ' + tablaServidor.conflictos.length + ' conflictos</p>';
+        }
     }
+    tablaPreview.innerHTML = resumen + '<p class="preview-text" style="color: #00d4ff; cursor: pointer;" onclick="document.getElementById(\'footer-tabla\').click()">✓ Ver Tabla LL(1) Completa</p>';
+}
+
+/**
+ * Filas, columnas y celdas de la tabla a mostrar: la del servidor si la hay,
+ * si no la calculada en la página a partir de GRAMATICA.
+ */
+function tablaActual() {
+    if (!tablaServidor) {
+        return {
+            noTerminales: GRAMATICA.noTerminales,
+            terminales: GRAMATICA.terminales,
+            produccion: obtenerProduccionSimple
+        };
+    }
+
+    const noTerminales = Object.keys(tablaServidor.filas);
+    // Columnas en el orden de GRAMATICA; las que no conozca la página van al final
+    const terminales = GRAMATICA.terminales.slice();
+    noTerminales.forEach(function(noTerminal) {
+        Object.keys(tablaServidor.filas[noTerminal]).forEach(function(terminal) {
+            if (!terminales.includes(terminal)) terminales.push(terminal);
+        });
+    });
+
+    return {
+        noTerminales: noTerminales,
+        terminales: terminales,
+        produccion: function(noTerminal, terminal) {
+            const celda = tablaServidor.filas[noTerminal][terminal];
+            // El servidor escribe "NoTerminal → producción"
+            return celda ? celda.substring(noTerminal.length + 3) : null;
+        }
+    };
 }
 
 function generarTablaLL1HTML() {
@@ -314,18 +431,20 @@ function generarTablaLL1HTML() {
     html += '<thead><tr style="background: #16213e; position: sticky; top: 0;">';
     html += '<th style="padding: 10px; border: 1px solid #00d4ff; text-align: center;">No Terminal</th>';
 
-    GRAMATICA.terminales.forEach(function(terminal) {
+    const tabla = tablaActual();
+    tabla.terminales.forEach(function(terminal) {
         html += '<th style="padding: 10px; border: 1px solid #00d4ff; text-align: center;">' + terminal + '</th>';
     });
 
     html += '</tr></thead><tbody>';
 
-    GRAMATICA.noTerminales.forEach(function(noTerminal) {
+    tabla.noTerminales.forEach(function(noTerminal) {
         html += '<tr>';
         html += '<td style="padding: 10px; border: 1px solid #00d4ff; font-weight: bold; background: #16213e; color: #00d4ff;">' + noTerminal + '</td>';
 
-        GRAMATICA.terminales.forEach(function(terminal) {
-            const produccion = obtenerProduccion(noTerminal, terminal);
+        tabla.terminales.forEach(function(terminal) {
+            const cuerpo = tabla.produccion(noTerminal, terminal);
+            const produccion = cuerpo ? noTerminal + ' → ' + cuerpo : null;
             const cellStyle = produccion ?
                 'padding: 8px; border: 1px solid #444; text-align: center; font-size: 11px; background: #1a4d2e; color: #4ade80;' :
                 'padding: 8px; border: 1px solid #444; text-align: center; font-size: 11px; background: #16213e; color: #666;';
@@ -340,37 +459,6 @@ function generarTablaLL1HTML() {
     return html;
 }
 
-function obtenerProduccion(noTerminal, terminal) {
-    const primero = GRAMATICA.primero[noTerminal] || [];
-    const siguiente = GRAMATICA.siguiente[noTerminal] || [];
-    const producciones = GRAMATICA.producciones[noTerminal] || [];
-
-    for (let i = 0; i < producciones.length; i++) {
-        const prod = producciones[i];
-        const primerSimbolo = prod[0];
-
-        if (primerSimbolo === terminal) {
-            return noTerminal + ' → ' + prod.join(' ');
-        }
-
-        if (primerSimbolo === 'ε' && siguiente.includes(terminal)) {
-            return noTerminal + ' → ε';
-        }
-
-        if (primerSimbolo !== 'ε' && primero.includes(terminal)) {
-            if (GRAMATICA.primero[primerSimbolo] && GRAMATICA.primero[primerSimbolo].includes(terminal)) {
-                return noTerminal + ' → ' + prod.join(' ');
-            }
-        }
-    }
-
-    if (primero.includes('ε') && siguiente.includes(terminal)) {
-        return noTerminal + ' → ε';
-    }
-
-    return null;
-}
-
 function configurarDescargas() {
     document.getElementById('btn-download-errores').addEventListener('click', function() {
         if (!resultadosAnalisis) {
@@ -403,7 +491,8 @@ function generarReporteErrores() {
         reporte += '✓ No se encontraron errores\n';
     } else {
         resultadosAnalisis.errores.forEach(function(error, i) {
-            reporte += (i + 1) + '. Línea ' + error.linea + ': ' + error.mensaje + '\n';
+            const columna = error.columna ? ', columna ' + error.columna : '';
+            reporte += (i + 1) + '. Línea ' + error.linea + columna + ': ' + error.mensaje + '\n';
         });
     }
 
@@ -416,23 +505,24 @@ function generarTablaTexto() {
     const w1 = 18;
     const w2 = 15;
 
+    const tabla = tablaActual();
     texto += padRight('NO TERMINAL', w1) + ' | ';
-    GRAMATICA.terminales.forEach(function(terminal) {
+    tabla.terminales.forEach(function(terminal) {
         texto += padCenter(terminal, w2) + ' | ';
     });
     texto += '\n';
 
     texto += '-'.repeat(w1) + '-+-';
-    GRAMATICA.terminales.forEach(function() {
+    tabla.terminales.forEach(function() {
         texto += '-'.repeat(w2) + '-+-';
     });
     texto += '\n';
 
-    GRAMATICA.noTerminales.forEach(function(noTerminal) {
+    tabla.noTerminales.forEach(function(noTerminal) {
         texto += padRight(noTerminal, w1) + ' | ';
 
-        GRAMATICA.terminales.forEach(function(terminal) {
-            const prod = obtenerProduccionSimple(noTerminal, terminal);
+        tabla.terminales.forEach(function(terminal) {
+            const prod = tabla.produccion(noTerminal, terminal);
             texto += padCenter(prod || '-', w2) + ' | ';
         });
 